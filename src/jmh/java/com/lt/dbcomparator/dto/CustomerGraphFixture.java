@@ -0,0 +1,92 @@
+package com.lt.dbcomparator.dto;
+
+import com.lt.dbcomparator.entity.Customer;
+import com.lt.dbcomparator.entity.CustomerProfile;
+import com.lt.dbcomparator.entity.Order;
+import com.lt.dbcomparator.entity.OrderItem;
+import com.lt.dbcomparator.entity.Product;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Граф клиента для бенчмарков маппинга — той же формы, что пишет генератор:
+ * профиль, {@code orders} заказов по {@code itemsPerOrder} позиций, у
+ * каждой позиции свой товар.
+ */
+final class CustomerGraphFixture {
+
+    private CustomerGraphFixture() {
+    }
+
+    static Customer customer(int orders, int itemsPerOrder) {
+        LocalDateTime now = LocalDateTime.of(2026, 1, 1, 12, 0, 0, 123_456_000);
+        Customer customer = Customer.builder()
+                .id(1L)
+                .firstName("Alexander")
+                .lastName("Ivanov")
+                .email("alexander.ivanov1@test.com")
+                .phone("+79001234567")
+                .dateOfBirth(LocalDate.of(1985, 5, 17))
+                .registeredAt(now)
+                .status("ACTIVE")
+                .loyaltyPoints(1250)
+                .country("Russia")
+                .build();
+        customer.setProfile(CustomerProfile.builder()
+                .id(1L)
+                .customer(customer)
+                .avatarUrl("https://avatar.example.com/1.png")
+                .bio("Bio for customer 1")
+                .preferredLanguage("ru")
+                .notificationsEnabled(true)
+                .address("Street 12, apt 34")
+                .city("Moscow")
+                .zipCode("101000")
+                .build());
+
+        long itemId = 1;
+        for (long o = 1; o <= orders; o++) {
+            Order order = Order.builder()
+                    .id(o)
+                    .customer(customer)
+                    .orderNumber("ORD-" + o)
+                    .orderDate(now.minusDays(o))
+                    .status("DELIVERED")
+                    .totalAmount(BigDecimal.valueOf(1234567, 2))
+                    .currency("RUB")
+                    .shippingAddress("Moscow, Street 12")
+                    .notes(o % 2 == 0 ? "Express delivery" : null)
+                    .expectedDelivery(LocalDate.of(2026, 1, 5))
+                    .build();
+            for (int i = 0; i < itemsPerOrder; i++, itemId++) {
+                order.getItems().add(OrderItem.builder()
+                        .id(itemId)
+                        .order(order)
+                        .product(product(itemId))
+                        .quantity(2)
+                        .unitPrice(BigDecimal.valueOf(49900, 2))
+                        .totalPrice(BigDecimal.valueOf(99800, 2))
+                        .discount(BigDecimal.valueOf(500, 2))
+                        .createdAt(now)
+                        .build());
+            }
+            customer.getOrders().add(order);
+        }
+        return customer;
+    }
+
+    private static Product product(long id) {
+        return Product.builder()
+                .id(id)
+                .name("Product " + id)
+                .sku("SKU-" + String.format("%06d", id))
+                .description("Description for product " + id)
+                .price(BigDecimal.valueOf(49900, 2))
+                .category("Electronics")
+                .weight(1.25)
+                .inStock(true)
+                .build();
+    }
+}
@@ -0,0 +1,59 @@
+package com.lt.dbcomparator.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lt.dbcomparator.entity.Customer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сборка {@link CustomerResponse} на стороне приложения, без БД.
+ * <p>
+ * {@code fromEntity} — {@link CustomerResponse#from} из графа сущностей
+ * (стратегия ENTITY_GRAPH, без Hibernate). {@code fromJson} — разбор
+ * JSON-документа графа Jackson'ом, как в getById (JSON_AGG). ObjectMapper —
+ * с настройками Spring Boot по умолчанию; документ получен сериализацией
+ * того же графа, поэтому даты — в ISO-формате, как их печатает PostgreSQL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CustomerResponseBenchmark {
+
+    // Генератор пишет 1–5 заказов по 2–7 позиций; 3 × 5 — около среднего
+    @Param({ "1", "3", "5" })
+    int orders;
+
+    @Param({ "5" })
+    int itemsPerOrder;
+
+    private Customer entity;
+    private ObjectMapper objectMapper;
+    private String json;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        entity = CustomerGraphFixture.customer(orders, itemsPerOrder);
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        json = objectMapper.writeValueAsString(CustomerResponse.from(entity));
+    }
+
+    @Benchmark
+    public CustomerResponse fromEntity() {
+        return CustomerResponse.from(entity);
+    }
+
+    @Benchmark
+    public CustomerResponse fromJson() throws Exception {
+        return objectMapper.readValue(json, CustomerResponse.class);
+    }
+}
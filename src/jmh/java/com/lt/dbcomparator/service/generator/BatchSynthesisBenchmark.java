@@ -0,0 +1,89 @@
+package com.lt.dbcomparator.service.generator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * CPU-часть батча генератора без БД.
+ * <p>
+ * {@code synthesize} — {@link BatchSynthesizer#fill}: только примитивы в
+ * колонки буфера, аллокаций на батч быть не должно (после прогрева буфер
+ * переиспользуется). {@code bindInsert} — синтез плюс bind всех строк
+ * методами {@link InsertWriteStrategy}: здесь создаются строки, BigDecimal,
+ * Timestamp и LocalDate. PreparedStatement — заглушка на {@link Proxy}, её
+ * стоимость (массив аргументов, боксинг) постоянна на вызов и входит в
+ * результат; сравнивать имеет смысл прогоны между собой.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BatchSynthesisBenchmark {
+
+    @Param({ "100", "1000" })
+    int batchSize;
+
+    private final BatchBuffer batch = new BatchBuffer();
+    private final SplittableRandom random = new SplittableRandom(42);
+    private final long[] productIds = LongStream.rangeClosed(1, 200).toArray();
+    private final LocalDateTime now = LocalDateTime.of(2026, 1, 1, 12, 0);
+    private PreparedStatement statement;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole bh) {
+        // Все set*(index, value) отдают значение в Blackhole — JIT не может выбросить bind
+        statement = (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class },
+                (proxy, method, args) -> {
+                    if (args != null && args.length == 2) {
+                        bh.consume(args[1]);
+                    }
+                    return null;
+                });
+    }
+
+    @Benchmark
+    public BatchBuffer synthesize() {
+        fill();
+        return batch;
+    }
+
+    @Benchmark
+    public BatchBuffer bindInsert() throws SQLException {
+        fill();
+        batch.assignIds(1, 1, 1, 1);
+        Timestamp nowTs = Timestamp.valueOf(batch.now);
+        for (int c = 0; c < batch.customers; c++) {
+            InsertWriteStrategy.bindCustomer(statement, 0, batch, c, nowTs);
+            InsertWriteStrategy.bindProfile(statement, 0, batch, c);
+        }
+        for (int o = 0; o < batch.orders; o++) {
+            InsertWriteStrategy.bindOrder(statement, 0, batch, o);
+        }
+        for (int i = 0; i < batch.items; i++) {
+            InsertWriteStrategy.bindItem(statement, 0, batch, i, nowTs);
+        }
+        return batch;
+    }
+
+    private void fill() {
+        BatchSynthesizer.fill(batch, batchSize, productIds, random, now);
+    }
+}
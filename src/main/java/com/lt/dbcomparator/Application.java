@@ -2,8 +2,13 @@ package com.lt.dbcomparator;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
-@SpringBootApplication
+// Пул R2DBC создаёт ReactiveCustomerService: бин ConnectionFactory из
+// автоконфигурации отключил бы JDBC DataSource
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
+@ConfigurationPropertiesScan
 public class Application {
 
 	public static void main(String[] args) {
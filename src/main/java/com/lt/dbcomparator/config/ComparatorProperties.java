@@ -0,0 +1,33 @@
+package com.lt.dbcomparator.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Дополнительные БД для сравнения ({@code comparator.targets.<имя>.*}).
+ * <p>
+ * Основная БД ({@code spring.datasource}) всегда доступна как цель
+ * {@code primary}; здесь перечисляются остальные — у каждой свой пул Hikari.
+ */
+@Data
+@ConfigurationProperties(prefix = "comparator")
+public class ComparatorProperties {
+
+    private Map<String, Target> targets = new LinkedHashMap<>();
+
+    @Data
+    public static class Target {
+
+        private String url;
+        private String username;
+        private String password;
+
+        /**
+         * Размер пула соединений цели.
+         */
+        private int maximumPoolSize = 10;
+    }
+}
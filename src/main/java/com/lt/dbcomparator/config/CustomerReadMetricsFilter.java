@@ -0,0 +1,95 @@
+package com.lt.dbcomparator.config;
+
+import com.lt.dbcomparator.service.generator.ThreadAllocation;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Стоимость GET /api/customers/{id} на стороне приложения — для сравнения
+ * ответа через {@code CustomerResponse} (разбор JSON из БД + сериализация
+ * Jackson) с отдачей байтов из БД как есть (/{id}/raw).
+ * <p>
+ * Замер охватывает весь запрос в потоке сервлета, включая запись тела
+ * ответа конвертером: CPU-время потока, байты аллокаций и полное время
+ * (с перцентилями). Тег {@code format}: {@code mapped} / {@code raw}.
+ * CPU и аллокации не включают ожидание БД — это именно работа приложения.
+ */
+@Component
+public class CustomerReadMetricsFilter extends OncePerRequestFilter {
+
+    private static final Pattern GET_BY_ID = Pattern.compile("^/api/customers/\\d+(/raw)?$");
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final boolean cpuSupported;
+
+    private final Timer[] durations = new Timer[2];
+    private final Timer[] cpu = new Timer[2];
+    private final DistributionSummary[] allocated = new DistributionSummary[2];
+
+    public CustomerReadMetricsFilter(MeterRegistry meterRegistry) {
+        this.cpuSupported = threads.isCurrentThreadCpuTimeSupported();
+        if (cpuSupported && !threads.isThreadCpuTimeEnabled()) {
+            threads.setThreadCpuTimeEnabled(true);
+        }
+        String[] formats = { "mapped", "raw" };
+        for (int f = 0; f < formats.length; f++) {
+            durations[f] = Timer.builder("customers.get_by_id.duration")
+                    .description("Время обработки GET /api/customers/{id} в приложении, включая запись ответа")
+                    .tag("format", formats[f])
+                    .publishPercentiles(0.5, 0.99, 0.999)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            cpu[f] = Timer.builder("customers.get_by_id.cpu")
+                    .description("CPU-время потока сервлета на запрос GET /api/customers/{id}")
+                    .tag("format", formats[f])
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+            allocated[f] = DistributionSummary.builder("customers.get_by_id.allocated")
+                    .description("Байт, аллоцированных потоком сервлета на запрос GET /api/customers/{id}")
+                    .baseUnit("bytes")
+                    .tag("format", formats[f])
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"GET".equals(request.getMethod()) || !GET_BY_ID.matcher(request.getRequestURI()).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Matcher m = GET_BY_ID.matcher(request.getRequestURI());
+        int f = m.matches() && m.group(1) != null ? 1 : 0;
+
+        long startNs = System.nanoTime();
+        long cpuStart = cpuSupported ? threads.getCurrentThreadCpuTime() : -1;
+        long allocStart = ThreadAllocation.currentThreadAllocatedBytes();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            durations[f].record(System.nanoTime() - startNs, TimeUnit.NANOSECONDS);
+            if (cpuSupported) {
+                cpu[f].record(threads.getCurrentThreadCpuTime() - cpuStart, TimeUnit.NANOSECONDS);
+            }
+            if (allocStart >= 0) {
+                allocated[f].record(ThreadAllocation.currentThreadAllocatedBytes() - allocStart);
+            }
+        }
+    }
+}
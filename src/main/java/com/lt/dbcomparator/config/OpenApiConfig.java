@@ -21,8 +21,18 @@ public class OpenApiConfig {
 
                                         **Генерация данных** — запускается через POST /api/generator/start с параметрами нагрузки.
 
+                                        **Поиск предела** — POST /api/capacity/start поднимает темп генератора шагами и находит максимум при заданной p99, калибруя стоимость батча для проверки /start.
+
+                                        **Предзаполнение** — POST /api/prefill/start записывает заданное число клиентов без ограничения темпа, с возобновлением по диапазонам ID.
+
                                         **Чтение** — GET /api/customers/{id} возвращает клиента со связями (Profile, Orders, Items, Products).
 
+                                        **Нагрузка на чтение** — POST /api/reader/start вызывает чтение клиентов в процессе приложения с заданным темпом и распределением ключей.
+
+                                        **Сравнение БД** — POST /api/compare/start подаёт одну нагрузку генератора на несколько БД (comparator.targets) и показывает разницу.
+
+                                        **История прогонов** — GET /api/runs хранит итоги каждого прогона генератора, GET /api/runs/compare ищет регрессии скорости и p99 между прогонами.
+
                                         **Метрики** — /actuator/prometheus, /actuator/metrics
                                         """)
                         .contact(new Contact().name("Demo Team")));
@@ -0,0 +1,44 @@
+package com.lt.dbcomparator.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Отдельные пулы соединений к основной БД ({@code pools.*}).
+ * <p>
+ * Основной пул {@code spring.datasource} — пул чтения {@code reader}: API
+ * клиентов, JPA, нагрузка на чтение. Запись генератора и предзаполнения идёт
+ * через {@code writer}, история прогонов, калибровка и резервирование блоков
+ * ID — через {@code admin}.
+ * С {@code isolated: false} все роли делят основной пул.
+ */
+@Data
+@ConfigurationProperties(prefix = "pools")
+public class PoolProperties {
+
+    private boolean isolated = true;
+    private Pool writer = new Pool(20, 5);
+    private Pool admin = new Pool(2, 1);
+
+    @Data
+    public static class Pool {
+
+        /**
+         * Размер пула.
+         */
+        private int maximumPoolSize;
+
+        /**
+         * Минимум простаивающих соединений.
+         */
+        private int minimumIdle;
+
+        public Pool() {
+        }
+
+        Pool(int maximumPoolSize, int minimumIdle) {
+            this.maximumPoolSize = maximumPoolSize;
+            this.minimumIdle = minimumIdle;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.lt.dbcomparator.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Неблокирующее чтение клиентов через R2DBC ({@code reactive.*}).
+ * <p>
+ * Пул R2DBC открывается к той же БД, что и {@code spring.datasource}: URL
+ * JDBC переводится в {@code r2dbc:postgresql://...}, если {@code url} не
+ * задан явно.
+ */
+@Data
+@ConfigurationProperties(prefix = "reactive")
+public class ReactiveProperties {
+
+    /**
+     * URL R2DBC; пусто — из {@code spring.datasource.url}.
+     */
+    private String url;
+
+    /**
+     * Размер пула соединений R2DBC.
+     */
+    private int maxSize = 20;
+
+    /**
+     * Соединений, открываемых при первом запросе.
+     */
+    private int initialSize = 5;
+}
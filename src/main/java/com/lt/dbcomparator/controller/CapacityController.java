@@ -0,0 +1,81 @@
+package com.lt.dbcomparator.controller;
+
+import com.lt.dbcomparator.dto.CapacityRequest;
+import com.lt.dbcomparator.dto.CapacityStatusResponse;
+import com.lt.dbcomparator.service.capacity.CapacityService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Поиск максимального устойчивого темпа генератора.
+ */
+@Tag(name = "Capacity", description = "Поиск предела темпа генератора и калибровка стоимости батча")
+@RestController
+@RequestMapping("/api/capacity")
+@RequiredArgsConstructor
+public class CapacityController {
+
+  private final CapacityService capacityService;
+
+  @Operation(summary = "Запустить поиск предела", description = """
+      Гоняет генератор шагами: темп растёт в stepFactor раз до первого шага, где p99 выше targetP99Ms,
+      ошибок или пропусков больше допустимого или записано меньше 90% поданного; затем бинарный поиск
+      между последним устойчивым и первым неустойчивым темпом. С calibrate=true перед разгоном замеряется
+      стоимость батча — после поиска /api/generator/start проверяет темп по ней, а не по эвристике.
+      """, requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(content = @Content(examples = {
+      @ExampleObject(name = "INSERT, p99 ≤ 200 мс", summary = "Шаги по 30 сек, с калибровкой", value = """
+          {
+            "load": {
+              "batchSize": 100,
+              "workerThreads": 8,
+              "writeMode": "INSERT"
+            },
+            "targetP99Ms": 200,
+            "startRate": 5,
+            "stepFactor": 1.5
+          }
+          """),
+      @ExampleObject(name = "Быстрая оценка", summary = "Короткие шаги, без калибровки", value = """
+          {
+            "load": {
+              "batchSize": 500,
+              "writeMode": "COPY"
+            },
+            "targetP99Ms": 500,
+            "stepSeconds": 10,
+            "refineSteps": 2,
+            "calibrate": false
+          }
+          """)
+  })))
+  @PostMapping("/start")
+  public ResponseEntity<String> start(@RequestBody CapacityRequest request) {
+    try {
+      capacityService.start(request);
+      return ResponseEntity.ok("Поиск предела запущен");
+    } catch (IllegalStateException e) {
+      return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().body(e.getMessage());
+    }
+  }
+
+  @Operation(summary = "Остановить поиск", description = "Останавливает текущий шаг; пройденные шаги остаются в статусе, калибровка не сохраняется.")
+  @PostMapping("/stop")
+  public ResponseEntity<String> stop() {
+    capacityService.stop();
+    return ResponseEntity.ok("Поиск предела остановлен");
+  }
+
+  @Operation(summary = "Статус поиска", description = "Фаза, результаты шагов, найденный предел и что его ограничило, калибровка.")
+  @GetMapping("/status")
+  public ResponseEntity<CapacityStatusResponse> status() {
+    return ResponseEntity.ok(capacityService.getStatus());
+  }
+}
@@ -0,0 +1,79 @@
+package com.lt.dbcomparator.controller;
+
+import com.lt.dbcomparator.dto.CompareRequest;
+import com.lt.dbcomparator.dto.CompareStatusResponse;
+import com.lt.dbcomparator.service.CompareService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Сравнение нескольких БД одной нагрузкой генератора.
+ */
+@Tag(name = "Compare", description = "Запуск / остановка / статус сравнения БД")
+@RestController
+@RequestMapping("/api/compare")
+@RequiredArgsConstructor
+public class CompareController {
+
+  private final CompareService compareService;
+
+  @Operation(summary = "Запустить сравнение", description = """
+      Подаёт одну нагрузку генератора на несколько целей из comparator.targets (primary — основная БД).
+      Данные во всех целях одинаковые (общий seed), у каждой цели свой пул и свои метрики.
+      Первая цель в списке — база для отчёта о разнице.
+      """, requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(content = @Content(examples = {
+      @ExampleObject(name = "Одновременно", summary = "Все цели параллельно, 5 минут", value = """
+          {
+            "load": {
+              "batchSize": 100,
+              "batchesPerSecond": 20,
+              "durationMinutes": 5
+            },
+            "seed": 42
+          }
+          """),
+      @ExampleObject(name = "По очереди", summary = "primary, затем secondary, COPY", value = """
+          {
+            "load": {
+              "batchSize": 500,
+              "batchesPerSecond": 10,
+              "durationMinutes": 5,
+              "writeMode": "COPY",
+              "workerThreads": 4
+            },
+            "targets": ["primary", "secondary"],
+            "sequential": true
+          }
+          """)
+  })))
+  @PostMapping("/start")
+  public ResponseEntity<String> start(@RequestBody CompareRequest request) {
+    try {
+      compareService.start(request);
+      return ResponseEntity.ok("Сравнение запущено");
+    } catch (IllegalStateException e) {
+      return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().body(e.getMessage());
+    }
+  }
+
+  @Operation(summary = "Остановить сравнение", description = "Останавливает нагрузку на все цели.")
+  @PostMapping("/stop")
+  public ResponseEntity<String> stop() {
+    compareService.stop();
+    return ResponseEntity.ok("Сравнение остановлено");
+  }
+
+  @Operation(summary = "Статус сравнения", description = "Результаты по целям и разница с базовой целью.")
+  @GetMapping("/status")
+  public ResponseEntity<CompareStatusResponse> status() {
+    return ResponseEntity.ok(compareService.getStatus());
+  }
+}
@@ -1,17 +1,27 @@
 package com.lt.dbcomparator.controller;
 
+import com.lt.dbcomparator.dto.CountStrategy;
+import com.lt.dbcomparator.dto.CustomerKeysetPage;
 import com.lt.dbcomparator.dto.CustomerResponse;
+import com.lt.dbcomparator.dto.ReadMode;
+import com.lt.dbcomparator.service.CustomerCache;
+import com.lt.dbcomparator.service.CustomerExportService;
 import com.lt.dbcomparator.service.CustomerService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.util.List;
+
 /**
  * Чтение данных клиентов — для нагрузочного тестирования на чтение.
  */
@@ -22,18 +32,112 @@ import org.springframework.web.bind.annotation.*;
 public class CustomerController {
 
     private final CustomerService customerService;
+    private final CustomerCache customerCache;
+    private final CustomerExportService exportService;
 
-    @Operation(summary = "Получить клиента по ID", description = "Возвращает клиента со всем графом: Profile, Orders → Items → Products.")
+    @Operation(summary = "Получить клиента по ID", description = """
+            Возвращает клиента со всем графом: Profile, Orders → Items → Products.
+            strategy — способ чтения графа (по умолчанию customers.read.strategy); явно заданная стратегия читает мимо кэша.
+            Время и CPU каждой стратегии — метрики customers.read.duration / customers.read.cpu.
+            """)
     @GetMapping("/{id}")
     public ResponseEntity<CustomerResponse> getById(
-            @Parameter(description = "ID клиента", example = "1") @PathVariable Long id) {
-        return ResponseEntity.ok(customerService.getById(id));
+            @Parameter(description = "ID клиента", example = "1") @PathVariable Long id,
+            @Parameter(description = "Способ чтения графа (по умолчанию — customers.read.strategy)") @RequestParam(required = false) ReadMode strategy) {
+        return ResponseEntity.ok(customerService.getById(id, strategy));
+    }
+
+    @Operation(summary = "Получить клиента по ID без маппинга", description = """
+            Тот же граф, что /{id}, но JSON-документ из PostgreSQL отдаётся в ответ байтами как есть —
+            без разбора в CustomerResponse и повторной сериализации. Даты и числа — в формате PostgreSQL.
+            """)
+    @GetMapping(value = "/{id}/raw", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getRawById(
+            @Parameter(description = "ID клиента", example = "1") @PathVariable Long id,
+            @Parameter(description = "Убрать null-поля на стороне БД (json_strip_nulls)") @RequestParam(defaultValue = "false") boolean stripNulls) {
+        return ResponseEntity.ok(customerService.getRawById(id, stripNulls));
+    }
+
+    @Operation(summary = "Получить нескольких клиентов по ID", description = """
+            Графы всех клиентов одним set-based запросом (= ANY(bigint[]) + группировка),
+            JSON-массивом по мере чтения из БД. Порядок — по ID, несуществующие ID пропускаются.
+            """)
+    @GetMapping("/batch")
+    public void getByIds(
+            @Parameter(description = "ID клиентов через запятую, до 1000", example = "1,2,3") @RequestParam List<Long> ids,
+            HttpServletResponse response) throws IOException {
+        writeGraphs(ids, response);
     }
 
-    @Operation(summary = "Страничная выдача клиентов", description = "Клиенты без связей. Используйте параметры page и size.")
+    @Operation(summary = "Получить нескольких клиентов по ID (список в теле)", description = "То же, что GET /batch, — для длинных списков ID.")
+    @PostMapping("/batch")
+    public void postByIds(@RequestBody List<Long> ids, HttpServletResponse response) throws IOException {
+        writeGraphs(ids, response);
+    }
+
+    @Operation(summary = "Выгрузить всех клиентов в NDJSON", description = """
+            Вся таблица по документу на строку с постоянным расходом памяти: диапазон ID делится на partitions частей,
+            каждая читается своим соединением через серверный курсор (read-only транзакция + fetchSize).
+            Строки разных частей перемежаются. Скорость скана — метрики export.rows / export.bytes / export.duration.
+            """)
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void export(
+            @Parameter(description = "Полный граф клиента (как /{id}) вместо полей клиента") @RequestParam(defaultValue = "false") boolean graph,
+            @Parameter(description = "Параллельных диапазонов ID (и соединений), до 16", example = "4") @RequestParam(defaultValue = "4") int partitions,
+            @Parameter(description = "Строк на одну выборку из курсора", example = "1000") @RequestParam(defaultValue = "1000") int fetchSize,
+            HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        exportService.export(graph, partitions, fetchSize, response.getOutputStream());
+    }
+
+    @Operation(summary = "Страничная выдача клиентов", description = """
+            Клиенты без связей. Используйте параметры page и size.
+            OFFSET проходит все предыдущие строки — для глубоких страниц используйте /keyset.
+            """)
     @GetMapping
     public ResponseEntity<Page<CustomerResponse>> getAll(
-            @PageableDefault(page = 0, size = 20) Pageable pageable) {
-        return ResponseEntity.ok(customerService.getAll(pageable));
+            @PageableDefault(page = 0, size = 20) Pageable pageable,
+            @Parameter(description = "Подсчёт totalElements (по умолчанию — customers.count.strategy)") @RequestParam(required = false) CountStrategy count) {
+        return ResponseEntity.ok(customerService.getAll(pageable, count));
+    }
+
+    @Operation(summary = "Страничная выдача по курсору", description = """
+            Keyset-пагинация: WHERE id > последний ID предыдущей страницы.
+            Время ответа не зависит от глубины страницы и размера таблицы.
+            Первая страница — без cursor, следующая — с nextCursor из ответа.
+            """)
+    @GetMapping("/keyset")
+    public ResponseEntity<CustomerKeysetPage> getKeysetPage(
+            @Parameter(description = "Курсор из nextCursor предыдущей страницы") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы", example = "20") @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Подсчёт totalElements (по умолчанию — customers.count.strategy)") @RequestParam(required = false) CountStrategy count) {
+        return ResponseEntity.ok(customerService.getKeysetPage(cursor, size, count));
+    }
+
+    @Operation(summary = "Сбросить кэш клиента", description = "Удаляет граф клиента из кэша приложения (если кэш включён).")
+    @DeleteMapping("/cache/{id}")
+    public ResponseEntity<Void> evict(
+            @Parameter(description = "ID клиента", example = "1") @PathVariable Long id) {
+        customerCache.invalidate(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(summary = "Сбросить весь кэш клиентов", description = "Следующие getById пойдут в БД — замер холодного пути.")
+    @DeleteMapping("/cache")
+    public ResponseEntity<Void> evictAll() {
+        customerCache.invalidateAll();
+        return ResponseEntity.noContent().build();
+    }
+
+    private void writeGraphs(List<Long> ids, HttpServletResponse response) throws IOException {
+        // Пишем прямо в ответ, поток сервлета — ошибки валидации успевают
+        // стать 400 до первого байта
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        customerService.writeGraphs(ids, response.getOutputStream());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
     }
 }
@@ -27,6 +27,8 @@ public class GeneratorController {
       Запускает генерацию тестовых данных в фоне.
       Параметры задаются в теле запроса.
       Каждый батч создаёт: N клиентов + N профилей + ~3N заказов + ~13.5N позиций.
+      Вместо постоянного batchesPerSecond можно задать profile — фазы со своей кривой темпа и размером батча.
+      Остановка — по durationMinutes, концу профиля, maxRecords или maxBatches, что наступит раньше.
       """, requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(content = @Content(examples = {
       @ExampleObject(name = "Средняя нагрузка", summary = "500 записей/сек на 10 минут", value = """
           {
@@ -48,6 +50,24 @@ public class GeneratorController {
             "batchesPerSecond": 1,
             "durationMinutes": 1
           }
+          """),
+      @ExampleObject(name = "Профиль: разгон, всплеск, волна", summary = "Фазы по секундам вместо постоянного темпа", value = """
+          {
+            "batchSize": 100,
+            "profile": [
+              { "name": "ramp", "durationSeconds": 120, "shape": "RAMP", "rate": 1, "peakRate": 10 },
+              { "name": "spike", "durationSeconds": 60, "shape": "SPIKE", "rate": 10, "peakRate": 40,
+                "spikeAtSeconds": 20, "spikeSeconds": 10, "batchSize": 50 },
+              { "name": "wave", "durationSeconds": 300, "shape": "SINE", "rate": 5, "peakRate": 15, "periodSeconds": 60 }
+            ]
+          }
+          """),
+      @ExampleObject(name = "До миллиона записей", summary = "Остановка по числу записей, а не по времени", value = """
+          {
+            "batchSize": 100,
+            "batchesPerSecond": 10,
+            "maxRecords": 1000000
+          }
           """)
   })))
   @PostMapping("/start")
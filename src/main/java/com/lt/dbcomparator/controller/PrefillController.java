@@ -0,0 +1,89 @@
+package com.lt.dbcomparator.controller;
+
+import com.lt.dbcomparator.dto.PrefillRequest;
+import com.lt.dbcomparator.dto.PrefillStatusResponse;
+import com.lt.dbcomparator.service.prefill.PrefillService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Предзаполнение БД большим объёмом данных.
+ */
+@Tag(name = "Prefill", description = "Запуск / возобновление / остановка / статус предзаполнения")
+@RestController
+@RequestMapping("/api/prefill")
+@RequiredArgsConstructor
+public class PrefillController {
+
+  private final PrefillService prefillService;
+
+  @Operation(summary = "Запустить предзаполнение", description = """
+      Записывает заданное число графов клиентов без ограничения темпа: диапазон ID делится на куски,
+      каждое соединение пишет свой отрезок. По умолчанию индексы idx_order_* / idx_item_* и ключи fk_item_*
+      снимаются на время загрузки и строятся заново параллельно.
+      """, requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(content = @Content(examples = {
+      @ExampleObject(name = "50 млн клиентов", summary = "COPY, индексы и ключи после загрузки", value = """
+          {
+            "customers": 50000000,
+            "batchSize": 1000,
+            "writeMode": "COPY",
+            "seed": 42
+          }
+          """),
+      @ExampleObject(name = "Без снятия индексов", summary = "1 млн клиентов, 8 соединений", value = """
+          {
+            "customers": 1000000,
+            "threads": 8,
+            "deferConstraints": false
+          }
+          """)
+  })))
+  @PostMapping("/start")
+  public ResponseEntity<String> start(@RequestBody PrefillRequest request) {
+    try {
+      prefillService.start(request);
+      return ResponseEntity.ok("Предзаполнение запущено");
+    } catch (IllegalStateException e) {
+      return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().body(e.getMessage());
+    }
+  }
+
+  @Operation(summary = "Возобновить предзаполнение", description = """
+      Продолжает последнее незавершённое задание (после /stop, ошибки или перезапуска приложения):
+      дописывает недостающие куски теми же данными и восстанавливает индексы и ключи.
+      """)
+  @PostMapping("/resume")
+  public ResponseEntity<String> resume(
+      @Parameter(description = "Соединений (0 = размер пула)", example = "0") @RequestParam(defaultValue = "0") int threads) {
+    try {
+      prefillService.resume(threads);
+      return ResponseEntity.ok("Предзаполнение возобновлено");
+    } catch (IllegalStateException e) {
+      return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().body(e.getMessage());
+    }
+  }
+
+  @Operation(summary = "Остановить предзаполнение", description = "Останавливается после текущих кусков; задание можно продолжить через /resume.")
+  @PostMapping("/stop")
+  public ResponseEntity<String> stop() {
+    prefillService.stop();
+    return ResponseEntity.ok("Предзаполнение остановлено");
+  }
+
+  @Operation(summary = "Статус предзаполнения", description = "Куски, строки по таблицам, фазы со строками/сек и временем шагов, снятые объекты.")
+  @GetMapping("/status")
+  public ResponseEntity<PrefillStatusResponse> status() {
+    return ResponseEntity.ok(prefillService.getStatus());
+  }
+}
@@ -0,0 +1,59 @@
+package com.lt.dbcomparator.controller;
+
+import com.lt.dbcomparator.dto.CountStrategy;
+import com.lt.dbcomparator.dto.CustomerKeysetPage;
+import com.lt.dbcomparator.dto.CustomerResponse;
+import com.lt.dbcomparator.service.ReactiveCustomerService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+/**
+ * Те же эндпоинты чтения клиентов, что /api/customers, но на R2DBC: поток
+ * сервлета не ждёт БД, ответ дописывается асинхронно. Для сравнения
+ * пропускной способности на ядро и хвостов latency с блокирующим JDBC.
+ */
+@Tag(name = "Customers (reactive)", description = "Чтение клиентов через R2DBC — сравнение с блокирующим /api/customers")
+@RestController
+@RequestMapping("/api/reactive/customers")
+@RequiredArgsConstructor
+public class ReactiveCustomerController {
+
+    private final ReactiveCustomerService customerService;
+
+    @Operation(summary = "Получить клиента по ID (R2DBC)", description = """
+            Тот же SQL и ответ, что GET /api/customers/{id} со strategy=JSON_AGG; кэш не используется.
+            """)
+    @GetMapping("/{id}")
+    public Mono<CustomerResponse> getById(
+            @Parameter(description = "ID клиента", example = "1") @PathVariable Long id) {
+        return customerService.getById(id);
+    }
+
+    @Operation(summary = "Получить клиента по ID без маппинга (R2DBC)", description = "Как GET /api/customers/{id}/raw.")
+    @GetMapping(value = "/{id}/raw", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<byte[]> getRawById(
+            @Parameter(description = "ID клиента", example = "1") @PathVariable Long id,
+            @Parameter(description = "Убрать null-поля на стороне БД (json_strip_nulls)") @RequestParam(defaultValue = "false") boolean stripNulls) {
+        return customerService.getRawById(id, stripNulls);
+    }
+
+    @Operation(summary = "Страничная выдача по курсору (R2DBC)", description = "Как GET /api/customers/keyset.")
+    @GetMapping("/keyset")
+    public Mono<CustomerKeysetPage> getKeysetPage(
+            @Parameter(description = "Курсор из nextCursor предыдущей страницы") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы", example = "20") @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Подсчёт totalElements (по умолчанию — customers.count.strategy)") @RequestParam(required = false) CountStrategy count) {
+        return customerService.getKeysetPage(cursor, size, count);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
@@ -0,0 +1,77 @@
+package com.lt.dbcomparator.controller;
+
+import com.lt.dbcomparator.dto.ReadLoadRequest;
+import com.lt.dbcomparator.dto.ReadLoadStatusResponse;
+import com.lt.dbcomparator.service.ReadLoadService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Управление встроенной нагрузкой на чтение.
+ */
+@Tag(name = "Reader", description = "Запуск / остановка / статус нагрузки на чтение")
+@RestController
+@RequestMapping("/api/reader")
+@RequiredArgsConstructor
+public class ReadLoadController {
+
+  private final ReadLoadService readLoadService;
+
+  @Operation(summary = "Запустить нагрузку на чтение", description = """
+      Вызывает CustomerService.getById / getAll в процессе приложения с заданным темпом.
+      ID берутся из диапазонов, записанных генератором, по выбранному распределению.
+      """, requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(content = @Content(examples = {
+      @ExampleObject(name = "Равномерное чтение", summary = "200 rps getById на 10 минут", value = """
+          {
+            "requestsPerSecond": 200,
+            "durationMinutes": 10
+          }
+          """),
+      @ExampleObject(name = "Горячие ключи", summary = "Zipf, 90% getById / 10% страниц", value = """
+          {
+            "requestsPerSecond": 500,
+            "durationMinutes": 10,
+            "concurrency": 16,
+            "distribution": "ZIPFIAN",
+            "getByIdRatio": 0.9
+          }
+          """),
+      @ExampleObject(name = "Свежие данные", summary = "Чтение последних записанных клиентов", value = """
+          {
+            "requestsPerSecond": 300,
+            "durationMinutes": 5,
+            "distribution": "LATEST"
+          }
+          """)
+  })))
+  @PostMapping("/start")
+  public ResponseEntity<String> start(@RequestBody ReadLoadRequest request) {
+    try {
+      readLoadService.start(request);
+      return ResponseEntity.ok("Нагрузка на чтение запущена");
+    } catch (IllegalStateException e) {
+      return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().body(e.getMessage());
+    }
+  }
+
+  @Operation(summary = "Остановить нагрузку на чтение", description = "Останавливает фоновое чтение.")
+  @PostMapping("/stop")
+  public ResponseEntity<String> stop() {
+    readLoadService.stop();
+    return ResponseEntity.ok("Нагрузка на чтение остановлена");
+  }
+
+  @Operation(summary = "Статус нагрузки на чтение", description = "Счётчики и перцентили latency по операциям.")
+  @GetMapping("/status")
+  public ResponseEntity<ReadLoadStatusResponse> status() {
+    return ResponseEntity.ok(readLoadService.getStatus());
+  }
+}
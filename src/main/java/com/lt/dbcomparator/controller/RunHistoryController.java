@@ -0,0 +1,71 @@
+package com.lt.dbcomparator.controller;
+
+import com.lt.dbcomparator.dto.RunComparisonResponse;
+import com.lt.dbcomparator.dto.RunRecord;
+import com.lt.dbcomparator.service.history.RunHistoryService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * История прогонов генератора и сравнение прогонов.
+ */
+@Tag(name = "Runs", description = "История прогонов генератора и поиск регрессий")
+@RestController
+@RequestMapping("/api/runs")
+@RequiredArgsConstructor
+public class RunHistoryController {
+
+  private final RunHistoryService runHistory;
+
+  @Operation(summary = "Последние прогоны", description = "Новые первыми; без выборок по окнам.")
+  @GetMapping
+  public ResponseEntity<List<RunRecord>> list(
+      @Parameter(description = "Сколько прогонов вернуть", example = "20") @RequestParam(defaultValue = "20") int limit) {
+    return ResponseEntity.ok(runHistory.list(Math.max(1, limit)));
+  }
+
+  @Operation(summary = "Прогон целиком", description = "Параметры, окружение, итоги и выборки по окнам.")
+  @GetMapping("/{id}")
+  public ResponseEntity<RunRecord> get(@PathVariable long id) {
+    return runHistory.get(id)
+        .map(ResponseEntity::ok)
+        .orElseGet(() -> ResponseEntity.notFound().build());
+  }
+
+  @Operation(summary = "Сделать прогон базовым", description = "С базовым прогоном сравнивается /compare без параметра baseline.")
+  @PutMapping("/{id}/baseline")
+  public ResponseEntity<String> markBaseline(@PathVariable long id) {
+    try {
+      runHistory.markBaseline(id);
+      return ResponseEntity.ok("Прогон " + id + " — базовый");
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+    }
+  }
+
+  @Operation(summary = "Сравнить прогоны", description = """
+      Сравнивает скорость записи и p99 latency по выборкам окон (generator.history.sample-interval)
+      t-тестом Уэлча. REGRESSION — p < generator.history.alpha и ухудшение больше
+      generator.history.min-change-percent. Заодно показывает, чем различаются параметры и окружение.
+      """)
+  @GetMapping("/compare")
+  public ResponseEntity<?> compare(
+      @Parameter(description = "ID базового прогона; по умолчанию — отмеченный базовым") @RequestParam(required = false) Long baseline,
+      @Parameter(description = "ID сравниваемого прогона; по умолчанию — последний") @RequestParam(required = false) Long candidate) {
+    try {
+      RunComparisonResponse response = runHistory.compare(baseline, candidate);
+      return ResponseEntity.ok(response);
+    } catch (IllegalStateException e) {
+      return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().body(e.getMessage());
+    }
+  }
+}
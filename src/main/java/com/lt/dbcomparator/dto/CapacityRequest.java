@@ -0,0 +1,53 @@
+package com.lt.dbcomparator.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO для запуска поиска предела пропускной способности.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Параметры поиска максимального устойчивого темпа генератора")
+public class CapacityRequest {
+
+    @Schema(description = "Нагрузка — как у /api/generator/start; batchesPerSecond и durationMinutes задаёт поиск")
+    private LoadRequest load;
+
+    @Schema(description = "Целевая p99 latency батча, мс: шаг с большей p99 — неустойчивый", example = "200")
+    private double targetP99Ms;
+
+    @Schema(description = "Допустимая доля батчей с ошибкой (null = 0.01; 0 — ни одной ошибки)", example = "0.01")
+    private Double maxFailureRate;
+
+    @Schema(description = "Допустимая доля пропущенных батчей (null = 0.01; 0 — ни одного пропуска)", example = "0.01")
+    private Double maxDropRate;
+
+    @Schema(description = "Темп первого шага, батчей/сек, > 0 (null = 1)", example = "1")
+    private Double startRate;
+
+    @Schema(description = "Во сколько раз растёт темп от шага к шагу, > 1 (null = 1.5)", example = "1.5")
+    private Double stepFactor;
+
+    @Schema(description = "Длительность шага, сек (0 = 30)", example = "30")
+    private int stepSeconds;
+
+    @Schema(description = "Максимум шагов разгона (0 = 20)", example = "20")
+    private int maxSteps;
+
+    @Schema(description = "Шагов бинарного поиска между последним устойчивым и первым неустойчивым темпом (0 = 3)",
+            example = "3")
+    private int refineSteps;
+
+    @Schema(description = "Замерить стоимость батча и графа и сохранить для проверки /start (null = true)",
+            example = "true")
+    private Boolean calibrate;
+
+    @Schema(description = "Длительность каждого из двух замеров калибровки, сек (0 = 10)", example = "10")
+    private int calibrationSeconds;
+}
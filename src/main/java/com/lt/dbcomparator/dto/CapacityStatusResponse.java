@@ -0,0 +1,100 @@
+package com.lt.dbcomparator.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Ответ на GET /api/capacity/status.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Состояние и результат поиска предела пропускной способности")
+public class CapacityStatusResponse {
+
+    @Schema(description = "Поиск идёт?", example = "true")
+    private boolean running;
+
+    @Schema(description = "Текущая / последняя фаза", example = "RAMP")
+    private Phase phase;
+
+    @Schema(description = "Параметры поиска (с фактическими значениями по умолчанию)")
+    private CapacityRequest config;
+
+    @Schema(description = "Шаги в порядке выполнения")
+    private List<StepResult> steps;
+
+    @Schema(description = "Максимальный устойчивый темп, батчей/сек; null — устойчивым не был ни один шаг",
+            example = "42.5")
+    private Double maxSustainableBatchesPerSecond;
+
+    @Schema(description = "Записей/сек на максимальном устойчивом темпе", example = "74375.0")
+    private Double maxSustainableRecordsPerSecond;
+
+    @Schema(description = "Что ограничило темп на первом неустойчивом шаге; null — предел не достигнут за maxSteps",
+            example = "LATENCY")
+    private Limit limitedBy;
+
+    @Schema(description = "Замеренная стоимость батча (null — калибровка не выполнялась)")
+    private Calibration calibration;
+
+    @Schema(description = "Ошибка, остановившая поиск", example = "null")
+    private String error;
+
+    public enum Phase {
+        /** Замер стоимости батча при низкой нагрузке */
+        CALIBRATE,
+        /** Разгон: темп × stepFactor до первого неустойчивого шага */
+        RAMP,
+        /** Бинарный поиск между последним устойчивым и первым неустойчивым темпом */
+        REFINE,
+        /** Поиск завершён */
+        DONE
+    }
+
+    public enum Limit {
+        /** p99 latency выше цели */
+        LATENCY,
+        /** Доля ошибок выше допустимой */
+        FAILURES,
+        /** Доля пропущенных батчей выше допустимой */
+        DROPS,
+        /** Записано меньше 90% поданных батчей */
+        THROUGHPUT
+    }
+
+    @Schema(description = "Результат шага")
+    public record StepResult(
+            @Schema(description = "Фаза", example = "RAMP") Phase phase,
+            @Schema(description = "Поданный темп, батчей/сек", example = "40.0") double offeredBatchesPerSecond,
+            @Schema(description = "Размер батча", example = "100") int batchSize,
+            @Schema(description = "Секунд", example = "30.0") double seconds,
+            @Schema(description = "Записано батчей/сек", example = "39.8") double achievedBatchesPerSecond,
+            @Schema(description = "Записей/сек", example = "69650.0") double recordsPerSecond,
+            @Schema(description = "p99 latency батча, мс", example = "85.2") double latencyP99Ms,
+            @Schema(description = "Среднее время батча без ожидания, мс", example = "18.4") double batchDurationAvgMs,
+            @Schema(description = "Доля батчей с ошибкой", example = "0.0") double failureRate,
+            @Schema(description = "Доля пропущенных батчей", example = "0.0") double dropRate,
+            @Schema(description = "Шаг устойчивый?", example = "true") boolean sustainable,
+            @Schema(description = "Что нарушено; null — ничего", example = "null") Limit limit) {
+    }
+
+    @Schema(description = "Стоимость батча по способу записи: batchMs = fixedMs + batchSize × msPerGraph")
+    public record Calibration(
+            @Schema(description = "Способ записи", example = "INSERT") WriteMode mode,
+            @Schema(description = "Фиксированная часть батча, мс", example = "4.2") double fixedMs,
+            @Schema(description = "Стоимость одного графа клиента, мс", example = "0.14") double msPerGraph,
+            @Schema(description = "Когда замерено") Instant calibratedAt,
+            @Schema(description = "batchSize поиска", example = "100") int batchSize,
+            @Schema(description = "workerThreads поиска", example = "8") int workerThreads,
+            @Schema(description = "Найденный максимальный устойчивый темп, батчей/сек", example = "42.5") Double maxBatchesPerSecond,
+            @Schema(description = "Целевая p99 поиска, мс", example = "200") double targetP99Ms) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.lt.dbcomparator.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO для запуска сравнения БД одной и той же нагрузкой.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Параметры сравнения: одна нагрузка генератора на несколько БД")
+public class CompareRequest {
+
+    @Schema(description = "Нагрузка — как у /api/generator/start (executionMode только FIXED_POOL)")
+    private LoadRequest load;
+
+    @Schema(description = "Цели сравнения (null = все настроенные); первая — база для отчёта о разнице",
+            example = "[\"primary\", \"pangolin\"]")
+    private List<String> targets;
+
+    @Schema(description = "true — цели по очереди, каждая на durationMinutes; false — одновременно", example = "false")
+    private boolean sequential;
+
+    @Schema(description = "Seed генератора данных: батч N одинаков во всех целях (null = случайный)", example = "42")
+    private Long seed;
+}
@@ -0,0 +1,57 @@
+package com.lt.dbcomparator.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Ответ на GET /api/compare/status.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Состояние и результаты сравнения БД")
+public class CompareStatusResponse {
+
+    @Schema(description = "Сравнение идёт?", example = "true")
+    private boolean running;
+
+    @Schema(description = "Параметры текущего/последнего сравнения")
+    private CompareRequest config;
+
+    @Schema(description = "Результаты по целям в порядке запроса")
+    private List<TargetResult> targets;
+
+    @Schema(description = "Разница каждой цели с первой (базовой) по ключевым показателям")
+    private List<MetricDiff> diff;
+
+    @Schema(description = "Результат одной цели")
+    public record TargetResult(
+            @Schema(description = "Имя цели", example = "primary") String target,
+            @Schema(description = "Нагрузка на цель идёт?") boolean running,
+            @Schema(description = "Батчей записано") long batchesCompleted,
+            @Schema(description = "Батчей с ошибкой") long batchesFailed,
+            @Schema(description = "Батчей пропущено (DROP)") long batchesDropped,
+            @Schema(description = "Записей во всех таблицах") long totalRecords,
+            @Schema(description = "Секунд нагрузки на цель") double elapsedSeconds,
+            @Schema(description = "Записей в секунду") double recordsPerSecond,
+            @Schema(description = "p50 latency батча, мс") double latencyP50Ms,
+            @Schema(description = "p99 latency батча, мс") double latencyP99Ms,
+            @Schema(description = "p99.9 latency батча, мс") double latencyP999Ms,
+            @Schema(description = "Максимальная latency батча, мс") double latencyMaxMs) {
+    }
+
+    @Schema(description = "Разница показателя цели с базовой целью")
+    public record MetricDiff(
+            @Schema(description = "Цель", example = "pangolin") String target,
+            @Schema(description = "Показатель", example = "latencyP99Ms") String metric,
+            @Schema(description = "Значение у базовой цели", example = "12.5") double baseline,
+            @Schema(description = "Значение у цели", example = "15.0") double value,
+            @Schema(description = "(value − baseline) / baseline × 100; null, если baseline = 0", example = "20.0") Double deltaPercent) {
+    }
+}
@@ -0,0 +1,30 @@
+package com.lt.dbcomparator.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Способ получения общего кол-ва клиентов (totalElements) для страничной
+ * выдачи.
+ */
+@Schema(description = "Подсчёт totalElements: EXACT, ESTIMATE или CACHED")
+public enum CountStrategy {
+
+    /**
+     * {@code SELECT count(*)} на каждый запрос — точно, но полный проход по
+     * таблице: время растёт линейно с её размером.
+     */
+    EXACT,
+
+    /**
+     * Оценка планировщика: {@code pg_class.reltuples}, масштабированная на
+     * текущий размер таблицы в страницах (так же считает сам планировщик).
+     * Постоянное время, погрешность — с последнего ANALYZE / autovacuum.
+     */
+    ESTIMATE,
+
+    /**
+     * Точный count(*), который пересчитывается в фоне с заданным интервалом;
+     * запрос страницы отдаёт последнее посчитанное значение.
+     */
+    CACHED
+}
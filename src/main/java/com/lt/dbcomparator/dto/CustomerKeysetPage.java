@@ -0,0 +1,26 @@
+package com.lt.dbcomparator.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * DTO для ответа GET /api/customers/keyset — страница клиентов по курсору.
+ */
+@Schema(description = "Страница клиентов (keyset-пагинация)")
+public record CustomerKeysetPage(
+        @Schema(description = "Клиенты страницы (без связей), по возрастанию ID")
+        List<CustomerResponse> content,
+
+        @Schema(description = "Запрошенный размер страницы", example = "20")
+        int size,
+
+        @Schema(description = "Курсор следующей страницы; null — это последняя страница", example = "AQAAAAAAAAAU")
+        String nextCursor,
+
+        @Schema(description = "Всего клиентов (по стратегии countStrategy)", example = "1500000")
+        long totalElements,
+
+        @Schema(description = "Как посчитан totalElements", example = "ESTIMATE")
+        CountStrategy countStrategy) {
+}
@@ -0,0 +1,39 @@
+package com.lt.dbcomparator.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Как батчи распределяются по потокам генератора.
+ */
+@Schema(description = "Модель исполнения: FIXED_POOL (синтез и запись в одном потоке), PIPELINE (отдельные стадии), " +
+        "VIRTUAL_THREADS (виртуальный поток на батч) или PINNED_CONNECTIONS (как FIXED_POOL, но у потока своё соединение " +
+        "и кэш prepared statements)")
+public enum ExecutionMode {
+
+    /**
+     * Фиксированный пул gen-worker: каждый поток сам синтезирует батч и
+     * пишет его в БД (по умолчанию).
+     */
+    FIXED_POOL,
+
+    /**
+     * Двухстадийный конвейер: потоки синтеза готовят батчи в ограниченную
+     * очередь, потоки записи (по одному на соединение пула) её разбирают.
+     * CPU-работа и ожидание БД идут параллельно.
+     */
+    PIPELINE,
+
+    /**
+     * Каждый батч — на отдельном виртуальном потоке. Пул потоков не
+     * настраивается: параллелизм ограничен только явным лимитом батчей
+     * «в полёте» (maxInFlight) и пулом соединений.
+     */
+    VIRTUAL_THREADS,
+
+    /**
+     * Как FIXED_POOL, но каждый gen-worker весь прогон держит одно
+     * соединение пула writer и переиспользует на нём prepared statements
+     * между батчами (серверный prepare). Не для JPA.
+     */
+    PINNED_CONNECTIONS
+}
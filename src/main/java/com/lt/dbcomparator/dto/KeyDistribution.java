@@ -0,0 +1,32 @@
+package com.lt.dbcomparator.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Распределение ключей (ID клиентов) для нагрузки на чтение.
+ */
+@Schema(description = "Распределение ID: UNIFORM, ZIPFIAN, HOTSPOT или LATEST")
+public enum KeyDistribution {
+
+    /**
+     * Все записанные ID равновероятны (по умолчанию).
+     */
+    UNIFORM,
+
+    /**
+     * Zipf-распределение: небольшая доля ключей получает большую часть
+     * запросов. Популярные ключи разбросаны по всему диапазону.
+     */
+    ZIPFIAN,
+
+    /**
+     * Горячее множество: hotsetFraction ключей получает hotOpnFraction
+     * запросов, остальные — равномерно по холодным ключам.
+     */
+    HOTSPOT,
+
+    /**
+     * Zipf по «свежести»: чаще всего читаются последние записанные клиенты.
+     */
+    LATEST
+}
@@ -0,0 +1,48 @@
+package com.lt.dbcomparator.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Фаза профиля нагрузки: длительность, кривая темпа и размер батча.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Фаза профиля нагрузки")
+public class LoadPhase {
+
+    @Schema(description = "Имя фазы для статуса и метрик (null = phase-<номер с 1>)", example = "warmup")
+    private String name;
+
+    @Schema(description = "Длительность фазы в секундах", example = "60")
+    private int durationSeconds;
+
+    @Schema(description = "Кривая темпа (null = CONSTANT)", example = "RAMP")
+    private RateShape shape;
+
+    @Schema(description = "Базовый темп, батчей/сек (0 допустим: пауза или рост с нуля)", example = "1")
+    private double rate;
+
+    @Schema(description = "RAMP / STEP: конечный темп; SPIKE: темп всплеска; SINE: верх синусоиды", example = "20")
+    private double peakRate;
+
+    @Schema(description = "STEP: кол-во ступеней (0 = 4)", example = "4")
+    private int steps;
+
+    @Schema(description = "SPIKE: начало всплеска от начала фазы, сек", example = "20")
+    private int spikeAtSeconds;
+
+    @Schema(description = "SPIKE: длительность всплеска, сек (0 = 10)", example = "10")
+    private int spikeSeconds;
+
+    @Schema(description = "SINE: период, сек (0 = длительность фазы)", example = "60")
+    private int periodSeconds;
+
+    @Schema(description = "Размер батча в фазе (0 = batchSize запроса)", example = "0")
+    private int batchSize;
+}
@@ -6,11 +6,13 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 /**
  * DTO для запуска генерации данных.
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Schema(description = "Параметры нагрузки для генерации данных")
@@ -19,12 +21,44 @@ public class LoadRequest {
     @Schema(description = "Количество сущностей (Customer-графов) в одном батче", example = "100")
     private int batchSize;
 
-    @Schema(description = "Количество батчей, отправляемых в секунду", example = "5")
-    private int batchesPerSecond;
+    @Schema(description = "Количество батчей, отправляемых в секунду (можно дробное: 0.5 = раз в 2 сек); " +
+            "с profile не задаётся", example = "5")
+    private double batchesPerSecond;
 
-    @Schema(description = "Продолжительность генерации в минутах", example = "30")
+    @Schema(description = "Продолжительность генерации в минутах (0 = без ограничения по времени: " +
+            "до конца profile, maxRecords или maxBatches)", example = "30")
     private int durationMinutes;
 
-    @Schema(description = "Количество потоков-воркеров для параллельной записи (0 = авто: кол-во CPU ядер)", example = "0")
+    @Schema(description = "Профиль нагрузки: фазы по очереди, у каждой своя кривая темпа и размер батча " +
+            "(null = постоянный batchesPerSecond). Прогон заканчивается с последней фазой")
+    private List<LoadPhase> profile;
+
+    @Schema(description = "Остановиться, когда записано не меньше стольких записей (0 = без ограничения)", example = "0")
+    private long maxRecords;
+
+    @Schema(description = "Остановиться после стольких отправленных батчей (0 = без ограничения)", example = "0")
+    private long maxBatches;
+
+    @Schema(description = "Количество потоков-воркеров для параллельной записи (0 = авто: кол-во CPU ядер; " +
+            "в режиме PIPELINE — потоки записи, 0 = размер пула соединений; в VIRTUAL_THREADS не задаётся — " +
+            "фактический параллелизм min(maxInFlight, пул соединений))", example = "0")
     private int workerThreads;
+
+    @Schema(description = "Способ записи батчей (null = INSERT)", example = "INSERT")
+    private WriteMode writeMode;
+
+    @Schema(description = "Модель исполнения (null = FIXED_POOL)", example = "FIXED_POOL")
+    private ExecutionMode executionMode;
+
+    @Schema(description = "Что делать, если плановое время батча наступило, а места нет (null = DROP)", example = "DROP")
+    private OverflowPolicy overflowPolicy;
+
+    @Schema(description = "PIPELINE: кол-во потоков синтеза (0 = авто: половина CPU ядер, минимум 1)", example = "0")
+    private int synthesisThreads;
+
+    @Schema(description = "PIPELINE: ёмкость очереди готовых батчей (0 = авто: 2× потоков записи)", example = "0")
+    private int queueCapacity;
+
+    @Schema(description = "VIRTUAL_THREADS: максимум батчей в полёте (0 = авто: размер пула соединений)", example = "0")
+    private int maxInFlight;
 }
@@ -6,6 +6,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Map;
+
 /**
  * Ответ на GET /api/generator/status.
  */
@@ -34,6 +36,98 @@ public class LoadStatusResponse {
     @Schema(description = "Батчей упало с ошибкой", example = "2")
     private long batchesFailed;
 
+    @Schema(description = "Батчей пропущено: плановое время наступило, а места нет", example = "0")
+    private long batchesDropped;
+
+    @Schema(description = "Батчей ушло в работу позже планового времени больше чем на период", example = "0")
+    private long batchesLate;
+
+    @Schema(description = "QUEUE: батчей, ожидающих места в очереди тикера", example = "0")
+    private int backlog;
+
     @Schema(description = "Время работы (мин)", example = "5")
     private long elapsedMinutes;
+
+    @Schema(description = "Средняя скорость записи (строк/сек, все таблицы) за время прогона", example = "1750.5")
+    private double recordsPerSecond;
+
+    @Schema(description = "Средняя скорость записи по таблицам за прогон (строк/сек)",
+            example = "{\"customers\": 100.0, \"customer_profiles\": 100.0, \"orders\": 300.0, \"order_items\": 1350.0}")
+    private Map<String, Double> tableRowsPerSecond;
+
+    @Schema(description = "Latency батча p50 (мс) от планового времени старта, за прогон", example = "24.1")
+    private double latencyP50Ms;
+
+    @Schema(description = "Latency батча p99 (мс) от планового времени старта, за прогон", example = "61.3")
+    private double latencyP99Ms;
+
+    @Schema(description = "Latency батча p99.9 (мс) от планового времени старта, за прогон", example = "120.8")
+    private double latencyP999Ms;
+
+    @Schema(description = "Максимальная latency батча (мс) за прогон", example = "140.2")
+    private double latencyMaxMs;
+
+    @Schema(description = "Среднее время батча (мс) от начала синтеза до конца записи — без ожидания в тикере; "
+            + "в PIPELINE включает очередь", example = "18.4")
+    private double batchDurationAvgMs;
+
+    @Schema(description = "Среднее кол-во байт, аллоцированных воркером на синтез одного батча; "
+            + "null — не замерялось (VIRTUAL_THREADS)", example = "0")
+    private Long synthesisAllocatedBytesPerBatch;
+
+    @Schema(description = "Среднее кол-во байт, аллоцированных воркером на весь батч (синтез + запись); "
+            + "null — не замерялось (VIRTUAL_THREADS)", example = "812000")
+    private Long allocatedBytesPerBatch;
+
+    @Schema(description = "PIPELINE: батчей в очереди между синтезом и записью", example = "3")
+    private int queueDepth;
+
+    @Schema(description = "PIPELINE: ёмкость очереди готовых батчей", example = "40")
+    private int queueCapacity;
+
+    @Schema(description = "Загрузка стадии синтеза: доля времени потоков, занятая синтезом (0..1)", example = "0.12")
+    private double synthesisUtilization;
+
+    @Schema(description = "Загрузка стадии записи: доля времени потоков, занятая записью в БД (0..1)", example = "0.95")
+    private double writeUtilization;
+
+    @Schema(description = "Текущая фаза профиля нагрузки (null — без профиля)", example = "spike")
+    private String phase;
+
+    @Schema(description = "Номер текущей фазы профиля с 0 (-1 — без профиля)", example = "1")
+    private int phaseIndex;
+
+    @Schema(description = "Целевой темп в текущий момент, батчей/сек", example = "20.0")
+    private double targetBatchesPerSecond;
+
+    @Schema(description = "Фактический темп: батчей записано в секунду за последние 5 сек", example = "19.6")
+    private double achievedBatchesPerSecond;
+
+    @Schema(description = "Почему прогон остановлен (null — ещё идёт)", example = "PROFILE_END")
+    private StopReason stopReason;
+
+    @Schema(description = "PINNED_CONNECTIONS: PreparedStatement взят из кэша соединения за прогон", example = "1196")
+    private long statementCacheHits;
+
+    @Schema(description = "PINNED_CONNECTIONS: PreparedStatement подготовлено на клиенте за прогон (промахи кэша)",
+            example = "4")
+    private long statementPrepares;
+
+    @Schema(description = "PINNED_CONNECTIONS: выполнений statement'ов из кэша по уже подготовленному на сервере " +
+            "(после prepareThreshold-го выполнения, без Parse)", example = "1192")
+    private long serverStatementReuses;
+
+    @Schema(description = "Причина остановки генератора")
+    public enum StopReason {
+        /** Истёк durationMinutes */
+        DURATION,
+        /** Закончилась последняя фаза профиля */
+        PROFILE_END,
+        /** Записано maxRecords записей */
+        MAX_RECORDS,
+        /** Отправлено maxBatches батчей */
+        MAX_BATCHES,
+        /** Вызван /stop */
+        MANUAL
+    }
 }
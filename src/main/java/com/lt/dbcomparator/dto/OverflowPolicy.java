@@ -0,0 +1,28 @@
+package com.lt.dbcomparator.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Что делать с батчем, чьё плановое время старта наступило, а свободных
+ * воркеров / буферов нет.
+ */
+@Schema(description = "Политика переполнения: DROP (пропустить), QUEUE (отложить в очередь) или BLOCK (ждать)")
+public enum OverflowPolicy {
+
+    /**
+     * Батч пропускается и учитывается в счётчике dropped (по умолчанию).
+     */
+    DROP,
+
+    /**
+     * Батч откладывается в очередь тикера и уходит в работу, как только
+     * освободится место. Задержка в очереди входит в latency.
+     */
+    QUEUE,
+
+    /**
+     * Тикер ждёт освобождения места. Следующие батчи сохраняют своё плановое
+     * время и уходят с опозданием — оно входит в latency.
+     */
+    BLOCK
+}
@@ -0,0 +1,40 @@
+package com.lt.dbcomparator.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO для запуска предзаполнения БД.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Параметры предзаполнения: заданное число графов клиентов с максимальной скоростью")
+public class PrefillRequest {
+
+    @Schema(description = "Сколько клиентов (графов) записать", example = "50000000")
+    private long customers;
+
+    @Schema(description = "Клиентов в одном куске — одна транзакция и единица возобновления (0 = 1000)", example = "1000")
+    private int batchSize;
+
+    @Schema(description = "Параллельных соединений; каждое пишет свой диапазон ID (0 = размер пула соединений)",
+            example = "8")
+    private int threads;
+
+    @Schema(description = "Способ записи: COPY (по умолчанию), INSERT или MULTI_VALUES — режимы с ID, "
+            + "назначаемыми приложением", example = "COPY")
+    private WriteMode writeMode;
+
+    @Schema(description = "Снять вторичные индексы и внешние ключи (generator.prefill.deferred-*) на время "
+            + "загрузки и построить их параллельно после (null = true)", example = "true")
+    private Boolean deferConstraints;
+
+    @Schema(description = "Seed генератора данных: кусок N одинаков при повторе после перезапуска (null = случайный)",
+            example = "42")
+    private Long seed;
+}
@@ -0,0 +1,88 @@
+package com.lt.dbcomparator.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ответ на GET /api/prefill/status.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Состояние предзаполнения")
+public class PrefillStatusResponse {
+
+    @Schema(description = "Предзаполнение идёт?", example = "true")
+    private boolean running;
+
+    @Schema(description = "ID задания (таблица prefill_jobs)", example = "3")
+    private Long jobId;
+
+    @Schema(description = "Параметры задания (с фактическими значениями по умолчанию)")
+    private PrefillRequest config;
+
+    @Schema(description = "Текущая / последняя фаза", example = "LOAD")
+    private Phase phase;
+
+    @Schema(description = "Задание завершено: данные записаны, индексы и ключи восстановлены", example = "false")
+    private boolean finished;
+
+    @Schema(description = "Кусков всего", example = "50000")
+    private long chunksTotal;
+
+    @Schema(description = "Кусков записано (включая записанные до возобновления)", example = "12000")
+    private long chunksDone;
+
+    @Schema(description = "Кусков было записано до этого запуска (возобновление)", example = "10000")
+    private long chunksResumed;
+
+    @Schema(description = "Строк записано по таблицам в этом запуске",
+            example = "{\"customers\": 2000000, \"customer_profiles\": 2000000, \"orders\": 6000000, \"order_items\": 27000000}")
+    private Map<String, Long> tableRows;
+
+    @Schema(description = "Снятые индексы и внешние ключи, ещё не построенные заново",
+            example = "[\"idx_item_order\", \"fk_item_order\"]")
+    private List<String> deferred;
+
+    @Schema(description = "Итоги фаз этого запуска: длительность, строк/сек по таблицам, шаги перестроения")
+    private List<PhaseResult> phases;
+
+    @Schema(description = "Ошибка, остановившая задание", example = "null")
+    private String error;
+
+    public enum Phase {
+        /** Снятие отложенных индексов и внешних ключей */
+        DEFER,
+        /** Запись кусков параллельными соединениями */
+        LOAD,
+        /** Построение индексов */
+        REBUILD_INDEXES,
+        /** Восстановление внешних ключей (с проверкой данных) */
+        REBUILD_FOREIGN_KEYS,
+        /** ANALYZE таблиц */
+        ANALYZE
+    }
+
+    @Schema(description = "Итог фазы")
+    public record PhaseResult(
+            @Schema(description = "Фаза", example = "LOAD") Phase phase,
+            @Schema(description = "Секунд", example = "1800.5") double seconds,
+            @Schema(description = "Строк/сек по таблицам (для LOAD)",
+                    example = "{\"customers\": 27700.0, \"order_items\": 374000.0}") Map<String, Double> tableRowsPerSecond,
+            @Schema(description = "Шаги фазы: индекс / ключ / таблица и время") List<Step> steps) {
+    }
+
+    @Schema(description = "Шаг фазы")
+    public record Step(
+            @Schema(description = "Индекс, ключ или таблица", example = "idx_item_order") String name,
+            @Schema(description = "Таблица", example = "order_items") String table,
+            @Schema(description = "Секунд", example = "95.2") double seconds) {
+    }
+}
@@ -0,0 +1,39 @@
+package com.lt.dbcomparator.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Кривая темпа внутри фазы профиля нагрузки. {@code rate} — базовый темп
+ * фазы, {@code peakRate} — второй уровень кривой (батчей/сек).
+ */
+@Schema(description = "Кривая темпа фазы: CONSTANT, RAMP, STEP, SPIKE или SINE")
+public enum RateShape {
+
+    /**
+     * Постоянный темп {@code rate} всю фазу (по умолчанию).
+     */
+    CONSTANT,
+
+    /**
+     * Линейный рост (или спад) от {@code rate} до {@code peakRate} за фазу.
+     */
+    RAMP,
+
+    /**
+     * Лестница из {@code steps} ступеней равной длины от {@code rate} до
+     * {@code peakRate}.
+     */
+    STEP,
+
+    /**
+     * Темп {@code rate}, на {@code spikeSeconds} секунд с отметки
+     * {@code spikeAtSeconds} — {@code peakRate}.
+     */
+    SPIKE,
+
+    /**
+     * Синусоида между {@code rate} и {@code peakRate} с периодом
+     * {@code periodSeconds}; фаза начинается с {@code rate}.
+     */
+    SINE
+}
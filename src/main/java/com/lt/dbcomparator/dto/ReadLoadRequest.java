@@ -0,0 +1,55 @@
+package com.lt.dbcomparator.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO для запуска нагрузки на чтение.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Параметры нагрузки на чтение (CustomerService в процессе приложения)")
+public class ReadLoadRequest {
+
+    @Schema(description = "Запросов в секунду (open-loop, можно дробное)", example = "200")
+    private double requestsPerSecond;
+
+    @Schema(description = "Продолжительность в минутах", example = "10")
+    private int durationMinutes;
+
+    @Schema(description = "Макс. одновременных запросов (0 = авто: кол-во CPU ядер, минимум 2)", example = "8")
+    private int concurrency;
+
+    @Schema(description = "Распределение ID (null = UNIFORM)", example = "ZIPFIAN")
+    private KeyDistribution distribution;
+
+    @Schema(description = "Доля запросов getById, остальные — страница getAll (null = 1.0)", example = "0.9")
+    private Double getByIdRatio;
+
+    @Schema(description = "getById: MAPPED — через CustomerResponse, RAW — байты JSON из БД (null = MAPPED)", example = "RAW")
+    private ResponseFormat responseFormat;
+
+    @Schema(description = "getById в формате MAPPED: способ чтения графа (null = customers.read.strategy, через кэш)",
+            example = "FLAT_JOIN")
+    private ReadMode readStrategy;
+
+    @Schema(description = "Размер страницы getAll (0 = 20)", example = "20")
+    private int pageSize;
+
+    @Schema(description = "ZIPFIAN / LATEST: показатель степени (null = 0.99)", example = "0.99")
+    private Double zipfExponent;
+
+    @Schema(description = "HOTSPOT: доля горячих ключей (null = 0.2)", example = "0.2")
+    private Double hotsetFraction;
+
+    @Schema(description = "HOTSPOT: доля запросов к горячим ключам (null = 0.8)", example = "0.8")
+    private Double hotOpnFraction;
+
+    @Schema(description = "Что делать, если время запроса наступило, а все слоты заняты (null = DROP)", example = "DROP")
+    private OverflowPolicy overflowPolicy;
+}
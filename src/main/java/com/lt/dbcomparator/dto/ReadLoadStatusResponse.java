@@ -0,0 +1,55 @@
+package com.lt.dbcomparator.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Ответ на GET /api/reader/status.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Текущее состояние нагрузки на чтение")
+public class ReadLoadStatusResponse {
+
+    @Schema(description = "Нагрузка идёт?", example = "true")
+    private boolean running;
+
+    @Schema(description = "Параметры текущего/последнего прогона")
+    private ReadLoadRequest config;
+
+    @Schema(description = "Запросов отправлено", example = "12000")
+    private long requestsSubmitted;
+
+    @Schema(description = "Запросов пропущено: время наступило, а все слоты заняты", example = "0")
+    private long requestsDropped;
+
+    @Schema(description = "Запросов ушло позже планового времени больше чем на период", example = "0")
+    private long requestsLate;
+
+    @Schema(description = "Средняя скорость выполненных запросов за прогон (запросов/сек)", example = "199.8")
+    private double requestsPerSecond;
+
+    @Schema(description = "Известно ID клиентов для выбора ключей", example = "150000")
+    private long trackedIds;
+
+    @Schema(description = "Статистика по операциям: get_by_id, get_page")
+    private Map<String, OperationStats> operations;
+
+    @Schema(description = "Статистика одной операции за прогон")
+    public record OperationStats(
+            @Schema(description = "Успешных запросов", example = "10800") long success,
+            @Schema(description = "Клиент не найден", example = "0") long notFound,
+            @Schema(description = "Прочие ошибки", example = "0") long errors,
+            @Schema(description = "Latency p50 (мс) от планового времени", example = "3.2") double p50Ms,
+            @Schema(description = "Latency p99 (мс) от планового времени", example = "11.7") double p99Ms,
+            @Schema(description = "Latency p99.9 (мс) от планового времени", example = "25.0") double p999Ms,
+            @Schema(description = "Максимальная latency (мс)", example = "40.1") double maxMs) {
+    }
+}
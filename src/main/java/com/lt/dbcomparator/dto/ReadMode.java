@@ -0,0 +1,35 @@
+package com.lt.dbcomparator.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Способ чтения полного графа клиента для getById.
+ */
+@Schema(description = "Способ чтения графа клиента: JSON_AGG (JSON в БД), ENTITY_GRAPH (JPA @EntityGraph), " +
+        "MULTI_QUERY (запрос на таблицу + кэш товаров) или FLAT_JOIN (один JOIN, свёртка в памяти)")
+public enum ReadMode {
+
+    /**
+     * Граф собирается в БД одним json_build_object / json_agg и разбирается
+     * Jackson'ом в {@link CustomerResponse} (по умолчанию).
+     */
+    JSON_AGG,
+
+    /**
+     * JPA: CustomerRepository.findWithDetailsById (@EntityGraph, JOIN FETCH
+     * всех связей) и {@link CustomerResponse#from}.
+     */
+    ENTITY_GRAPH,
+
+    /**
+     * JDBC по запросу на таблицу: клиент, профиль, заказы, позиции по
+     * {@code order_id = ANY(?)}; товары — из кэша приложения.
+     */
+    MULTI_QUERY,
+
+    /**
+     * Один плоский LEFT JOIN всех таблиц; строки сворачиваются в граф в
+     * памяти приложения.
+     */
+    FLAT_JOIN
+}
@@ -0,0 +1,20 @@
+package com.lt.dbcomparator.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Как getById отдаёт граф клиента, собранный в БД в JSON.
+ */
+@Schema(description = "Формат графа клиента: MAPPED (CustomerResponse) или RAW (байты JSON из БД)")
+public enum ResponseFormat {
+
+    /**
+     * JSON из БД разбирается в {@link CustomerResponse} (по умолчанию).
+     */
+    MAPPED,
+
+    /**
+     * Байты JSON-документа из БД как есть — без разбора и сериализации.
+     */
+    RAW
+}
@@ -0,0 +1,61 @@
+package com.lt.dbcomparator.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Ответ на GET /api/runs/compare.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Сравнение прогона с базовым")
+public class RunComparisonResponse {
+
+    @Schema(description = "ID базового прогона", example = "12")
+    private long baselineId;
+
+    @Schema(description = "ID сравниваемого прогона", example = "17")
+    private long candidateId;
+
+    @Schema(description = "Хотя бы один показатель значимо ухудшился", example = "true")
+    private boolean regression;
+
+    @Schema(description = "Различия в параметрах прогонов", example = "[\"writeMode: INSERT → COPY\"]")
+    private List<String> configChanges;
+
+    @Schema(description = "Различия в окружении", example = "[\"dbVersion: 16.4 → 17.0\"]")
+    private List<String> environmentChanges;
+
+    @Schema(description = "Сравнение показателей по выборкам окон")
+    private List<MetricComparison> metrics;
+
+    public enum Verdict {
+        /** Значимое ухудшение больше порога */
+        REGRESSION,
+        /** Значимое улучшение больше порога */
+        IMPROVEMENT,
+        /** Разница незначима или меньше порога */
+        NO_CHANGE,
+        /** Меньше двух окон хотя бы у одного прогона */
+        INSUFFICIENT_DATA
+    }
+
+    @Schema(description = "Сравнение одного показателя")
+    public record MetricComparison(
+            @Schema(description = "Показатель", example = "latencyP99Ms") String metric,
+            @Schema(description = "Среднее по окнам у базового прогона", example = "12.5") double baseline,
+            @Schema(description = "Среднее по окнам у сравниваемого", example = "15.0") double candidate,
+            @Schema(description = "(candidate − baseline) / baseline × 100; null, если baseline = 0", example = "20.0") Double deltaPercent,
+            @Schema(description = "p-value двустороннего t-теста Уэлча; null — мало данных", example = "0.003") Double pValue,
+            @Schema(description = "Окон у базового прогона", example = "30") int baselineSamples,
+            @Schema(description = "Окон у сравниваемого", example = "30") int candidateSamples,
+            @Schema(description = "Вывод") Verdict verdict) {
+    }
+}
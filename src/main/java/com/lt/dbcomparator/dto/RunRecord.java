@@ -0,0 +1,86 @@
+package com.lt.dbcomparator.dto;
+
+import com.lt.dbcomparator.service.generator.GeneratorMetrics.StageLatency;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сохранённый прогон генератора (таблица load_runs).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Прогон генератора из истории")
+public class RunRecord {
+
+    @Schema(description = "ID прогона", example = "17")
+    private Long id;
+
+    @Schema(description = "Начало прогона")
+    private Instant startedAt;
+
+    @Schema(description = "Конец прогона")
+    private Instant finishedAt;
+
+    @Schema(description = "Прогон — базовый для сравнения?", example = "false")
+    private boolean baseline;
+
+    @Schema(description = "Параметры прогона (с фактическими значениями по умолчанию)")
+    private LoadRequest config;
+
+    @Schema(description = "Окружение: БД, пул, потоки")
+    private Environment environment;
+
+    @Schema(description = "Итоги прогона")
+    private Summary summary;
+
+    @Schema(description = "Замеры по окнам sample-interval — выборки для статистического сравнения; "
+            + "в списке прогонов не отдаются")
+    private List<Sample> samples;
+
+    @Schema(description = "Окружение прогона")
+    public record Environment(
+            @Schema(description = "Версия PostgreSQL", example = "16.4") String dbVersion,
+            @Schema(description = "Имя БД", example = "demo") String database,
+            @Schema(description = "Размер пула соединений", example = "20") int poolSize,
+            @Schema(description = "Потоков записи", example = "8") int workerThreads,
+            @Schema(description = "Потоков синтеза (PIPELINE)", example = "4") int synthesisThreads,
+            @Schema(description = "Ядер, доступных JVM", example = "8") int availableProcessors,
+            @Schema(description = "Версия Java", example = "21.0.4") String javaVersion) {
+    }
+
+    @Schema(description = "Итоги прогона")
+    public record Summary(
+            @Schema(description = "Записей во всех таблицах") long totalRecords,
+            @Schema(description = "Батчей отправлено") long batchesSubmitted,
+            @Schema(description = "Батчей записано") long batchesCompleted,
+            @Schema(description = "Батчей с ошибкой") long batchesFailed,
+            @Schema(description = "Батчей пропущено (DROP)") long batchesDropped,
+            @Schema(description = "Батчей, ушедших в работу с опозданием") long batchesLate,
+            @Schema(description = "Записей в секунду за прогон") double recordsPerSecond,
+            @Schema(description = "Строк в секунду по таблицам") Map<String, Double> tableRowsPerSecond,
+            @Schema(description = "p50 latency батча, мс") double latencyP50Ms,
+            @Schema(description = "p99 latency батча, мс") double latencyP99Ms,
+            @Schema(description = "p99.9 latency батча, мс") double latencyP999Ms,
+            @Schema(description = "Максимальная latency батча, мс") double latencyMaxMs,
+            @Schema(description = "Время стадий батча по таблицам, ключ — stage.table",
+                    example = "{\"write.order_items\": {\"count\": 120, \"p50Ms\": 4.1, \"p99Ms\": 9.8, \"maxMs\": 12.0}}")
+            Map<String, StageLatency> stages) {
+    }
+
+    @Schema(description = "Замер за одно окно")
+    public record Sample(
+            @Schema(description = "Секунд от начала прогона до конца окна", example = "10.0") double atSeconds,
+            @Schema(description = "Записей в секунду за окно", example = "1750.5") double recordsPerSecond,
+            @Schema(description = "p99 latency батчей, завершённых в окне, мс", example = "24.1") double latencyP99Ms,
+            @Schema(description = "Батчей, завершённых в окне", example = "100") long batches) {
+    }
+}
@@ -0,0 +1,43 @@
+package com.lt.dbcomparator.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Способ записи сгенерированных батчей в БД.
+ */
+@Schema(description = "Способ записи батчей: INSERT (batchUpdate), COPY (binary), CTE (один запрос на граф), " +
+        "MULTI_VALUES (многострочный VALUES, как reWriteBatchedInserts) или JPA (Hibernate persist с каскадами)")
+public enum WriteMode {
+
+    /**
+     * INSERT ... VALUES через JdbcTemplate.batchUpdate (по умолчанию).
+     */
+    INSERT,
+
+    /**
+     * COPY ... FROM STDIN (FORMAT binary) через pgjdbc CopyManager.
+     * Нет parse/bind на каждую строку — данные уходят одним потоком на таблицу.
+     */
+    COPY,
+
+    /**
+     * Весь граф Customer → Profile → Orders → Items одним SQL-запросом:
+     * типизированные массивы разворачиваются через unnest, ID назначает и
+     * распространяет сама БД в цепочке data-modifying CTE. Один round-trip на батч.
+     */
+    CTE,
+
+    /**
+     * INSERT ... VALUES (...), (...), ... до 128 строк на statement — та же
+     * перезапись batch'а, что у pgjdbc с reWriteBatchedInserts=true, но
+     * выбираемая на прогон, а не на весь пул соединений.
+     */
+    MULTI_VALUES,
+
+    /**
+     * JPA/Hibernate: persist графа сущностей с каскадами, как в сервисах на
+     * entity-слое. ID — IDENTITY, поэтому INSERT'ы идут по одному на строку.
+     * Только основная БД.
+     */
+    JPA
+}
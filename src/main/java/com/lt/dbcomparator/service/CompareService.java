@@ -0,0 +1,431 @@
+package com.lt.dbcomparator.service;
+
+import com.lt.dbcomparator.dto.CompareRequest;
+import com.lt.dbcomparator.dto.CompareStatusResponse;
+import com.lt.dbcomparator.dto.ExecutionMode;
+import com.lt.dbcomparator.dto.LoadRequest;
+import com.lt.dbcomparator.dto.OverflowPolicy;
+import com.lt.dbcomparator.dto.WriteMode;
+import com.lt.dbcomparator.service.generator.BatchBuffer;
+import com.lt.dbcomparator.service.generator.BatchSynthesizer;
+import com.lt.dbcomparator.service.generator.GeneratorMetrics;
+import com.lt.dbcomparator.service.generator.ProductCatalog;
+import com.lt.dbcomparator.service.generator.RateController;
+import com.lt.dbcomparator.service.generator.WriteStrategy;
+import com.lt.dbcomparator.service.prefill.PrefillJobs;
+import com.lt.dbcomparator.service.target.DbTarget;
+import com.lt.dbcomparator.service.target.DbTargets;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Сравнение БД одной и той же нагрузкой генератора.
+ * <p>
+ * Управляется через REST: start(CompareRequest) / stop() / getStatus().
+ * Один {@link LoadRequest} подаётся на несколько целей из {@link DbTargets}
+ * — одновременно или по очереди. У каждой цели свои пул воркеров, open-loop
+ * {@link RateController}, аллокатор ID и гистограмма latency, но данные
+ * одинаковые: батч с порядковым номером N синтезируется из
+ * {@code SplittableRandom(seed, N)} с общим для прогона «сейчас», а
+ * справочник продуктов во всех БД одинаков ({@link ProductCatalog}).
+ * <p>
+ * Запись — теми же {@link WriteStrategy}, что у генератора, через
+ * JdbcTemplate и транзакцию цели. Батч исполняется в одном потоке
+ * (как FIXED_POOL генератора); latency отсчитывается от планового времени.
+ * Отчёт о разнице сравнивает каждую цель с первой из списка.
+ */
+@Slf4j
+@Service
+public class CompareService {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final DbTargets dbTargets;
+    private final MeterRegistry meterRegistry;
+    private final PrefillJobs prefillJobs;
+    private final long idBlockSize;
+    private final Map<WriteMode, WriteStrategy> strategies = new EnumMap<>(WriteMode.class);
+
+    // ── Состояние ──
+    private volatile boolean running = false;
+    private CompareRequest currentConfig;
+    private volatile List<TargetRun> runs = List.of();
+    private Thread sequencer;
+
+    public CompareService(DbTargets dbTargets,
+            List<WriteStrategy> writeStrategies,
+            MeterRegistry meterRegistry,
+            PrefillJobs prefillJobs,
+            @Value("${generator.id-block-size:10000}") long idBlockSize) {
+        this.dbTargets = dbTargets;
+        this.meterRegistry = meterRegistry;
+        this.prefillJobs = prefillJobs;
+        this.idBlockSize = idBlockSize;
+        for (WriteStrategy strategy : writeStrategies) {
+            strategies.put(strategy.mode(), strategy);
+        }
+    }
+
+    // ═══════════════════════════════════════════
+    // Публичное API
+    // ═══════════════════════════════════════════
+
+    public synchronized void start(CompareRequest request) {
+        if (running) {
+            throw new IllegalStateException("Сравнение уже запущено. Сначала вызовите /stop.");
+        }
+        prefillJobs.checkNoneUnfinished("Сравнение");
+        List<String> names = validate(request);
+        LoadRequest load = request.getLoad();
+        normalize(load);
+        if (request.getSeed() == null) {
+            request.setSeed(ThreadLocalRandom.current().nextLong());
+        }
+        request.setTargets(names);
+
+        WriteStrategy strategy = strategies.get(load.getWriteMode());
+        LocalDateTime now = LocalDateTime.now();
+        List<TargetRun> created = new ArrayList<>(names.size());
+        for (String name : names) {
+            created.add(new TargetRun(dbTargets.get(name), load, strategy, request.getSeed(), now));
+        }
+
+        this.currentConfig = request;
+        this.runs = created;
+        this.running = true;
+
+        if (request.isSequential()) {
+            sequencer = new Thread(() -> runSequentially(created), "compare-sequencer");
+            sequencer.setDaemon(true);
+            sequencer.start();
+        } else {
+            CountDownLatch remaining = new CountDownLatch(created.size());
+            for (TargetRun run : created) {
+                run.start(() -> {
+                    remaining.countDown();
+                    if (remaining.getCount() == 0) {
+                        running = false;
+                    }
+                });
+            }
+        }
+
+        log.info("Сравнение запущено: targets={}, sequential={}, seed={}, batchSize={}, batchesPerSecond={}, " +
+                        "mode={}, duration={}min",
+                names, request.isSequential(), request.getSeed(), load.getBatchSize(),
+                load.getBatchesPerSecond(), load.getWriteMode(), load.getDurationMinutes());
+    }
+
+    public synchronized void stop() {
+        if (!running)
+            return;
+        running = false;
+        if (sequencer != null) {
+            sequencer.interrupt();
+            sequencer = null;
+        }
+        for (TargetRun run : runs) {
+            run.stop();
+        }
+        log.info("Сравнение остановлено");
+    }
+
+    public CompareStatusResponse getStatus() {
+        List<CompareStatusResponse.TargetResult> results = new ArrayList<>();
+        for (TargetRun run : runs) {
+            results.add(run.result());
+        }
+        return CompareStatusResponse.builder()
+                .running(running)
+                .config(currentConfig)
+                .targets(results)
+                .diff(diff(results))
+                .build();
+    }
+
+    // ═══════════════════════════════════════════
+    // Внутренняя механика
+    // ═══════════════════════════════════════════
+
+    private void runSequentially(List<TargetRun> ordered) {
+        try {
+            for (TargetRun run : ordered) {
+                CountDownLatch finished = new CountDownLatch(1);
+                run.start(finished::countDown);
+                finished.await();
+                if (!running) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            running = false;
+        }
+    }
+
+    /**
+     * Разница каждой цели с первой: пропускная способность, перцентили
+     * latency, ошибки.
+     */
+    private static List<CompareStatusResponse.MetricDiff> diff(List<CompareStatusResponse.TargetResult> results) {
+        List<CompareStatusResponse.MetricDiff> diff = new ArrayList<>();
+        if (results.size() < 2) {
+            return diff;
+        }
+        CompareStatusResponse.TargetResult base = results.get(0);
+        for (CompareStatusResponse.TargetResult r : results.subList(1, results.size())) {
+            diff.add(metricDiff(r.target(), "recordsPerSecond", base.recordsPerSecond(), r.recordsPerSecond()));
+            diff.add(metricDiff(r.target(), "latencyP50Ms", base.latencyP50Ms(), r.latencyP50Ms()));
+            diff.add(metricDiff(r.target(), "latencyP99Ms", base.latencyP99Ms(), r.latencyP99Ms()));
+            diff.add(metricDiff(r.target(), "latencyP999Ms", base.latencyP999Ms(), r.latencyP999Ms()));
+            diff.add(metricDiff(r.target(), "latencyMaxMs", base.latencyMaxMs(), r.latencyMaxMs()));
+            diff.add(metricDiff(r.target(), "batchesFailed", base.batchesFailed(), r.batchesFailed()));
+        }
+        return diff;
+    }
+
+    private static CompareStatusResponse.MetricDiff metricDiff(String target, String metric, double baseline,
+            double value) {
+        Double delta = baseline != 0 ? (value - baseline) / baseline * 100.0 : null;
+        return new CompareStatusResponse.MetricDiff(target, metric, baseline, value, delta);
+    }
+
+    private List<String> validate(CompareRequest req) {
+        if (req.getLoad() == null)
+            throw new IllegalArgumentException("load обязателен");
+        DataGeneratorService.validate(req.getLoad());
+        LoadRequest load = req.getLoad();
+        if (load.getProfile() != null || load.getMaxRecords() > 0 || load.getMaxBatches() > 0)
+            throw new IllegalArgumentException("Сравнение поддерживает только постоянный batchesPerSecond: " +
+                    "profile, maxRecords и maxBatches не поддерживаются");
+        if (load.getDurationMinutes() <= 0)
+            throw new IllegalArgumentException("durationMinutes должен быть > 0");
+        ExecutionMode execution = load.getExecutionMode();
+        if (execution != null && execution != ExecutionMode.FIXED_POOL)
+            throw new IllegalArgumentException("Сравнение поддерживает только executionMode=FIXED_POOL");
+        // EntityManager привязан к основной БД — JPA-путь меряется генератором на каждой БД отдельно
+        if (load.getWriteMode() == WriteMode.JPA)
+            throw new IllegalArgumentException("writeMode=JPA пишет только в основную БД и в сравнении не поддерживается");
+
+        List<String> names = req.getTargets() == null || req.getTargets().isEmpty()
+                ? dbTargets.names()
+                : List.copyOf(new LinkedHashSet<>(req.getTargets()));
+        if (names.size() < 2)
+            throw new IllegalArgumentException("Для сравнения нужно минимум 2 цели, доступны: " + dbTargets.names());
+        names.forEach(dbTargets::get); // неизвестная цель → IllegalArgumentException
+        return names;
+    }
+
+    private static void normalize(LoadRequest load) {
+        if (load.getWriteMode() == null) {
+            load.setWriteMode(WriteMode.INSERT);
+        }
+        load.setExecutionMode(ExecutionMode.FIXED_POOL);
+        if (load.getOverflowPolicy() == null) {
+            load.setOverflowPolicy(OverflowPolicy.DROP);
+        }
+        if (load.getWorkerThreads() == 0) {
+            load.setWorkerThreads(Math.max(2, Runtime.getRuntime().availableProcessors()));
+        }
+    }
+
+    /**
+     * Нагрузка на одну цель.
+     */
+    private final class TargetRun {
+
+        private final DbTarget target;
+        private final LoadRequest load;
+        private final WriteStrategy strategy;
+        private final long seed;
+        private final LocalDateTime now;
+        private final IdBlockAllocator idAllocator;
+        private final ThreadLocal<BatchBuffer> buffers = ThreadLocal.withInitial(BatchBuffer::new);
+
+        private final AtomicLong batchIndex = new AtomicLong();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong records = new AtomicLong();
+        private final Histogram latency = new ConcurrentHistogram(3);
+        private final Timer latencyTimer;
+        private final Counter recordsCounter;
+
+        private volatile boolean active;
+        private volatile long startedAtNanos;
+        private volatile long stoppedAtNanos;
+        private long[] productIds;
+        private ExecutorService pool;
+        private Semaphore permits;
+        private RateController rateController;
+        private Runnable onFinished;
+
+        TargetRun(DbTarget target, LoadRequest load, WriteStrategy strategy, long seed, LocalDateTime now) {
+            this.target = target;
+            this.load = load;
+            this.strategy = strategy;
+            this.seed = seed;
+            this.now = now;
+            this.idAllocator = strategy.usesPreallocatedIds()
+                    ? new IdBlockAllocator(target.jdbcTemplate(), target.transactionManager(), meterRegistry,
+                            idBlockSize)
+                    : null;
+            this.latencyTimer = Timer.builder("compare.batch.latency")
+                    .description("Сравнение БД: время от планового старта батча до конца записи")
+                    .tag("target", target.name())
+                    .publishPercentiles(0.5, 0.99, 0.999)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            this.recordsCounter = Counter.builder("compare.records")
+                    .description("Сравнение БД: записей во всех таблицах")
+                    .tag("target", target.name())
+                    .register(meterRegistry);
+        }
+
+        synchronized void start(Runnable onFinished) {
+            this.onFinished = onFinished;
+            this.productIds = ProductCatalog.ensure(target.jdbcTemplate(), target.transactionTemplate());
+            int workers = load.getWorkerThreads();
+            this.pool = Executors.newFixedThreadPool(workers, r -> {
+                Thread t = new Thread(r, "compare-" + target.name());
+                t.setDaemon(true);
+                return t;
+            });
+            this.permits = new Semaphore(workers * 2);
+            this.active = true;
+            this.startedAtNanos = System.nanoTime();
+            this.rateController = new RateController(load.getBatchesPerSecond(), load.getOverflowPolicy(),
+                    this::dispatch,
+                    dropped::incrementAndGet,
+                    () -> {
+                    },
+                    TimeUnit.MINUTES.toNanos(load.getDurationMinutes()),
+                    this::stop);
+            rateController.start();
+        }
+
+        synchronized void stop() {
+            if (!active)
+                return;
+            active = false;
+            if (rateController != null) {
+                rateController.stop();
+            }
+            if (pool != null) {
+                pool.shutdown();
+                try {
+                    if (!pool.awaitTermination(30, TimeUnit.SECONDS)) {
+                        pool.shutdownNow();
+                    }
+                } catch (InterruptedException e) {
+                    pool.shutdownNow();
+                    Thread.currentThread().interrupt();
+                }
+            }
+            stoppedAtNanos = System.nanoTime();
+            log.info("Сравнение, цель '{}': батчей {}, записей {}", target.name(), completed.get(), records.get());
+            if (onFinished != null) {
+                onFinished.run();
+            }
+        }
+
+        private boolean dispatch(long intendedStartNanos) {
+            if (!active || !permits.tryAcquire()) {
+                return false;
+            }
+            try {
+                pool.submit(() -> {
+                    try {
+                        execute(intendedStartNanos);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // stop() уже закрыл пул между проверкой active и submit
+                permits.release();
+                return false;
+            }
+            return true;
+        }
+
+        private void execute(long intendedStartNanos) {
+            BatchBuffer batch = buffers.get();
+            long index = batchIndex.getAndIncrement();
+            try {
+                BatchSynthesizer.fill(batch, load.getBatchSize(), productIds,
+                        new SplittableRandom(seed ^ (index * GOLDEN_GAMMA)), now);
+                if (idAllocator != null) {
+                    batch.assignIds(
+                            idAllocator.allocate(GeneratorMetrics.CUSTOMERS, batch.customers()),
+                            idAllocator.allocate(GeneratorMetrics.CUSTOMER_PROFILES, batch.customers()),
+                            idAllocator.allocate(GeneratorMetrics.ORDERS, batch.orders()),
+                            idAllocator.allocate(GeneratorMetrics.ORDER_ITEMS, batch.items()));
+                }
+                TransactionStatus tx = target.transactionManager().getTransaction(TransactionDefinition.withDefaults());
+                int written;
+                try {
+                    written = strategy.write(batch, target.jdbcTemplate());
+                } catch (RuntimeException | Error e) {
+                    target.transactionManager().rollback(tx);
+                    throw e;
+                }
+                target.transactionManager().commit(tx);
+                records.addAndGet(written);
+                recordsCounter.increment(written);
+                completed.incrementAndGet();
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                log.error("Сравнение, цель '{}': ошибка записи батча: {}", target.name(), e.getMessage());
+            } finally {
+                long latencyNs = System.nanoTime() - intendedStartNanos;
+                latencyTimer.record(latencyNs, TimeUnit.NANOSECONDS);
+                latency.recordValue(Math.max(0, latencyNs / 1_000));
+            }
+        }
+
+        CompareStatusResponse.TargetResult result() {
+            long start = startedAtNanos;
+            long end = active ? System.nanoTime() : stoppedAtNanos;
+            double seconds = start != 0 && end > start ? (end - start) / 1e9 : 0;
+            return new CompareStatusResponse.TargetResult(
+                    target.name(),
+                    active,
+                    completed.get(),
+                    failed.get(),
+                    dropped.get(),
+                    records.get(),
+                    seconds,
+                    seconds > 0 ? records.get() / seconds : 0,
+                    latency.getValueAtPercentile(50.0) / 1000.0,
+                    latency.getValueAtPercentile(99.0) / 1000.0,
+                    latency.getValueAtPercentile(99.9) / 1000.0,
+                    latency.getMaxValue() / 1000.0);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.lt.dbcomparator.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lt.dbcomparator.dto.CustomerResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Кэш графа клиента (результат {@link CustomerService#getById}) в памяти
+ * приложения.
+ * <p>
+ * По умолчанию выключен — getById каждый раз идёт в БД, и latency чтения —
+ * это latency «холодного» пути PostgreSQL. С {@code customers.cache.enabled}
+ * тот же прогон показывает развёртывание с кэшем на уровне приложения:
+ * горячие ключи Zipf-нагрузки перестают доходить до БД.
+ * <p>
+ * Ограничен размером ({@code max-size}, вытеснение W-TinyLFU) и временем
+ * жизни записи ({@code ttl}). Метрики Caffeine публикуются с тегом
+ * {@code cache=customers}: cache.gets (hit / miss), cache.evictions,
+ * cache.size.
+ * <p>
+ * Инвалидация: любой путь записи, меняющий граф клиента (профиль, заказы,
+ * позиции), обязан вызвать {@link #invalidate(long)} после commit.
+ * Генератор только добавляет новых клиентов с новыми ID — закэшированных
+ * графов он не меняет, а «не найден» не кэшируется.
+ */
+@Slf4j
+@Component
+public class CustomerCache {
+
+    private final Cache<Long, CustomerResponse> cache;
+
+    public CustomerCache(MeterRegistry meterRegistry,
+            @Value("${customers.cache.enabled:false}") boolean enabled,
+            @Value("${customers.cache.max-size:100000}") long maxSize,
+            @Value("${customers.cache.ttl:60s}") Duration ttl) {
+        if (!enabled) {
+            this.cache = null;
+            return;
+        }
+        if (maxSize <= 0 || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("customers.cache.max-size и ttl должны быть > 0");
+        }
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "customers");
+        log.info("Кэш клиентов включён: max-size={}, ttl={}", maxSize, ttl);
+    }
+
+    public boolean enabled() {
+        return cache != null;
+    }
+
+    /**
+     * Граф клиента из кэша или из {@code loader} (при промахе и выключенном
+     * кэше). Параллельные промахи по одному ID грузят граф один раз.
+     * Исключения loader пробрасываются как есть и не кэшируются.
+     */
+    public CustomerResponse get(long id, Function<Long, CustomerResponse> loader) {
+        if (cache == null) {
+            return loader.apply(id);
+        }
+        return cache.get(id, loader);
+    }
+
+    /**
+     * Сбрасывает граф клиента. Если граф в этот момент загружается,
+     * вызов дождётся загрузки и удалит её результат.
+     */
+    public void invalidate(long id) {
+        if (cache != null) {
+            cache.invalidate(id);
+        }
+    }
+
+    /**
+     * Сбрасывает весь кэш — например, перед замером холодного пути.
+     */
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+}
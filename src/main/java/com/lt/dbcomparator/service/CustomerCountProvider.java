@@ -0,0 +1,145 @@
+package com.lt.dbcomparator.service;
+
+import com.lt.dbcomparator.dto.CountStrategy;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Общее кол-во клиентов для страничной выдачи.
+ * <p>
+ * {@code SELECT count(*)} — полный проход по таблице, и на десятках
+ * миллионов строк он стоит секунды на каждый запрос страницы. Поэтому
+ * стратегия подсчёта настраивается ({@code customers.count.strategy}) и может
+ * быть переопределена в запросе:
+ * <ul>
+ * <li>EXACT — count(*) каждый раз;</li>
+ * <li>ESTIMATE — оценка планировщика из pg_class, постоянное время;</li>
+ * <li>CACHED — count(*) в фоновом потоке раз в
+ * {@code customers.count.refresh-interval}.</li>
+ * </ul>
+ * Фоновый пересчёт запускается при первом обращении к CACHED — пока эта
+ * стратегия не используется, лишних count(*) по таблице нет.
+ */
+@Slf4j
+@Service
+public class CustomerCountProvider {
+
+    static final String EXACT_SQL = "SELECT count(*) FROM customers";
+
+    // reltuples / relpages — плотность строк на момент последнего ANALYZE,
+    // умноженная на текущее число страниц: оценка растёт вместе с таблицей
+    // между проходами autovacuum. -1 — статистики ещё нет.
+    static final String ESTIMATE_SQL = """
+            SELECT CASE
+                       WHEN c.reltuples < 0 OR c.relpages = 0 THEN -1
+                       ELSE (c.reltuples / c.relpages
+                             * (pg_relation_size(c.oid) / current_setting('block_size')::int))::bigint
+                   END
+            FROM pg_class c
+            WHERE c.oid = 'customers'::regclass
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CountStrategy defaultStrategy;
+    private final Duration refreshInterval;
+
+    private volatile long cachedCount = -1;
+    private ScheduledExecutorService refresher;
+
+    public CustomerCountProvider(JdbcTemplate jdbcTemplate,
+            @Value("${customers.count.strategy:ESTIMATE}") CountStrategy defaultStrategy,
+            @Value("${customers.count.refresh-interval:30s}") Duration refreshInterval) {
+        if (refreshInterval.isNegative() || refreshInterval.isZero()) {
+            throw new IllegalArgumentException("customers.count.refresh-interval должен быть > 0");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.defaultStrategy = defaultStrategy;
+        this.refreshInterval = refreshInterval;
+    }
+
+    /**
+     * Стратегия из конфигурации — для запросов, где она не указана явно.
+     */
+    public CountStrategy defaultStrategy() {
+        return defaultStrategy;
+    }
+
+    /**
+     * Кол-во клиентов по выбранной стратегии.
+     */
+    public long count(CountStrategy strategy) {
+        return switch (strategy) {
+            case EXACT -> exact();
+            case ESTIMATE -> estimate();
+            case CACHED -> cached();
+        };
+    }
+
+    @PreDestroy
+    synchronized void shutdown() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    // ═══════════════════════════════════════════
+    // Стратегии
+    // ═══════════════════════════════════════════
+
+    private long exact() {
+        Long count = jdbcTemplate.queryForObject(EXACT_SQL, Long.class);
+        return count != null ? count : 0;
+    }
+
+    private long estimate() {
+        Long estimate = jdbcTemplate.queryForObject(ESTIMATE_SQL, Long.class);
+        // Таблица ещё ни разу не анализировалась — обычно она только что
+        // создана и мала, точный подсчёт дешёв
+        return estimate != null && estimate >= 0 ? estimate : exact();
+    }
+
+    private long cached() {
+        long count = cachedCount;
+        if (count >= 0) {
+            return count;
+        }
+        return initCache();
+    }
+
+    /**
+     * Первое обращение к CACHED: синхронный подсчёт (отдавать нечего) и
+     * запуск фонового пересчёта.
+     */
+    private synchronized long initCache() {
+        if (cachedCount >= 0) {
+            return cachedCount;
+        }
+        cachedCount = exact();
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "customer-count-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        long periodMs = refreshInterval.toMillis();
+        refresher.scheduleWithFixedDelay(this::refresh, periodMs, periodMs, TimeUnit.MILLISECONDS);
+        log.info("Фоновый подсчёт клиентов запущен: каждые {} (сейчас {})", refreshInterval, cachedCount);
+        return cachedCount;
+    }
+
+    private void refresh() {
+        try {
+            cachedCount = exact();
+        } catch (Exception e) {
+            // Остаётся прошлое значение — следующая попытка через интервал
+            log.warn("Не удалось пересчитать кол-во клиентов: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.lt.dbcomparator.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Выгрузка всей таблицы клиентов в NDJSON с постоянным расходом памяти.
+ * <p>
+ * Диапазон ID делится на {@code partitions} равных частей. Каждую часть
+ * читает свой поток на своём соединении: read-only транзакция + fetchSize —
+ * pgjdbc открывает серверный курсор и тянет строки порциями, а не весь
+ * результат в память. Строки — JSON-документы из БД (байты как есть) — копятся
+ * в буфере потока и блоками по {@value #FLUSH_BYTES} байт пишутся в общий
+ * выходной поток под блокировкой. Строки разных частей перемежаются, порядок
+ * внутри части — по ID.
+ * <p>
+ * Память приложения на выгрузку — буфер на часть + fetchSize строк на
+ * курсор, независимо от размера таблицы. Скорость скана публикуется в
+ * метриках export.rows / export.bytes / export.duration.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CustomerExportService {
+
+    public static final int MAX_PARTITIONS = 16;
+    public static final int MAX_FETCH_SIZE = 100_000;
+
+    private static final int FLUSH_BYTES = 64 * 1024;
+
+    // Клиент без связей — те же поля и ключи, что в странице getAll
+    private static final String CUSTOMER_JSON = """
+            json_build_object(
+                'id', c.id,
+                'firstName', c.first_name,
+                'lastName', c.last_name,
+                'email', c.email,
+                'phone', c.phone,
+                'dateOfBirth', c.date_of_birth,
+                'registeredAt', c.registered_at,
+                'status', c.status,
+                'loyaltyPoints', c.loyalty_points,
+                'country', c.country
+            )
+            """;
+
+    private static final String RANGE_WHERE = " FROM customers c WHERE c.id >= ? AND c.id < ? ORDER BY c.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Пишет в {@code out} всех клиентов — по JSON-документу на строку.
+     *
+     * @param graph      полный граф клиента (как GET /api/customers/{id}) или
+     *                   только поля клиента
+     * @param partitions параллельных диапазонов ID (и соединений), 1..{@value #MAX_PARTITIONS}
+     * @param fetchSize  строк на одну выборку из курсора, 1..{@value #MAX_FETCH_SIZE}
+     * @return сколько строк записано
+     */
+    public long export(boolean graph, int partitions, int fetchSize, OutputStream out) {
+        if (partitions < 1 || partitions > MAX_PARTITIONS) {
+            throw new IllegalArgumentException("partitions должен быть в диапазоне 1.." + MAX_PARTITIONS);
+        }
+        if (fetchSize < 1 || fetchSize > MAX_FETCH_SIZE) {
+            throw new IllegalArgumentException("fetchSize должен быть в диапазоне 1.." + MAX_FETCH_SIZE);
+        }
+        String kind = graph ? "graphs" : "customers";
+        String sql = "SELECT " + (graph ? CustomerService.GRAPH_JSON : CUSTOMER_JSON) + RANGE_WHERE;
+
+        Map<String, Object> bounds = jdbcTemplate.queryForMap("SELECT min(id) AS lo, max(id) AS hi FROM customers");
+        if (bounds.get("lo") == null) {
+            return 0;
+        }
+        long lo = ((Number) bounds.get("lo")).longValue();
+        long hi = ((Number) bounds.get("hi")).longValue() + 1;
+        long step = Math.max(1, (hi - lo + partitions - 1) / partitions);
+
+        AtomicLong rows = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+        Object outLock = new Object();
+        long startNs = System.nanoTime();
+
+        ExecutorService pool = Executors.newFixedThreadPool(partitions, r -> {
+            Thread t = new Thread(r, "export-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>(partitions);
+            for (long from = lo; from < hi; from += step) {
+                long partFrom = from;
+                long partTo = Math.min(hi, from + step);
+                futures.add(pool.submit(() -> exportRange(sql, partFrom, partTo, fetchSize, out, outLock, rows, bytes)));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+            synchronized (outLock) {
+                out.flush();
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Выгрузка прервана", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long elapsedNs = System.nanoTime() - startNs;
+        record(kind, rows.get(), bytes.get(), elapsedNs);
+        double seconds = Math.max(elapsedNs, 1) / 1e9;
+        log.info("Выгрузка {}: {} строк, {} МБ за {} мс — {} строк/с, {} МБ/с (partitions={}, fetchSize={})",
+                kind, rows.get(), String.format("%.1f", bytes.get() / 1048576.0),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNs),
+                Math.round(rows.get() / seconds), String.format("%.1f", bytes.get() / 1048576.0 / seconds),
+                partitions, fetchSize);
+        return rows.get();
+    }
+
+    // ═══════════════════════════════════════════
+    // Внутренняя механика
+    // ═══════════════════════════════════════════
+
+    /**
+     * Одна часть: [from, to) по ID в собственной read-only транзакции —
+     * без неё (autocommit) pgjdbc игнорирует fetchSize и читает всё сразу.
+     */
+    private void exportRange(String sql, long from, long to, int fetchSize, OutputStream out, Object outLock,
+            AtomicLong rows, AtomicLong bytes) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        LineBuffer buffer = new LineBuffer(out, outLock);
+        tx.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setFetchSize(fetchSize);
+            ps.setLong(1, from);
+            ps.setLong(2, to);
+            return ps;
+        }, rs -> {
+            byte[] line = rs.getBytes(1);
+            buffer.append(line);
+            rows.incrementAndGet();
+            bytes.addAndGet(line.length + 1);
+        }));
+        buffer.flush();
+    }
+
+    private void record(String kind, long rows, long bytes, long elapsedNs) {
+        Counter.builder("export.rows")
+                .description("Строк выгружено в NDJSON")
+                .tag("kind", kind)
+                .register(meterRegistry)
+                .increment(rows);
+        Counter.builder("export.bytes")
+                .description("Байт выгружено в NDJSON")
+                .baseUnit("bytes")
+                .tag("kind", kind)
+                .register(meterRegistry)
+                .increment(bytes);
+        Timer.builder("export.duration")
+                .description("Время полной выгрузки")
+                .tag("kind", kind)
+                .register(meterRegistry)
+                .record(elapsedNs, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Буфер строк одной части: в общий поток уходит блоками, а не по строке —
+     * меньше захватов блокировки и системных вызовов.
+     */
+    private static final class LineBuffer {
+
+        private final OutputStream out;
+        private final Object outLock;
+        private final byte[] buf = new byte[FLUSH_BYTES];
+        private int pos;
+
+        LineBuffer(OutputStream out, Object outLock) {
+            this.out = out;
+            this.outLock = outLock;
+        }
+
+        void append(byte[] line) {
+            if (pos + line.length + 1 > buf.length) {
+                flush();
+            }
+            if (line.length + 1 > buf.length) {
+                // Документ больше буфера — пишем напрямую
+                write(line, line.length, true);
+                return;
+            }
+            System.arraycopy(line, 0, buf, pos, line.length);
+            pos += line.length;
+            buf[pos++] = '\n';
+        }
+
+        void flush() {
+            if (pos > 0) {
+                write(buf, pos, false);
+                pos = 0;
+            }
+        }
+
+        private void write(byte[] data, int len, boolean newline) {
+            try {
+                synchronized (outLock) {
+                    out.write(data, 0, len);
+                    if (newline) {
+                        out.write('\n');
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -1,156 +1,418 @@
 package com.lt.dbcomparator.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lt.dbcomparator.dto.CountStrategy;
+import com.lt.dbcomparator.dto.CustomerKeysetPage;
 import com.lt.dbcomparator.dto.CustomerResponse;
+import com.lt.dbcomparator.dto.ReadMode;
+import com.lt.dbcomparator.service.graph.CustomerGraphReader;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.sql.Array;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 
 /**
  * Сервис чтения данных клиентов.
  * <p>
- * getById() оптимизирован: использует нативный SQL c json_build_object
- * (PostgreSQL),
- * чтобы переложить сборку графа объектов на БД и избежать накладных расходов
- * JPA.
+ * getById() по умолчанию оптимизирован: использует нативный SQL c
+ * json_build_object (PostgreSQL), чтобы переложить сборку графа объектов на
+ * БД и избежать накладных расходов JPA. Другие способы чтения графа (JPA
+ * @EntityGraph, запрос на таблицу, плоский JOIN) выбираются через
+ * {@link ReadMode} — см. {@link CustomerGraphReader}.
+ * getRawById() отдаёт тот же JSON байтами из БД — без разбора и повторной
+ * сериализации. writeGraphs() — много графов одним set-based запросом
+ * (группировка вместо коррелированных подзапросов).
  * <p>
  * getAll() оптимизирован: использует простой JDBC SELECT c LIMIT/OFFSET,
  * чтобы избежать overhead JPA (lazy loading proxies, dirty checking, session
- * management).
+ * management). totalElements считается по {@link CountStrategy} через
+ * {@link CustomerCountProvider}.
+ * <p>
+ * getKeysetPage() — пагинация по курсору ({@code WHERE id > lastId}): страница
+ * читается одним range scan по PK, время не зависит ни от глубины страницы,
+ * ни от размера таблицы — в отличие от OFFSET, который проходит и
+ * отбрасывает все предыдущие строки.
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class CustomerService {
 
+    public static final int MAX_PAGE_SIZE = 2000;
+    public static final int MAX_MULTI_GET_IDS = 1000;
+
+    // Версия формата курсора — первый байт, чтобы формат можно было менять
+    private static final byte CURSOR_VERSION = 1;
+
+    // Граф клиента одним JSON-документом. Ключи — сразу в camelCase, как в
+    // CustomerResponse: JSON из БД можно отдавать клиенту без переименования.
+    public static final String GRAPH_JSON = """
+            json_build_object(
+                'id', c.id,
+                'firstName', c.first_name,
+                'lastName', c.last_name,
+                'email', c.email,
+                'phone', c.phone,
+                'dateOfBirth', c.date_of_birth,
+                'registeredAt', c.registered_at,
+                'status', c.status,
+                'loyaltyPoints', c.loyalty_points,
+                'country', c.country,
+                'profile', (
+                    SELECT json_build_object(
+                        'id', p.id,
+                        'avatarUrl', p.avatar_url,
+                        'bio', p.bio,
+                        'preferredLanguage', p.preferred_language,
+                        'notificationsEnabled', p.notifications_enabled,
+                        'address', p.address,
+                        'city', p.city,
+                        'zipCode', p.zip_code
+                    ) FROM customer_profiles p WHERE p.customer_id = c.id
+                ),
+                'orders', COALESCE((
+                    SELECT json_agg(
+                        json_build_object(
+                            'id', o.id,
+                            'orderNumber', o.order_number,
+                            'orderDate', o.order_date,
+                            'status', o.status,
+                            'totalAmount', o.total_amount,
+                            'currency', o.currency,
+                            'shippingAddress', o.shipping_address,
+                            'notes', o.notes,
+                            'expectedDelivery', o.expected_delivery,
+                            'items', COALESCE((
+                                SELECT json_agg(
+                                    json_build_object(
+                                        'id', oi.id,
+                                        'quantity', oi.quantity,
+                                        'unitPrice', oi.unit_price,
+                                        'totalPrice', oi.total_price,
+                                        'discount', oi.discount,
+                                        'createdAt', oi.created_at,
+                                        'product', (
+                                            SELECT json_build_object(
+                                                'id', pr.id,
+                                                'name', pr.name,
+                                                'sku', pr.sku,
+                                                'description', pr.description,
+                                                'price', pr.price,
+                                                'category', pr.category,
+                                                'weight', pr.weight,
+                                                'inStock', pr.in_stock
+                                            ) FROM products pr WHERE pr.id = oi.product_id
+                                        )
+                                    )
+                                ) FROM order_items oi WHERE oi.order_id = o.id
+                            ), '[]'::json)
+                        )
+                    ) FROM orders o WHERE o.customer_id = c.id
+                ), '[]'::json)
+            )
+            """;
+
+    // Для getRawById; getById читает граф через CustomerGraphReader
+    private static final String GRAPH_SQL = "SELECT " + GRAPH_JSON + " FROM customers c WHERE c.id = ?";
+
+    // То же без null-полей — json_strip_nulls на стороне БД (меньше байт по сети и в ответе)
+    private static final String GRAPH_STRIPPED_SQL =
+            "SELECT json_strip_nulls(" + GRAPH_JSON + ") FROM customers c WHERE c.id = ?";
+
+    // Много графов одним set-based запросом: вместо коррелированных подзапросов
+    // на каждого клиента / заказ / позицию — по одному проходу на таблицу с
+    // группировкой. Позиции (с товаром через JOIN) агрегируются по заказу,
+    // заказы — по клиенту, затем всё соединяется с клиентами и профилями.
+    // Все три параметра — один и тот же bigint[] с ID.
+    private static final String MULTI_GRAPH_SQL = """
+            WITH item_agg AS (
+                SELECT oi.order_id,
+                       json_agg(json_build_object(
+                           'id', oi.id,
+                           'quantity', oi.quantity,
+                           'unitPrice', oi.unit_price,
+                           'totalPrice', oi.total_price,
+                           'discount', oi.discount,
+                           'createdAt', oi.created_at,
+                           'product', json_build_object(
+                               'id', pr.id,
+                               'name', pr.name,
+                               'sku', pr.sku,
+                               'description', pr.description,
+                               'price', pr.price,
+                               'category', pr.category,
+                               'weight', pr.weight,
+                               'inStock', pr.in_stock
+                           )
+                       ) ORDER BY oi.id) AS items
+                FROM orders o
+                JOIN order_items oi ON oi.order_id = o.id
+                JOIN products pr ON pr.id = oi.product_id
+                WHERE o.customer_id = ANY(?::bigint[])
+                GROUP BY oi.order_id
+            ),
+            order_agg AS (
+                SELECT o.customer_id,
+                       json_agg(json_build_object(
+                           'id', o.id,
+                           'orderNumber', o.order_number,
+                           'orderDate', o.order_date,
+                           'status', o.status,
+                           'totalAmount', o.total_amount,
+                           'currency', o.currency,
+                           'shippingAddress', o.shipping_address,
+                           'notes', o.notes,
+                           'expectedDelivery', o.expected_delivery,
+                           'items', COALESCE(ia.items, '[]'::json)
+                       ) ORDER BY o.id) AS orders
+                FROM orders o
+                LEFT JOIN item_agg ia ON ia.order_id = o.id
+                WHERE o.customer_id = ANY(?::bigint[])
+                GROUP BY o.customer_id
+            )
+            SELECT json_build_object(
+                'id', c.id,
+                'firstName', c.first_name,
+                'lastName', c.last_name,
+                'email', c.email,
+                'phone', c.phone,
+                'dateOfBirth', c.date_of_birth,
+                'registeredAt', c.registered_at,
+                'status', c.status,
+                'loyaltyPoints', c.loyalty_points,
+                'country', c.country,
+                'profile', CASE WHEN p.id IS NULL THEN NULL ELSE json_build_object(
+                    'id', p.id,
+                    'avatarUrl', p.avatar_url,
+                    'bio', p.bio,
+                    'preferredLanguage', p.preferred_language,
+                    'notificationsEnabled', p.notifications_enabled,
+                    'address', p.address,
+                    'city', p.city,
+                    'zipCode', p.zip_code
+                ) END,
+                'orders', COALESCE(oa.orders, '[]'::json)
+            )
+            FROM customers c
+            LEFT JOIN customer_profiles p ON p.customer_id = c.id
+            LEFT JOIN order_agg oa ON oa.customer_id = c.id
+            WHERE c.id = ANY(?::bigint[])
+            ORDER BY c.id
+            """;
+
+    // Общие с ReactiveCustomerService: тот же SQL, что у блокирующего пути
+    static final String PAGE_COLUMNS = """
+            SELECT id, first_name, last_name, email, phone, date_of_birth,
+                   registered_at, status, loyalty_points, country
+            FROM customers
+            """;
+
     private final JdbcTemplate jdbcTemplate;
-    private final ObjectMapper objectMapper;
+    private final CustomerGraphReader graphReader;
+    private final CustomerCountProvider countProvider;
+    private final CustomerCache customerCache;
 
     /**
      * Загрузить клиента со всем графом связей: Profile → Orders → Items → Products.
      * <p>
-     * Выполняется один SQL-запрос, который возвращает JSON.
-     * Это минимизирует overhead приложения и CPU на маппинг сущностей.
+     * Граф читается стратегией по умолчанию ({@code customers.read.strategy},
+     * обычно {@link ReadMode#JSON_AGG} — один SQL-запрос, который возвращает
+     * JSON). При включённом {@link CustomerCache} чтение выполняется только на
+     * промахе.
      */
     @Transactional(readOnly = true)
     public CustomerResponse getById(Long id) {
-        String sql = """
-                SELECT json_build_object(
-                    'id', c.id,
-                    'firstName', c.first_name,
-                    'lastName', c.last_name,
-                    'email', c.email,
-                    'phone', c.phone,
-                    'dateOfBirth', c.date_of_birth,
-                    'registeredAt', c.registered_at,
-                    'status', c.status,
-                    'loyaltyPoints', c.loyalty_points,
-                    'country', c.country,
-                    'profile', (
-                        SELECT json_build_object(
-                            'id', p.id,
-                            'avatarUrl', p.avatar_url,
-                            'bio', p.bio,
-                            'preferredLanguage', p.preferred_language,
-                            'notificationsEnabled', p.notifications_enabled,
-                            'address', p.address,
-                            'city', p.city,
-                            'zipCode', p.zip_code
-                        ) FROM customer_profiles p WHERE p.customer_id = c.id
-                    ),
-                    'orders', COALESCE((
-                        SELECT json_agg(
-                            json_build_object(
-                                'id', o.id,
-                                'orderNumber', o.order_number,
-                                'orderDate', o.order_date,
-                                'status', o.status,
-                                'totalAmount', o.total_amount,
-                                'currency', o.currency,
-                                'shippingAddress', o.shipping_address,
-                                'notes', o.notes,
-                                'expectedDelivery', o.expected_delivery,
-                                'items', COALESCE((
-                                    SELECT json_agg(
-                                        json_build_object(
-                                            'id', oi.id,
-                                            'quantity', oi.quantity,
-                                            'unitPrice', oi.unit_price,
-                                            'totalPrice', oi.total_price,
-                                            'discount', oi.discount,
-                                            'createdAt', oi.created_at,
-                                            'product', (
-                                                SELECT json_build_object(
-                                                    'id', pr.id,
-                                                    'name', pr.name,
-                                                    'sku', pr.sku,
-                                                    'description', pr.description,
-                                                    'price', pr.price,
-                                                    'category', pr.category,
-                                                    'weight', pr.weight,
-                                                    'inStock', pr.in_stock
-                                                ) FROM products pr WHERE pr.id = oi.product_id
-                                            )
-                                        )
-                                    ) FROM order_items oi WHERE oi.order_id = o.id
-                                ), '[]'::json)
-                            )
-                        ) FROM orders o WHERE o.customer_id = c.id
-                    ), '[]'::json)
-                )
-                FROM customers c
-                WHERE c.id = ?
-                """;
+        return customerCache.get(id, this::loadById);
+    }
 
+    /**
+     * Граф клиента выбранной стратегией чтения ({@code null} — как
+     * {@link #getById(Long)}). Явно выбранная стратегия всегда читает из БД,
+     * мимо кэша, — это путь для сравнения стратегий.
+     */
+    @Transactional(readOnly = true)
+    public CustomerResponse getById(Long id, ReadMode readMode) {
+        if (readMode == null) {
+            return getById(id);
+        }
+        return load(id, readMode);
+    }
+
+    private CustomerResponse loadById(Long id) {
+        return load(id, null);
+    }
+
+    private CustomerResponse load(Long id, ReadMode readMode) {
+        CustomerResponse customer = graphReader.read(id, readMode);
+        if (customer == null) {
+            throw new RuntimeException("Customer not found: id=" + id, new EmptyResultDataAccessException(1));
+        }
+        return customer;
+    }
+
+    /**
+     * Граф клиента как есть — байты JSON-документа из БД (UTF-8), без
+     * разбора в {@link CustomerResponse} и повторной сериализации.
+     * <p>
+     * Ключи и их порядок формирует SQL, поэтому документ совпадает с
+     * ответом {@link #getById} по структуре; отличаться может только
+     * текстовое представление дат и чисел (так, как их печатает PostgreSQL).
+     * Кэш {@link CustomerCache} не используется — это путь для замера
+     * стоимости маппинга.
+     *
+     * @param stripNulls убрать null-поля на стороне БД ({@code json_strip_nulls})
+     */
+    @Transactional(readOnly = true)
+    public byte[] getRawById(Long id, boolean stripNulls) {
         try {
-            String json = jdbcTemplate.queryForObject(sql, String.class, id);
-            return objectMapper.readValue(json, CustomerResponse.class);
+            // getBytes для json-колонки — сырые байты текстового протокола,
+            // без промежуточной String
+            return jdbcTemplate.queryForObject(stripNulls ? GRAPH_STRIPPED_SQL : GRAPH_SQL,
+                    (rs, rowNum) -> rs.getBytes(1), id);
         } catch (EmptyResultDataAccessException e) {
             throw new RuntimeException("Customer not found: id=" + id, e);
-        } catch (JsonProcessingException e) {
-            log.error("Error parsing JSON from DB for customer id={}", id, e);
-            throw new RuntimeException("Error parsing data", e);
         }
     }
 
+    /**
+     * Графы нескольких клиентов одним запросом — JSON-массивом прямо в
+     * {@code out}, по мере чтения строк из БД (порядок — по ID, повторы
+     * схлопываются, несуществующие ID пропускаются).
+     * <p>
+     * Документы клиентов — байты JSON из БД, как в {@link #getRawById}:
+     * без разбора и сериализации, кэш не используется.
+     *
+     * @param ids 1..{@value #MAX_MULTI_GET_IDS} ID клиентов
+     * @return сколько клиентов записано
+     */
+    public int writeGraphs(Collection<Long> ids, OutputStream out) {
+        if (ids == null || ids.isEmpty() || ids.size() > MAX_MULTI_GET_IDS) {
+            throw new IllegalArgumentException("ids: от 1 до " + MAX_MULTI_GET_IDS + " ID");
+        }
+        Long[] distinct = new LinkedHashSet<>(ids).toArray(Long[]::new);
+        int[] written = { 0 };
+        try {
+            out.write('[');
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(MULTI_GRAPH_SQL);
+                Array array = con.createArrayOf("bigint", distinct);
+                ps.setArray(1, array);
+                ps.setArray(2, array);
+                ps.setArray(3, array);
+                return ps;
+            }, rs -> {
+                try {
+                    if (written[0]++ > 0) {
+                        out.write(',');
+                    }
+                    out.write(rs.getBytes(1));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.write(']');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return written[0];
+    }
+
     /**
      * Страничная выдача клиентов (без связей — только основные поля).
      * Использует чистый JDBC для максимальной производительности.
      */
     @Transactional(readOnly = true)
     public Page<CustomerResponse> getAll(Pageable pageable) {
-        // 1. Считаем общее кол-во (можно оптимизировать, используя estimate row count)
-        Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM customers", Long.class);
-        long total = count != null ? count : 0;
-
-        // 2. Выбираем страницу
-        String sql = """
-                SELECT id, first_name, last_name, email, phone, date_of_birth,
-                       registered_at, status, loyalty_points, country
-                FROM customers
-                ORDER BY id
-                LIMIT ? OFFSET ?
-                """;
+        return getAll(pageable, null);
+    }
+
+    /**
+     * Страничная выдача с явной стратегией подсчёта totalElements
+     * ({@code null} — стратегия из конфигурации).
+     */
+    @Transactional(readOnly = true)
+    public Page<CustomerResponse> getAll(Pageable pageable, CountStrategy countStrategy) {
+        CountStrategy strategy = countStrategy != null ? countStrategy : countProvider.defaultStrategy();
 
         List<CustomerResponse> customers = jdbcTemplate.query(
-                sql,
+                PAGE_COLUMNS + "ORDER BY id LIMIT ? OFFSET ?",
                 new CustomerRowMapper(),
                 pageable.getPageSize(),
                 pageable.getOffset());
 
-        return new PageImpl<>(customers, pageable, total);
+        // Подсчёт пропускается, если total и так известен из страницы
+        // (первая неполная или последняя страница)
+        return PageableExecutionUtils.getPage(customers, pageable, () -> countProvider.count(strategy));
+    }
+
+    /**
+     * Страница клиентов после курсора (keyset-пагинация).
+     *
+     * @param cursor курсор из предыдущего ответа; {@code null} — первая страница
+     * @param size   размер страницы, 1..{@value #MAX_PAGE_SIZE}
+     */
+    @Transactional(readOnly = true)
+    public CustomerKeysetPage getKeysetPage(String cursor, int size, CountStrategy countStrategy) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("size должен быть в диапазоне 1.." + MAX_PAGE_SIZE);
+        }
+        CountStrategy strategy = countStrategy != null ? countStrategy : countProvider.defaultStrategy();
+        long afterId = cursor == null || cursor.isBlank() ? 0 : decodeCursor(cursor);
+
+        // На одну строку больше — чтобы знать, есть ли следующая страница,
+        // не выдавая курсор на пустую
+        List<CustomerResponse> rows = jdbcTemplate.query(
+                PAGE_COLUMNS + "WHERE id > ? ORDER BY id LIMIT ?",
+                new CustomerRowMapper(),
+                afterId,
+                size + 1);
+
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            nextCursor = encodeCursor(rows.get(size - 1).id());
+        }
+        return new CustomerKeysetPage(rows, size, nextCursor, countProvider.count(strategy), strategy);
+    }
+
+    // ═══════════════════════════════════════════
+    // Курсор: base64url(версия + последний ID)
+    // ═══════════════════════════════════════════
+
+    static String encodeCursor(long lastId) {
+        ByteBuffer buf = ByteBuffer.allocate(1 + Long.BYTES).put(CURSOR_VERSION).putLong(lastId);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buf.array());
+    }
+
+    static long decodeCursor(String cursor) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Некорректный курсор: " + cursor);
+        }
+        if (bytes.length != 1 + Long.BYTES || bytes[0] != CURSOR_VERSION) {
+            throw new IllegalArgumentException("Некорректный курсор: " + cursor);
+        }
+        return ByteBuffer.wrap(bytes, 1, Long.BYTES).getLong();
     }
 
     private static class CustomerRowMapper implements RowMapper<CustomerResponse> {
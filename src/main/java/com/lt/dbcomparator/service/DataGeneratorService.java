@@ -1,34 +1,74 @@
 package com.lt.dbcomparator.service;
 
+import com.lt.dbcomparator.dto.ExecutionMode;
 import com.lt.dbcomparator.dto.LoadRequest;
 import com.lt.dbcomparator.dto.LoadStatusResponse;
+import com.lt.dbcomparator.dto.LoadStatusResponse.StopReason;
+import com.lt.dbcomparator.dto.OverflowPolicy;
+import com.lt.dbcomparator.dto.RunRecord;
+import com.lt.dbcomparator.dto.WriteMode;
+import com.lt.dbcomparator.service.capacity.CapacityCalibration;
+import com.lt.dbcomparator.service.generator.BatchBuffer;
+import com.lt.dbcomparator.service.generator.BatchPipeline;
+import com.lt.dbcomparator.service.generator.BatchSynthesizer;
+import com.lt.dbcomparator.service.generator.GeneratorMetrics;
+import com.lt.dbcomparator.service.generator.LoadSchedule;
+import com.lt.dbcomparator.service.generator.PinnedConnections;
+import com.lt.dbcomparator.service.generator.ProductCatalog;
+import com.lt.dbcomparator.service.generator.RateController;
+import com.lt.dbcomparator.service.generator.RateWindow;
+import com.lt.dbcomparator.service.generator.ThreadAllocation;
+import com.lt.dbcomparator.service.generator.WriteStrategy;
+import com.lt.dbcomparator.service.history.RunHistoryService;
+import com.lt.dbcomparator.service.history.RunSampler;
+import com.lt.dbcomparator.service.prefill.PrefillJobs;
+import com.lt.dbcomparator.service.target.ConnectionPools;
+import com.lt.dbcomparator.service.target.DbTarget;
+import com.lt.dbcomparator.service.target.WriterJpa;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.jdbc.core.JdbcTemplate;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.sql.PreparedStatement;
-import java.sql.Timestamp;
+import java.sql.SQLException;
 import java.time.Instant;
-import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Сервис генерации тестовых данных.
  * <p>
  * Управляется через REST: start(LoadRequest) / stop() / getStatus().
- * Использует {@link JdbcTemplate} batch-insert для максимальной скорости
- * записи.
+ * Батч синтезируется в переиспользуемый колоночный {@link BatchBuffer}
+ * воркера и записывается выбранной {@link WriteStrategy} (INSERT / COPY /
+ * CTE / MULTI_VALUES / JPA, см. {@link WriteMode}).
+ * Синтез и запись выполняются одним потоком (gen-worker из фиксированного
+ * пула или виртуальный поток на батч) либо разными стадиями конвейера
+ * {@link BatchPipeline} (см. {@link ExecutionMode}); в PINNED_CONNECTIONS
+ * gen-worker держит своё соединение весь прогон ({@link PinnedConnections}).
+ * Темп задаёт open-loop {@link RateController}: latency батча отсчитывается
+ * от его планового времени старта, а не от фактического. Темп и размер
+ * батча постоянны или меняются по фазам профиля ({@link LoadSchedule});
+ * прогон заканчивается по времени, с концом профиля или по числу записей /
+ * батчей.
+ * Пишет через пул {@code writer} ({@link ConnectionPools}), режим JPA — через
+ * тот же пул своим EntityManager ({@link WriterJpa}).
  * Регистрирует кастомные Micrometer-метрики для мониторинга пропускной
  * способности.
  */
@@ -37,69 +77,89 @@ import java.util.concurrent.atomic.AtomicLong;
 @RequiredArgsConstructor
 public class DataGeneratorService {
 
-    private final JdbcTemplate jdbcTemplate;
-    private final TransactionTemplate transactionTemplate;
+    // Окно фактического темпа в статусе и gauge generator.rate.achieved
+    private static final int ACHIEVED_WINDOW_SECONDS = 5;
+
+    private final ConnectionPools pools;
+    private final WriterJpa writerJpa;
     private final MeterRegistry meterRegistry;
+    private final IdBlockAllocator idAllocator;
+    private final IdRangeTracker idRanges;
+    private final List<WriteStrategy> writeStrategies;
+    private final GeneratorMetrics stageMetrics;
+    private final RunHistoryService runHistory;
+    private final CapacityCalibration capacityCalibration;
+    private final PinnedConnections pinnedConnections;
+    private final PrefillJobs prefillJobs;
+
+    private final Map<WriteMode, WriteStrategy> strategies = new EnumMap<>(WriteMode.class);
+
+    // Колоночный буфер — свой у каждого gen-worker, переиспользуется между батчами
+    private final ThreadLocal<BatchBuffer> workerBuffers = ThreadLocal.withInitial(BatchBuffer::new);
+    // VIRTUAL_THREADS: виртуальный поток живёт один батч, поэтому буферы — из
+    // пула по числу permits (ThreadLocal создавал бы новый буфер на каждый батч)
+    private BlockingQueue<BatchBuffer> virtualBuffers;
 
     // ── Состояние ──
     private volatile boolean running = false;
-    private ScheduledExecutorService scheduler;
+    // Пул, через который пишет текущий прогон
+    private volatile DbTarget target;
+    // PINNED_CONNECTIONS: батч пишется через соединение своего потока
+    private volatile boolean pinned;
+    private volatile RateController rateController;
+    private volatile LoadSchedule schedule;
+    private volatile RateWindow achievedRate;
+    private final AtomicReference<StopReason> stopReason = new AtomicReference<>();
     private ExecutorService workerPool;
     private Semaphore inflightPermits;
+    private BatchPipeline pipeline;
     private LoadRequest currentConfig;
     private Instant startedAt;
+    private Instant stoppedAt;
+    private long startedAtNanos;
+    private long stoppedAtNanos;
+    // Окна прогона для истории; null — история выключена
+    private volatile RunSampler sampler;
+    private RunRecord.Environment environment;
 
     // ── Счётчики ──
     private final AtomicLong totalRecords = new AtomicLong(0);
     private final AtomicLong submittedCount = new AtomicLong(0);
     private final AtomicLong completedCount = new AtomicLong(0);
     private final AtomicLong failedCount = new AtomicLong(0);
+    private final AtomicLong droppedCount = new AtomicLong(0);
+    private final AtomicLong lateCount = new AtomicLong(0);
+    private final AtomicLong durationSamples = new AtomicLong(0);
+    private final AtomicLong durationSumNanos = new AtomicLong(0);
+    private final AtomicLong allocationSamples = new AtomicLong(0);
+    private final AtomicLong synthesisAllocatedBytes = new AtomicLong(0);
+    private final AtomicLong batchAllocatedBytes = new AtomicLong(0);
+
+    // ── Загрузка стадий: суммарное занятое время потоков стадии ──
+    private final AtomicLong synthesisBusyNanos = new AtomicLong(0);
+    private final AtomicLong writeBusyNanos = new AtomicLong(0);
+    private volatile int synthesisStageThreads;
+    private volatile int writeStageThreads;
 
     // ── Метрики (Micrometer) ──
     private Counter batchesSubmittedCounter;
     private Counter batchesCompletedCounter;
     private Counter batchesFailedCounter;
     private Counter recordsTotalCounter;
+    private Counter batchesDroppedCounter;
+    private Counter batchesLateCounter;
     private Timer batchDurationTimer;
+    private Timer batchLatencyTimer;
+    // Гистограмма latency текущего прогона (мкс) — для перцентилей в /status
+    private volatile Histogram latencyHistogram = new ConcurrentHistogram(3);
+    private final Map<WriteMode, Counter> recordsByModeCounters = new EnumMap<>(WriteMode.class);
+    private final Map<WriteMode, Timer> batchDurationByModeTimers = new EnumMap<>(WriteMode.class);
+    private final Map<ExecutionMode, Timer> scheduleDelayTimers = new EnumMap<>(ExecutionMode.class);
+    private DistributionSummary synthesisAllocationSummary;
+    private DistributionSummary batchAllocationSummary;
 
     // ── Пул продуктов (предзаполняется один раз) ──
-    private List<Long> productIds;
-
-    // ── Оценка пропускной способности ──
-    // Каждый батч = 8 SQL round-trips (4× nextval + 4× INSERT).
-    // FIXED_OVERHEAD_MS — базовая стоимость round-trips, не зависящая от размера
-    // батча.
-    // MS_PER_CUSTOMER_GRAPH — стоимость одного Customer-графа внутри batch INSERT
-    // (1 customer + 1 profile + ~3 orders + ~13.5 items = ~17.5 строк).
-    // estimatedBatchMs = FIXED_OVERHEAD_MS + batchSize × MS_PER_CUSTOMER_GRAPH
-    private static final double FIXED_OVERHEAD_MS = 10.0;
-    private static final double MS_PER_CUSTOMER_GRAPH = 0.2;
-
-    // ── Справочные данные для генерации ──
-    private static final String[] FIRST_NAMES = {
-            "Alexander", "Maria", "Dmitry", "Elena", "Sergey",
-            "Anna", "Ivan", "Olga", "Andrey", "Natalia",
-            "Mikhail", "Tatiana", "Pavel", "Ekaterina", "Viktor"
-    };
-    private static final String[] LAST_NAMES = {
-            "Ivanov", "Petrov", "Sidorov", "Kozlov", "Novikov",
-            "Morozov", "Volkov", "Sokolov", "Lebedev", "Popov"
-    };
-    private static final String[] COUNTRIES = { "RU", "US", "DE", "FR", "GB", "JP", "CN", "BR", "IN", "KR" };
-    private static final String[] CITIES = {
-            "Moscow", "London", "Berlin", "Paris", "Tokyo",
-            "New York", "Shanghai", "Sao Paulo", "Mumbai", "Seoul"
-    };
-    private static final String[] STATUSES = { "ACTIVE", "INACTIVE", "BLOCKED" };
-    private static final String[] ORDER_STATUSES = { "NEW", "PROCESSING", "SHIPPED", "DELIVERED", "CANCELLED" };
-    private static final String[] CURRENCIES = { "RUB", "USD", "EUR" };
-    private static final String[] CATEGORIES = {
-            "Electronics", "Books", "Clothing", "Food", "Sports",
-            "Home", "Beauty", "Toys", "Auto", "Garden"
-    };
-    private static final String[] LANGUAGES = { "ru", "en", "de", "fr", "ja" };
-
-    private static final int PRODUCT_POOL_SIZE = 200;
+    private long[] productIds;
 
     @PostConstruct
     void initMetrics() {
@@ -115,89 +175,356 @@ public class DataGeneratorService {
         recordsTotalCounter = Counter.builder("generator.records.total")
                 .description("Всего записей сгенерировано (все таблицы)")
                 .register(meterRegistry);
+        batchesDroppedCounter = Counter.builder("generator.batches.dropped")
+                .description("Батчей пропущено: плановое время наступило, а места нет (DROP / переполнение QUEUE)")
+                .register(meterRegistry);
+        batchesLateCounter = Counter.builder("generator.batches.late")
+                .description("Батчей ушло в работу позже планового времени больше чем на период")
+                .register(meterRegistry);
         batchDurationTimer = Timer.builder("generator.batch.duration")
                 .description("Время выполнения одного батча")
                 .register(meterRegistry);
+        batchLatencyTimer = Timer.builder("generator.batch.latency")
+                .description("Время от планового старта батча до конца записи (с поправкой на coordinated omission)")
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        // Те же величины в разрезе способа записи — для сравнения INSERT vs COPY
+        for (WriteMode mode : WriteMode.values()) {
+            String tag = mode.name().toLowerCase();
+            recordsByModeCounters.put(mode, Counter.builder("generator.records.written")
+                    .description("Записей сгенерировано в разрезе способа записи")
+                    .tag("mode", tag)
+                    .register(meterRegistry));
+            batchDurationByModeTimers.put(mode, Timer.builder("generator.write.duration")
+                    .description("Время выполнения одного батча в разрезе способа записи")
+                    .tag("mode", tag)
+                    .register(meterRegistry));
+        }
+        // Задержка от тика до начала синтеза — накладные расходы планирования
+        for (ExecutionMode execution : ExecutionMode.values()) {
+            scheduleDelayTimers.put(execution, Timer.builder("generator.schedule.delay")
+                    .description("Время от постановки батча тикером до начала его обработки")
+                    .tag("execution", execution.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        synthesisAllocationSummary = DistributionSummary.builder("generator.batch.allocated")
+                .description("Байт аллоцировано воркером на батч")
+                .baseUnit("bytes")
+                .tag("phase", "synthesis")
+                .register(meterRegistry);
+        batchAllocationSummary = DistributionSummary.builder("generator.batch.allocated")
+                .description("Байт аллоцировано воркером на батч")
+                .baseUnit("bytes")
+                .tag("phase", "total")
+                .register(meterRegistry);
+
+        Gauge.builder("generator.rate.target", this, DataGeneratorService::targetRate)
+                .description("Целевой темп по профилю в текущий момент, батчей/сек")
+                .register(meterRegistry);
+        Gauge.builder("generator.rate.achieved", this, DataGeneratorService::achievedRate)
+                .description("Батчей записано в секунду за последние " + ACHIEVED_WINDOW_SECONDS + " сек")
+                .register(meterRegistry);
+        Gauge.builder("generator.profile.phase", this, DataGeneratorService::phaseIndex)
+                .description("Номер текущей фазы профиля нагрузки с 0 (-1 — без профиля)")
+                .register(meterRegistry);
+        Gauge.builder("generator.pipeline.queue.depth", this,
+                        s -> s.pipeline != null ? s.pipeline.queueDepth() : 0)
+                .description("PIPELINE: батчей в очереди между синтезом и записью")
+                .register(meterRegistry);
+        Gauge.builder("generator.stage.utilization", this,
+                        s -> s.utilization(s.synthesisBusyNanos, s.synthesisStageThreads))
+                .description("Доля времени потоков стадии, занятая работой, за прогон")
+                .tag("stage", "synthesis")
+                .register(meterRegistry);
+        Gauge.builder("generator.stage.utilization", this,
+                        s -> s.utilization(s.writeBusyNanos, s.writeStageThreads))
+                .description("Доля времени потоков стадии, занятая работой, за прогон")
+                .tag("stage", "write")
+                .register(meterRegistry);
+
+        for (WriteStrategy strategy : writeStrategies) {
+            strategies.put(strategy.mode(), strategy);
+        }
     }
 
     // ═══════════════════════════════════════════
     // Публичное API
     // ═══════════════════════════════════════════
 
-    public synchronized void start(LoadRequest request) {
+    public void start(LoadRequest request) {
+        start(request, true);
+    }
+
+    /**
+     * @param checkCapacity false — не сверять темп с оценкой потолка
+     *                      (поиск предела в CapacityService намеренно
+     *                      выходит за неё)
+     */
+    public synchronized void start(LoadRequest request, boolean checkCapacity) {
         if (running) {
             throw new IllegalStateException("Генератор уже запущен. Сначала вызовите /stop.");
         }
+        prefillJobs.checkNoneUnfinished("Генератор");
 
         validate(request);
 
+        if (request.getWriteMode() == null) {
+            request.setWriteMode(WriteMode.INSERT);
+        }
+        if (request.getExecutionMode() == null) {
+            request.setExecutionMode(ExecutionMode.FIXED_POOL);
+        }
+        if (request.getOverflowPolicy() == null) {
+            request.setOverflowPolicy(OverflowPolicy.DROP);
+        }
+        if (request.getProfile() != null) {
+            LoadSchedule.normalize(request.getProfile(), request.getBatchSize());
+        }
+        LoadSchedule loadSchedule = LoadSchedule.of(request);
+        boolean pipelined = request.getExecutionMode() == ExecutionMode.PIPELINE;
+        boolean virtual = request.getExecutionMode() == ExecutionMode.VIRTUAL_THREADS;
+        boolean pinnedConnections = request.getExecutionMode() == ExecutionMode.PINNED_CONNECTIONS;
+        DbTarget writeTarget = request.getWriteMode() == WriteMode.JPA ? writerJpa.target() : pools.writer();
+        int cores = Runtime.getRuntime().availableProcessors();
+        int poolSize = ConnectionPools.maximumPoolSize(writeTarget, Math.max(2, cores));
+
         // ── Определяем кол-во воркеров ──
-        int workers = request.getWorkerThreads() > 0
-                ? request.getWorkerThreads()
-                : Math.max(2, Runtime.getRuntime().availableProcessors());
+        // В PIPELINE воркеры — это потоки записи: по одному на соединение пула.
+        // В VIRTUAL_THREADS потоков не задаём: параллелизм = батчи в полёте,
+        // но одновременно пишут не больше батчей, чем есть соединений.
+        int workers;
+        if (virtual) {
+            if (request.getMaxInFlight() <= 0) {
+                request.setMaxInFlight(poolSize);
+            }
+            workers = Math.min(request.getMaxInFlight(), poolSize);
+        } else {
+            workers = request.getWorkerThreads() > 0
+                    ? request.getWorkerThreads()
+                    : pipelined ? poolSize : Math.min(poolSize, Math.max(2, cores));
+        }
+        // Потоков записи больше, чем соединений, — лишние ждут соединение,
+        // и latency батча мерит очередь пула, а не БД
+        if (workers > poolSize) {
+            throw new IllegalArgumentException(String.format(
+                    "workerThreads=%d больше размера пула '%s' (%d): воркеры ждали бы соединение. " +
+                            "Уменьшите workerThreads или увеличьте %s.",
+                    workers, writeTarget.name(), poolSize, ConnectionPools.sizeProperty(writeTarget)));
+        }
         request.setWorkerThreads(workers); // сохраняем фактическое значение
+        if (pipelined) {
+            if (request.getSynthesisThreads() <= 0) {
+                request.setSynthesisThreads(Math.max(1, cores / 2));
+            }
+            if (request.getQueueCapacity() <= 0) {
+                request.setQueueCapacity(workers * 2);
+            }
+        }
 
-        // ── Проверка реалистичности запроса ──
-        int maxRate = estimateMaxBatchesPerSecond(request.getBatchSize(), workers);
-        if (request.getBatchesPerSecond() > maxRate) {
-            throw new IllegalArgumentException(String.format(
-                    "Запрошено %d батчей/сек, но при batchSize=%d и %d воркерах " +
-                            "максимально возможная нагрузка ≈ %d батчей/сек. " +
-                            "Уменьшите batchesPerSecond до %d, уменьшите batchSize, " +
-                            "увеличьте workerThreads или используйте несколько реплик.",
-                    request.getBatchesPerSecond(), request.getBatchSize(),
-                    workers, maxRate, maxRate));
+        // ── Проверка реалистичности запроса (калибровка или эвристика) ──
+        // С профилем — пик каждой фазы при её размере батча
+        for (LoadSchedule.Peak peak : loadSchedule.peaks()) {
+            CapacityCalibration.Estimate estimate = capacityCalibration.maxBatchesPerSecond(
+                    peak.batchSize(), workers, request.getWriteMode());
+            int maxRate = estimate.maxBatchesPerSecond();
+            if (checkCapacity && peak.batchesPerSecond() > maxRate) {
+                throw new IllegalArgumentException(String.format(
+                        "%sЗапрошено %s батчей/сек, но при batchSize=%d и %d параллельных батчах " +
+                                "максимально возможная нагрузка ≈ %d батчей/сек (%s). " +
+                                "Уменьшите batchesPerSecond до %d, уменьшите batchSize, " +
+                                "увеличьте workerThreads или используйте несколько реплик. " +
+                                "Реальный предел для этой БД покажет /api/capacity/start.",
+                        peak.phase() != null ? "Фаза " + peak.phase() + ": " : "",
+                        peak.batchesPerSecond(), peak.batchSize(),
+                        workers, maxRate, estimate.source(), maxRate));
+            }
         }
 
+        RunRecord.Environment env = runHistory.environment(request, poolSize);
+
         this.currentConfig = request;
+        this.target = writeTarget;
+        this.pinned = pinnedConnections;
+        this.schedule = loadSchedule;
+        this.environment = env;
+        this.stopReason.set(null);
         this.running = true;
         this.startedAt = Instant.now();
+        this.stoppedAt = null;
+        this.startedAtNanos = System.nanoTime();
+        this.stoppedAtNanos = 0;
         this.totalRecords.set(0);
         this.submittedCount.set(0);
         this.completedCount.set(0);
         this.failedCount.set(0);
+        this.droppedCount.set(0);
+        this.lateCount.set(0);
+        this.durationSamples.set(0);
+        this.durationSumNanos.set(0);
+        this.latencyHistogram = new ConcurrentHistogram(3);
+        this.allocationSamples.set(0);
+        this.synthesisAllocatedBytes.set(0);
+        this.batchAllocatedBytes.set(0);
+        this.synthesisBusyNanos.set(0);
+        this.writeBusyNanos.set(0);
+        this.achievedRate = new RateWindow(ACHIEVED_WINDOW_SECONDS, startedAtNanos);
 
         ensureProductsExist();
-
-        // ── Worker pool: выполняет generateBatch параллельно ──
-        this.workerPool = Executors.newFixedThreadPool(workers, r -> {
-            Thread t = new Thread(r, "gen-worker");
-            t.setDaemon(true);
-            return t;
-        });
-        // Семафор ограничивает кол-во одновременно выполняемых батчей (2× воркеров)
-        this.inflightPermits = new Semaphore(workers * 2);
-
-        // ── Ticker: отправляет задачи в worker pool с заданной частотой ──
-        long periodMs = Math.max(1, 1000L / request.getBatchesPerSecond());
-        this.scheduler = Executors.newScheduledThreadPool(1);
-        scheduler.scheduleAtFixedRate(this::executeTick, 0, periodMs, TimeUnit.MILLISECONDS);
-
-        log.info("Генератор запущен: batchSize={}, batchesPerSecond={}, workers={}, maxRate={}, duration={}min",
-                request.getBatchSize(), request.getBatchesPerSecond(), workers, maxRate,
-                request.getDurationMinutes());
+        stageMetrics.startRun();
+        this.pinnedConnections.startRun();
+        this.sampler = runHistory.startSampling(totalRecords::get);
+
+        WriteStrategy strategy = strategies.get(request.getWriteMode());
+        if (pipelined) {
+            // ── Конвейер: синтез и запись в разных пулах потоков ──
+            this.workerPool = null;
+            this.pipeline = new BatchPipeline(request.getSynthesisThreads(), workers, request.getQueueCapacity(),
+                    batch -> synthesizeStage(batch, request, strategy),
+                    batch -> writeStage(batch, strategy));
+            this.synthesisStageThreads = request.getSynthesisThreads();
+        } else if (virtual) {
+            // ── Виртуальный поток на батч, параллелизм ограничен permits ──
+            this.pipeline = null;
+            this.workerPool = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("gen-vt-", 0).factory());
+            this.inflightPermits = new Semaphore(request.getMaxInFlight());
+            this.virtualBuffers = new ArrayBlockingQueue<>(request.getMaxInFlight());
+            for (int i = 0; i < request.getMaxInFlight(); i++) {
+                virtualBuffers.add(new BatchBuffer());
+            }
+            this.synthesisStageThreads = workers;
+        } else {
+            // ── Worker pool: синтез + запись батча в одном потоке ──
+            // (PINNED_CONNECTIONS — плюс своё соединение у каждого потока)
+            this.pipeline = null;
+            this.virtualBuffers = null;
+            // Поток сам закрывает своё закреплённое соединение при выходе
+            this.workerPool = Executors.newFixedThreadPool(workers, r -> {
+                Thread t = new Thread(() -> {
+                    try {
+                        r.run();
+                    } finally {
+                        pinnedConnections.discardCurrent();
+                    }
+                }, "gen-worker");
+                t.setDaemon(true);
+                return t;
+            });
+            // Семафор ограничивает кол-во одновременно выполняемых батчей (2× воркеров)
+            this.inflightPermits = new Semaphore(workers * 2);
+            this.synthesisStageThreads = workers;
+        }
+        this.writeStageThreads = workers;
+
+        // ── Ticker: open-loop, плановое время каждого батча в наносекундах ──
+        // Прогон ограничен durationMinutes и концом профиля — что раньше
+        long durationNanos = TimeUnit.MINUTES.toNanos(request.getDurationMinutes());
+        long profileNanos = loadSchedule.totalNanos();
+        StopReason timeLimit = StopReason.DURATION;
+        if (profileNanos > 0 && (durationNanos == 0 || profileNanos <= durationNanos)) {
+            durationNanos = profileNanos;
+            timeLimit = StopReason.PROFILE_END;
+        }
+        StopReason finishReason = timeLimit;
+        this.rateController = new RateController(loadSchedule::rateAt, request.getOverflowPolicy(),
+                this::dispatch,
+                () -> {
+                    droppedCount.incrementAndGet();
+                    batchesDroppedCounter.increment();
+                },
+                () -> {
+                    lateCount.incrementAndGet();
+                    batchesLateCounter.increment();
+                },
+                durationNanos,
+                () -> {
+                    // Досрочный finish() уже записал свою причину
+                    stopReason.compareAndSet(null, finishReason);
+                    stop();
+                });
+        rateController.start();
+
+        log.info("Генератор запущен: batchSize={}, batchesPerSecond={}, profile={} фаз, workers={}, duration={}min, " +
+                        "maxRecords={}, maxBatches={}, mode={}, execution={}, overflow={}",
+                request.getBatchSize(), request.getBatchesPerSecond(),
+                request.getProfile() != null ? request.getProfile().size() : 0, workers,
+                request.getDurationMinutes(), request.getMaxRecords(), request.getMaxBatches(),
+                request.getWriteMode(), request.getExecutionMode(), request.getOverflowPolicy());
     }
 
     public synchronized void stop() {
         if (!running)
             return;
+        stopReason.compareAndSet(null, StopReason.MANUAL);
         running = false;
-        if (scheduler != null) {
-            scheduler.shutdown();
+        stoppedAt = Instant.now();
+        stoppedAtNanos = System.nanoTime();
+        stageMetrics.stopRun();
+        if (sampler != null) {
+            sampler.stop();
+        }
+        if (rateController != null) {
+            rateController.stop();
+        }
+        if (pipeline != null) {
+            try {
+                pipeline.shutdown(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
         }
+        boolean workersTerminated = true;
         if (workerPool != null) {
             workerPool.shutdown();
             try {
                 if (!workerPool.awaitTermination(30, TimeUnit.SECONDS)) {
                     log.warn("Worker pool не завершился за 30с, принудительная остановка");
                     workerPool.shutdownNow();
+                    workersTerminated = workerPool.awaitTermination(5, TimeUnit.SECONDS);
                 }
             } catch (InterruptedException e) {
                 workerPool.shutdownNow();
+                workersTerminated = false;
                 Thread.currentThread().interrupt();
             }
         }
+        if (pinned) {
+            if (workersTerminated) {
+                pinnedConnections.closeAll();
+            } else {
+                // Чужое соединение из потока остановки не трогаем — воркер закроет его сам при выходе
+                log.warn("Не все gen-worker завершились: их закреплённые соединения закроются при выходе потоков");
+            }
+        }
         log.info("Генератор остановлен. Всего записей: {}", totalRecords.get());
+        saveRun();
+    }
+
+    /**
+     * Сохраняет итоги прогона в историю. Ошибка сохранения не должна мешать
+     * остановке — только пишем в лог.
+     */
+    private void saveRun() {
+        if (sampler == null)
+            return;
+        LoadStatusResponse status = getStatus();
+        try {
+            runHistory.save(RunRecord.builder()
+                    .startedAt(startedAt)
+                    .finishedAt(stoppedAt)
+                    .config(currentConfig)
+                    .environment(environment)
+                    .summary(new RunRecord.Summary(status.getTotalRecords(), status.getBatchesSubmitted(),
+                            status.getBatchesCompleted(), status.getBatchesFailed(), status.getBatchesDropped(),
+                            status.getBatchesLate(), status.getRecordsPerSecond(), status.getTableRowsPerSecond(),
+                            status.getLatencyP50Ms(), status.getLatencyP99Ms(), status.getLatencyP999Ms(),
+                            status.getLatencyMaxMs(), stageMetrics.stagePercentiles()))
+                    .samples(sampler.samples())
+                    .build());
+        } catch (RuntimeException e) {
+            log.warn("Не удалось сохранить прогон в историю: {}", e.getMessage(), e);
+        }
     }
 
     public LoadStatusResponse getStatus() {
@@ -208,284 +535,382 @@ public class DataGeneratorService {
                 .batchesSubmitted(submittedCount.get())
                 .batchesCompleted(completedCount.get())
                 .batchesFailed(failedCount.get())
+                .batchesDropped(droppedCount.get())
+                .batchesLate(lateCount.get())
+                .backlog(rateController != null ? rateController.backlog() : 0)
                 .elapsedMinutes(startedAt != null
                         ? java.time.Duration.between(startedAt, Instant.now()).toMinutes()
                         : 0)
+                .recordsPerSecond(recordsPerSecond())
+                .tableRowsPerSecond(tableRowsPerSecond())
+                .latencyP50Ms(latencyPercentileMs(50.0))
+                .latencyP99Ms(latencyPercentileMs(99.0))
+                .latencyP999Ms(latencyPercentileMs(99.9))
+                .latencyMaxMs(latencyHistogram.getMaxValue() / 1000.0)
+                .batchDurationAvgMs(batchDurationAvgMs())
+                .synthesisAllocatedBytesPerBatch(perAllocationSample(synthesisAllocatedBytes))
+                .allocatedBytesPerBatch(perAllocationSample(batchAllocatedBytes))
+                .queueDepth(pipeline != null ? pipeline.queueDepth() : 0)
+                .queueCapacity(pipeline != null ? pipeline.queueCapacity() : 0)
+                .synthesisUtilization(utilization(synthesisBusyNanos, synthesisStageThreads))
+                .writeUtilization(utilization(writeBusyNanos, writeStageThreads))
+                .phase(schedule != null ? schedule.phaseName(phaseIndex()) : null)
+                .phaseIndex(phaseIndex())
+                .targetBatchesPerSecond(targetRate())
+                .achievedBatchesPerSecond(achievedRate())
+                .stopReason(stopReason.get())
+                .statementCacheHits(pinnedConnections.cacheHits())
+                .statementPrepares(pinnedConnections.prepares())
+                .serverStatementReuses(pinnedConnections.serverReuses())
                 .build();
     }
 
+    private double targetRate() {
+        RateController rc = rateController;
+        return running && rc != null ? rc.currentRate() : 0;
+    }
+
+    private double achievedRate() {
+        RateWindow w = achievedRate;
+        return running && w != null ? w.perSecond() : 0;
+    }
+
+    private int phaseIndex() {
+        LoadSchedule s = schedule;
+        RateController rc = rateController;
+        if (s == null || rc == null)
+            return -1;
+        long end = stoppedAtNanos != 0 ? stoppedAtNanos : System.nanoTime();
+        return s.phaseAt(end - rc.startNanos());
+    }
+
+    private Map<String, Double> tableRowsPerSecond() {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (String table : GeneratorMetrics.TABLES) {
+            result.put(table, stageMetrics.rowsPerSecond(table));
+        }
+        return result;
+    }
+
+    private double batchDurationAvgMs() {
+        long samples = durationSamples.get();
+        return samples > 0 ? durationSumNanos.get() / 1e6 / samples : 0;
+    }
+
+    private double latencyPercentileMs(double percentile) {
+        return latencyHistogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    /**
+     * Среднее на батч или null, если замеров не было (VIRTUAL_THREADS, JVM без
+     * поддержки) — чтобы 0 не выглядел как «батч без аллокаций».
+     */
+    private Long perAllocationSample(AtomicLong bytes) {
+        long samples = allocationSamples.get();
+        return samples > 0 ? bytes.get() / samples : null;
+    }
+
+    /**
+     * Доля времени потоков стадии, занятая работой, за время прогона.
+     * Близко к 1 у записи и низко у синтеза — упираемся в БД; наоборот —
+     * в генератор.
+     */
+    private double utilization(AtomicLong busyNanos, int threads) {
+        if (startedAt == null || threads <= 0)
+            return 0;
+        long end = stoppedAtNanos != 0 ? stoppedAtNanos : System.nanoTime();
+        long elapsedNs = end - startedAtNanos;
+        return elapsedNs > 0 ? Math.min(1.0, busyNanos.get() / ((double) elapsedNs * threads)) : 0;
+    }
+
+    private double recordsPerSecond() {
+        if (startedAt == null)
+            return 0;
+        Instant end = stoppedAt != null ? stoppedAt : Instant.now();
+        long elapsedMs = java.time.Duration.between(startedAt, end).toMillis();
+        return elapsedMs > 0 ? totalRecords.get() * 1000.0 / elapsedMs : 0;
+    }
+
     // ═══════════════════════════════════════════
     // Внутренняя механика
     // ═══════════════════════════════════════════
 
-    private void executeTick() {
+    /**
+     * Принимает батч от тикера.
+     *
+     * @param intendedStartNanos плановое время старта батча
+     * @return false — все воркеры / буферы заняты; дальше решает OverflowPolicy
+     */
+    private boolean dispatch(long intendedStartNanos) {
         if (!running)
-            return;
+            return false;
 
-        // Авто-стоп по истечении времени
-        if (currentConfig.getDurationMinutes() > 0) {
-            long elapsedMin = java.time.Duration.between(startedAt, Instant.now()).toMinutes();
-            if (elapsedMin >= currentConfig.getDurationMinutes()) {
-                stop();
-                return;
+        if (pipeline != null) {
+            // Backpressure: нет свободных буферов — конвейер не успевает
+            if (!pipeline.submit(intendedStartNanos)) {
+                return false;
             }
+            onBatchSubmitted();
+            return true;
         }
 
-        // Backpressure: если все воркеры заняты — пропускаем тик
+        // Backpressure: все воркеры заняты
         if (!inflightPermits.tryAcquire()) {
-            log.warn("Worker pool перегружен, батч пропущен");
-            return;
+            return false;
         }
 
-        submittedCount.incrementAndGet();
-        batchesSubmittedCounter.increment();
+        onBatchSubmitted();
 
+        LoadRequest config = currentConfig;
+        WriteStrategy strategy = strategies.get(config.getWriteMode());
+        BlockingQueue<BatchBuffer> buffers = virtualBuffers;
         workerPool.submit(() -> {
-            Timer.Sample sample = Timer.start(meterRegistry);
+            // permits == буферов в пуле, поэтому poll() здесь всегда успешен
+            BatchBuffer batch = buffers != null ? buffers.poll() : workerBuffers.get();
+            batch.scheduledAtNanos(intendedStartNanos);
             try {
-                transactionTemplate.executeWithoutResult(
-                        status -> generateBatch(currentConfig.getBatchSize()));
-                completedCount.incrementAndGet();
-                batchesCompletedCounter.increment();
+                synthesize(batch, config, strategy);
+                write(batch, strategy);
+                onBatchCompleted();
             } catch (Exception e) {
-                failedCount.incrementAndGet();
-                batchesFailedCounter.increment();
-                log.error("Ошибка при записи батча: {}", e.getMessage(), e);
+                onBatchFailed(e);
             } finally {
-                sample.stop(batchDurationTimer);
+                recordDuration(batch, strategy.mode());
+                if (buffers != null) {
+                    buffers.offer(batch);
+                }
                 inflightPermits.release();
             }
         });
+        return true;
+    }
+
+    // ── Стадии конвейера (PIPELINE) ──
+
+    private boolean synthesizeStage(BatchBuffer batch, LoadRequest config, WriteStrategy strategy) {
+        try {
+            synthesize(batch, config, strategy);
+            return true;
+        } catch (Exception e) {
+            onBatchFailed(e);
+            recordDuration(batch, strategy.mode());
+            return false;
+        }
+    }
+
+    private void writeStage(BatchBuffer batch, WriteStrategy strategy) {
+        try {
+            write(batch, strategy);
+            onBatchCompleted();
+        } catch (Exception e) {
+            onBatchFailed(e);
+        } finally {
+            recordDuration(batch, strategy.mode());
+        }
     }
 
     /**
-     * Генерирует один батч: N клиентов → N профилей → ~3N заказов → ~13.5N позиций.
-     * Все вставки через JdbcTemplate.batchUpdate.
+     * Синтез батча: N клиентов → N профилей → ~3N заказов → ~13.5N позиций
+     * в буфер (только CPU, без мусора), затем резервирование ID — до открытия
+     * транзакции батча, чтобы редкий поход аллокатора в БД не держал
+     * соединение батча.
      */
-    private void generateBatch(int customerCount) {
-        ThreadLocalRandom rng = ThreadLocalRandom.current();
-        LocalDateTime now = LocalDateTime.now();
-        int recordCount = 0;
-
-        // 1. Pre-allocate customer IDs
-        List<Long> customerIds = jdbcTemplate.queryForList(
-                "SELECT nextval(pg_get_serial_sequence('customers','id')) FROM generate_series(1,?)",
-                Long.class, customerCount);
-
-        // 2. Insert customers
-        jdbcTemplate.batchUpdate(
-                "INSERT INTO customers (id, first_name, last_name, email, phone, date_of_birth, " +
-                        "registered_at, status, loyalty_points, country) VALUES (?,?,?,?,?,?,?,?,?,?)",
-                customerIds, customerCount,
-                (PreparedStatement ps, Long custId) -> {
-                    ThreadLocalRandom r = ThreadLocalRandom.current();
-                    String fn = pick(FIRST_NAMES, r);
-                    String ln = pick(LAST_NAMES, r);
-                    ps.setLong(1, custId);
-                    ps.setString(2, fn);
-                    ps.setString(3, ln);
-                    ps.setString(4, fn.toLowerCase() + "." + ln.toLowerCase() + custId + "@test.com");
-                    ps.setString(5, "+7" + (9000000000L + r.nextLong(999999999L)));
-                    ps.setObject(6, LocalDate.of(1970 + r.nextInt(40), 1 + r.nextInt(12), 1 + r.nextInt(28)));
-                    ps.setTimestamp(7, Timestamp.valueOf(now));
-                    ps.setString(8, pick(STATUSES, r));
-                    ps.setInt(9, r.nextInt(10000));
-                    ps.setString(10, pick(COUNTRIES, r));
-                });
-        recordCount += customerCount;
-
-        // 3. Insert profiles (1:1 с customer)
-        List<Long> profileIds = jdbcTemplate.queryForList(
-                "SELECT nextval(pg_get_serial_sequence('customer_profiles','id')) FROM generate_series(1,?)",
-                Long.class, customerCount);
-
-        jdbcTemplate.batchUpdate(
-                "INSERT INTO customer_profiles (id, customer_id, avatar_url, bio, preferred_language, " +
-                        "notifications_enabled, address, city, zip_code) VALUES (?,?,?,?,?,?,?,?,?)",
-                profileIds, customerCount,
-                (PreparedStatement ps, Long profId) -> {
-                    ThreadLocalRandom r = ThreadLocalRandom.current();
-                    int idx = profileIds.indexOf(profId);
-                    ps.setLong(1, profId);
-                    ps.setLong(2, customerIds.get(idx));
-                    ps.setString(3, "https://avatar.example.com/" + profId + ".png");
-                    ps.setString(4, "Bio for customer " + customerIds.get(idx));
-                    ps.setString(5, pick(LANGUAGES, r));
-                    ps.setBoolean(6, r.nextBoolean());
-                    ps.setString(7, "Street " + r.nextInt(200) + ", apt " + r.nextInt(100));
-                    ps.setString(8, pick(CITIES, r));
-                    ps.setString(9, String.valueOf(100000 + r.nextInt(899999)));
-                });
-        recordCount += customerCount;
-
-        // 4. Insert orders (1–5 per customer)
-        // Сначала собираем пары (orderId, customerId)
-        int totalOrders = 0;
-        long[][] orderCustomerPairs = new long[customerCount * 5][2]; // max
-        for (Long custId : customerIds) {
-            int orderCount = 1 + rng.nextInt(5);
-            for (int i = 0; i < orderCount; i++) {
-                orderCustomerPairs[totalOrders][1] = custId;
-                totalOrders++;
+    private void synthesize(BatchBuffer batch, LoadRequest config, WriteStrategy strategy) {
+        long startNs = System.nanoTime();
+        batch.startedAtNanos(startNs);
+        scheduleDelayTimers.get(config.getExecutionMode())
+                .record(startNs - batch.scheduledAtNanos(), TimeUnit.NANOSECONDS);
+        try {
+            long allocStart = ThreadAllocation.currentThreadAllocatedBytes();
+            BatchSynthesizer.fill(batch, batchSize(batch), productIds,
+                    ThreadLocalRandom.current(), LocalDateTime.now());
+            batch.synthesisAllocatedBytes(allocStart >= 0
+                    ? ThreadAllocation.currentThreadAllocatedBytes() - allocStart
+                    : -1);
+
+            if (strategy.usesPreallocatedIds()) {
+                batch.assignIds(
+                        allocateIds(GeneratorMetrics.CUSTOMERS, batch.customers()),
+                        allocateIds(GeneratorMetrics.CUSTOMER_PROFILES, batch.customers()),
+                        allocateIds(GeneratorMetrics.ORDERS, batch.orders()),
+                        allocateIds(GeneratorMetrics.ORDER_ITEMS, batch.items()));
             }
+        } finally {
+            synthesisBusyNanos.addAndGet(System.nanoTime() - startNs);
         }
+    }
 
-        if (totalOrders > 0) {
-            List<Long> orderIds = jdbcTemplate.queryForList(
-                    "SELECT nextval(pg_get_serial_sequence('orders','id')) FROM generate_series(1,?)",
-                    Long.class, totalOrders);
+    /**
+     * Размер батча по фазе профиля в его плановое время.
+     */
+    private int batchSize(BatchBuffer batch) {
+        return schedule.batchSizeAt(batch.scheduledAtNanos() - rateController.startNanos());
+    }
 
-            for (int i = 0; i < totalOrders; i++) {
-                orderCustomerPairs[i][0] = orderIds.get(i);
-            }
+    private long allocateIds(String table, int count) {
+        long startNs = System.nanoTime();
+        long firstId = idAllocator.allocate(table, count);
+        stageMetrics.recordStage(GeneratorMetrics.Stage.ID_ALLOCATION, table, System.nanoTime() - startNs);
+        return firstId;
+    }
 
-            jdbcTemplate.batchUpdate(
-                    "INSERT INTO orders (id, customer_id, order_number, order_date, status, " +
-                            "total_amount, currency, shipping_address, notes, expected_delivery) " +
-                            "VALUES (?,?,?,?,?,?,?,?,?,?)",
-                    orderIds, totalOrders,
-                    (PreparedStatement ps, Long ordId) -> {
-                        ThreadLocalRandom r = ThreadLocalRandom.current();
-                        int idx = orderIds.indexOf(ordId);
-                        ps.setLong(1, ordId);
-                        ps.setLong(2, orderCustomerPairs[idx][1]);
-                        ps.setString(3, "ORD-" + ordId);
-                        ps.setTimestamp(4, Timestamp.valueOf(now.minusDays(r.nextInt(365))));
-                        ps.setString(5, pick(ORDER_STATUSES, r));
-                        ps.setBigDecimal(6,
-                                BigDecimal.valueOf(r.nextDouble(10, 10000)).setScale(2, RoundingMode.HALF_UP));
-                        ps.setString(7, pick(CURRENCIES, r));
-                        ps.setString(8, pick(CITIES, r) + ", Street " + r.nextInt(200));
-                        ps.setString(9, r.nextBoolean() ? "Express delivery" : null);
-                        ps.setObject(10, LocalDate.now().plusDays(r.nextInt(30)));
-                    });
-
-            // 5. Insert order items (2–7 per order)
-            int totalItems = 0;
-            long[][] itemMeta = new long[totalOrders * 7][2]; // [orderId, productId]
-            for (int i = 0; i < totalOrders; i++) {
-                int items = 2 + rng.nextInt(6);
-                for (int j = 0; j < items; j++) {
-                    itemMeta[totalItems][0] = orderIds.get(i);
-                    itemMeta[totalItems][1] = productIds.get(rng.nextInt(productIds.size()));
-                    totalItems++;
+    /**
+     * Запись батча выбранной стратегией в транзакции. Транзакция управляется
+     * вручную, чтобы commit замерялся отдельной стадией. Аллокации потока
+     * учитываются вместе с аллокациями синтеза этого батча. В
+     * PINNED_CONNECTIONS — через соединение потока; после ошибки записи или
+     * commit оно закрывается, следующий батч откроет новое.
+     */
+    private void write(BatchBuffer batch, WriteStrategy strategy) throws SQLException {
+        long startNs = System.nanoTime();
+        try {
+            long allocStart = ThreadAllocation.currentThreadAllocatedBytes();
+            boolean pinnedWrite = pinned;
+            DbTarget t = pinnedWrite ? pinnedConnections.current(target) : target;
+            PlatformTransactionManager transactionManager = t.transactionManager();
+            TransactionStatus tx = transactionManager.getTransaction(TransactionDefinition.withDefaults());
+            int records;
+            try {
+                records = strategy.write(batch, t.jdbcTemplate());
+            } catch (RuntimeException | Error e) {
+                try {
+                    transactionManager.rollback(tx);
+                } finally {
+                    if (pinnedWrite) {
+                        pinnedConnections.discardCurrent();
+                    }
+                }
+                throw e;
+            }
+            long commitStart = System.nanoTime();
+            try {
+                transactionManager.commit(tx);
+            } catch (RuntimeException | Error e) {
+                if (pinnedWrite) {
+                    pinnedConnections.discardCurrent();
                 }
+                throw e;
+            }
+            stageMetrics.recordStage(GeneratorMetrics.Stage.COMMIT, GeneratorMetrics.ALL_TABLES,
+                    System.nanoTime() - commitStart);
+            // Клиенты батча видны другим транзакциям — отдаём их ID нагрузке на чтение
+            if (strategy.usesPreallocatedIds()) {
+                idRanges.record(batch.firstCustomerId(), batch.customers());
             }
 
-            if (totalItems > 0) {
-                List<Long> itemIds = jdbcTemplate.queryForList(
-                        "SELECT nextval(pg_get_serial_sequence('order_items','id')) FROM generate_series(1,?)",
-                        Long.class, totalItems);
-
-                jdbcTemplate.batchUpdate(
-                        "INSERT INTO order_items (id, order_id, product_id, quantity, " +
-                                "unit_price, total_price, discount, created_at) VALUES (?,?,?,?,?,?,?,?)",
-                        itemIds, totalItems,
-                        (PreparedStatement ps, Long itemId) -> {
-                            ThreadLocalRandom r = ThreadLocalRandom.current();
-                            int idx = itemIds.indexOf(itemId);
-                            int qty = 1 + r.nextInt(10);
-                            BigDecimal unitPr = BigDecimal.valueOf(r.nextDouble(1, 500)).setScale(2,
-                                    RoundingMode.HALF_UP);
-                            BigDecimal disc = BigDecimal.valueOf(r.nextDouble(0, 50)).setScale(2, RoundingMode.HALF_UP);
-                            ps.setLong(1, itemId);
-                            ps.setLong(2, itemMeta[idx][0]);
-                            ps.setLong(3, itemMeta[idx][1]);
-                            ps.setInt(4, qty);
-                            ps.setBigDecimal(5, unitPr);
-                            ps.setBigDecimal(6, unitPr.multiply(BigDecimal.valueOf(qty)));
-                            ps.setBigDecimal(7, disc);
-                            ps.setTimestamp(8, Timestamp.valueOf(now));
-                        });
-                recordCount += totalItems;
+            long total = totalRecords.addAndGet(records);
+            recordsTotalCounter.increment(records);
+            long maxRecords = currentConfig.getMaxRecords();
+            if (maxRecords > 0 && total >= maxRecords) {
+                finishEarly(StopReason.MAX_RECORDS);
             }
+            recordsByModeCounters.get(strategy.mode()).increment(records);
+
+            // Виртуальный поток аллокации не считает — такой батч в выборку не идёт
+            long synthesisBytes = batch.synthesisAllocatedBytes();
+            if (allocStart >= 0 && synthesisBytes >= 0) {
+                long totalBytes = synthesisBytes + ThreadAllocation.currentThreadAllocatedBytes() - allocStart;
+                synthesisAllocationSummary.record(synthesisBytes);
+                batchAllocationSummary.record(totalBytes);
+                synthesisAllocatedBytes.addAndGet(synthesisBytes);
+                batchAllocatedBytes.addAndGet(totalBytes);
+                allocationSamples.incrementAndGet();
+            }
+        } finally {
+            writeBusyNanos.addAndGet(System.nanoTime() - startNs);
         }
+    }
 
-        totalRecords.addAndGet(recordCount);
-        recordsTotalCounter.increment(recordCount);
+    private void onBatchSubmitted() {
+        long submitted = submittedCount.incrementAndGet();
+        batchesSubmittedCounter.increment();
+        long maxBatches = currentConfig.getMaxBatches();
+        if (maxBatches > 0 && submitted >= maxBatches) {
+            finishEarly(StopReason.MAX_BATCHES);
+        }
     }
 
-    // ═══════════════════════════════════════════
-    // Утилиты
-    // ═══════════════════════════════════════════
+    private void onBatchCompleted() {
+        completedCount.incrementAndGet();
+        batchesCompletedCounter.increment();
+        achievedRate.record();
+    }
 
     /**
-     * Оценивает максимально возможное кол-во батчей/сек для данного инстанса.
-     * <p>
-     * Формула: estimatedBatchMs = FIXED_OVERHEAD_MS + batchSize ×
-     * MS_PER_CUSTOMER_GRAPH
-     * <br>
-     * maxRate = workerThreads × (1000 / estimatedBatchMs)
-     * <p>
-     * Примеры (4 воркера):
-     * <ul>
-     * <li>batchSize=50 → ~20ms/batch → max ~200 batch/sec</li>
-     * <li>batchSize=100 → ~30ms/batch → max ~133 batch/sec</li>
-     * <li>batchSize=500 → ~110ms/batch → max ~36 batch/sec</li>
-     * </ul>
+     * Условие остановки выполнено: тикер больше не отдаёт батчи и
+     * останавливает генератор, уже отправленные дописываются.
      */
-    static int estimateMaxBatchesPerSecond(int batchSize, int workerThreads) {
-        double estimatedBatchMs = FIXED_OVERHEAD_MS + batchSize * MS_PER_CUSTOMER_GRAPH;
-        return Math.max(1, (int) (workerThreads * (1000.0 / estimatedBatchMs)));
+    private void finishEarly(StopReason reason) {
+        if (stopReason.compareAndSet(null, reason)) {
+            log.info("Условие остановки {} выполнено", reason);
+            rateController.finish();
+        }
+    }
+
+    private void onBatchFailed(Exception e) {
+        failedCount.incrementAndGet();
+        batchesFailedCounter.increment();
+        log.error("Ошибка при записи батча: {}", e.getMessage(), e);
     }
 
     /**
-     * Инициализация справочника продуктов.
-     * pg_advisory_xact_lock гарантирует, что при одновременном старте нескольких
-     * реплик только одна выполнит INSERT; остальные подождут и увидят данные.
+     * Длительность батча — от начала синтеза до конца записи (в PIPELINE
+     * включает ожидание в очереди). Latency — от планового времени старта:
+     * включает ещё и ожидание свободного воркера.
      */
-    private void ensureProductsExist() {
-        transactionTemplate.executeWithoutResult(status -> {
-            jdbcTemplate.execute("SELECT pg_advisory_xact_lock(1000042)");
-            Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM products", Long.class);
-            if (count == null || count == 0) {
-                log.info("Предзаполнение {} продуктов...", PRODUCT_POOL_SIZE);
-                generateProducts();
-            }
-        }); // lock автоматически освобождается при commit
-        productIds = jdbcTemplate.queryForList("SELECT id FROM products", Long.class);
-        log.info("Пул продуктов: {} шт.", productIds.size());
+    private void recordDuration(BatchBuffer batch, WriteMode mode) {
+        long endNs = System.nanoTime();
+        long durationNs = endNs - batch.startedAtNanos();
+        batchDurationTimer.record(durationNs, TimeUnit.NANOSECONDS);
+        batchDurationByModeTimers.get(mode).record(durationNs, TimeUnit.NANOSECONDS);
+        durationSumNanos.addAndGet(durationNs);
+        durationSamples.incrementAndGet();
+
+        long latencyNs = endNs - batch.scheduledAtNanos();
+        batchLatencyTimer.record(latencyNs, TimeUnit.NANOSECONDS);
+        latencyHistogram.recordValue(Math.max(0, latencyNs / 1_000));
+        RunSampler s = sampler;
+        if (s != null) {
+            s.recordLatency(latencyNs / 1_000);
+        }
     }
 
-    private void generateProducts() {
-        LocalDateTime now = LocalDateTime.now();
-
-        List<Long> ids = jdbcTemplate.queryForList(
-                "SELECT nextval(pg_get_serial_sequence('products','id')) FROM generate_series(1,?)",
-                Long.class, PRODUCT_POOL_SIZE);
-
-        jdbcTemplate.batchUpdate(
-                "INSERT INTO products (id, name, sku, description, price, category, " +
-                        "weight, in_stock, created_at, updated_at) VALUES (?,?,?,?,?,?,?,?,?,?)",
-                ids, PRODUCT_POOL_SIZE,
-                (PreparedStatement ps, Long prodId) -> {
-                    ThreadLocalRandom r = ThreadLocalRandom.current();
-                    String cat = pick(CATEGORIES, r);
-                    ps.setLong(1, prodId);
-                    ps.setString(2, cat + " Item #" + prodId);
-                    ps.setString(3, "SKU-" + String.format("%06d", prodId));
-                    ps.setString(4, "Description for " + cat + " product #" + prodId);
-                    ps.setBigDecimal(5, BigDecimal.valueOf(r.nextDouble(0.5, 9999)).setScale(2, RoundingMode.HALF_UP));
-                    ps.setString(6, cat);
-                    ps.setDouble(7, Math.round(r.nextDouble(0.01, 50.0) * 100.0) / 100.0);
-                    ps.setBoolean(8, r.nextBoolean());
-                    ps.setTimestamp(9, Timestamp.valueOf(now));
-                    ps.setTimestamp(10, Timestamp.valueOf(now));
-                });
+    // ═══════════════════════════════════════════
+    // Утилиты
+    // ═══════════════════════════════════════════
+
+    private void ensureProductsExist() {
+        DbTarget writer = pools.writer();
+        productIds = ProductCatalog.ensure(writer.jdbcTemplate(), writer.transactionTemplate());
     }
 
-    private void validate(LoadRequest req) {
+    static void validate(LoadRequest req) {
         if (req.getBatchSize() <= 0)
             throw new IllegalArgumentException("batchSize должен быть > 0");
-        if (req.getBatchesPerSecond() <= 0)
+        if (req.getProfile() == null && req.getBatchesPerSecond() <= 0)
             throw new IllegalArgumentException("batchesPerSecond должен быть > 0");
-        if (req.getDurationMinutes() <= 0)
-            throw new IllegalArgumentException("durationMinutes должен быть > 0");
+        if (req.getProfile() != null && req.getBatchesPerSecond() != 0)
+            throw new IllegalArgumentException("batchesPerSecond не задаётся вместе с profile: темп задают фазы");
+        if (req.getDurationMinutes() < 0)
+            throw new IllegalArgumentException("durationMinutes должен быть >= 0");
+        if (req.getMaxRecords() < 0 || req.getMaxBatches() < 0)
+            throw new IllegalArgumentException("maxRecords и maxBatches должны быть >= 0 (0 = без ограничения)");
+        if (req.getDurationMinutes() == 0 && req.getProfile() == null
+                && req.getMaxRecords() == 0 && req.getMaxBatches() == 0)
+            throw new IllegalArgumentException("Нужно условие остановки: durationMinutes > 0, profile, " +
+                    "maxRecords или maxBatches");
+        if (req.getProfile() != null)
+            LoadSchedule.validate(req.getProfile());
         if (req.getWorkerThreads() < 0)
             throw new IllegalArgumentException("workerThreads должен быть >= 0 (0 = авто)");
-    }
-
-    private static String pick(String[] arr, ThreadLocalRandom rng) {
-        return arr[rng.nextInt(arr.length)];
+        if (req.getSynthesisThreads() < 0)
+            throw new IllegalArgumentException("synthesisThreads должен быть >= 0 (0 = авто)");
+        if (req.getQueueCapacity() < 0)
+            throw new IllegalArgumentException("queueCapacity должен быть >= 0 (0 = авто)");
+        if (req.getMaxInFlight() < 0)
+            throw new IllegalArgumentException("maxInFlight должен быть >= 0 (0 = авто)");
+        if (req.getExecutionMode() == ExecutionMode.PINNED_CONNECTIONS && req.getWriteMode() == WriteMode.JPA)
+            throw new IllegalArgumentException("PINNED_CONNECTIONS не поддерживает writeMode=JPA: " +
+                    "EntityManager сам берёт соединения из пула writer");
     }
 }
@@ -0,0 +1,210 @@
+package com.lt.dbcomparator.service;
+
+import com.lt.dbcomparator.service.generator.GeneratorMetrics;
+import com.lt.dbcomparator.service.target.ConnectionPools;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Клиентский hi/lo-аллокатор ID для таблиц генератора.
+ * <p>
+ * Вместо {@code SELECT nextval(...) FROM generate_series(1, N)} на каждый
+ * батч и таблицу резервирует у sequence таблицы сразу большой непрерывный
+ * блок ID одним запросом:
+ * <pre>
+ * SELECT setval(seq, nextval(seq) + blockSize - 1)
+ * </pre>
+ * и раздаёт его всем gen-worker потокам без блокировок — через
+ * {@link AtomicLong#getAndAdd(long)}, в виде примитивных long
+ * (первый ID непрерывного диапазона).
+ * <p>
+ * Резервирование блока выполняется в отдельной транзакции под
+ * {@code pg_advisory_xact_lock} на таблицу — аллокаторы всех реплик,
+ * пишущих в одну БД, сериализуются и никогда не получат пересекающиеся блоки.
+ * Писатели, которые берут ID напрямую через nextval (DEFAULT колонки,
+ * режимы CTE и JPA), первым statement'ом транзакции берут те же ключи в
+ * shared-режиме ({@link #NEXTVAL_LOCK_SQL}) и держат их до commit: между
+ * nextval и setval резервирования их nextval не попадёт, а друг друга
+ * shared-блокировки не ждут.
+ * <p>
+ * Неиспользованный хвост блока при остановке просто теряется — так же,
+ * как кэшированные значения sequence.
+ */
+@Slf4j
+@Service
+public class IdBlockAllocator {
+
+    // Ключи advisory-lock: 1000042 занят инициализацией продуктов
+    private static final long LOCK_KEY_BASE = 1_000_100L;
+
+    /**
+     * Shared advisory lock резервирования на все таблицы генератора — для
+     * транзакций, которые вставляют строки с ID из nextval. Возвращает одну
+     * строку (число ключей), чтобы выполняться и через JdbcTemplate, и
+     * native-запросом JPA.
+     */
+    public static final String NEXTVAL_LOCK_SQL = "SELECT count(*) FROM (SELECT pg_advisory_xact_lock_shared(k) " +
+            "FROM unnest(ARRAY[" + GeneratorMetrics.TABLES.stream()
+                    .map(table -> Long.toString(lockKey(table)))
+                    .collect(Collectors.joining(", ")) + "]::bigint[]) AS k) AS locks";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate reserveTx;
+    private final MeterRegistry meterRegistry;
+    private final long blockSize;
+
+    private final Map<String, TableIds> tables = new ConcurrentHashMap<>();
+
+    /**
+     * Аллокатор основной БД: резервирует через пул {@code admin}, чтобы
+     * редкий поход за блоком не ждал соединение за потоками записи.
+     */
+    @Autowired
+    public IdBlockAllocator(ConnectionPools pools,
+            MeterRegistry meterRegistry,
+            @Value("${generator.id-block-size:10000}") long blockSize) {
+        this(pools.admin().jdbcTemplate(), pools.admin().transactionManager(), meterRegistry, blockSize);
+    }
+
+    public IdBlockAllocator(JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            long blockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.blockSize = blockSize;
+        // Резервирование — всегда в собственной короткой транзакции, чтобы
+        // advisory lock не держался до commit батча
+        this.reserveTx = new TransactionTemplate(transactionManager);
+        this.reserveTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Выделяет {@code count} последовательных ID для таблицы.
+     *
+     * @return первый ID диапазона [first, first + count)
+     */
+    public long allocate(String table, int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count должен быть > 0");
+        }
+        TableIds ids = tables.computeIfAbsent(table, this::newTable);
+        while (true) {
+            Block block = ids.block;
+            long first = block.next.getAndAdd(count);
+            if (first + count <= block.end) {
+                return first;
+            }
+            refill(ids, block, count);
+        }
+    }
+
+    /**
+     * Резервирует у sequence таблицы отдельный непрерывный диапазон мимо
+     * блоков аллокатора — под заранее известный объём (prefill делит его на
+     * куски и может дописывать после перезапуска).
+     *
+     * @return первый ID диапазона [first, first + count)
+     */
+    public long reserve(String table, long count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count должен быть > 0");
+        }
+        TableIds ids = tables.computeIfAbsent(table, this::newTable);
+        return reserveRange(ids, count);
+    }
+
+    // ═══════════════════════════════════════════
+    // Внутренняя механика
+    // ═══════════════════════════════════════════
+
+    private TableIds newTable(String table) {
+        Counter reserved = Counter.builder("generator.id.blocks.reserved")
+                .description("Зарезервировано блоков ID у sequence")
+                .tag("table", table)
+                .register(meterRegistry);
+        return new TableIds(table, lockKey(table), reserved);
+    }
+
+    /**
+     * Ключ должен совпадать во всех репликах — берём стабильный hashCode имени.
+     */
+    private static long lockKey(String table) {
+        return LOCK_KEY_BASE + Math.floorMod(table.hashCode(), 1000);
+    }
+
+    /**
+     * Получает новый блок. Ходит в БД только один поток на таблицу; остальные,
+     * упёршиеся в исчерпанный блок, ждут на блокировке и подхватывают результат.
+     * ReentrantLock, а не synchronized: виртуальный поток, ждущий JDBC внутри
+     * synchronized, занимает carrier-поток (pinning).
+     */
+    private void refill(TableIds ids, Block exhausted, int count) {
+        ids.refillLock.lock();
+        try {
+            if (ids.block != exhausted) {
+                return; // другой поток уже обновил блок
+            }
+            long size = Math.max(blockSize, count);
+            long first = reserveRange(ids, size);
+            ids.block = new Block(first, first + size, new AtomicLong(first));
+            log.debug("Блок ID {}: [{}, {}]", ids.table, first, first + size - 1);
+        } finally {
+            ids.refillLock.unlock();
+        }
+    }
+
+    /**
+     * @return первый ID зарезервированного диапазона из {@code size} ID
+     */
+    private long reserveRange(TableIds ids, long size) {
+        Long last = reserveTx.execute(status -> {
+            jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + ids.lockKey + ")");
+            return jdbcTemplate.queryForObject(
+                    "SELECT setval(pg_get_serial_sequence(?, 'id'), " +
+                            "nextval(pg_get_serial_sequence(?, 'id')) + ? - 1)",
+                    Long.class, ids.table, ids.table, size);
+        }); // lock автоматически освобождается при commit
+        if (last == null) {
+            throw new IllegalStateException("Не удалось зарезервировать блок ID для " + ids.table);
+        }
+        ids.reservedCounter.increment();
+        return last - size + 1;
+    }
+
+    private static final class TableIds {
+        private final String table;
+        private final long lockKey;
+        private final Counter reservedCounter;
+        private final ReentrantLock refillLock = new ReentrantLock();
+        private volatile Block block = Block.EMPTY;
+
+        private TableIds(String table, long lockKey, Counter reservedCounter) {
+            this.table = table;
+            this.lockKey = lockKey;
+            this.reservedCounter = reservedCounter;
+        }
+    }
+
+    /**
+     * Непрерывный диапазон [start, end). next может уйти за end —
+     * такой блок считается исчерпанным.
+     */
+    private record Block(long start, long end, AtomicLong next) {
+        static final Block EMPTY = new Block(0, 0, new AtomicLong(0));
+    }
+}
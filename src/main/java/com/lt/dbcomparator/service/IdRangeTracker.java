@@ -0,0 +1,99 @@
+package com.lt.dbcomparator.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Реестр ID клиентов, которые точно есть в БД.
+ * <p>
+ * Генератор после commit батча сообщает сюда непрерывный диапазон ID своих
+ * клиентов (блоки IdBlockAllocator). Нагрузка на чтение выбирает ключи
+ * отсюда, а не из БД и не «наугад» — каждый запрос попадает в существующую
+ * запись.
+ * <p>
+ * Диапазоны хранятся двумя массивами: начало диапазона и накопленное кол-во
+ * ID до его конца включительно. Ранг r ∈ [0, total) отображается в ID
+ * бинарным поиском — так любое распределение над рангами (uniform, zipf, …)
+ * превращается в распределение над реально записанными ID. Порядок рангов —
+ * порядок commit, поэтому старшие ранги — самые свежие клиенты.
+ * <p>
+ * Запись — под монитором, чтение — без блокировок по volatile-снимку.
+ * Соседний диапазон, продолжающий последний, сливается с ним.
+ */
+@Component
+public class IdRangeTracker {
+
+    private long[] starts = new long[1024];
+    private long[] cumulative = new long[1024];
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    /**
+     * Добавляет диапазон [firstId, firstId + count).
+     */
+    public synchronized void record(long firstId, int count) {
+        if (count <= 0) {
+            return;
+        }
+        Snapshot current = snapshot;
+        int size = current.size;
+        long total = current.total;
+        if (size > 0 && starts[size - 1] + (cumulative[size - 1] - (size > 1 ? cumulative[size - 2] : 0)) == firstId) {
+            // Продолжение последнего диапазона: ранги и старые ID не меняются
+            cumulative[size - 1] = total + count;
+            snapshot = new Snapshot(starts, cumulative, size, total + count);
+            return;
+        }
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+            cumulative = Arrays.copyOf(cumulative, size * 2);
+        }
+        starts[size] = firstId;
+        cumulative[size] = total + count;
+        snapshot = new Snapshot(starts, cumulative, size + 1, total + count);
+    }
+
+    /**
+     * Засевает реестр диапазоном [minId, maxId], если он пуст (данные,
+     * записанные до старта приложения или режимом CTE). В таком диапазоне
+     * могут быть дыры — чтение по ним вернёт «не найден».
+     */
+    public synchronized void seedIfEmpty(long minId, long maxId) {
+        if (snapshot.total == 0 && maxId >= minId) {
+            record(minId, (int) Math.min(Integer.MAX_VALUE, maxId - minId + 1));
+        }
+    }
+
+    /**
+     * Кол-во известных ID.
+     */
+    public long total() {
+        return snapshot.total;
+    }
+
+    /**
+     * ID по рангу: 0 — самый старый известный, total() - 1 — самый свежий.
+     */
+    public long idAt(long rank) {
+        Snapshot s = snapshot;
+        if (rank < 0 || rank >= s.total) {
+            throw new IllegalArgumentException("rank вне диапазона [0, " + s.total + "): " + rank);
+        }
+        int lo = 0;
+        int hi = s.size - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (s.cumulative[mid] <= rank) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        long before = lo > 0 ? s.cumulative[lo - 1] : 0;
+        return s.starts[lo] + (rank - before);
+    }
+
+    private record Snapshot(long[] starts, long[] cumulative, int size, long total) {
+        static final Snapshot EMPTY = new Snapshot(new long[0], new long[0], 0, 0);
+    }
+}
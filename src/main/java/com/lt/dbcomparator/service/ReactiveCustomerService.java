@@ -0,0 +1,241 @@
+package com.lt.dbcomparator.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lt.dbcomparator.config.ReactiveProperties;
+import com.lt.dbcomparator.dto.CountStrategy;
+import com.lt.dbcomparator.dto.CustomerKeysetPage;
+import com.lt.dbcomparator.dto.CustomerResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.pool.PoolMetrics;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Readable;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Неблокирующий вариант чтения клиентов — R2DBC PostgreSQL вместо
+ * JdbcTemplate, для сравнения с {@link CustomerService} под одной и той же
+ * нагрузкой.
+ * <p>
+ * SQL тот же, что у блокирующего пути ({@link CustomerService#GRAPH_JSON},
+ * {@link CustomerService#PAGE_COLUMNS}, запросы подсчёта
+ * {@link CustomerCountProvider}); отличаются только маркеры параметров
+ * ({@code $1}) и драйвер. Запрос не занимает поток на время ожидания БД:
+ * поток сервлета отпускается до ответа, строки разбираются на потоках
+ * reactor-netty драйвера. Кэш {@link CustomerCache} не используется — путь
+ * меряет БД и драйвер.
+ * <p>
+ * Пул R2DBC ({@code reactive.*}) — свой, к той же БД, что и
+ * {@code spring.datasource}. Бином ConnectionFactory он не регистрируется:
+ * при таком бине Spring Boot не создал бы JDBC DataSource. Метрики пула —
+ * {@code r2dbc.pool.*} с тегом {@code name=reactive}.
+ */
+@Slf4j
+@Service
+public class ReactiveCustomerService {
+
+    private static final String POOL_NAME = "reactive";
+
+    private static final String GRAPH_SQL = "SELECT " + CustomerService.GRAPH_JSON + " FROM customers c WHERE c.id = $1";
+
+    private static final String GRAPH_STRIPPED_SQL =
+            "SELECT json_strip_nulls(" + CustomerService.GRAPH_JSON + ") FROM customers c WHERE c.id = $1";
+
+    private static final String KEYSET_SQL = CustomerService.PAGE_COLUMNS + "WHERE id > $1 ORDER BY id LIMIT $2";
+
+    private final ConnectionPool pool;
+    private final DatabaseClient databaseClient;
+    private final CustomerCountProvider countProvider;
+    private final ObjectMapper objectMapper;
+
+    public ReactiveCustomerService(ReactiveProperties properties,
+            DataSourceProperties dataSourceProperties,
+            CustomerCountProvider countProvider,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry) {
+        if (properties.getMaxSize() <= 0) {
+            throw new IllegalArgumentException("reactive.max-size должен быть > 0");
+        }
+        String url = properties.getUrl() != null && !properties.getUrl().isBlank()
+                ? properties.getUrl()
+                : toR2dbcUrl(dataSourceProperties.determineUrl());
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(url).mutate();
+        String username = dataSourceProperties.determineUsername();
+        if (username != null) {
+            options.option(ConnectionFactoryOptions.USER, username);
+        }
+        String password = dataSourceProperties.determinePassword();
+        if (password != null) {
+            options.option(ConnectionFactoryOptions.PASSWORD, password);
+        }
+        this.pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options.build()))
+                .name(POOL_NAME)
+                .initialSize(Math.min(properties.getInitialSize(), properties.getMaxSize()))
+                .maxSize(properties.getMaxSize())
+                .build());
+        this.databaseClient = DatabaseClient.create(pool);
+        this.countProvider = countProvider;
+        this.objectMapper = objectMapper;
+        pool.getMetrics().ifPresent(metrics -> registerPoolMetrics(metrics, meterRegistry));
+        log.info("Пул R2DBC {}: {} ({} соединений)", POOL_NAME, url, properties.getMaxSize());
+    }
+
+    /**
+     * Граф клиента — как {@link CustomerService#getById} со стратегией
+     * JSON_AGG: JSON-документ из БД разбирается в {@link CustomerResponse}.
+     */
+    public Mono<CustomerResponse> getById(long id) {
+        return databaseClient.sql(GRAPH_SQL)
+                .bind(0, id)
+                .map(row -> row.get(0, String.class))
+                .one()
+                .switchIfEmpty(notFound(id))
+                .map(this::parse);
+    }
+
+    /**
+     * Граф клиента байтами JSON из БД — как {@link CustomerService#getRawById}.
+     */
+    public Mono<byte[]> getRawById(long id, boolean stripNulls) {
+        return databaseClient.sql(stripNulls ? GRAPH_STRIPPED_SQL : GRAPH_SQL)
+                .bind(0, id)
+                .map(row -> row.get(0, byte[].class))
+                .one()
+                .switchIfEmpty(notFound(id));
+    }
+
+    /**
+     * Страница клиентов после курсора — как {@link CustomerService#getKeysetPage}.
+     * Страница и подсчёт идут параллельно на разных соединениях.
+     */
+    public Mono<CustomerKeysetPage> getKeysetPage(String cursor, int size, CountStrategy countStrategy) {
+        if (size < 1 || size > CustomerService.MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("size должен быть в диапазоне 1.." + CustomerService.MAX_PAGE_SIZE);
+        }
+        CountStrategy strategy = countStrategy != null ? countStrategy : countProvider.defaultStrategy();
+        long afterId = cursor == null || cursor.isBlank() ? 0 : CustomerService.decodeCursor(cursor);
+
+        // На одну строку больше — чтобы знать, есть ли следующая страница
+        Mono<List<CustomerResponse>> rows = databaseClient.sql(KEYSET_SQL)
+                .bind(0, afterId)
+                .bind(1, size + 1)
+                .map(ReactiveCustomerService::customer)
+                .all()
+                .collectList();
+
+        return Mono.zip(rows, count(strategy), (page, total) -> {
+            List<CustomerResponse> content = page;
+            String nextCursor = null;
+            if (content.size() > size) {
+                content = content.subList(0, size);
+                nextCursor = CustomerService.encodeCursor(content.get(size - 1).id());
+            }
+            return new CustomerKeysetPage(content, size, nextCursor, total, strategy);
+        });
+    }
+
+    @PreDestroy
+    void close() {
+        pool.dispose();
+    }
+
+    // ═══════════════════════════════════════════
+    // Внутреннее
+    // ═══════════════════════════════════════════
+
+    /**
+     * EXACT и ESTIMATE — теми же запросами, что у {@link CustomerCountProvider};
+     * CACHED — его значение из памяти (первое обращение блокирует, поэтому на
+     * boundedElastic).
+     */
+    private Mono<Long> count(CountStrategy strategy) {
+        return switch (strategy) {
+            case EXACT -> queryLong(CustomerCountProvider.EXACT_SQL);
+            case ESTIMATE -> queryLong(CustomerCountProvider.ESTIMATE_SQL)
+                    .flatMap(estimate -> estimate >= 0 ? Mono.just(estimate) : queryLong(CustomerCountProvider.EXACT_SQL));
+            case CACHED -> Mono.fromCallable(() -> countProvider.count(CountStrategy.CACHED))
+                    .subscribeOn(Schedulers.boundedElastic());
+        };
+    }
+
+    private Mono<Long> queryLong(String sql) {
+        return databaseClient.sql(sql)
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .defaultIfEmpty(0L);
+    }
+
+    private CustomerResponse parse(String json) {
+        try {
+            return objectMapper.readValue(json, CustomerResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error parsing data", e);
+        }
+    }
+
+    private static <T> Mono<T> notFound(long id) {
+        return Mono.error(() -> new RuntimeException("Customer not found: id=" + id));
+    }
+
+    private static CustomerResponse customer(Readable row) {
+        return new CustomerResponse(
+                row.get("id", Long.class),
+                row.get("first_name", String.class),
+                row.get("last_name", String.class),
+                row.get("email", String.class),
+                row.get("phone", String.class),
+                row.get("date_of_birth", LocalDate.class),
+                row.get("registered_at", LocalDateTime.class),
+                row.get("status", String.class),
+                row.get("loyalty_points", Integer.class),
+                row.get("country", String.class),
+                null,
+                List.of());
+    }
+
+    /**
+     * {@code jdbc:postgresql://host:port/db?params} → {@code r2dbc:postgresql://host:port/db}.
+     * Параметры pgjdbc к R2DBC-драйверу не относятся и отбрасываются.
+     */
+    static String toR2dbcUrl(String jdbcUrl) {
+        if (jdbcUrl == null || !jdbcUrl.startsWith("jdbc:postgresql:")) {
+            throw new IllegalArgumentException("Не удалось вывести URL R2DBC из '" + jdbcUrl + "' — задайте reactive.url");
+        }
+        String url = jdbcUrl.substring("jdbc:".length());
+        int query = url.indexOf('?');
+        return "r2dbc:" + (query >= 0 ? url.substring(0, query) : url);
+    }
+
+    private static void registerPoolMetrics(PoolMetrics metrics, MeterRegistry meterRegistry) {
+        gauge(meterRegistry, "r2dbc.pool.acquired", "Соединений R2DBC выдано запросам", metrics,
+                PoolMetrics::acquiredSize);
+        gauge(meterRegistry, "r2dbc.pool.idle", "Соединений R2DBC простаивает", metrics, PoolMetrics::idleSize);
+        gauge(meterRegistry, "r2dbc.pool.pending", "Запросов ждут соединение R2DBC", metrics,
+                PoolMetrics::pendingAcquireSize);
+        gauge(meterRegistry, "r2dbc.pool.max.allocated", "Размер пула R2DBC", metrics,
+                PoolMetrics::getMaxAllocatedSize);
+    }
+
+    private static void gauge(MeterRegistry meterRegistry, String name, String description, PoolMetrics metrics,
+            ToDoubleFunction<PoolMetrics> value) {
+        Gauge.builder(name, metrics, value)
+                .description(description)
+                .tag("name", POOL_NAME)
+                .register(meterRegistry);
+    }
+}
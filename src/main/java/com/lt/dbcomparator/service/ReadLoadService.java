@@ -0,0 +1,361 @@
+package com.lt.dbcomparator.service;
+
+import com.lt.dbcomparator.dto.KeyDistribution;
+import com.lt.dbcomparator.dto.OverflowPolicy;
+import com.lt.dbcomparator.dto.ReadLoadRequest;
+import com.lt.dbcomparator.dto.ReadLoadStatusResponse;
+import com.lt.dbcomparator.dto.ResponseFormat;
+import com.lt.dbcomparator.service.generator.RateController;
+import com.lt.dbcomparator.service.reader.KeyChooser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Встроенная нагрузка на чтение.
+ * <p>
+ * Управляется через REST: start(ReadLoadRequest) / stop() / getStatus().
+ * Вызывает {@link CustomerService#getById} и {@link CustomerService#getAll}
+ * в процессе приложения — без HTTP-клиента и сериализации ответа — с заданным
+ * темпом (open-loop {@link RateController}) и ограничением параллельности.
+ * <p>
+ * ID выбираются из {@link IdRangeTracker} по заданному
+ * {@link KeyDistribution}, поэтому запросы попадают в реально записанных
+ * клиентов. Latency отсчитывается от планового времени запроса.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReadLoadService {
+
+    private final CustomerService customerService;
+    private final IdRangeTracker idRanges;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Операции чтения.
+     */
+    private enum Operation {
+        GET_BY_ID, GET_PAGE;
+
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    private enum Outcome {
+        SUCCESS, NOT_FOUND, ERROR
+    }
+
+    // ── Состояние ──
+    private volatile boolean running = false;
+    private RateController rateController;
+    private ExecutorService readerPool;
+    private Semaphore permits;
+    private KeyChooser keyChooser;
+    private ReadLoadRequest currentConfig;
+    private Instant startedAt;
+    private Instant stoppedAt;
+
+    // ── Счётчики ──
+    private final AtomicLong submittedCount = new AtomicLong(0);
+    private final AtomicLong droppedCount = new AtomicLong(0);
+    private final AtomicLong lateCount = new AtomicLong(0);
+    private final Map<Operation, AtomicLong[]> outcomeCounts = new EnumMap<>(Operation.class);
+    private final Map<Operation, Histogram> latencyHistograms = new EnumMap<>(Operation.class);
+
+    // ── Метрики (Micrometer) ──
+    private final Map<Operation, Counter[]> outcomeCounters = new EnumMap<>(Operation.class);
+    private final Map<Operation, Timer> latencyTimers = new EnumMap<>(Operation.class);
+    private Counter droppedCounter;
+    private Counter lateCounter;
+
+    @PostConstruct
+    void initMetrics() {
+        for (Operation op : Operation.values()) {
+            Counter[] counters = new Counter[Outcome.values().length];
+            AtomicLong[] counts = new AtomicLong[Outcome.values().length];
+            for (Outcome outcome : Outcome.values()) {
+                counters[outcome.ordinal()] = Counter.builder("reader.requests")
+                        .description("Запросов нагрузки на чтение")
+                        .tag("operation", op.tag())
+                        .tag("outcome", outcome.name().toLowerCase())
+                        .register(meterRegistry);
+                counts[outcome.ordinal()] = new AtomicLong();
+            }
+            outcomeCounters.put(op, counters);
+            outcomeCounts.put(op, counts);
+            latencyTimers.put(op, Timer.builder("reader.request.latency")
+                    .description("Время от планового старта запроса до ответа")
+                    .tag("operation", op.tag())
+                    .publishPercentiles(0.5, 0.99, 0.999)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            latencyHistograms.put(op, new ConcurrentHistogram(3));
+        }
+        droppedCounter = Counter.builder("reader.requests.dropped")
+                .description("Запросов пропущено: время наступило, а все слоты заняты")
+                .register(meterRegistry);
+        lateCounter = Counter.builder("reader.requests.late")
+                .description("Запросов ушло позже планового времени больше чем на период")
+                .register(meterRegistry);
+    }
+
+    // ═══════════════════════════════════════════
+    // Публичное API
+    // ═══════════════════════════════════════════
+
+    public synchronized void start(ReadLoadRequest request) {
+        if (running) {
+            throw new IllegalStateException("Нагрузка на чтение уже запущена. Сначала вызовите /stop.");
+        }
+
+        validate(request);
+        normalize(request);
+        ensureKeysKnown();
+
+        this.currentConfig = request;
+        this.keyChooser = new KeyChooser(request.getDistribution(), request.getZipfExponent(),
+                request.getHotsetFraction(), request.getHotOpnFraction());
+        this.running = true;
+        this.startedAt = Instant.now();
+        this.stoppedAt = null;
+        this.submittedCount.set(0);
+        this.droppedCount.set(0);
+        this.lateCount.set(0);
+        for (Operation op : Operation.values()) {
+            for (AtomicLong count : outcomeCounts.get(op)) {
+                count.set(0);
+            }
+            latencyHistograms.put(op, new ConcurrentHistogram(3));
+        }
+
+        this.readerPool = Executors.newFixedThreadPool(request.getConcurrency(), r -> {
+            Thread t = new Thread(r, "read-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        this.permits = new Semaphore(request.getConcurrency());
+
+        this.rateController = new RateController(request.getRequestsPerSecond(), request.getOverflowPolicy(),
+                this::dispatch,
+                () -> {
+                    droppedCount.incrementAndGet();
+                    droppedCounter.increment();
+                },
+                () -> {
+                    lateCount.incrementAndGet();
+                    lateCounter.increment();
+                },
+                TimeUnit.MINUTES.toNanos(request.getDurationMinutes()),
+                this::stop);
+        rateController.start();
+
+        log.info("Нагрузка на чтение запущена: rps={}, concurrency={}, distribution={}, getByIdRatio={}, " +
+                        "responseFormat={}, readStrategy={}, trackedIds={}, duration={}min",
+                request.getRequestsPerSecond(), request.getConcurrency(), request.getDistribution(),
+                request.getGetByIdRatio(), request.getResponseFormat(), request.getReadStrategy(), idRanges.total(),
+                request.getDurationMinutes());
+    }
+
+    public synchronized void stop() {
+        if (!running)
+            return;
+        running = false;
+        stoppedAt = Instant.now();
+        if (rateController != null) {
+            rateController.stop();
+        }
+        if (readerPool != null) {
+            readerPool.shutdown();
+            try {
+                if (!readerPool.awaitTermination(30, TimeUnit.SECONDS)) {
+                    readerPool.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                readerPool.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        log.info("Нагрузка на чтение остановлена. Запросов: {}", submittedCount.get());
+    }
+
+    public ReadLoadStatusResponse getStatus() {
+        Map<String, ReadLoadStatusResponse.OperationStats> operations = new LinkedHashMap<>();
+        long completed = 0;
+        for (Operation op : Operation.values()) {
+            AtomicLong[] counts = outcomeCounts.get(op);
+            Histogram h = latencyHistograms.get(op);
+            long success = counts[Outcome.SUCCESS.ordinal()].get();
+            long notFound = counts[Outcome.NOT_FOUND.ordinal()].get();
+            long errors = counts[Outcome.ERROR.ordinal()].get();
+            completed += success + notFound + errors;
+            operations.put(op.tag(), new ReadLoadStatusResponse.OperationStats(
+                    success, notFound, errors,
+                    h.getValueAtPercentile(50.0) / 1000.0,
+                    h.getValueAtPercentile(99.0) / 1000.0,
+                    h.getValueAtPercentile(99.9) / 1000.0,
+                    h.getMaxValue() / 1000.0));
+        }
+        return ReadLoadStatusResponse.builder()
+                .running(running)
+                .config(currentConfig)
+                .requestsSubmitted(submittedCount.get())
+                .requestsDropped(droppedCount.get())
+                .requestsLate(lateCount.get())
+                .requestsPerSecond(perSecond(completed))
+                .trackedIds(idRanges.total())
+                .operations(operations)
+                .build();
+    }
+
+    // ═══════════════════════════════════════════
+    // Внутренняя механика
+    // ═══════════════════════════════════════════
+
+    private boolean dispatch(long intendedStartNanos) {
+        if (!running || !permits.tryAcquire()) {
+            return false;
+        }
+        submittedCount.incrementAndGet();
+        readerPool.submit(() -> {
+            try {
+                execute(intendedStartNanos);
+            } finally {
+                permits.release();
+            }
+        });
+        return true;
+    }
+
+    private void execute(long intendedStartNanos) {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        ReadLoadRequest config = currentConfig;
+        Operation op = r.nextDouble() < config.getGetByIdRatio() ? Operation.GET_BY_ID : Operation.GET_PAGE;
+        long rank = keyChooser.nextRank(idRanges.total(), r);
+
+        Outcome outcome;
+        try {
+            if (op == Operation.GET_BY_ID) {
+                if (config.getResponseFormat() == ResponseFormat.RAW) {
+                    customerService.getRawById(idRanges.idAt(rank), false);
+                } else {
+                    customerService.getById(idRanges.idAt(rank), config.getReadStrategy());
+                }
+            } else {
+                int page = (int) Math.min(Integer.MAX_VALUE, rank / config.getPageSize());
+                customerService.getAll(PageRequest.of(page, config.getPageSize()));
+            }
+            outcome = Outcome.SUCCESS;
+        } catch (Exception e) {
+            if (e.getCause() instanceof EmptyResultDataAccessException) {
+                outcome = Outcome.NOT_FOUND;
+            } else {
+                outcome = Outcome.ERROR;
+                log.warn("Ошибка чтения ({}): {}", op.tag(), e.getMessage());
+            }
+        }
+
+        long latencyNs = System.nanoTime() - intendedStartNanos;
+        latencyTimers.get(op).record(latencyNs, TimeUnit.NANOSECONDS);
+        latencyHistograms.get(op).recordValue(Math.max(0, latencyNs / 1_000));
+        outcomeCounts.get(op)[outcome.ordinal()].incrementAndGet();
+        outcomeCounters.get(op)[outcome.ordinal()].increment();
+    }
+
+    /**
+     * Реестр ID пополняет генератор. Если он пуст (данные записаны до старта
+     * приложения или режимом CTE), один раз засеваем его диапазоном min..max.
+     */
+    private void ensureKeysKnown() {
+        if (idRanges.total() > 0)
+            return;
+        Map<String, Object> bounds = jdbcTemplate.queryForMap("SELECT min(id) AS min_id, max(id) AS max_id FROM customers");
+        if (bounds.get("min_id") instanceof Number min && bounds.get("max_id") instanceof Number max) {
+            idRanges.seedIfEmpty(min.longValue(), max.longValue());
+        }
+        if (idRanges.total() == 0) {
+            throw new IllegalStateException("В таблице customers нет данных — сначала запустите генератор.");
+        }
+    }
+
+    private double perSecond(long count) {
+        if (startedAt == null)
+            return 0;
+        Instant end = stoppedAt != null ? stoppedAt : Instant.now();
+        long elapsedMs = java.time.Duration.between(startedAt, end).toMillis();
+        return elapsedMs > 0 ? count * 1000.0 / elapsedMs : 0;
+    }
+
+    private void normalize(ReadLoadRequest req) {
+        if (req.getConcurrency() == 0) {
+            req.setConcurrency(Math.max(2, Runtime.getRuntime().availableProcessors()));
+        }
+        if (req.getDistribution() == null) {
+            req.setDistribution(KeyDistribution.UNIFORM);
+        }
+        if (req.getGetByIdRatio() == null) {
+            req.setGetByIdRatio(1.0);
+        }
+        if (req.getResponseFormat() == null) {
+            req.setResponseFormat(ResponseFormat.MAPPED);
+        }
+        if (req.getPageSize() == 0) {
+            req.setPageSize(20);
+        }
+        if (req.getZipfExponent() == null) {
+            req.setZipfExponent(0.99);
+        }
+        if (req.getHotsetFraction() == null) {
+            req.setHotsetFraction(0.2);
+        }
+        if (req.getHotOpnFraction() == null) {
+            req.setHotOpnFraction(0.8);
+        }
+        if (req.getOverflowPolicy() == null) {
+            req.setOverflowPolicy(OverflowPolicy.DROP);
+        }
+    }
+
+    private void validate(ReadLoadRequest req) {
+        if (req.getRequestsPerSecond() <= 0)
+            throw new IllegalArgumentException("requestsPerSecond должен быть > 0");
+        if (req.getDurationMinutes() <= 0)
+            throw new IllegalArgumentException("durationMinutes должен быть > 0");
+        if (req.getConcurrency() < 0)
+            throw new IllegalArgumentException("concurrency должен быть >= 0 (0 = авто)");
+        if (req.getPageSize() < 0)
+            throw new IllegalArgumentException("pageSize должен быть >= 0 (0 = 20)");
+        if (req.getGetByIdRatio() != null && (req.getGetByIdRatio() < 0 || req.getGetByIdRatio() > 1))
+            throw new IllegalArgumentException("getByIdRatio должен быть в диапазоне [0, 1]");
+        if (req.getZipfExponent() != null && req.getZipfExponent() <= 0)
+            throw new IllegalArgumentException("zipfExponent должен быть > 0");
+        if (req.getHotsetFraction() != null && (req.getHotsetFraction() <= 0 || req.getHotsetFraction() > 1))
+            throw new IllegalArgumentException("hotsetFraction должен быть в диапазоне (0, 1]");
+        if (req.getHotOpnFraction() != null && (req.getHotOpnFraction() < 0 || req.getHotOpnFraction() > 1))
+            throw new IllegalArgumentException("hotOpnFraction должен быть в диапазоне [0, 1]");
+        if (req.getReadStrategy() != null && req.getResponseFormat() == ResponseFormat.RAW)
+            throw new IllegalArgumentException("readStrategy применяется только к responseFormat=MAPPED");
+    }
+}
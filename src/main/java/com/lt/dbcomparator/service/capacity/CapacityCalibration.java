@@ -0,0 +1,126 @@
+package com.lt.dbcomparator.service.capacity;
+
+import com.lt.dbcomparator.dto.CapacityStatusResponse.Calibration;
+import com.lt.dbcomparator.dto.WriteMode;
+import com.lt.dbcomparator.service.target.ConnectionPools;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.Optional;
+
+/**
+ * Стоимость батча по способу записи: фиксированная часть (round-trips,
+ * commit) и часть на один граф клиента — {@code batchMs = fixedMs + batchSize
+ * × msPerGraph}. Замеряется {@link CapacityService} на целевой БД и хранится
+ * в {@code capacity_calibration}; пока замера нет — эвристика с константами.
+ * <p>
+ * По стоимости батча {@link #maxBatchesPerSecond} оценивает потолок темпа:
+ * {@code workers × 1000 / batchMs}. Это верхняя граница без учёта конкуренции
+ * в БД — /start отклоняет только заведомо недостижимые запросы, реальный
+ * предел показывает поиск в /api/capacity.
+ */
+@Component
+public class CapacityCalibration {
+
+    // ── Эвристика до калибровки ──
+    // Каждый батч = 4 SQL round-trips на INSERT/COPY (ID берутся из блоков
+    // IdBlockAllocator), в режиме CTE — 1 round-trip, в режиме JPA — по одному
+    // на строку (IDENTITY не даёт Hibernate объединять INSERT в batch).
+    // FIXED_OVERHEAD_MS — стоимость 8 round-trips (4× nextval + 4× INSERT),
+    // из неё выводится стоимость одного round-trip.
+    // MS_PER_CUSTOMER_GRAPH — стоимость одного Customer-графа внутри batch INSERT
+    // (1 customer + 1 profile + ~3 orders + ~13.5 items = ~17.5 строк).
+    private static final double FIXED_OVERHEAD_MS = 10.0;
+    private static final double MS_PER_CUSTOMER_GRAPH = 0.2;
+    private static final double ROWS_PER_CUSTOMER_GRAPH = 17.5;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CapacityCalibration(ConnectionPools pools) {
+        this.jdbcTemplate = pools.admin().jdbcTemplate();
+    }
+
+    /**
+     * Потолок темпа и откуда он взят.
+     *
+     * @param source {@code "калибровка от ..."} или {@code "эвристика"}
+     */
+    public record Estimate(int maxBatchesPerSecond, String source) {
+    }
+
+    public Estimate maxBatchesPerSecond(int batchSize, int workerThreads, WriteMode mode) {
+        return get(mode)
+                .map(c -> new Estimate(maxRate(workerThreads, c.fixedMs() + batchSize * c.msPerGraph()),
+                        "калибровка от " + c.calibratedAt()))
+                .orElseGet(() -> new Estimate(heuristicMaxBatchesPerSecond(batchSize, workerThreads, mode),
+                        "эвристика"));
+    }
+
+    public Optional<Calibration> get(WriteMode mode) {
+        return jdbcTemplate.query("""
+                SELECT write_mode, fixed_ms, ms_per_graph, calibrated_at, batch_size, worker_threads,
+                       max_batches_per_second, target_p99_ms
+                FROM capacity_calibration WHERE write_mode = ?
+                """, (rs, i) -> new Calibration(
+                WriteMode.valueOf(rs.getString("write_mode")),
+                rs.getDouble("fixed_ms"),
+                rs.getDouble("ms_per_graph"),
+                rs.getTimestamp("calibrated_at").toInstant(),
+                rs.getInt("batch_size"),
+                rs.getInt("worker_threads"),
+                (Double) rs.getObject("max_batches_per_second"),
+                rs.getDouble("target_p99_ms")), mode.name())
+                .stream().findFirst();
+    }
+
+    public void save(Calibration c) {
+        jdbcTemplate.update("""
+                INSERT INTO capacity_calibration (write_mode, fixed_ms, ms_per_graph, calibrated_at, batch_size,
+                                                  worker_threads, max_batches_per_second, target_p99_ms)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+                ON CONFLICT (write_mode) DO UPDATE SET
+                    fixed_ms = EXCLUDED.fixed_ms,
+                    ms_per_graph = EXCLUDED.ms_per_graph,
+                    calibrated_at = EXCLUDED.calibrated_at,
+                    batch_size = EXCLUDED.batch_size,
+                    worker_threads = EXCLUDED.worker_threads,
+                    max_batches_per_second = EXCLUDED.max_batches_per_second,
+                    target_p99_ms = EXCLUDED.target_p99_ms
+                """, c.mode().name(), c.fixedMs(), c.msPerGraph(), Timestamp.from(c.calibratedAt()), c.batchSize(),
+                c.workerThreads(), c.maxBatchesPerSecond(), c.targetP99Ms());
+    }
+
+    /**
+     * Оценка без калибровки.
+     * <p>
+     * Формула: estimatedBatchMs = FIXED_OVERHEAD_MS + batchSize ×
+     * MS_PER_CUSTOMER_GRAPH
+     * <br>
+     * Фиксированная часть пропорциональна числу round-trips батча:
+     * INSERT/COPY/MULTI_VALUES — 4 из 8 (ID из IdBlockAllocator), CTE — 1 из
+     * 8, JPA — по round-trip на каждую строку графа.
+     * <br>
+     * maxRate = workerThreads × (1000 / estimatedBatchMs)
+     * <p>
+     * Примеры (4 воркера, INSERT):
+     * <ul>
+     * <li>batchSize=50 → ~15ms/batch → max ~266 batch/sec</li>
+     * <li>batchSize=100 → ~25ms/batch → max ~160 batch/sec</li>
+     * <li>batchSize=500 → ~105ms/batch → max ~38 batch/sec</li>
+     * </ul>
+     */
+    static int heuristicMaxBatchesPerSecond(int batchSize, int workerThreads, WriteMode mode) {
+        double roundTrips = switch (mode) {
+            case CTE -> 1;
+            case JPA -> batchSize * ROWS_PER_CUSTOMER_GRAPH;
+            default -> 4;
+        };
+        double fixedMs = FIXED_OVERHEAD_MS / 8 * roundTrips;
+        return maxRate(workerThreads, fixedMs + batchSize * MS_PER_CUSTOMER_GRAPH);
+    }
+
+    private static int maxRate(int workerThreads, double batchMs) {
+        return Math.max(1, (int) (workerThreads * (1000.0 / batchMs)));
+    }
+}
@@ -0,0 +1,344 @@
+package com.lt.dbcomparator.service.capacity;
+
+import com.lt.dbcomparator.dto.CapacityRequest;
+import com.lt.dbcomparator.dto.CapacityStatusResponse;
+import com.lt.dbcomparator.dto.CapacityStatusResponse.Calibration;
+import com.lt.dbcomparator.dto.CapacityStatusResponse.Limit;
+import com.lt.dbcomparator.dto.CapacityStatusResponse.Phase;
+import com.lt.dbcomparator.dto.CapacityStatusResponse.StepResult;
+import com.lt.dbcomparator.dto.LoadRequest;
+import com.lt.dbcomparator.dto.LoadStatusResponse;
+import com.lt.dbcomparator.dto.WriteMode;
+import com.lt.dbcomparator.service.DataGeneratorService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск максимального устойчивого темпа генератора на целевой БД.
+ * <p>
+ * Закрытый цикл поверх {@link DataGeneratorService}: каждый шаг — прогон
+ * генератора с заданным темпом на {@code stepSeconds}. Шаг устойчивый, если
+ * p99 latency батча не выше цели, доли ошибок и пропусков не выше допустимых
+ * и записано не меньше 90% поданных батчей. Разгон умножает темп на
+ * {@code stepFactor} до первого неустойчивого шага, затем бинарный поиск
+ * уточняет предел между последним устойчивым и первым неустойчивым темпом.
+ * <p>
+ * Калибровка перед разгоном: два прогона при низком темпе с batchSize и
+ * batchSize / 4 (или × 4 для маленьких батчей). Среднее время батча без
+ * ожидания — прямая по размеру батча; наклон — стоимость графа, отрезок —
+ * фиксированная часть. Результат сохраняется в {@link CapacityCalibration}, и
+ * /api/generator/start для этого способа записи сверяет темп уже с ним.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CapacityService {
+
+    private static final double DEFAULT_FAILURE_RATE = 0.01;
+    private static final double DEFAULT_DROP_RATE = 0.01;
+    private static final double DEFAULT_START_RATE = 1;
+    private static final double DEFAULT_STEP_FACTOR = 1.5;
+    private static final int DEFAULT_STEP_SECONDS = 30;
+    private static final int DEFAULT_MAX_STEPS = 20;
+    private static final int DEFAULT_REFINE_STEPS = 3;
+    private static final int DEFAULT_CALIBRATION_SECONDS = 10;
+    // Шаг устойчив, если записано не меньше этой доли поданных батчей
+    private static final double MIN_ACHIEVED_RATIO = 0.9;
+
+    private final DataGeneratorService generatorService;
+    private final CapacityCalibration capacityCalibration;
+
+    // ── Состояние ──
+    private volatile boolean running;
+    private volatile boolean stopRequested;
+    private volatile Phase phase;
+    private volatile CapacityRequest config;
+    private volatile Calibration calibration;
+    private volatile String error;
+    private volatile Limit limitedBy;
+    private final List<StepResult> steps = new CopyOnWriteArrayList<>();
+    private Thread runner;
+
+    public synchronized void start(CapacityRequest request) {
+        if (running) {
+            throw new IllegalStateException("Поиск предела уже идёт. Сначала вызовите /stop.");
+        }
+        if (generatorService.getStatus().isRunning()) {
+            throw new IllegalStateException("Генератор запущен. Поиск предела сам управляет генератором — " +
+                    "сначала остановите его.");
+        }
+        validate(request);
+        normalize(request);
+
+        this.config = request;
+        this.running = true;
+        this.stopRequested = false;
+        this.phase = null;
+        this.calibration = null;
+        this.error = null;
+        this.limitedBy = null;
+        steps.clear();
+
+        this.runner = new Thread(() -> run(request), "capacity-finder");
+        runner.setDaemon(true);
+        runner.start();
+        log.info("Поиск предела: batchSize={}, mode={}, targetP99={}ms, startRate={}, factor={}, step={}s",
+                request.getLoad().getBatchSize(), request.getLoad().getWriteMode(), request.getTargetP99Ms(),
+                request.getStartRate(), request.getStepFactor(), request.getStepSeconds());
+    }
+
+    /**
+     * Прерывает поиск: текущий шаг останавливается, найденное к этому
+     * моменту остаётся в статусе.
+     */
+    public void stop() {
+        Thread worker;
+        synchronized (this) {
+            if (!running)
+                return;
+            stopRequested = true;
+            worker = runner;
+        }
+        generatorService.stop();
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public CapacityStatusResponse getStatus() {
+        StepResult best = best();
+        return CapacityStatusResponse.builder()
+                .running(running)
+                .phase(phase)
+                .config(config)
+                .steps(List.copyOf(steps))
+                .maxSustainableBatchesPerSecond(best != null ? best.offeredBatchesPerSecond() : null)
+                .maxSustainableRecordsPerSecond(best != null ? best.recordsPerSecond() : null)
+                .limitedBy(limitedBy)
+                .calibration(calibration)
+                .error(error)
+                .build();
+    }
+
+    // ═══════════════════════════════════════════
+    // Поиск
+    // ═══════════════════════════════════════════
+
+    private void run(CapacityRequest request) {
+        try {
+            LoadRequest load = request.getLoad();
+            Calibration measured = Boolean.TRUE.equals(request.getCalibrate()) ? calibrate(request) : null;
+
+            // ── Разгон ──
+            phase = Phase.RAMP;
+            StepResult lastGood = null;
+            StepResult firstBad = null;
+            double rate = request.getStartRate();
+            for (int i = 0; i < request.getMaxSteps() && !stopRequested; i++) {
+                StepResult step = runStep(request, Phase.RAMP, rate, load.getBatchSize(), request.getStepSeconds());
+                if (!step.sustainable()) {
+                    firstBad = step;
+                    break;
+                }
+                lastGood = step;
+                rate *= request.getStepFactor();
+            }
+
+            // ── Уточнение ──
+            if (lastGood != null && firstBad != null) {
+                phase = Phase.REFINE;
+                double lo = lastGood.offeredBatchesPerSecond();
+                double hi = firstBad.offeredBatchesPerSecond();
+                for (int i = 0; i < request.getRefineSteps() && !stopRequested; i++) {
+                    StepResult step = runStep(request, Phase.REFINE, (lo + hi) / 2, load.getBatchSize(),
+                            request.getStepSeconds());
+                    if (step.sustainable()) {
+                        lo = step.offeredBatchesPerSecond();
+                    } else {
+                        hi = step.offeredBatchesPerSecond();
+                    }
+                }
+            }
+            if (stopRequested)
+                return;
+            limitedBy = firstBad != null ? firstBad.limit() : null;
+
+            if (measured != null) {
+                StepResult best = best();
+                Calibration saved = new Calibration(measured.mode(), measured.fixedMs(), measured.msPerGraph(),
+                        measured.calibratedAt(), measured.batchSize(), measured.workerThreads(),
+                        best != null ? best.offeredBatchesPerSecond() : null, request.getTargetP99Ms());
+                capacityCalibration.save(saved);
+                calibration = saved;
+            }
+            phase = Phase.DONE;
+            StepResult best = best();
+            log.info("Поиск предела завершён: max={} батчей/сек, ограничение={}",
+                    best != null ? best.offeredBatchesPerSecond() : null, limitedBy);
+        } catch (Exception e) {
+            error = e.getMessage();
+            log.error("Поиск предела остановлен ошибкой: {}", e.getMessage(), e);
+        } finally {
+            running = false;
+        }
+    }
+
+    /**
+     * Два прогона при стартовом темпе с разным размером батча.
+     */
+    private Calibration calibrate(CapacityRequest request) throws InterruptedException {
+        phase = Phase.CALIBRATE;
+        int large = request.getLoad().getBatchSize();
+        int small = large >= 4 ? large / 4 : large * 4;
+        StepResult a = runStep(request, Phase.CALIBRATE, request.getStartRate(), large,
+                request.getCalibrationSeconds());
+        // Фактическое число воркеров (0 в запросе генератор заменяет сам)
+        int workers = generatorService.getStatus().getConfig().getWorkerThreads();
+        StepResult b = runStep(request, Phase.CALIBRATE, request.getStartRate(), small,
+                request.getCalibrationSeconds());
+        if (stopRequested)
+            return null;
+        if (a.batchDurationAvgMs() == 0 || b.batchDurationAvgMs() == 0) {
+            throw new IllegalStateException("Калибровка: за " + request.getCalibrationSeconds() +
+                    " с не записано ни одного батча — увеличьте calibrationSeconds или startRate");
+        }
+        // Шум может дать отрицательный наклон на очень дешёвых графах — не даём
+        double msPerGraph = Math.max(0,
+                (a.batchDurationAvgMs() - b.batchDurationAvgMs()) / (a.batchSize() - b.batchSize()));
+        double fixedMs = Math.max(0.01, a.batchDurationAvgMs() - a.batchSize() * msPerGraph);
+        Calibration measured = new Calibration(request.getLoad().getWriteMode(), fixedMs, msPerGraph,
+                Instant.now(), large, workers, null, request.getTargetP99Ms());
+        calibration = measured;
+        log.info("Калибровка {}: fixed={}ms, perGraph={}ms", measured.mode(),
+                String.format("%.3f", fixedMs), String.format("%.4f", msPerGraph));
+        return measured;
+    }
+
+    /**
+     * Прогон генератора с темпом {@code rate} на {@code seconds} секунд.
+     */
+    private StepResult runStep(CapacityRequest request, Phase stepPhase, double rate, int batchSize, int seconds)
+            throws InterruptedException {
+        LoadRequest load = request.getLoad().toBuilder()
+                .batchSize(batchSize)
+                .batchesPerSecond(rate)
+                // С запасом: шаг останавливает сам поиск
+                .durationMinutes((int) TimeUnit.SECONDS.toMinutes(seconds) + 1)
+                .build();
+        long startNs = System.nanoTime();
+        generatorService.start(load, false);
+        try {
+            long deadline = startNs + TimeUnit.SECONDS.toNanos(seconds);
+            while (!stopRequested && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(Math.min(200, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()) + 1));
+            }
+        } finally {
+            generatorService.stop();
+        }
+        double elapsed = (System.nanoTime() - startNs) / 1e9;
+        LoadStatusResponse s = generatorService.getStatus();
+
+        double achieved = s.getBatchesCompleted() / elapsed;
+        double failureRate = (double) s.getBatchesFailed() / Math.max(1, s.getBatchesCompleted() + s.getBatchesFailed());
+        double dropRate = (double) s.getBatchesDropped() / Math.max(1, s.getBatchesSubmitted() + s.getBatchesDropped());
+        Limit limit = null;
+        if (s.getLatencyP99Ms() > request.getTargetP99Ms()) {
+            limit = Limit.LATENCY;
+        } else if (failureRate > request.getMaxFailureRate()) {
+            limit = Limit.FAILURES;
+        } else if (dropRate > request.getMaxDropRate()) {
+            limit = Limit.DROPS;
+        } else if (achieved < rate * MIN_ACHIEVED_RATIO) {
+            limit = Limit.THROUGHPUT;
+        }
+        StepResult step = new StepResult(stepPhase, rate, batchSize, elapsed, achieved, s.getRecordsPerSecond(),
+                s.getLatencyP99Ms(), s.getBatchDurationAvgMs(), failureRate, dropRate, limit == null, limit);
+        steps.add(step);
+        log.info("Поиск предела: {} rate={} → p99={}ms, achieved={}/s, failures={}, drops={}, {}",
+                stepPhase, String.format("%.2f", rate), s.getLatencyP99Ms(), String.format("%.2f", achieved),
+                failureRate, dropRate, limit == null ? "OK" : limit);
+        return step;
+    }
+
+    /**
+     * Самый быстрый устойчивый шаг разгона или уточнения.
+     */
+    private StepResult best() {
+        return steps.stream()
+                .filter(s -> s.phase() != Phase.CALIBRATE && s.sustainable())
+                .max(Comparator.comparingDouble(StepResult::offeredBatchesPerSecond))
+                .orElse(null);
+    }
+
+    // ═══════════════════════════════════════════
+    // Утилиты
+    // ═══════════════════════════════════════════
+
+    static void validate(CapacityRequest req) {
+        if (req.getLoad() == null)
+            throw new IllegalArgumentException("load обязателен");
+        if (req.getLoad().getBatchSize() <= 0)
+            throw new IllegalArgumentException("load.batchSize должен быть > 0");
+        if (req.getLoad().getProfile() != null || req.getLoad().getMaxRecords() > 0 || req.getLoad().getMaxBatches() > 0)
+            throw new IllegalArgumentException("load.profile, maxRecords и maxBatches не задаются: темп и длительность шагов задаёт поиск");
+        if (req.getLoad().getWorkerThreads() < 0)
+            throw new IllegalArgumentException("load.workerThreads должен быть >= 0 (0 = авто)");
+        if (req.getTargetP99Ms() <= 0)
+            throw new IllegalArgumentException("targetP99Ms должен быть > 0");
+        if (req.getMaxFailureRate() != null && (req.getMaxFailureRate() < 0 || req.getMaxFailureRate() >= 1))
+            throw new IllegalArgumentException("maxFailureRate должен быть в [0, 1)");
+        if (req.getMaxDropRate() != null && (req.getMaxDropRate() < 0 || req.getMaxDropRate() >= 1))
+            throw new IllegalArgumentException("maxDropRate должен быть в [0, 1)");
+        if (req.getStartRate() != null && req.getStartRate() <= 0)
+            throw new IllegalArgumentException("startRate должен быть > 0 (null = " + DEFAULT_START_RATE + ")");
+        if (req.getStepFactor() != null && req.getStepFactor() <= 1)
+            throw new IllegalArgumentException("stepFactor должен быть > 1");
+        if (req.getStepSeconds() < 0 || req.getMaxSteps() < 0 || req.getRefineSteps() < 0
+                || req.getCalibrationSeconds() < 0)
+            throw new IllegalArgumentException("stepSeconds, maxSteps, refineSteps, calibrationSeconds должны быть >= 0");
+    }
+
+    private static void normalize(CapacityRequest req) {
+        LoadRequest load = req.getLoad();
+        if (load.getWriteMode() == null) {
+            load.setWriteMode(WriteMode.INSERT);
+        }
+        // 0 — допустимый порог «ни одной ошибки / пропуска», по умолчанию только null
+        if (req.getMaxFailureRate() == null) {
+            req.setMaxFailureRate(DEFAULT_FAILURE_RATE);
+        }
+        if (req.getMaxDropRate() == null) {
+            req.setMaxDropRate(DEFAULT_DROP_RATE);
+        }
+        if (req.getStartRate() == null) {
+            req.setStartRate(DEFAULT_START_RATE);
+        }
+        if (req.getStepFactor() == null) {
+            req.setStepFactor(DEFAULT_STEP_FACTOR);
+        }
+        if (req.getStepSeconds() == 0) {
+            req.setStepSeconds(DEFAULT_STEP_SECONDS);
+        }
+        if (req.getMaxSteps() == 0) {
+            req.setMaxSteps(DEFAULT_MAX_STEPS);
+        }
+        if (req.getRefineSteps() == 0) {
+            req.setRefineSteps(DEFAULT_REFINE_STEPS);
+        }
+        if (req.getCalibrate() == null) {
+            req.setCalibrate(true);
+        }
+        if (req.getCalibrationSeconds() == 0) {
+            req.setCalibrationSeconds(DEFAULT_CALIBRATION_SECONDS);
+        }
+    }
+}
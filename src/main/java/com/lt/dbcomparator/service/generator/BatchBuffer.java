@@ -0,0 +1,226 @@
+package com.lt.dbcomparator.service.generator;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Колоночный буфер одного батча: Customer → Profile → Orders → Items.
+ * <p>
+ * Каждая колонка — примитивный массив, строка таблицы — индекс в нём.
+ * Строковые поля хранятся индексами в {@link GeneratorDictionaries} или
+ * числами, из которых строка собирается при записи (улица, индекс, телефон).
+ * Связи — индексы родительской строки в том же буфере, ID строк —
+ * firstXxxId + индекс (непрерывные диапазоны из IdBlockAllocator).
+ * <p>
+ * Буфер переиспользуется воркером между батчами: массивы растут только
+ * при увеличении batchSize, поэтому заполнение буфера в установившемся
+ * режиме не создаёт мусора.
+ */
+public final class BatchBuffer {
+
+    // Максимумы из распределений генератора: 1–5 заказов, 2–7 позиций на заказ
+    static final int MAX_ORDERS_PER_CUSTOMER = 5;
+    static final int MAX_ITEMS_PER_ORDER = 7;
+
+    // ── Общие для батча значения ──
+    LocalDateTime now;
+    long nowEpochMicros;
+    long todayEpochDay;
+
+    // ── Размеры ──
+    int customers;
+    int orders;
+    int items;
+
+    // ── ID (первый в непрерывном диапазоне) ──
+    long firstCustomerId;
+    long firstProfileId;
+    long firstOrderId;
+    long firstItemId;
+
+    // ── Учёт батча (заполняет исполнитель, к данным не относится) ──
+    private long scheduledAtNanos;
+    private long startedAtNanos;
+    private long synthesisAllocatedBytes;
+
+    // ── customers ──
+    int[] cFirstName = new int[0];
+    int[] cLastName = new int[0];
+    long[] cPhone = new long[0];
+    int[] cBirthEpochDay = new int[0];
+    int[] cStatus = new int[0];
+    int[] cLoyalty = new int[0];
+    int[] cCountry = new int[0];
+
+    // ── customer_profiles (1:1, тот же индекс, что у клиента) ──
+    int[] pLanguage = new int[0];
+    boolean[] pNotifications = new boolean[0];
+    int[] pStreet = new int[0];
+    int[] pApartment = new int[0];
+    int[] pCity = new int[0];
+    int[] pZip = new int[0];
+
+    // ── orders ──
+    int[] oCustomerIdx = new int[0];
+    int[] oDaysAgo = new int[0];
+    int[] oStatus = new int[0];
+    long[] oTotalCents = new long[0];
+    int[] oCurrency = new int[0];
+    int[] oShipCity = new int[0];
+    int[] oShipStreet = new int[0];
+    boolean[] oExpress = new boolean[0];
+    int[] oDeliveryDays = new int[0];
+
+    // ── order_items ──
+    int[] iOrderIdx = new int[0];
+    long[] iProductId = new long[0];
+    int[] iQuantity = new int[0];
+    long[] iUnitCents = new long[0];
+    long[] iDiscountCents = new long[0];
+
+    /**
+     * Подготовка к новому батчу: фиксирует «сейчас» и при необходимости
+     * увеличивает массивы до максимально возможного размера.
+     */
+    void reset(int customerCount, LocalDateTime now) {
+        this.now = now;
+        this.nowEpochMicros = now.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + now.getNano() / 1_000;
+        this.todayEpochDay = now.toLocalDate().toEpochDay();
+        this.customers = customerCount;
+        this.orders = 0;
+        this.items = 0;
+        this.firstCustomerId = this.firstProfileId = this.firstOrderId = this.firstItemId = 0;
+        ensureCapacity(customerCount);
+    }
+
+    private void ensureCapacity(int customerCount) {
+        if (cFirstName.length >= customerCount) {
+            return;
+        }
+        int c = customerCount;
+        int o = c * MAX_ORDERS_PER_CUSTOMER;
+        int i = o * MAX_ITEMS_PER_ORDER;
+
+        cFirstName = new int[c];
+        cLastName = new int[c];
+        cPhone = new long[c];
+        cBirthEpochDay = new int[c];
+        cStatus = new int[c];
+        cLoyalty = new int[c];
+        cCountry = new int[c];
+
+        pLanguage = new int[c];
+        pNotifications = new boolean[c];
+        pStreet = new int[c];
+        pApartment = new int[c];
+        pCity = new int[c];
+        pZip = new int[c];
+
+        oCustomerIdx = new int[o];
+        oDaysAgo = new int[o];
+        oStatus = new int[o];
+        oTotalCents = new long[o];
+        oCurrency = new int[o];
+        oShipCity = new int[o];
+        oShipStreet = new int[o];
+        oExpress = new boolean[o];
+        oDeliveryDays = new int[o];
+
+        iOrderIdx = new int[i];
+        iProductId = new long[i];
+        iQuantity = new int[i];
+        iUnitCents = new long[i];
+        iDiscountCents = new long[i];
+    }
+
+    /**
+     * Назначает батчу диапазоны ID (для стратегий, которые пишут ID сами).
+     */
+    public void assignIds(long firstCustomerId, long firstProfileId, long firstOrderId, long firstItemId) {
+        this.firstCustomerId = firstCustomerId;
+        this.firstProfileId = firstProfileId;
+        this.firstOrderId = firstOrderId;
+        this.firstItemId = firstItemId;
+    }
+
+    /**
+     * Первый ID клиента батча (0, если ID назначает БД).
+     */
+    public long firstCustomerId() {
+        return firstCustomerId;
+    }
+
+    public int customers() {
+        return customers;
+    }
+
+    public int orders() {
+        return orders;
+    }
+
+    public int items() {
+        return items;
+    }
+
+    /**
+     * Всего строк во всех четырёх таблицах.
+     */
+    public int totalRows() {
+        return 2 * customers + orders + items;
+    }
+
+    /**
+     * Плановое время старта батча по расписанию тикера (System.nanoTime) —
+     * разница с {@link #startedAtNanos()} показывает задержку планирования,
+     * от него же отсчитывается latency.
+     */
+    public long scheduledAtNanos() {
+        return scheduledAtNanos;
+    }
+
+    public void scheduledAtNanos(long scheduledAtNanos) {
+        this.scheduledAtNanos = scheduledAtNanos;
+    }
+
+    /**
+     * Момент начала обработки батча (System.nanoTime) — для таймера
+     * длительности, когда синтез и запись идут в разных потоках.
+     */
+    public long startedAtNanos() {
+        return startedAtNanos;
+    }
+
+    public void startedAtNanos(long startedAtNanos) {
+        this.startedAtNanos = startedAtNanos;
+    }
+
+    /**
+     * Байт, аллоцированных потоком синтеза на этот батч; -1 — не замерено
+     * (виртуальный поток или JVM без поддержки).
+     */
+    public long synthesisAllocatedBytes() {
+        return synthesisAllocatedBytes;
+    }
+
+    public void synthesisAllocatedBytes(long bytes) {
+        this.synthesisAllocatedBytes = bytes;
+    }
+
+    // ── ID строк по индексу ──
+
+    long customerId(int c) {
+        return firstCustomerId + c;
+    }
+
+    long profileId(int c) {
+        return firstProfileId + c;
+    }
+
+    long orderId(int o) {
+        return firstOrderId + o;
+    }
+
+    long itemId(int i) {
+        return firstItemId + i;
+    }
+}
@@ -0,0 +1,172 @@
+package com.lt.dbcomparator.service.generator;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Двухстадийный конвейер батчей: синтез → очередь → запись.
+ * <p>
+ * Потоки синтеза (gen-synth) заполняют {@link BatchBuffer} и кладут его в
+ * ограниченную очередь готовых батчей; потоки записи (gen-writer) забирают
+ * батчи из очереди и пишут в БД. Буферы берутся из фиксированного пула
+ * (очередь + по одному на каждый поток), после записи возвращаются в него —
+ * конвейер не создаёт новых буферов.
+ * <p>
+ * Backpressure: если свободных буферов нет, {@link #submit(long)} возвращает
+ * false и дальше решает OverflowPolicy тикера; если очередь заполнена, поток синтеза ждёт
+ * на {@code put}.
+ */
+@Slf4j
+public final class BatchPipeline {
+
+    private final int synthesisThreads;
+    private final int writerThreads;
+    private final int queueCapacity;
+    private final Predicate<BatchBuffer> synthesizer;
+    private final Consumer<BatchBuffer> writer;
+
+    private final BlockingQueue<BatchBuffer> freeBuffers;
+    private final BlockingQueue<BatchBuffer> readyBatches;
+    private final ExecutorService synthesisPool;
+    private final ExecutorService writerPool;
+
+    private volatile boolean accepting = true;
+
+    /**
+     * @param synthesizer заполняет буфер; false — батч не удался, буфер
+     *                    возвращается в пул без записи
+     * @param writer      пишет готовый батч (ошибки обрабатывает сам)
+     */
+    public BatchPipeline(int synthesisThreads, int writerThreads, int queueCapacity,
+            Predicate<BatchBuffer> synthesizer, Consumer<BatchBuffer> writer) {
+        this.synthesisThreads = synthesisThreads;
+        this.writerThreads = writerThreads;
+        this.queueCapacity = queueCapacity;
+        this.synthesizer = synthesizer;
+        this.writer = writer;
+
+        int buffers = queueCapacity + synthesisThreads + writerThreads;
+        this.freeBuffers = new ArrayBlockingQueue<>(buffers);
+        for (int i = 0; i < buffers; i++) {
+            freeBuffers.add(new BatchBuffer());
+        }
+        this.readyBatches = new ArrayBlockingQueue<>(queueCapacity);
+
+        this.synthesisPool = Executors.newFixedThreadPool(synthesisThreads, daemon("gen-synth"));
+        this.writerPool = Executors.newFixedThreadPool(writerThreads, daemon("gen-writer"));
+        for (int i = 0; i < writerThreads; i++) {
+            writerPool.submit(this::writerLoop);
+        }
+    }
+
+    /**
+     * Запускает синтез одного батча.
+     *
+     * @param intendedStartNanos плановое время старта батча (System.nanoTime)
+     * @return false — все буферы заняты (конвейер перегружен), батч не принят
+     */
+    public boolean submit(long intendedStartNanos) {
+        if (!accepting) {
+            return false;
+        }
+        BatchBuffer buffer = freeBuffers.poll();
+        if (buffer == null) {
+            return false;
+        }
+        buffer.scheduledAtNanos(intendedStartNanos);
+        synthesisPool.submit(() -> synthesize(buffer));
+        return true;
+    }
+
+    /**
+     * Останавливает приём батчей, дописывает уже синтезированные и
+     * завершает потоки обеих стадий.
+     */
+    public void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        accepting = false;
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synthesisPool.shutdown();
+        if (!synthesisPool.awaitTermination(timeout, unit)) {
+            synthesisPool.shutdownNow();
+        }
+        // Писатели выходят сами, когда синтез завершён и очередь пуста
+        writerPool.shutdown();
+        if (!writerPool.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+            log.warn("Потоки записи не завершились вовремя, принудительная остановка");
+            writerPool.shutdownNow();
+        }
+    }
+
+    public int queueDepth() {
+        return readyBatches.size();
+    }
+
+    public int queueCapacity() {
+        return queueCapacity;
+    }
+
+    public int synthesisThreads() {
+        return synthesisThreads;
+    }
+
+    public int writerThreads() {
+        return writerThreads;
+    }
+
+    // ═══════════════════════════════════════════
+    // Стадии
+    // ═══════════════════════════════════════════
+
+    private void synthesize(BatchBuffer buffer) {
+        boolean ok = false;
+        try {
+            ok = synthesizer.test(buffer);
+            if (ok) {
+                readyBatches.put(buffer);
+            }
+        } catch (InterruptedException e) {
+            ok = false;
+            Thread.currentThread().interrupt();
+        } finally {
+            if (!ok) {
+                freeBuffers.offer(buffer);
+            }
+        }
+    }
+
+    private void writerLoop() {
+        try {
+            while (accepting || !synthesisPool.isTerminated() || !readyBatches.isEmpty()) {
+                BatchBuffer buffer = readyBatches.poll(100, TimeUnit.MILLISECONDS);
+                if (buffer == null) {
+                    continue;
+                }
+                try {
+                    writer.accept(buffer);
+                } catch (RuntimeException e) {
+                    log.error("Ошибка в потоке записи: {}", e.getMessage(), e);
+                } finally {
+                    freeBuffers.offer(buffer);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -0,0 +1,92 @@
+package com.lt.dbcomparator.service.generator;
+
+import java.time.LocalDateTime;
+import java.util.random.RandomGenerator;
+
+import static com.lt.dbcomparator.service.generator.GeneratorDictionaries.*;
+
+/**
+ * Заполнение {@link BatchBuffer} случайными данными — CPU-часть батча,
+ * без обращений к БД.
+ * <p>
+ * Один проход по каждой таблице, только примитивы: ни строк, ни BigDecimal,
+ * ни LocalDate — всё это собирается позже, при записи, и только там, где
+ * этого требует выбранный способ записи.
+ */
+public final class BatchSynthesizer {
+
+    private BatchSynthesizer() {
+    }
+
+    /**
+     * Заполняет буфер графом из {@code customerCount} клиентов:
+     * N клиентов → N профилей → 1–5 заказов на клиента → 2–7 позиций на заказ.
+     */
+    public static void fill(BatchBuffer b, int customerCount, long[] productIds,
+            RandomGenerator r, LocalDateTime now) {
+        b.reset(customerCount, now);
+
+        // 1. Customers + profiles (1:1)
+        for (int c = 0; c < customerCount; c++) {
+            b.cFirstName[c] = r.nextInt(FIRST_NAMES.length);
+            b.cLastName[c] = r.nextInt(LAST_NAMES.length);
+            b.cPhone[c] = 9000000000L + r.nextLong(999999999L);
+            b.cBirthEpochDay[c] = (int) epochDay(1970 + r.nextInt(40), 1 + r.nextInt(12), 1 + r.nextInt(28));
+            b.cStatus[c] = r.nextInt(STATUSES.length);
+            b.cLoyalty[c] = r.nextInt(10000);
+            b.cCountry[c] = r.nextInt(COUNTRIES.length);
+
+            b.pLanguage[c] = r.nextInt(LANGUAGES.length);
+            b.pNotifications[c] = r.nextBoolean();
+            b.pStreet[c] = r.nextInt(200);
+            b.pApartment[c] = r.nextInt(100);
+            b.pCity[c] = r.nextInt(CITIES.length);
+            b.pZip[c] = 100000 + r.nextInt(899999);
+        }
+
+        // 2. Orders (1–5 per customer)
+        int o = 0;
+        for (int c = 0; c < customerCount; c++) {
+            int orderCount = 1 + r.nextInt(BatchBuffer.MAX_ORDERS_PER_CUSTOMER);
+            for (int k = 0; k < orderCount; k++, o++) {
+                b.oCustomerIdx[o] = c;
+                b.oDaysAgo[o] = r.nextInt(365);
+                b.oStatus[o] = r.nextInt(ORDER_STATUSES.length);
+                b.oTotalCents[o] = Math.round(r.nextDouble(10, 10000) * 100);
+                b.oCurrency[o] = r.nextInt(CURRENCIES.length);
+                b.oShipCity[o] = r.nextInt(CITIES.length);
+                b.oShipStreet[o] = r.nextInt(200);
+                b.oExpress[o] = r.nextBoolean();
+                b.oDeliveryDays[o] = r.nextInt(30);
+            }
+        }
+        b.orders = o;
+
+        // 3. Order items (2–7 per order)
+        int i = 0;
+        for (int ord = 0; ord < o; ord++) {
+            int itemCount = 2 + r.nextInt(BatchBuffer.MAX_ITEMS_PER_ORDER - 1);
+            for (int k = 0; k < itemCount; k++, i++) {
+                b.iOrderIdx[i] = ord;
+                b.iProductId[i] = productIds[r.nextInt(productIds.length)];
+                b.iQuantity[i] = 1 + r.nextInt(10);
+                b.iUnitCents[i] = Math.round(r.nextDouble(1, 500) * 100);
+                b.iDiscountCents[i] = Math.round(r.nextDouble(0, 50) * 100);
+            }
+        }
+        b.items = i;
+    }
+
+    /**
+     * Кол-во дней от 1970-01-01 для григорианской даты — то же, что
+     * {@code LocalDate.of(y, m, d).toEpochDay()}, но без создания объекта.
+     */
+    static long epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yoe = y - era * 400;
+        int doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146_097L + doe - 719_468;
+    }
+}
@@ -0,0 +1,205 @@
+package com.lt.dbcomparator.service.generator;
+
+import com.lt.dbcomparator.dto.WriteMode;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static com.lt.dbcomparator.service.generator.GeneratorDictionaries.*;
+import static com.lt.dbcomparator.service.generator.GeneratorMetrics.*;
+
+/**
+ * Каждая таблица батча — одним {@code COPY ... FROM STDIN (FORMAT binary)}.
+ * <p>
+ * Строки кодируются в бинарный формат на стороне приложения
+ * ({@link PgBinaryCopyEncoder}) прямо из колонок буфера: составные строки
+ * (email, адрес, номер заказа) собираются байтами в буфер энкодера, numeric
+ * пишется из копеек, date/timestamp — из epoch-значений. Энкодеры берутся
+ * из общего пула и возвращаются в него после записи (а не из ThreadLocal —
+ * виртуальные потоки живут один батч), поэтому путь кодирования мусора не
+ * создаёт.
+ * <p>
+ * COPY выполняется на соединении текущей транзакции — батч по-прежнему
+ * атомарен.
+ */
+@Component
+@RequiredArgsConstructor
+public class CopyWriteStrategy implements WriteStrategy {
+
+    static final String COPY_CUSTOMERS_SQL = "COPY customers (id, first_name, last_name, email, phone, " +
+            "date_of_birth, registered_at, status, loyalty_points, country) FROM STDIN (FORMAT binary)";
+    static final String COPY_PROFILES_SQL = "COPY customer_profiles (id, customer_id, avatar_url, bio, " +
+            "preferred_language, notifications_enabled, address, city, zip_code) FROM STDIN (FORMAT binary)";
+    static final String COPY_ORDERS_SQL = "COPY orders (id, customer_id, order_number, order_date, status, " +
+            "total_amount, currency, shipping_address, notes, expected_delivery) FROM STDIN (FORMAT binary)";
+    static final String COPY_ITEMS_SQL = "COPY order_items (id, order_id, product_id, quantity, " +
+            "unit_price, total_price, discount, created_at) FROM STDIN (FORMAT binary)";
+
+    private static final long MICROS_PER_DAY = 86_400_000_000L;
+
+    private final GeneratorMetrics metrics;
+
+    // Пул растёт до числа одновременно пишущих батчей и дальше не меняется
+    private final Queue<PgBinaryCopyEncoder> encoders = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public WriteMode mode() {
+        return WriteMode.COPY;
+    }
+
+    @Override
+    public int write(BatchBuffer b, JdbcTemplate jdbc) {
+        PgBinaryCopyEncoder enc = encoders.poll();
+        if (enc == null) {
+            enc = new PgBinaryCopyEncoder(64 * 1024);
+        }
+        try {
+            return write(b, enc, jdbc);
+        } finally {
+            encoders.offer(enc);
+        }
+    }
+
+    private int write(BatchBuffer b, PgBinaryCopyEncoder enc, JdbcTemplate jdbc) {
+
+        // 1. Customers
+        long t = System.nanoTime();
+        enc.reset();
+        for (int c = 0; c < b.customers; c++) {
+            long custId = b.customerId(c);
+            enc.startRow(10);
+            enc.writeLong(custId);
+            enc.writeText(FIRST_NAMES[b.cFirstName[c]]);
+            enc.writeText(LAST_NAMES[b.cLastName[c]]);
+            enc.beginText();
+            enc.appendAscii(FIRST_NAMES_LOWER[b.cFirstName[c]]);
+            enc.appendAscii(".");
+            enc.appendAscii(LAST_NAMES_LOWER[b.cLastName[c]]);
+            enc.appendLong(custId);
+            enc.appendAscii("@test.com");
+            enc.endText();
+            enc.beginText();
+            enc.appendAscii("+7");
+            enc.appendLong(b.cPhone[c]);
+            enc.endText();
+            enc.writeEpochDay(b.cBirthEpochDay[c]);
+            enc.writeTimestampEpochMicros(b.nowEpochMicros);
+            enc.writeText(STATUSES[b.cStatus[c]]);
+            enc.writeInt(b.cLoyalty[c]);
+            enc.writeText(COUNTRIES[b.cCountry[c]]);
+        }
+        copyIn(COPY_CUSTOMERS_SQL, enc, jdbc);
+        t = metered(CUSTOMERS, t, b.customers);
+
+        // 2. Profiles (1:1 с customer)
+        enc.reset();
+        for (int c = 0; c < b.customers; c++) {
+            long profId = b.profileId(c);
+            enc.startRow(9);
+            enc.writeLong(profId);
+            enc.writeLong(b.customerId(c));
+            enc.beginText();
+            enc.appendAscii("https://avatar.example.com/");
+            enc.appendLong(profId);
+            enc.appendAscii(".png");
+            enc.endText();
+            enc.beginText();
+            enc.appendAscii("Bio for customer ");
+            enc.appendLong(b.customerId(c));
+            enc.endText();
+            enc.writeText(LANGUAGES[b.pLanguage[c]]);
+            enc.writeBoolean(b.pNotifications[c]);
+            enc.beginText();
+            enc.appendAscii("Street ");
+            enc.appendLong(b.pStreet[c]);
+            enc.appendAscii(", apt ");
+            enc.appendLong(b.pApartment[c]);
+            enc.endText();
+            enc.writeText(CITIES[b.pCity[c]]);
+            enc.beginText();
+            enc.appendLong(b.pZip[c]);
+            enc.endText();
+        }
+        copyIn(COPY_PROFILES_SQL, enc, jdbc);
+        t = metered(CUSTOMER_PROFILES, t, b.customers);
+
+        // 3. Orders
+        enc.reset();
+        for (int o = 0; o < b.orders; o++) {
+            long ordId = b.orderId(o);
+            enc.startRow(10);
+            enc.writeLong(ordId);
+            enc.writeLong(b.customerId(b.oCustomerIdx[o]));
+            enc.beginText();
+            enc.appendAscii("ORD-");
+            enc.appendLong(ordId);
+            enc.endText();
+            enc.writeTimestampEpochMicros(b.nowEpochMicros - b.oDaysAgo[o] * MICROS_PER_DAY);
+            enc.writeText(ORDER_STATUSES[b.oStatus[o]]);
+            enc.writeNumeric(b.oTotalCents[o], 2);
+            enc.writeText(CURRENCIES[b.oCurrency[o]]);
+            enc.beginText();
+            enc.appendAscii(CITIES[b.oShipCity[o]]);
+            enc.appendAscii(", Street ");
+            enc.appendLong(b.oShipStreet[o]);
+            enc.endText();
+            enc.writeText(b.oExpress[o] ? EXPRESS_NOTE : null);
+            enc.writeEpochDay(b.todayEpochDay + b.oDeliveryDays[o]);
+        }
+        copyIn(COPY_ORDERS_SQL, enc, jdbc);
+        t = metered(ORDERS, t, b.orders);
+
+        // 4. Order items
+        enc.reset();
+        for (int i = 0; i < b.items; i++) {
+            enc.startRow(8);
+            enc.writeLong(b.itemId(i));
+            enc.writeLong(b.orderId(b.iOrderIdx[i]));
+            enc.writeLong(b.iProductId[i]);
+            enc.writeInt(b.iQuantity[i]);
+            enc.writeNumeric(b.iUnitCents[i], 2);
+            enc.writeNumeric(b.iUnitCents[i] * b.iQuantity[i], 2);
+            enc.writeNumeric(b.iDiscountCents[i], 2);
+            enc.writeTimestampEpochMicros(b.nowEpochMicros);
+        }
+        copyIn(COPY_ITEMS_SQL, enc, jdbc);
+        metered(ORDER_ITEMS, t, b.items);
+
+        return b.totalRows();
+    }
+
+    /**
+     * Время таблицы (кодирование + COPY), начатой в {@code startNs};
+     * возвращает начало следующей.
+     */
+    private long metered(String table, long startNs, int rows) {
+        long now = System.nanoTime();
+        metrics.recordWrite(table, now - startNs, rows);
+        return now;
+    }
+
+    /**
+     * Отправляет содержимое энкодера одним COPY на соединении текущей
+     * транзакции (JdbcTemplate берёт его из TransactionSynchronizationManager).
+     */
+    private void copyIn(String copySql, PgBinaryCopyEncoder enc, JdbcTemplate jdbc) {
+        enc.finish();
+        jdbc.execute((ConnectionCallback<Long>) con -> {
+            CopyIn copyIn = con.unwrap(PGConnection.class).getCopyAPI().copyIn(copySql);
+            try {
+                copyIn.writeToCopy(enc.buffer(), 0, enc.size());
+                return copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        });
+    }
+}
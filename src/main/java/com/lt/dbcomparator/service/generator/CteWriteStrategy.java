@@ -0,0 +1,214 @@
+package com.lt.dbcomparator.service.generator;
+
+import com.lt.dbcomparator.dto.WriteMode;
+import com.lt.dbcomparator.service.IdBlockAllocator;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static com.lt.dbcomparator.service.generator.GeneratorDictionaries.*;
+import static com.lt.dbcomparator.service.generator.GeneratorMetrics.*;
+
+/**
+ * Весь граф батча одним запросом (см. {@link #GRAPH_INSERT_SQL}).
+ * <p>
+ * Колонки буфера уходят как есть — примитивными массивами; справочники
+ * передаются text[]-параметрами, строки собираются на стороне БД.
+ * Связи задаются индексами родительских строк, а реальные ID берутся из
+ * nextval внутри запроса — заранее зарезервированные ID не нужны. Тот же
+ * запрос первым делом берёт shared-блокировку
+ * {@link IdBlockAllocator#NEXTVAL_LOCK_SQL}, чтобы nextval не попал внутрь
+ * резервирования блока аллокатором, — батч остаётся одним round-trip.
+ * По таблицам время не разделить: стадия write пишется с {@code table=all}.
+ */
+@Component
+@RequiredArgsConstructor
+public class CteWriteStrategy implements WriteStrategy {
+
+    /**
+     * Вставка графа одним statement.
+     * <p>
+     * id_lock — shared advisory lock резервирования блоков ID; c читает его
+     * в FROM, поэтому ни один nextval не выполнится раньше блокировки
+     * (p / o / i вычисляются через соединение с c).
+     * <p>
+     * c / p / o / i — развёрнутые массивы с назначенными через nextval ID
+     * (MATERIALIZED гарантирует, что nextval вычисляется ровно один раз на
+     * строку). Дочерние строки находят ID родителя по его ordinality
+     * (индекс в буфере + 1). FK-проверки срабатывают в конце statement,
+     * когда все четыре INSERT уже выполнены.
+     */
+    static final String GRAPH_INSERT_SQL = """
+            WITH id_lock AS MATERIALIZED (
+                %s
+            ),
+            params AS (
+                SELECT ?::timestamp AS now_ts, ?::date AS today,
+                       ?::text[] AS first_names, ?::text[] AS last_names, ?::text[] AS statuses,
+                       ?::text[] AS countries, ?::text[] AS languages, ?::text[] AS cities,
+                       ?::text[] AS order_statuses, ?::text[] AS currencies
+            ),
+            c AS MATERIALIZED (
+                SELECT nextval(pg_get_serial_sequence('customers', 'id')) AS id, t.*
+                FROM id_lock, unnest(?::int[], ?::int[], ?::bigint[], ?::int[], ?::int[], ?::int[], ?::int[])
+                     WITH ORDINALITY AS t(first_name_idx, last_name_idx, phone, birth_epoch_day, status_idx,
+                                          loyalty_points, country_idx, ord)
+            ),
+            p AS MATERIALIZED (
+                SELECT nextval(pg_get_serial_sequence('customer_profiles', 'id')) AS id,
+                       c.id AS customer_id, t.*
+                FROM unnest(?::int[], ?::boolean[], ?::int[], ?::int[], ?::int[], ?::int[])
+                     WITH ORDINALITY AS t(language_idx, notifications_enabled, street, apartment, city_idx,
+                                          zip, ord)
+                JOIN c ON c.ord = t.ord
+            ),
+            o AS MATERIALIZED (
+                SELECT nextval(pg_get_serial_sequence('orders', 'id')) AS id,
+                       c.id AS customer_id, t.*
+                FROM unnest(?::int[], ?::int[], ?::int[], ?::bigint[], ?::int[], ?::int[], ?::int[],
+                            ?::boolean[], ?::int[])
+                     WITH ORDINALITY AS t(customer_idx, days_ago, status_idx, total_cents, currency_idx,
+                                          ship_city_idx, ship_street, express, delivery_days, ord)
+                JOIN c ON c.ord = t.customer_idx + 1
+            ),
+            i AS MATERIALIZED (
+                SELECT nextval(pg_get_serial_sequence('order_items', 'id')) AS id,
+                       o.id AS order_id, t.*
+                FROM unnest(?::int[], ?::bigint[], ?::int[], ?::bigint[], ?::bigint[])
+                     WITH ORDINALITY AS t(order_idx, product_id, quantity, unit_cents, discount_cents, ord)
+                JOIN o ON o.ord = t.order_idx + 1
+            ),
+            ins_c AS (
+                INSERT INTO customers (id, first_name, last_name, email, phone, date_of_birth,
+                                       registered_at, status, loyalty_points, country)
+                SELECT c.id, d.first_names[c.first_name_idx + 1], d.last_names[c.last_name_idx + 1],
+                       lower(d.first_names[c.first_name_idx + 1]) || '.'
+                           || lower(d.last_names[c.last_name_idx + 1]) || c.id || '@test.com',
+                       '+7' || c.phone, DATE '1970-01-01' + c.birth_epoch_day, d.now_ts,
+                       d.statuses[c.status_idx + 1], c.loyalty_points, d.countries[c.country_idx + 1]
+                FROM c, params d
+                RETURNING 1
+            ),
+            ins_p AS (
+                INSERT INTO customer_profiles (id, customer_id, avatar_url, bio, preferred_language,
+                                               notifications_enabled, address, city, zip_code)
+                SELECT p.id, p.customer_id,
+                       'https://avatar.example.com/' || p.id || '.png',
+                       'Bio for customer ' || p.customer_id,
+                       d.languages[p.language_idx + 1], p.notifications_enabled,
+                       'Street ' || p.street || ', apt ' || p.apartment,
+                       d.cities[p.city_idx + 1], p.zip::text
+                FROM p, params d
+                RETURNING 1
+            ),
+            ins_o AS (
+                INSERT INTO orders (id, customer_id, order_number, order_date, status, total_amount,
+                                    currency, shipping_address, notes, expected_delivery)
+                SELECT o.id, o.customer_id, 'ORD-' || o.id,
+                       d.now_ts - make_interval(days => o.days_ago),
+                       d.order_statuses[o.status_idx + 1], o.total_cents * 0.01,
+                       d.currencies[o.currency_idx + 1],
+                       d.cities[o.ship_city_idx + 1] || ', Street ' || o.ship_street,
+                       CASE WHEN o.express THEN 'Express delivery' END,
+                       d.today + o.delivery_days
+                FROM o, params d
+                RETURNING 1
+            ),
+            ins_i AS (
+                INSERT INTO order_items (id, order_id, product_id, quantity, unit_price, total_price,
+                                         discount, created_at)
+                SELECT i.id, i.order_id, i.product_id, i.quantity,
+                       i.unit_cents * 0.01, i.unit_cents * i.quantity * 0.01,
+                       i.discount_cents * 0.01, d.now_ts
+                FROM i, params d
+                RETURNING 1
+            )
+            SELECT (SELECT count(*) FROM ins_c) + (SELECT count(*) FROM ins_p)
+                 + (SELECT count(*) FROM ins_o) + (SELECT count(*) FROM ins_i)
+            """.formatted(IdBlockAllocator.NEXTVAL_LOCK_SQL);
+
+    private final GeneratorMetrics metrics;
+
+    @Override
+    public WriteMode mode() {
+        return WriteMode.CTE;
+    }
+
+    @Override
+    public boolean usesPreallocatedIds() {
+        return false;
+    }
+
+    @Override
+    public int write(BatchBuffer b, JdbcTemplate jdbc) {
+        int c = b.customers;
+        int o = b.orders;
+        int n = b.items;
+        long startNs = System.nanoTime();
+        Integer inserted = jdbc.execute((ConnectionCallback<Integer>) con -> {
+            PGConnection pg = con.unwrap(PGConnection.class);
+            try (PreparedStatement ps = con.prepareStatement(GRAPH_INSERT_SQL)) {
+                int p = 1;
+                // params
+                ps.setObject(p++, b.now);
+                ps.setObject(p++, LocalDate.ofEpochDay(b.todayEpochDay));
+                ps.setArray(p++, pg.createArrayOf("text", FIRST_NAMES));
+                ps.setArray(p++, pg.createArrayOf("text", LAST_NAMES));
+                ps.setArray(p++, pg.createArrayOf("text", STATUSES));
+                ps.setArray(p++, pg.createArrayOf("text", COUNTRIES));
+                ps.setArray(p++, pg.createArrayOf("text", LANGUAGES));
+                ps.setArray(p++, pg.createArrayOf("text", CITIES));
+                ps.setArray(p++, pg.createArrayOf("text", ORDER_STATUSES));
+                ps.setArray(p++, pg.createArrayOf("text", CURRENCIES));
+                // c
+                ps.setArray(p++, pg.createArrayOf("int4", Arrays.copyOf(b.cFirstName, c)));
+                ps.setArray(p++, pg.createArrayOf("int4", Arrays.copyOf(b.cLastName, c)));
+                ps.setArray(p++, pg.createArrayOf("int8", Arrays.copyOf(b.cPhone, c)));
+                ps.setArray(p++, pg.createArrayOf("int4", Arrays.copyOf(b.cBirthEpochDay, c)));
+                ps.setArray(p++, pg.createArrayOf("int4", Arrays.copyOf(b.cStatus, c)));
+                ps.setArray(p++, pg.createArrayOf("int4", Arrays.copyOf(b.cLoyalty, c)));
+                ps.setArray(p++, pg.createArrayOf("int4", Arrays.copyOf(b.cCountry, c)));
+                // p
+                ps.setArray(p++, pg.createArrayOf("int4", Arrays.copyOf(b.pLanguage, c)));
+                ps.setArray(p++, pg.createArrayOf("bool", Arrays.copyOf(b.pNotifications, c)));
+                ps.setArray(p++, pg.createArrayOf("int4", Arrays.copyOf(b.pStreet, c)));
+                ps.setArray(p++, pg.createArrayOf("int4", Arrays.copyOf(b.pApartment, c)));
+                ps.setArray(p++, pg.createArrayOf("int4", Arrays.copyOf(b.pCity, c)));
+                ps.setArray(p++, pg.createArrayOf("int4", Arrays.copyOf(b.pZip, c)));
+                // o
+                ps.setArray(p++, pg.createArrayOf("int4", Arrays.copyOf(b.oCustomerIdx, o)));
+                ps.setArray(p++, pg.createArrayOf("int4", Arrays.copyOf(b.oDaysAgo, o)));
+                ps.setArray(p++, pg.createArrayOf("int4", Arrays.copyOf(b.oStatus, o)));
+                ps.setArray(p++, pg.createArrayOf("int8", Arrays.copyOf(b.oTotalCents, o)));
+                ps.setArray(p++, pg.createArrayOf("int4", Arrays.copyOf(b.oCurrency, o)));
+                ps.setArray(p++, pg.createArrayOf("int4", Arrays.copyOf(b.oShipCity, o)));
+                ps.setArray(p++, pg.createArrayOf("int4", Arrays.copyOf(b.oShipStreet, o)));
+                ps.setArray(p++, pg.createArrayOf("bool", Arrays.copyOf(b.oExpress, o)));
+                ps.setArray(p++, pg.createArrayOf("int4", Arrays.copyOf(b.oDeliveryDays, o)));
+                // i
+                ps.setArray(p++, pg.createArrayOf("int4", Arrays.copyOf(b.iOrderIdx, n)));
+                ps.setArray(p++, pg.createArrayOf("int8", Arrays.copyOf(b.iProductId, n)));
+                ps.setArray(p++, pg.createArrayOf("int4", Arrays.copyOf(b.iQuantity, n)));
+                ps.setArray(p++, pg.createArrayOf("int8", Arrays.copyOf(b.iUnitCents, n)));
+                ps.setArray(p, pg.createArrayOf("int8", Arrays.copyOf(b.iDiscountCents, n)));
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    return rs.getInt(1);
+                }
+            }
+        });
+        metrics.recordStage(GeneratorMetrics.Stage.WRITE, ALL_TABLES, System.nanoTime() - startNs);
+        metrics.recordRows(CUSTOMERS, c);
+        metrics.recordRows(CUSTOMER_PROFILES, c);
+        metrics.recordRows(ORDERS, o);
+        metrics.recordRows(ORDER_ITEMS, n);
+        return inserted != null ? inserted : 0;
+    }
+}
@@ -0,0 +1,48 @@
+package com.lt.dbcomparator.service.generator;
+
+import java.util.Arrays;
+
+/**
+ * Справочные данные для генерации.
+ * <p>
+ * В {@link BatchBuffer} строковые колонки хранятся индексами в этих массивах —
+ * сами строки подставляются только в момент записи.
+ */
+public final class GeneratorDictionaries {
+
+    public static final String[] FIRST_NAMES = {
+            "Alexander", "Maria", "Dmitry", "Elena", "Sergey",
+            "Anna", "Ivan", "Olga", "Andrey", "Natalia",
+            "Mikhail", "Tatiana", "Pavel", "Ekaterina", "Viktor"
+    };
+    public static final String[] LAST_NAMES = {
+            "Ivanov", "Petrov", "Sidorov", "Kozlov", "Novikov",
+            "Morozov", "Volkov", "Sokolov", "Lebedev", "Popov"
+    };
+    public static final String[] COUNTRIES = { "RU", "US", "DE", "FR", "GB", "JP", "CN", "BR", "IN", "KR" };
+    public static final String[] CITIES = {
+            "Moscow", "London", "Berlin", "Paris", "Tokyo",
+            "New York", "Shanghai", "Sao Paulo", "Mumbai", "Seoul"
+    };
+    public static final String[] STATUSES = { "ACTIVE", "INACTIVE", "BLOCKED" };
+    public static final String[] ORDER_STATUSES = { "NEW", "PROCESSING", "SHIPPED", "DELIVERED", "CANCELLED" };
+    public static final String[] CURRENCIES = { "RUB", "USD", "EUR" };
+    public static final String[] CATEGORIES = {
+            "Electronics", "Books", "Clothing", "Food", "Sports",
+            "Home", "Beauty", "Toys", "Auto", "Garden"
+    };
+    public static final String[] LANGUAGES = { "ru", "en", "de", "fr", "ja" };
+
+    // Для email: имя/фамилия в нижнем регистре, чтобы не вызывать toLowerCase() на строку
+    public static final String[] FIRST_NAMES_LOWER = lower(FIRST_NAMES);
+    public static final String[] LAST_NAMES_LOWER = lower(LAST_NAMES);
+
+    public static final String EXPRESS_NOTE = "Express delivery";
+
+    private GeneratorDictionaries() {
+    }
+
+    private static String[] lower(String[] values) {
+        return Arrays.stream(values).map(String::toLowerCase).toArray(String[]::new);
+    }
+}
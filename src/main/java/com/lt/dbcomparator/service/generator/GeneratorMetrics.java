@@ -0,0 +1,161 @@
+package com.lt.dbcomparator.service.generator;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Разбивка времени батча по стадиям и таблицам.
+ * <p>
+ * {@code generator.batch.stage{stage, table}}:
+ * <ul>
+ * <li>{@code id_allocation} — резервирование диапазона ID для таблицы;</li>
+ * <li>{@code write} — запись строк таблицы (INSERT / COPY); в режиме CTE весь
+ * граф пишется одним запросом — {@code table=all};</li>
+ * <li>{@code commit} — commit транзакции батча, {@code table=all}.</li>
+ * </ul>
+ * Плюс счётчики строк {@code generator.table.rows{table}} и средняя скорость
+ * записи за прогон {@code generator.table.rows.per.second{table}}.
+ * <p>
+ * Для истории прогонов те же стадии пишутся в HdrHistogram текущего прогона
+ * (сбрасываются в {@link #startRun()}) — см. {@link #stagePercentiles()}.
+ */
+@Component
+public class GeneratorMetrics {
+
+    public static final String CUSTOMERS = "customers";
+    public static final String CUSTOMER_PROFILES = "customer_profiles";
+    public static final String ORDERS = "orders";
+    public static final String ORDER_ITEMS = "order_items";
+    public static final String ALL_TABLES = "all";
+
+    public static final List<String> TABLES = List.of(CUSTOMERS, CUSTOMER_PROFILES, ORDERS, ORDER_ITEMS);
+
+    public enum Stage {
+        ID_ALLOCATION, WRITE, COMMIT;
+
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    private final Map<Stage, Map<String, Timer>> timers = new EnumMap<>(Stage.class);
+    // Время стадий текущего прогона (мкс) — Timer накапливает за всё время жизни приложения
+    private final Map<Stage, Map<String, Histogram>> runHistograms = new EnumMap<>(Stage.class);
+    private final Map<String, Counter> rowCounters = new HashMap<>();
+    private final Map<String, AtomicLong> runRows = new HashMap<>();
+    private volatile long runStartedAtNanos;
+    private volatile long runStoppedAtNanos;
+
+    public GeneratorMetrics(MeterRegistry meterRegistry) {
+        for (Stage stage : Stage.values()) {
+            for (String table : TABLES) {
+                register(meterRegistry, stage, table);
+            }
+            register(meterRegistry, stage, ALL_TABLES);
+        }
+        for (String table : TABLES) {
+            rowCounters.put(table, Counter.builder("generator.table.rows")
+                    .description("Строк записано генератором в таблицу")
+                    .tag("table", table)
+                    .register(meterRegistry));
+            runRows.put(table, new AtomicLong());
+            Gauge.builder("generator.table.rows.per.second", this, m -> m.rowsPerSecond(table))
+                    .description("Средняя скорость записи в таблицу за прогон (строк/сек)")
+                    .tag("table", table)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Начало прогона — обнуляет счётчики, по которым считается rows/s.
+     */
+    public void startRun() {
+        runRows.values().forEach(rows -> rows.set(0));
+        runHistograms.values().forEach(byTable -> byTable.values().forEach(Histogram::reset));
+        runStartedAtNanos = System.nanoTime();
+        runStoppedAtNanos = 0;
+    }
+
+    public void stopRun() {
+        runStoppedAtNanos = System.nanoTime();
+    }
+
+    public void recordStage(Stage stage, String table, long nanos) {
+        timers.get(stage).get(table).record(nanos, TimeUnit.NANOSECONDS);
+        runHistograms.get(stage).get(table).recordValue(Math.max(0, nanos / 1_000));
+    }
+
+    /**
+     * Запись строк одной таблицы: время стадии write + счётчики строк.
+     */
+    public void recordWrite(String table, long nanos, int rows) {
+        recordStage(Stage.WRITE, table, nanos);
+        recordRows(table, rows);
+    }
+
+    public void recordRows(String table, int rows) {
+        rowCounters.get(table).increment(rows);
+        runRows.get(table).addAndGet(rows);
+    }
+
+    /**
+     * Средняя скорость записи в таблицу за текущий/последний прогон.
+     */
+    public double rowsPerSecond(String table) {
+        long started = runStartedAtNanos;
+        if (started == 0)
+            return 0;
+        long end = runStoppedAtNanos != 0 ? runStoppedAtNanos : System.nanoTime();
+        long elapsedNs = end - started;
+        return elapsedNs > 0 ? runRows.get(table).get() * 1e9 / elapsedNs : 0;
+    }
+
+    /**
+     * Перцентили стадий за текущий/последний прогон: ключ —
+     * {@code stage.table}, например {@code write.order_items}. Стадии без
+     * замеров (CTE не пишет по таблицам) не попадают.
+     */
+    public Map<String, StageLatency> stagePercentiles() {
+        Map<String, StageLatency> result = new LinkedHashMap<>();
+        for (Stage stage : Stage.values()) {
+            runHistograms.get(stage).forEach((table, h) -> {
+                Histogram copy = h.copy();
+                if (copy.getTotalCount() > 0) {
+                    result.put(stage.tag() + "." + table, new StageLatency(copy.getTotalCount(),
+                            copy.getValueAtPercentile(50.0) / 1000.0,
+                            copy.getValueAtPercentile(99.0) / 1000.0,
+                            copy.getMaxValue() / 1000.0));
+                }
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Время стадии за прогон, мс.
+     */
+    public record StageLatency(long count, double p50Ms, double p99Ms, double maxMs) {
+    }
+
+    private void register(MeterRegistry meterRegistry, Stage stage, String table) {
+        timers.computeIfAbsent(stage, s -> new HashMap<>()).put(table, Timer.builder("generator.batch.stage")
+                .description("Время стадии батча: резервирование ID, запись таблицы, commit")
+                .tag("stage", stage.tag())
+                .tag("table", table)
+                .register(meterRegistry));
+        runHistograms.computeIfAbsent(stage, s -> new LinkedHashMap<>()).put(table, new ConcurrentHistogram(3));
+    }
+}
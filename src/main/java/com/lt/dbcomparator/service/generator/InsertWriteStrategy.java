@@ -0,0 +1,180 @@
+package com.lt.dbcomparator.service.generator;
+
+import com.lt.dbcomparator.dto.WriteMode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+import static com.lt.dbcomparator.service.generator.GeneratorDictionaries.*;
+import static com.lt.dbcomparator.service.generator.GeneratorMetrics.*;
+
+/**
+ * INSERT ... VALUES через JdbcTemplate.batchUpdate — по одному батчу
+ * statement'ов на таблицу. Значения берутся из колонок буфера по индексу
+ * строки; строки и BigDecimal создаются только в момент bind. Время каждой
+ * таблицы пишется в {@link GeneratorMetrics}.
+ */
+@Component
+@RequiredArgsConstructor
+public class InsertWriteStrategy implements WriteStrategy {
+
+    static final String INSERT_CUSTOMER_SQL = "INSERT INTO customers (id, first_name, last_name, email, phone, " +
+            "date_of_birth, registered_at, status, loyalty_points, country) VALUES (?,?,?,?,?,?,?,?,?,?)";
+    static final String INSERT_PROFILE_SQL = "INSERT INTO customer_profiles (id, customer_id, avatar_url, bio, " +
+            "preferred_language, notifications_enabled, address, city, zip_code) VALUES (?,?,?,?,?,?,?,?,?)";
+    static final String INSERT_ORDER_SQL = "INSERT INTO orders (id, customer_id, order_number, order_date, status, " +
+            "total_amount, currency, shipping_address, notes, expected_delivery) VALUES (?,?,?,?,?,?,?,?,?,?)";
+    static final String INSERT_ITEM_SQL = "INSERT INTO order_items (id, order_id, product_id, quantity, " +
+            "unit_price, total_price, discount, created_at) VALUES (?,?,?,?,?,?,?,?)";
+
+    private final GeneratorMetrics metrics;
+
+    @Override
+    public WriteMode mode() {
+        return WriteMode.INSERT;
+    }
+
+    @Override
+    public int write(BatchBuffer b, JdbcTemplate jdbc) {
+        Timestamp nowTs = Timestamp.valueOf(b.now);
+
+        // 1. Customers
+        long t = System.nanoTime();
+        jdbc.batchUpdate(INSERT_CUSTOMER_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int c) throws SQLException {
+                bindCustomer(ps, 0, b, c, nowTs);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return b.customers;
+            }
+        });
+
+        t = metered(CUSTOMERS, t, b.customers);
+
+        // 2. Profiles (1:1 с customer)
+        jdbc.batchUpdate(INSERT_PROFILE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int c) throws SQLException {
+                bindProfile(ps, 0, b, c);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return b.customers;
+            }
+        });
+
+        t = metered(CUSTOMER_PROFILES, t, b.customers);
+
+        // 3. Orders
+        jdbc.batchUpdate(INSERT_ORDER_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int o) throws SQLException {
+                bindOrder(ps, 0, b, o);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return b.orders;
+            }
+        });
+
+        t = metered(ORDERS, t, b.orders);
+
+        // 4. Order items
+        jdbc.batchUpdate(INSERT_ITEM_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                bindItem(ps, 0, b, i, nowTs);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return b.items;
+            }
+        });
+
+        metered(ORDER_ITEMS, t, b.items);
+
+        return b.totalRows();
+    }
+
+    /**
+     * Записывает время таблицы, начатой в {@code startNs}, и возвращает
+     * начало следующей.
+     */
+    private long metered(String table, long startNs, int rows) {
+        long now = System.nanoTime();
+        metrics.recordWrite(table, now - startNs, rows);
+        return now;
+    }
+
+    // ═══════════════════════════════════════════
+    // Bind строки буфера в PreparedStatement
+    // ═══════════════════════════════════════════
+
+    // base — сколько параметров statement уже занято: 0 для однострочного
+    // INSERT, номер строки × кол-во колонок для многострочного VALUES
+    static void bindCustomer(PreparedStatement ps, int base, BatchBuffer b, int c, Timestamp nowTs) throws SQLException {
+        long custId = b.customerId(c);
+        ps.setLong(base + 1, custId);
+        ps.setString(base + 2, FIRST_NAMES[b.cFirstName[c]]);
+        ps.setString(base + 3, LAST_NAMES[b.cLastName[c]]);
+        ps.setString(base + 4, FIRST_NAMES_LOWER[b.cFirstName[c]] + "." + LAST_NAMES_LOWER[b.cLastName[c]]
+                + custId + "@test.com");
+        ps.setString(base + 5, "+7" + b.cPhone[c]);
+        ps.setObject(base + 6, LocalDate.ofEpochDay(b.cBirthEpochDay[c]));
+        ps.setTimestamp(base + 7, nowTs);
+        ps.setString(base + 8, STATUSES[b.cStatus[c]]);
+        ps.setInt(base + 9, b.cLoyalty[c]);
+        ps.setString(base + 10, COUNTRIES[b.cCountry[c]]);
+    }
+
+    static void bindProfile(PreparedStatement ps, int base, BatchBuffer b, int c) throws SQLException {
+        long profId = b.profileId(c);
+        ps.setLong(base + 1, profId);
+        ps.setLong(base + 2, b.customerId(c));
+        ps.setString(base + 3, "https://avatar.example.com/" + profId + ".png");
+        ps.setString(base + 4, "Bio for customer " + b.customerId(c));
+        ps.setString(base + 5, LANGUAGES[b.pLanguage[c]]);
+        ps.setBoolean(base + 6, b.pNotifications[c]);
+        ps.setString(base + 7, "Street " + b.pStreet[c] + ", apt " + b.pApartment[c]);
+        ps.setString(base + 8, CITIES[b.pCity[c]]);
+        ps.setString(base + 9, String.valueOf(b.pZip[c]));
+    }
+
+    static void bindOrder(PreparedStatement ps, int base, BatchBuffer b, int o) throws SQLException {
+        long ordId = b.orderId(o);
+        ps.setLong(base + 1, ordId);
+        ps.setLong(base + 2, b.customerId(b.oCustomerIdx[o]));
+        ps.setString(base + 3, "ORD-" + ordId);
+        ps.setTimestamp(base + 4, Timestamp.valueOf(b.now.minusDays(b.oDaysAgo[o])));
+        ps.setString(base + 5, ORDER_STATUSES[b.oStatus[o]]);
+        ps.setBigDecimal(base + 6, BigDecimal.valueOf(b.oTotalCents[o], 2));
+        ps.setString(base + 7, CURRENCIES[b.oCurrency[o]]);
+        ps.setString(base + 8, CITIES[b.oShipCity[o]] + ", Street " + b.oShipStreet[o]);
+        ps.setString(base + 9, b.oExpress[o] ? EXPRESS_NOTE : null);
+        ps.setObject(base + 10, LocalDate.ofEpochDay(b.todayEpochDay + b.oDeliveryDays[o]));
+    }
+
+    static void bindItem(PreparedStatement ps, int base, BatchBuffer b, int i, Timestamp nowTs) throws SQLException {
+        ps.setLong(base + 1, b.itemId(i));
+        ps.setLong(base + 2, b.orderId(b.iOrderIdx[i]));
+        ps.setLong(base + 3, b.iProductId[i]);
+        ps.setInt(base + 4, b.iQuantity[i]);
+        ps.setBigDecimal(base + 5, BigDecimal.valueOf(b.iUnitCents[i], 2));
+        ps.setBigDecimal(base + 6, BigDecimal.valueOf(b.iUnitCents[i] * b.iQuantity[i], 2));
+        ps.setBigDecimal(base + 7, BigDecimal.valueOf(b.iDiscountCents[i], 2));
+        ps.setTimestamp(base + 8, nowTs);
+    }
+}
@@ -0,0 +1,163 @@
+package com.lt.dbcomparator.service.generator;
+
+import com.lt.dbcomparator.dto.WriteMode;
+import com.lt.dbcomparator.entity.Customer;
+import com.lt.dbcomparator.entity.CustomerProfile;
+import com.lt.dbcomparator.entity.Order;
+import com.lt.dbcomparator.entity.OrderItem;
+import com.lt.dbcomparator.entity.Product;
+import com.lt.dbcomparator.service.IdBlockAllocator;
+import com.lt.dbcomparator.service.target.WriterJpa;
+import jakarta.persistence.EntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static com.lt.dbcomparator.service.generator.GeneratorDictionaries.*;
+import static com.lt.dbcomparator.service.generator.GeneratorMetrics.*;
+
+/**
+ * Запись через JPA/Hibernate — тот же путь, что у сервисов на сущностях
+ * {@code entity}: граф Customer → Profile / Orders → Items собирается из
+ * буфера и сохраняется одним {@code persist} на клиента (каскады
+ * {@code CascadeType.ALL}), затем flush и очистка persistence context.
+ * <p>
+ * У сущностей {@code GenerationType.IDENTITY}: Hibernate должен получить ID
+ * каждой строки сразу после INSERT, поэтому выполняет их по одному, и
+ * {@code hibernate.jdbc.batch_size} / {@code order_inserts} на этот путь не
+ * действуют — именно эту цену ORM и меряет режим. Заранее
+ * зарезервированные ID не используются; IDENTITY берёт их через nextval,
+ * поэтому батч сначала берёт shared-блокировку
+ * {@link IdBlockAllocator#NEXTVAL_LOCK_SQL}.
+ * <p>
+ * Email и номер заказа не могут включать ID (он известен только после
+ * INSERT): email строится из телефона, номер заказа — из UUID.
+ * Продукты подставляются ссылками ({@code getReference}) без SELECT.
+ * <p>
+ * Пишет только в основную БД, через EntityManager пула {@code writer}
+ * ({@link WriterJpa}) в транзакции его {@code target()}; переданный
+ * JdbcTemplate не используется. По таблицам время не разделить — стадия
+ * write пишется с {@code table=all}.
+ */
+@Component
+public class JpaWriteStrategy implements WriteStrategy {
+
+    private final GeneratorMetrics metrics;
+    private final EntityManager entityManager;
+
+    public JpaWriteStrategy(GeneratorMetrics metrics, WriterJpa writerJpa) {
+        this.metrics = metrics;
+        this.entityManager = writerJpa.entityManager();
+    }
+
+    @Override
+    public WriteMode mode() {
+        return WriteMode.JPA;
+    }
+
+    @Override
+    public boolean usesPreallocatedIds() {
+        return false;
+    }
+
+    @Override
+    public int write(BatchBuffer b, JdbcTemplate jdbc) {
+        long startNs = System.nanoTime();
+
+        Customer[] customers = new Customer[b.customers];
+        for (int c = 0; c < b.customers; c++) {
+            Customer customer = toCustomer(b, c);
+            CustomerProfile profile = toProfile(b, c);
+            profile.setCustomer(customer);
+            customer.setProfile(profile);
+            customers[c] = customer;
+        }
+        Order[] orders = new Order[b.orders];
+        for (int o = 0; o < b.orders; o++) {
+            Order order = toOrder(b, o);
+            Customer customer = customers[b.oCustomerIdx[o]];
+            order.setCustomer(customer);
+            customer.getOrders().add(order);
+            orders[o] = order;
+        }
+        for (int i = 0; i < b.items; i++) {
+            OrderItem item = toItem(b, i);
+            Order order = orders[b.iOrderIdx[i]];
+            item.setOrder(order);
+            order.getItems().add(item);
+        }
+
+        // До первого INSERT: nextval не должен попасть внутрь резервирования блока ID
+        entityManager.createNativeQuery(IdBlockAllocator.NEXTVAL_LOCK_SQL).getSingleResult();
+        for (Customer customer : customers) {
+            entityManager.persist(customer);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        metrics.recordStage(GeneratorMetrics.Stage.WRITE, ALL_TABLES, System.nanoTime() - startNs);
+        metrics.recordRows(CUSTOMERS, b.customers);
+        metrics.recordRows(CUSTOMER_PROFILES, b.customers);
+        metrics.recordRows(ORDERS, b.orders);
+        metrics.recordRows(ORDER_ITEMS, b.items);
+        return b.totalRows();
+    }
+
+    // ═══════════════════════════════════════════
+    // Строка буфера → сущность
+    // ═══════════════════════════════════════════
+
+    private static Customer toCustomer(BatchBuffer b, int c) {
+        return Customer.builder()
+                .firstName(FIRST_NAMES[b.cFirstName[c]])
+                .lastName(LAST_NAMES[b.cLastName[c]])
+                .email(FIRST_NAMES_LOWER[b.cFirstName[c]] + "." + LAST_NAMES_LOWER[b.cLastName[c]]
+                        + b.cPhone[c] + "@test.com")
+                .phone("+7" + b.cPhone[c])
+                .dateOfBirth(LocalDate.ofEpochDay(b.cBirthEpochDay[c]))
+                .registeredAt(b.now)
+                .status(STATUSES[b.cStatus[c]])
+                .loyaltyPoints(b.cLoyalty[c])
+                .country(COUNTRIES[b.cCountry[c]])
+                .build();
+    }
+
+    private static CustomerProfile toProfile(BatchBuffer b, int c) {
+        return CustomerProfile.builder()
+                .avatarUrl("https://avatar.example.com/" + b.cPhone[c] + ".png")
+                .bio("Bio for customer +7" + b.cPhone[c])
+                .preferredLanguage(LANGUAGES[b.pLanguage[c]])
+                .notificationsEnabled(b.pNotifications[c])
+                .address("Street " + b.pStreet[c] + ", apt " + b.pApartment[c])
+                .city(CITIES[b.pCity[c]])
+                .zipCode(String.valueOf(b.pZip[c]))
+                .build();
+    }
+
+    private static Order toOrder(BatchBuffer b, int o) {
+        return Order.builder()
+                .orderNumber("ORD-" + UUID.randomUUID())
+                .orderDate(b.now.minusDays(b.oDaysAgo[o]))
+                .status(ORDER_STATUSES[b.oStatus[o]])
+                .totalAmount(BigDecimal.valueOf(b.oTotalCents[o], 2))
+                .currency(CURRENCIES[b.oCurrency[o]])
+                .shippingAddress(CITIES[b.oShipCity[o]] + ", Street " + b.oShipStreet[o])
+                .notes(b.oExpress[o] ? EXPRESS_NOTE : null)
+                .expectedDelivery(LocalDate.ofEpochDay(b.todayEpochDay + b.oDeliveryDays[o]))
+                .build();
+    }
+
+    private OrderItem toItem(BatchBuffer b, int i) {
+        return OrderItem.builder()
+                .product(entityManager.getReference(Product.class, b.iProductId[i]))
+                .quantity(b.iQuantity[i])
+                .unitPrice(BigDecimal.valueOf(b.iUnitCents[i], 2))
+                .totalPrice(BigDecimal.valueOf(b.iUnitCents[i] * b.iQuantity[i], 2))
+                .discount(BigDecimal.valueOf(b.iDiscountCents[i], 2))
+                .createdAt(b.now)
+                .build();
+    }
+}
@@ -0,0 +1,196 @@
+package com.lt.dbcomparator.service.generator;
+
+import com.lt.dbcomparator.dto.LoadPhase;
+import com.lt.dbcomparator.dto.LoadRequest;
+import com.lt.dbcomparator.dto.RateShape;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Темп и размер батча генератора как функции времени от старта прогона.
+ * <p>
+ * Без профиля — постоянный {@code batchesPerSecond} и {@code batchSize}
+ * запроса. С профилем фазы идут по очереди, темп внутри фазы задаёт её
+ * {@link RateShape}; после последней фазы темп 0 и прогон заканчивается
+ * ({@link #totalNanos()}). Плановые времена батчей по этому темпу считает
+ * {@link RateController}.
+ */
+public final class LoadSchedule {
+
+    private static final int DEFAULT_STEPS = 4;
+    private static final int DEFAULT_SPIKE_SECONDS = 10;
+
+    private final double constantRate;
+    private final int defaultBatchSize;
+    // null — без профиля
+    private final List<LoadPhase> phases;
+    private final long[] phaseEndNanos;
+
+    private LoadSchedule(double constantRate, int defaultBatchSize, List<LoadPhase> phases) {
+        this.constantRate = constantRate;
+        this.defaultBatchSize = defaultBatchSize;
+        this.phases = phases;
+        this.phaseEndNanos = new long[phases != null ? phases.size() : 0];
+        long end = 0;
+        for (int i = 0; i < phaseEndNanos.length; i++) {
+            end += TimeUnit.SECONDS.toNanos(phases.get(i).getDurationSeconds());
+            phaseEndNanos[i] = end;
+        }
+    }
+
+    /**
+     * Расписание по уже проверенному и нормализованному запросу.
+     */
+    public static LoadSchedule of(LoadRequest request) {
+        return new LoadSchedule(request.getBatchesPerSecond(), request.getBatchSize(),
+                request.getProfile() != null ? List.copyOf(request.getProfile()) : null);
+    }
+
+    public boolean isProfiled() {
+        return phases != null;
+    }
+
+    /**
+     * Длительность профиля; 0 — без профиля (не ограничена).
+     */
+    public long totalNanos() {
+        return phaseEndNanos.length > 0 ? phaseEndNanos[phaseEndNanos.length - 1] : 0;
+    }
+
+    /**
+     * Номер фазы в момент {@code elapsedNanos} от старта; после конца
+     * профиля — последняя фаза, без профиля — -1.
+     */
+    public int phaseAt(long elapsedNanos) {
+        if (phases == null)
+            return -1;
+        for (int i = 0; i < phaseEndNanos.length; i++) {
+            if (elapsedNanos < phaseEndNanos[i])
+                return i;
+        }
+        return phaseEndNanos.length - 1;
+    }
+
+    public String phaseName(int index) {
+        return index >= 0 ? phases.get(index).getName() : null;
+    }
+
+    /**
+     * Целевой темп, батчей/сек.
+     */
+    public double rateAt(long elapsedNanos) {
+        if (phases == null)
+            return constantRate;
+        if (elapsedNanos >= totalNanos())
+            return 0;
+        int i = phaseAt(elapsedNanos);
+        long phaseStart = i > 0 ? phaseEndNanos[i - 1] : 0;
+        return rate(phases.get(i), (elapsedNanos - phaseStart) / 1e9);
+    }
+
+    public int batchSizeAt(long elapsedNanos) {
+        int i = phaseAt(elapsedNanos);
+        return i >= 0 ? phases.get(i).getBatchSize() : defaultBatchSize;
+    }
+
+    /**
+     * Наибольший темп каждой фазы и её размер батча — для проверки
+     * реалистичности запроса. Без профиля — один элемент.
+     */
+    public List<Peak> peaks() {
+        if (phases == null)
+            return List.of(new Peak(null, constantRate, defaultBatchSize));
+        List<Peak> result = new ArrayList<>(phases.size());
+        for (LoadPhase p : phases) {
+            double peak = p.getShape() == RateShape.CONSTANT ? p.getRate() : Math.max(p.getRate(), p.getPeakRate());
+            result.add(new Peak(p.getName(), peak, p.getBatchSize()));
+        }
+        return result;
+    }
+
+    /**
+     * @param phase имя фазы; null — без профиля
+     */
+    public record Peak(String phase, double batchesPerSecond, int batchSize) {
+    }
+
+    /**
+     * Темп фазы через {@code t} секунд от её начала.
+     */
+    static double rate(LoadPhase p, double t) {
+        double base = p.getRate();
+        double delta = p.getPeakRate() - base;
+        double duration = p.getDurationSeconds();
+        return switch (p.getShape()) {
+            case CONSTANT -> base;
+            case RAMP -> base + delta * Math.min(1.0, t / duration);
+            case STEP -> {
+                int stair = Math.min(p.getSteps() - 1, (int) (t / duration * p.getSteps()));
+                yield base + delta * stair / (p.getSteps() - 1);
+            }
+            case SPIKE -> t >= p.getSpikeAtSeconds() && t < p.getSpikeAtSeconds() + p.getSpikeSeconds()
+                    ? p.getPeakRate()
+                    : base;
+            case SINE -> base + delta * (1 - Math.cos(2 * Math.PI * t / p.getPeriodSeconds())) / 2;
+        };
+    }
+
+    // ═══════════════════════════════════════════
+    // Проверка и нормализация профиля
+    // ═══════════════════════════════════════════
+
+    public static void validate(List<LoadPhase> profile) {
+        if (profile.isEmpty())
+            throw new IllegalArgumentException("profile не должен быть пустым");
+        boolean anyRate = false;
+        for (int i = 0; i < profile.size(); i++) {
+            LoadPhase p = profile.get(i);
+            if (p == null)
+                throw new IllegalArgumentException("profile[" + i + "] не задана");
+            String at = "profile[" + i + "].";
+            if (p.getDurationSeconds() <= 0)
+                throw new IllegalArgumentException(at + "durationSeconds должен быть > 0");
+            if (p.getRate() < 0 || p.getPeakRate() < 0)
+                throw new IllegalArgumentException(at + "rate и peakRate должны быть >= 0");
+            if (p.getSteps() < 0 || p.getSteps() == 1)
+                throw new IllegalArgumentException(at + "steps должен быть >= 2 (0 = " + DEFAULT_STEPS + ")");
+            if (p.getSpikeAtSeconds() < 0 || p.getSpikeSeconds() < 0 || p.getPeriodSeconds() < 0)
+                throw new IllegalArgumentException(at + "spikeAtSeconds, spikeSeconds, periodSeconds должны быть >= 0");
+            if (p.getBatchSize() < 0)
+                throw new IllegalArgumentException(at + "batchSize должен быть >= 0 (0 = batchSize запроса)");
+            anyRate |= p.getRate() > 0 || p.getShape() != null && p.getShape() != RateShape.CONSTANT && p.getPeakRate() > 0;
+        }
+        if (!anyRate)
+            throw new IllegalArgumentException("profile: во всех фазах темп 0 — нечего генерировать");
+    }
+
+    /**
+     * Подставляет значения по умолчанию в фазы — в статусе и истории видны
+     * фактические параметры.
+     */
+    public static void normalize(List<LoadPhase> profile, int defaultBatchSize) {
+        for (int i = 0; i < profile.size(); i++) {
+            LoadPhase p = profile.get(i);
+            if (p.getName() == null || p.getName().isBlank()) {
+                p.setName("phase-" + (i + 1));
+            }
+            if (p.getShape() == null) {
+                p.setShape(RateShape.CONSTANT);
+            }
+            if (p.getShape() == RateShape.STEP && p.getSteps() == 0) {
+                p.setSteps(DEFAULT_STEPS);
+            }
+            if (p.getShape() == RateShape.SPIKE && p.getSpikeSeconds() == 0) {
+                p.setSpikeSeconds(DEFAULT_SPIKE_SECONDS);
+            }
+            if (p.getShape() == RateShape.SINE && p.getPeriodSeconds() == 0) {
+                p.setPeriodSeconds(p.getDurationSeconds());
+            }
+            if (p.getBatchSize() == 0) {
+                p.setBatchSize(defaultBatchSize);
+            }
+        }
+    }
+}
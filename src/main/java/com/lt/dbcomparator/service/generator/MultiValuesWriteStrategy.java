@@ -0,0 +1,138 @@
+package com.lt.dbcomparator.service.generator;
+
+import com.lt.dbcomparator.dto.WriteMode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+import static com.lt.dbcomparator.service.generator.GeneratorMetrics.*;
+import static com.lt.dbcomparator.service.generator.InsertWriteStrategy.*;
+
+/**
+ * Многострочный INSERT ... VALUES (...), (...), ... — та же перезапись
+ * batch'а, что делает pgjdbc с {@code reWriteBatchedInserts=true}.
+ * <p>
+ * Флаг драйвера задаётся на соединение при подключении и действует на весь
+ * пул, поэтому здесь перезапись выполняется явно и выбирается на прогон:
+ * строки таблицы режутся на statement'ы по {@value #MAX_ROWS_PER_STATEMENT}
+ * строк (полные уходят одним JDBC batch'ем), хвост — степенями двойки, как у
+ * драйвера. Текст SQL для каждого размера готовится один раз, так что
+ * серверные prepared statements переиспользуются между батчами.
+ * <p>
+ * Bind — те же методы, что у {@link InsertWriteStrategy}, со сдвигом
+ * номера параметра; время каждой таблицы пишется в {@link GeneratorMetrics}.
+ */
+@Component
+@RequiredArgsConstructor
+public class MultiValuesWriteStrategy implements WriteStrategy {
+
+    // Предел pgjdbc для перезаписи batch'а
+    static final int MAX_ROWS_PER_STATEMENT = 128;
+
+    private static final int SIZES = Integer.numberOfTrailingZeros(MAX_ROWS_PER_STATEMENT) + 1;
+
+    private static final String[] CUSTOMER_SQL = multiValues(INSERT_CUSTOMER_SQL, 10);
+    private static final String[] PROFILE_SQL = multiValues(INSERT_PROFILE_SQL, 9);
+    private static final String[] ORDER_SQL = multiValues(INSERT_ORDER_SQL, 10);
+    private static final String[] ITEM_SQL = multiValues(INSERT_ITEM_SQL, 8);
+
+    private final GeneratorMetrics metrics;
+
+    @FunctionalInterface
+    private interface RowBinder {
+        void bind(PreparedStatement ps, int base, int row) throws SQLException;
+    }
+
+    @Override
+    public WriteMode mode() {
+        return WriteMode.MULTI_VALUES;
+    }
+
+    @Override
+    public int write(BatchBuffer b, JdbcTemplate jdbc) {
+        Timestamp nowTs = Timestamp.valueOf(b.now);
+        jdbc.execute((ConnectionCallback<Void>) con -> {
+            long t = System.nanoTime();
+            insertRows(con, CUSTOMER_SQL, 10, b.customers, (ps, base, c) -> bindCustomer(ps, base, b, c, nowTs));
+            t = metered(CUSTOMERS, t, b.customers);
+            insertRows(con, PROFILE_SQL, 9, b.customers, (ps, base, c) -> bindProfile(ps, base, b, c));
+            t = metered(CUSTOMER_PROFILES, t, b.customers);
+            insertRows(con, ORDER_SQL, 10, b.orders, (ps, base, o) -> bindOrder(ps, base, b, o));
+            t = metered(ORDERS, t, b.orders);
+            insertRows(con, ITEM_SQL, 8, b.items, (ps, base, i) -> bindItem(ps, base, b, i, nowTs));
+            metered(ORDER_ITEMS, t, b.items);
+            return null;
+        });
+        return b.totalRows();
+    }
+
+    /**
+     * Строки [0, rows) таблицы: полные statement'ы — одним JDBC batch'ем,
+     * остаток — не больше одного statement'а на каждую степень двойки.
+     */
+    private static void insertRows(Connection con, String[] sql, int columns, int rows, RowBinder binder)
+            throws SQLException {
+        int full = rows / MAX_ROWS_PER_STATEMENT;
+        int row = 0;
+        if (full > 0) {
+            try (PreparedStatement ps = con.prepareStatement(sql[SIZES - 1])) {
+                for (int s = 0; s < full; s++) {
+                    row = bindRows(ps, columns, row, MAX_ROWS_PER_STATEMENT, binder);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        }
+        for (int k = SIZES - 2; k >= 0 && row < rows; k--) {
+            int size = 1 << k;
+            if (rows - row < size) {
+                continue;
+            }
+            try (PreparedStatement ps = con.prepareStatement(sql[k])) {
+                row = bindRows(ps, columns, row, size, binder);
+                ps.executeUpdate();
+            }
+        }
+    }
+
+    private static int bindRows(PreparedStatement ps, int columns, int from, int count, RowBinder binder)
+            throws SQLException {
+        for (int r = 0; r < count; r++) {
+            binder.bind(ps, r * columns, from + r);
+        }
+        return from + count;
+    }
+
+    private long metered(String table, long startNs, int rows) {
+        long now = System.nanoTime();
+        metrics.recordWrite(table, now - startNs, rows);
+        return now;
+    }
+
+    /**
+     * INSERT ... VALUES на 1, 2, 4, ... {@value #MAX_ROWS_PER_STATEMENT}
+     * строк из однострочного INSERT.
+     */
+    private static String[] multiValues(String insertSql, int columns) {
+        String prefix = insertSql.substring(0, insertSql.indexOf(" VALUES ") + " VALUES ".length());
+        String row = "(" + "?,".repeat(columns - 1) + "?)";
+        String[] result = new String[SIZES];
+        for (int k = 0; k < SIZES; k++) {
+            StringBuilder sql = new StringBuilder(prefix);
+            for (int r = 0; r < 1 << k; r++) {
+                if (r > 0) {
+                    sql.append(',');
+                }
+                sql.append(row);
+            }
+            result[k] = sql.toString();
+        }
+        return result;
+    }
+}
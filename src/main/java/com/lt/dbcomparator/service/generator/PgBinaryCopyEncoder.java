@@ -0,0 +1,332 @@
+package com.lt.dbcomparator.service.generator;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Кодировщик строк в бинарный формат PostgreSQL COPY (FORMAT binary).
+ * <p>
+ * Пишет заголовок, кортежи и трейлер в растущий byte[]-буфер, который затем
+ * целиком отправляется в {@code COPY ... FROM STDIN (FORMAT binary)}.
+ * Буфер переиспользуется через {@link #reset()} — после прогрева новых
+ * аллокаций нет.
+ * <p>
+ * Поддерживаются только типы, которые реально есть в схеме генератора:
+ * int8, int4, bool, float8, text/varchar, date, timestamp, numeric.
+ */
+public final class PgBinaryCopyEncoder {
+
+    private static final byte[] SIGNATURE = {
+            'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0
+    };
+
+    // Эпоха PostgreSQL — 2000-01-01 (в днях / секундах от 1970-01-01)
+    private static final long PG_EPOCH_DAYS = 10_957L;
+    private static final long PG_EPOCH_SECONDS = PG_EPOCH_DAYS * 86_400L;
+
+    private static final int NUMERIC_POS = 0x0000;
+    private static final int NUMERIC_NEG = 0x4000;
+    private static final int NUMERIC_MAX_SCALE = 8;
+    private static final long[] POW10 = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L
+    };
+
+    private byte[] buf;
+    private int pos;
+    private boolean finished;
+    private int textLenPos = -1;
+
+    public PgBinaryCopyEncoder(int initialCapacity) {
+        this.buf = new byte[Math.max(64, initialCapacity)];
+        reset();
+    }
+
+    /**
+     * Очищает буфер и пишет заголовок COPY — энкодер готов к новому потоку строк.
+     */
+    public void reset() {
+        pos = 0;
+        finished = false;
+        System.arraycopy(SIGNATURE, 0, buf, 0, SIGNATURE.length);
+        pos = SIGNATURE.length;
+        putInt(0); // flags
+        putInt(0); // header extension length
+    }
+
+    /**
+     * Начало кортежа: кол-во полей.
+     */
+    public void startRow(int fieldCount) {
+        ensure(2);
+        putShort(fieldCount);
+    }
+
+    /**
+     * Трейлер COPY. После вызова буфер готов к отправке.
+     */
+    public void finish() {
+        if (finished)
+            return;
+        ensure(2);
+        putShort(-1);
+        finished = true;
+    }
+
+    public byte[] buffer() {
+        return buf;
+    }
+
+    public int size() {
+        return pos;
+    }
+
+    // ═══════════════════════════════════════════
+    // Поля
+    // ═══════════════════════════════════════════
+
+    public void writeNull() {
+        ensure(4);
+        putInt(-1);
+    }
+
+    public void writeLong(long v) {
+        ensure(12);
+        putInt(8);
+        putLong(v);
+    }
+
+    public void writeInt(int v) {
+        ensure(8);
+        putInt(4);
+        putInt(v);
+    }
+
+    public void writeBoolean(boolean v) {
+        ensure(5);
+        putInt(1);
+        buf[pos++] = (byte) (v ? 1 : 0);
+    }
+
+    public void writeDouble(double v) {
+        writeLong(Double.doubleToLongBits(v));
+    }
+
+    public void writeDate(LocalDate date) {
+        if (date == null) {
+            writeNull();
+            return;
+        }
+        writeEpochDay(date.toEpochDay());
+    }
+
+    /**
+     * date как кол-во дней от 1970-01-01 — без создания LocalDate.
+     */
+    public void writeEpochDay(long epochDay) {
+        ensure(8);
+        putInt(4);
+        putInt((int) (epochDay - PG_EPOCH_DAYS));
+    }
+
+    public void writeTimestamp(LocalDateTime ts) {
+        if (ts == null) {
+            writeNull();
+            return;
+        }
+        writeTimestampEpochMicros(ts.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + ts.getNano() / 1_000);
+    }
+
+    /**
+     * timestamp как кол-во микросекунд от 1970-01-01T00:00 — без создания
+     * LocalDateTime.
+     */
+    public void writeTimestampEpochMicros(long epochMicros) {
+        ensure(12);
+        putInt(8);
+        putLong(epochMicros - PG_EPOCH_SECONDS * 1_000_000L);
+    }
+
+    /**
+     * text / varchar в UTF-8. Кодирование выполняется вручную прямо в буфер,
+     * без промежуточного byte[].
+     */
+    public void writeText(String s) {
+        if (s == null) {
+            writeNull();
+            return;
+        }
+        int len = s.length();
+        ensure(4 + len * 3);
+        int lenPos = pos;
+        pos += 4;
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                buf[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[pos++] = (byte) (0xC0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                buf[pos++] = (byte) (0xF0 | (cp >> 18));
+                buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buf[pos++] = '?';
+            } else {
+                buf[pos++] = (byte) (0xE0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        putIntAt(lenPos, pos - lenPos - 4);
+    }
+
+    // ── Составные text-поля без промежуточных строк ──
+    // beginText(); appendAscii("ORD-"); appendLong(id); endText();
+
+    public void beginText() {
+        ensure(4);
+        textLenPos = pos;
+        pos += 4;
+    }
+
+    /**
+     * Дописывает к текущему text-полю строку из ASCII-символов
+     * (справочники и литералы генератора).
+     */
+    public void appendAscii(String s) {
+        int len = s.length();
+        ensure(len);
+        for (int i = 0; i < len; i++) {
+            buf[pos++] = (byte) s.charAt(i);
+        }
+    }
+
+    /**
+     * Дописывает к текущему text-полю десятичное представление числа.
+     */
+    public void appendLong(long v) {
+        ensure(20);
+        if (v < 0) {
+            buf[pos++] = '-';
+            if (v == Long.MIN_VALUE) {
+                appendAscii("9223372036854775808");
+                return;
+            }
+            v = -v;
+        }
+        int start = pos;
+        do {
+            buf[pos++] = (byte) ('0' + (v % 10));
+            v /= 10;
+        } while (v > 0);
+        // цифры записаны в обратном порядке
+        for (int i = start, j = pos - 1; i < j; i++, j--) {
+            byte t = buf[i];
+            buf[i] = buf[j];
+            buf[j] = t;
+        }
+    }
+
+    public void endText() {
+        putIntAt(textLenPos, pos - textLenPos - 4);
+        textLenPos = -1;
+    }
+
+    public void writeNumeric(BigDecimal v) {
+        if (v == null) {
+            writeNull();
+            return;
+        }
+        BigDecimal normalized = v.scale() < 0 ? v.setScale(0) : v;
+        writeNumeric(normalized.unscaledValue().longValueExact(), normalized.scale());
+    }
+
+    /**
+     * numeric из unscaled-значения и scale (например, 1234 и 2 → 12.34).
+     * <p>
+     * Бинарный формат: ndigits, weight, sign, dscale (int16) + ndigits цифр
+     * по основанию 10000. Ведущие/хвостовые нулевые группы допустимы — сервер
+     * нормализует значение сам.
+     */
+    public void writeNumeric(long unscaled, int scale) {
+        if (scale < 0 || scale > NUMERIC_MAX_SCALE) {
+            throw new IllegalArgumentException("numeric scale вне диапазона 0.." + NUMERIC_MAX_SCALE + ": " + scale);
+        }
+        int sign = unscaled < 0 ? NUMERIC_NEG : NUMERIC_POS;
+        long abs = Math.abs(unscaled);
+        long intPart = abs / POW10[scale];
+        long frac = abs % POW10[scale];
+
+        int fracGroups = (scale + 3) / 4;
+        long fracPadded = frac * POW10[fracGroups * 4 - scale];
+
+        int intGroups = 0;
+        for (long tmp = intPart; tmp > 0; tmp /= 10_000) {
+            intGroups++;
+        }
+        int ndigits = intGroups + fracGroups;
+
+        ensure(4 + 8 + 2 * ndigits);
+        putInt(8 + 2 * ndigits);
+        putShort(ndigits);
+        putShort(intGroups - 1); // weight
+        putShort(sign);
+        putShort(scale);
+
+        int intStart = pos;
+        pos += 2 * intGroups;
+        long tmp = intPart;
+        for (int i = intGroups - 1; i >= 0; i--) {
+            putShortAt(intStart + 2 * i, (int) (tmp % 10_000));
+            tmp /= 10_000;
+        }
+        for (int g = fracGroups - 1; g >= 0; g--) {
+            putShort((int) ((fracPadded / POW10[4 * g]) % 10_000));
+        }
+    }
+
+    // ═══════════════════════════════════════════
+    // Низкоуровневая запись (big-endian)
+    // ═══════════════════════════════════════════
+
+    private void ensure(int extra) {
+        if (pos + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + extra));
+        }
+    }
+
+    private void putShort(int v) {
+        buf[pos++] = (byte) (v >>> 8);
+        buf[pos++] = (byte) v;
+    }
+
+    private void putShortAt(int at, int v) {
+        buf[at] = (byte) (v >>> 8);
+        buf[at + 1] = (byte) v;
+    }
+
+    private void putInt(int v) {
+        buf[pos++] = (byte) (v >>> 24);
+        buf[pos++] = (byte) (v >>> 16);
+        buf[pos++] = (byte) (v >>> 8);
+        buf[pos++] = (byte) v;
+    }
+
+    private void putIntAt(int at, int v) {
+        buf[at] = (byte) (v >>> 24);
+        buf[at + 1] = (byte) (v >>> 16);
+        buf[at + 2] = (byte) (v >>> 8);
+        buf[at + 3] = (byte) v;
+    }
+
+    private void putLong(long v) {
+        putInt((int) (v >>> 32));
+        putInt((int) v);
+    }
+}
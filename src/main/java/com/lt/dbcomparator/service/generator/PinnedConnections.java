@@ -0,0 +1,312 @@
+package com.lt.dbcomparator.service.generator;
+
+import com.lt.dbcomparator.service.target.DbTarget;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGStatement;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Соединения, закреплённые за потоками записи на весь прогон
+ * ({@code ExecutionMode.PINNED_CONNECTIONS}).
+ * <p>
+ * Обычно батч берёт соединение из пула на одну транзакцию, а стратегия
+ * заново готовит свои statement'ы: pgjdbc разбирает SQL на клиенте, а
+ * серверный prepare ({@code prepareThreshold}) срабатывает, только если
+ * statement повторился на том же физическом соединении. Здесь поток
+ * открывает соединение пула {@code writer} при первом батче и сам закрывает
+ * его при выходе ({@link #discardCurrent()}); {@code prepareStatement(sql)} отдаёт PreparedStatement
+ * из LRU-кэша соединения ({@code generator.pinned.statement-cache-size}),
+ * а {@code close()} такого statement'а только очищает параметры и батч.
+ * Новым statement'ам задаётся {@code generator.pinned.prepare-threshold} —
+ * при 1 серверный prepare делается уже на первом выполнении, дальше батч
+ * шлёт только Bind/Execute.
+ * <p>
+ * Кэш работает на уровне Connection, поэтому подходит всем JDBC-стратегиям
+ * без их изменения; COPY statement'ов не готовит и выигрывает только от
+ * закреплённого соединения.
+ * <p>
+ * Метрики: {@code generator.statement.cache{result=hit|miss}} — взят готовый
+ * statement или подготовлен новый на клиенте; {@code generator.statement.server.reused}
+ * — выполнений statement'а из кэша после его {@code prepareThreshold}-го: pgjdbc
+ * к этому моменту подготовил на сервере именованный statement, и выполнение
+ * идёт без Parse. Считаются выполнения самого statement'а, а не намерение
+ * драйвера ({@code isUseServerPrepare()} при пороге 1 истинно всегда);
+ * {@code executeBatch()} — по выполнению на каждый набор параметров.
+ */
+@Slf4j
+@Component
+public class PinnedConnections {
+
+    private final int prepareThreshold;
+    private final int statementCacheSize;
+
+    private final Counter cacheHitCounter;
+    private final Counter cacheMissCounter;
+    private final Counter serverReuseCounter;
+
+    // Счётчики текущего прогона — для /status
+    private final AtomicLong runHits = new AtomicLong();
+    private final AtomicLong runPrepares = new AtomicLong();
+    private final AtomicLong runServerReuses = new AtomicLong();
+
+    private final ThreadLocal<Pinned> current = new ThreadLocal<>();
+    // Все открытые за прогон — что не закрыл сам поток, закрывает closeAll()
+    private final Queue<Pinned> opened = new ConcurrentLinkedQueue<>();
+
+    public PinnedConnections(MeterRegistry meterRegistry,
+            @Value("${generator.pinned.prepare-threshold:1}") int prepareThreshold,
+            @Value("${generator.pinned.statement-cache-size:64}") int statementCacheSize) {
+        if (prepareThreshold < 0) {
+            throw new IllegalArgumentException("generator.pinned.prepare-threshold должен быть >= 0");
+        }
+        if (statementCacheSize <= 0) {
+            throw new IllegalArgumentException("generator.pinned.statement-cache-size должен быть > 0");
+        }
+        this.prepareThreshold = prepareThreshold;
+        this.statementCacheSize = statementCacheSize;
+        this.cacheHitCounter = Counter.builder("generator.statement.cache")
+                .description("PINNED_CONNECTIONS: PreparedStatement взят из кэша соединения")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.cacheMissCounter = Counter.builder("generator.statement.cache")
+                .description("PINNED_CONNECTIONS: PreparedStatement подготовлен заново")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.serverReuseCounter = Counter.builder("generator.statement.server.reused")
+                .description("PINNED_CONNECTIONS: выполнений statement'а из кэша по уже подготовленному на сервере")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Начало прогона — обнуляет счётчики для статуса.
+     */
+    public void startRun() {
+        runHits.set(0);
+        runPrepares.set(0);
+        runServerReuses.set(0);
+    }
+
+    /**
+     * Соединение текущего потока как {@link DbTarget}: JdbcTemplate и
+     * менеджер транзакций поверх одного закреплённого соединения.
+     * Открывается из {@code pool} при первом вызове в потоке.
+     */
+    public DbTarget current(DbTarget pool) throws SQLException {
+        Pinned pinned = current.get();
+        if (pinned == null || pinned.closed) {
+            pinned = new Pinned(pool.dataSource().getConnection());
+            current.set(pinned);
+            opened.add(pinned);
+            log.debug("Закреплено соединение пула '{}' за потоком {}", pool.name(), Thread.currentThread().getName());
+        }
+        return pinned.target;
+    }
+
+    /**
+     * Закрывает соединение текущего потока: батч упал (состояние соединения
+     * неизвестно, следующий батч откроет новое) или поток завершается.
+     */
+    public void discardCurrent() {
+        Pinned pinned = current.get();
+        current.remove();
+        if (pinned != null) {
+            opened.remove(pinned);
+            pinned.close();
+        }
+    }
+
+    /**
+     * Закрывает соединения, оставшиеся открытыми, — только после того, как
+     * все воркеры завершились: соединение не используется из двух потоков.
+     */
+    public void closeAll() {
+        Pinned pinned;
+        while ((pinned = opened.poll()) != null) {
+            pinned.close();
+        }
+    }
+
+    public long cacheHits() {
+        return runHits.get();
+    }
+
+    public long prepares() {
+        return runPrepares.get();
+    }
+
+    public long serverReuses() {
+        return runServerReuses.get();
+    }
+
+    // ═══════════════════════════════════════════
+    // Внутреннее
+    // ═══════════════════════════════════════════
+
+    /**
+     * Одно закреплённое соединение. Используется и закрывается своим
+     * потоком; {@link #closeAll()} трогает его только после завершения потока.
+     */
+    private final class Pinned {
+
+        private final Connection connection;
+        private final DbTarget target;
+        // access-order: вытесняется давно не использованный statement
+        private final Map<String, CachedStatement> statements =
+                new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                        if (size() > statementCacheSize) {
+                            closeQuietly(eldest.getValue().statement);
+                            return true;
+                        }
+                        return false;
+                    }
+                };
+        private volatile boolean closed;
+
+        Pinned(Connection connection) throws SQLException {
+            this.connection = connection;
+            // Транзакции батчей идут подряд — autocommit не переключаем на каждый батч
+            connection.setAutoCommit(false);
+            Connection caching = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{Connection.class}, this::invokeConnection);
+            DataSource dataSource = new SingleConnectionDataSource(caching, true);
+            this.target = new DbTarget("pinned", dataSource, new JdbcTemplate(dataSource),
+                    new DataSourceTransactionManager(dataSource));
+        }
+
+        private Object invokeConnection(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().equals("prepareStatement") && args != null && args.length == 1) {
+                return prepare((String) args[0]);
+            }
+            if (method.getName().equals("close")) {
+                return null; // закрывает только closeAll() / discardCurrent()
+            }
+            return invoke(connection, method, args);
+        }
+
+        private PreparedStatement prepare(String sql) throws SQLException {
+            CachedStatement cached = statements.get(sql);
+            if (cached != null) {
+                runHits.incrementAndGet();
+                cacheHitCounter.increment();
+                return cached.proxy;
+            }
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ps.unwrap(PGStatement.class).setPrepareThreshold(prepareThreshold);
+            cached = new CachedStatement(ps);
+            statements.put(sql, cached);
+            runPrepares.incrementAndGet();
+            cacheMissCounter.increment();
+            return cached.proxy;
+        }
+
+        void close() {
+            if (closed)
+                return;
+            closed = true;
+            statements.values().forEach(cached -> closeQuietly(cached.statement));
+            statements.clear();
+            try {
+                // Незакоммиченное (батч прерван остановкой) в пул не возвращаем
+                connection.rollback();
+            } catch (SQLException e) {
+                log.debug("rollback закреплённого соединения: {}", e.getMessage());
+            }
+            closeQuietly(connection);
+        }
+    }
+
+    /**
+     * Statement из кэша: {@code close()} стратегии возвращает его в кэш
+     * очищенным, а не закрывает.
+     */
+    private final class CachedStatement {
+
+        private final PreparedStatement statement;
+        private final PreparedStatement proxy;
+        private long executions;
+
+        CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, this::invokeStatement);
+        }
+
+        private Object invokeStatement(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    release();
+                    return null;
+                }
+                case "isClosed" -> {
+                    return false;
+                }
+                default -> {
+                    Object result = invoke(statement, method, args);
+                    // execute() / executeQuery() / executeBatch() ... без SQL-аргумента;
+                    // батч — столько выполнений, сколько в нём наборов параметров
+                    if (method.getName().startsWith("execute") && (args == null || args.length == 0)) {
+                        executed(result != null && result.getClass().isArray() ? Array.getLength(result) : 1);
+                    }
+                    return result;
+                }
+            }
+        }
+
+        /**
+         * pgjdbc готовит именованный statement на prepareThreshold-м
+         * выполнении — следующие идут по нему без Parse.
+         */
+        private void executed(int count) {
+            long before = executions;
+            executions += count;
+            long reused = executions - Math.max(before, prepareThreshold);
+            if (prepareThreshold > 0 && reused > 0) {
+                runServerReuses.addAndGet(reused);
+                serverReuseCounter.increment(reused);
+            }
+        }
+
+        private void release() throws SQLException {
+            statement.clearParameters();
+            statement.clearBatch();
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable resource) {
+        try {
+            resource.close();
+        } catch (Exception e) {
+            log.debug("Ошибка при закрытии {}: {}", resource, e.getMessage());
+        }
+    }
+}
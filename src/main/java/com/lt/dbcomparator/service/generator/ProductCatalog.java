@@ -0,0 +1,83 @@
+package com.lt.dbcomparator.service.generator;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Справочник продуктов, на который ссылаются позиции заказов.
+ * <p>
+ * Заполняется один раз на БД. Генератор случайных чисел — с фиксированным
+ * seed: в каждой БД (основной и целях сравнения) справочник одинаковый,
+ * и одинаково засеянная нагрузка выбирает одни и те же продукты.
+ */
+@Slf4j
+public final class ProductCatalog {
+
+    public static final int POOL_SIZE = 200;
+
+    // Ключ advisory-lock инициализации (IdBlockAllocator берёт ключи от 1000100)
+    private static final long INIT_LOCK_KEY = 1_000_042L;
+    private static final long SEED = 42L;
+
+    private ProductCatalog() {
+    }
+
+    /**
+     * Заполняет справочник, если он пуст, и возвращает ID всех продуктов
+     * (по возрастанию — индекс продукта одинаков во всех БД).
+     * pg_advisory_xact_lock гарантирует, что при одновременном старте
+     * нескольких реплик только одна выполнит INSERT; остальные подождут
+     * и увидят данные.
+     */
+    public static long[] ensure(JdbcTemplate jdbc, TransactionTemplate tx) {
+        tx.executeWithoutResult(status -> {
+            jdbc.execute("SELECT pg_advisory_xact_lock(" + INIT_LOCK_KEY + ")");
+            Long count = jdbc.queryForObject("SELECT count(*) FROM products", Long.class);
+            if (count == null || count == 0) {
+                log.info("Предзаполнение {} продуктов...", POOL_SIZE);
+                generate(jdbc);
+            }
+        }); // lock автоматически освобождается при commit
+        long[] ids = jdbc.queryForList("SELECT id FROM products ORDER BY id", Long.class).stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+        log.info("Пул продуктов: {} шт.", ids.length);
+        return ids;
+    }
+
+    private static void generate(JdbcTemplate jdbc) {
+        LocalDateTime now = LocalDateTime.now();
+        SplittableRandom r = new SplittableRandom(SEED);
+
+        List<Long> ids = jdbc.queryForList(
+                "SELECT nextval(pg_get_serial_sequence('products','id')) FROM generate_series(1,?)",
+                Long.class, POOL_SIZE);
+
+        jdbc.batchUpdate(
+                "INSERT INTO products (id, name, sku, description, price, category, " +
+                        "weight, in_stock, created_at, updated_at) VALUES (?,?,?,?,?,?,?,?,?,?)",
+                ids, POOL_SIZE,
+                (PreparedStatement ps, Long prodId) -> {
+                    String cat = GeneratorDictionaries.CATEGORIES[r.nextInt(GeneratorDictionaries.CATEGORIES.length)];
+                    ps.setLong(1, prodId);
+                    ps.setString(2, cat + " Item #" + prodId);
+                    ps.setString(3, "SKU-" + String.format("%06d", prodId));
+                    ps.setString(4, "Description for " + cat + " product #" + prodId);
+                    ps.setBigDecimal(5, BigDecimal.valueOf(r.nextDouble(0.5, 9999)).setScale(2, RoundingMode.HALF_UP));
+                    ps.setString(6, cat);
+                    ps.setDouble(7, Math.round(r.nextDouble(0.01, 50.0) * 100.0) / 100.0);
+                    ps.setBoolean(8, r.nextBoolean());
+                    ps.setTimestamp(9, Timestamp.valueOf(now));
+                    ps.setTimestamp(10, Timestamp.valueOf(now));
+                });
+    }
+}
@@ -0,0 +1,287 @@
+package com.lt.dbcomparator.service.generator;
+
+import com.lt.dbcomparator.dto.OverflowPolicy;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongToDoubleFunction;
+
+/**
+ * Open-loop планировщик батчей.
+ * <p>
+ * Плановое время старта k-го батча — момент, когда интеграл темпа от
+ * старта достигает k (при постоянном темпе — {@code start + k × 10⁹ / rate}
+ * нс), независимо от того, как быстро отвечает БД. Переменный темп
+ * ({@link LoadSchedule}) интегрируется шагами по 1 мс, поэтому плановые
+ * времена следуют кривой без скачков на границах шагов. Тикер (поток gen-ticker)
+ * отдаёт каждый наступивший батч в {@link Dispatcher} вместе с его плановым
+ * временем; если тикер отстал, батчи уходят сразу, но с исходным плановым
+ * временем — latency, отсчитанная от него, включает опоздание и не
+ * «улучшается» при замедлении БД (coordinated omission).
+ * <p>
+ * Если диспетчер не принял батч, действует {@link OverflowPolicy}.
+ * Опоздавшим считается батч, ушедший в работу позже планового времени
+ * больше чем на период при темпе этого момента (но не меньше 1 мс).
+ */
+public final class RateController {
+
+    /**
+     * Приём батча исполнителем.
+     */
+    @FunctionalInterface
+    public interface Dispatcher {
+        /**
+         * @return false — нет свободного места, батч не принят
+         */
+        boolean tryDispatch(long intendedStartNanos);
+    }
+
+    // Как часто тикер перепроверяет место, когда есть отложенные батчи (QUEUE / BLOCK)
+    private static final long POLL_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long MIN_LATE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    // Очередь QUEUE ограничена, чтобы при затяжной деградации не съесть память
+    private static final int MAX_BACKLOG = 100_000;
+    // Шаг интегрирования переменного темпа
+    private static final long INTEGRATION_STEP_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final LongToDoubleFunction rateAt;
+    private final OverflowPolicy policy;
+    private final Dispatcher dispatcher;
+    private final Runnable onDropped;
+    private final Runnable onLate;
+    private final long durationNanos;
+    private final Runnable onFinished;
+
+    private final LongRing backlog;
+    private final Thread thread;
+    private volatile boolean running;
+    private volatile boolean finishRequested;
+    private volatile long startNanos;
+
+    /**
+     * @param durationNanos длительность прогона (0 — без ограничения); по её
+     *                      истечении тикер останавливается и вызывает onFinished
+     */
+    public RateController(double ratePerSecond, OverflowPolicy policy, Dispatcher dispatcher,
+            Runnable onDropped, Runnable onLate, long durationNanos, Runnable onFinished) {
+        this(elapsed -> ratePerSecond, policy, dispatcher, onDropped, onLate, durationNanos, onFinished);
+    }
+
+    /**
+     * @param rateAt        темп (в секунду) через заданное число наносекунд
+     *                      от старта; при durationNanos = 0 должен оставаться
+     *                      положительным
+     * @param durationNanos длительность прогона (0 — без ограничения); по её
+     *                      истечении тикер останавливается и вызывает onFinished
+     */
+    public RateController(LongToDoubleFunction rateAt, OverflowPolicy policy, Dispatcher dispatcher,
+            Runnable onDropped, Runnable onLate, long durationNanos, Runnable onFinished) {
+        this.rateAt = rateAt;
+        this.policy = policy;
+        this.dispatcher = dispatcher;
+        this.onDropped = onDropped;
+        this.onLate = onLate;
+        this.durationNanos = durationNanos;
+        this.onFinished = onFinished;
+        this.backlog = policy == OverflowPolicy.QUEUE ? new LongRing(MAX_BACKLOG) : null;
+        this.thread = new Thread(this::run, "gen-ticker");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        startNanos = System.nanoTime();
+        running = true;
+        thread.start();
+    }
+
+    /**
+     * Останавливает тикер. Отложенные батчи (QUEUE) отбрасываются как dropped.
+     */
+    public void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+        if (Thread.currentThread() != thread) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Досрочное завершение по условию остановки: тикер перестаёт отдавать
+     * батчи и вызывает onFinished, как по истечении длительности. Можно
+     * вызывать из любого потока, в том числе из диспетчера.
+     */
+    public void finish() {
+        finishRequested = true;
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Момент старта (System.nanoTime) — начало отсчёта для rateAt.
+     */
+    public long startNanos() {
+        return startNanos;
+    }
+
+    /**
+     * Темп в текущий момент, в секунду.
+     */
+    public double currentRate() {
+        return running ? rateAt.applyAsDouble(System.nanoTime() - startNanos) : 0;
+    }
+
+    /**
+     * Батчей в очереди тикера (только QUEUE).
+     */
+    public int backlog() {
+        return backlog != null ? backlog.size() : 0;
+    }
+
+    // ═══════════════════════════════════════════
+    // Тикер
+    // ═══════════════════════════════════════════
+
+    private void run() {
+        // Плановое время следующего батча — в наносекундах от старта
+        double next = nextTick(0, 0);
+        while (running) {
+            long now = System.nanoTime();
+            if (finishRequested || durationNanos > 0 && now - startNanos >= durationNanos) {
+                running = false;
+                onFinished.run();
+                break;
+            }
+            if (backlog != null) {
+                drainBacklog();
+            }
+            // Все наступившие плановые моменты — даже если тикер отстал
+            while (running && !finishRequested && startNanos + (long) next - now <= 0) {
+                offer(startNanos + (long) next);
+                next = nextTick(next, 1);
+            }
+            long waitNanos = startNanos + (long) next - System.nanoTime();
+            if (backlog != null && !backlog.isEmpty()) {
+                waitNanos = Math.min(waitNanos, POLL_NANOS);
+            }
+            if (waitNanos > 0) {
+                LockSupport.parkNanos(this, waitNanos);
+            }
+        }
+        if (backlog != null) {
+            while (!backlog.isEmpty()) {
+                backlog.poll();
+                onDropped.run();
+            }
+        }
+    }
+
+    /**
+     * Момент (нс от старта), когда интеграл темпа от {@code from} достигает
+     * {@code batches}. Пока темп 0, время идёт шагами без батчей; за концом
+     * прогона дальше не считаем.
+     */
+    private double nextTick(double from, double batches) {
+        double t = from;
+        double need = batches;
+        long limit = durationNanos > 0 ? durationNanos : Long.MAX_VALUE;
+        while (t < limit) {
+            double rate = rateAt.applyAsDouble((long) t);
+            if (rate > 0) {
+                double dt = need / rate * 1e9;
+                if (dt <= INTEGRATION_STEP_NANOS) {
+                    return t + dt;
+                }
+                need -= rate * INTEGRATION_STEP_NANOS / 1e9;
+            }
+            t += INTEGRATION_STEP_NANOS;
+        }
+        return limit;
+    }
+
+    private void offer(long intendedStartNanos) {
+        switch (policy) {
+            case DROP -> {
+                if (!dispatch(intendedStartNanos)) {
+                    onDropped.run();
+                }
+            }
+            case QUEUE -> {
+                // Порядок сохраняется: пока очередь не пуста, новые батчи — в её конец
+                if (backlog.isEmpty() && dispatch(intendedStartNanos)) {
+                    return;
+                }
+                if (!backlog.offer(intendedStartNanos)) {
+                    onDropped.run();
+                }
+            }
+            case BLOCK -> {
+                while (running && !finishRequested && !dispatch(intendedStartNanos)) {
+                    LockSupport.parkNanos(this, POLL_NANOS);
+                }
+            }
+        }
+    }
+
+    private void drainBacklog() {
+        while (running && !finishRequested && !backlog.isEmpty() && dispatch(backlog.peek())) {
+            backlog.poll();
+        }
+    }
+
+    private boolean dispatch(long intendedStartNanos) {
+        if (!dispatcher.tryDispatch(intendedStartNanos)) {
+            return false;
+        }
+        if (System.nanoTime() - intendedStartNanos > lateThresholdNanos(intendedStartNanos)) {
+            onLate.run();
+        }
+        return true;
+    }
+
+    private long lateThresholdNanos(long intendedStartNanos) {
+        double rate = rateAt.applyAsDouble(intendedStartNanos - startNanos);
+        return rate > 0 ? Math.max(MIN_LATE_NANOS, (long) (1e9 / rate)) : MIN_LATE_NANOS;
+    }
+
+    /**
+     * Ограниченная FIFO-очередь long без упаковки — доступ только из тикера.
+     */
+    private static final class LongRing {
+        private final long[] values;
+        private int head;
+        private int size;
+
+        private LongRing(int capacity) {
+            this.values = new long[capacity];
+        }
+
+        boolean offer(long v) {
+            if (size == values.length) {
+                return false;
+            }
+            values[(head + size) % values.length] = v;
+            size++;
+            return true;
+        }
+
+        long peek() {
+            return values[head];
+        }
+
+        void poll() {
+            head = (head + 1) % values.length;
+            size--;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.lt.dbcomparator.service.generator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Скорость событий за последние {@code seconds} полных секунд — счётчики
+ * по секундам от старта в кольце. Фактический темп рядом с целевым при
+ * переменном профиле: среднее за прогон на рампе или всплеске отстаёт от
+ * текущего темпа.
+ * <p>
+ * Счётчик секунды обнуляется первым событием этой секунды; событие другого
+ * потока на стыке секунд может потеряться — для статуса и gauge это
+ * допустимо.
+ */
+public final class RateWindow {
+
+    private final int seconds;
+    private final long startNanos;
+    // Одна лишняя ячейка — текущая, ещё не полная секунда
+    private final AtomicLongArray counts;
+    private final AtomicLongArray epochs;
+
+    public RateWindow(int seconds, long startNanos) {
+        this.seconds = seconds;
+        this.startNanos = startNanos;
+        this.counts = new AtomicLongArray(seconds + 1);
+        this.epochs = new AtomicLongArray(seconds + 1);
+        for (int i = 0; i <= seconds; i++) {
+            epochs.set(i, -1);
+        }
+    }
+
+    public void record() {
+        long second = second(System.nanoTime());
+        int i = (int) (second % counts.length());
+        long epoch = epochs.get(i);
+        if (epoch != second && epochs.compareAndSet(i, epoch, second)) {
+            counts.set(i, 0);
+        }
+        counts.incrementAndGet(i);
+    }
+
+    /**
+     * Событий в секунду за последние полные секунды (в начале прогона — за
+     * сколько их прошло).
+     */
+    public double perSecond() {
+        long current = second(System.nanoTime());
+        long full = Math.min(seconds, current);
+        if (full <= 0)
+            return 0;
+        long sum = 0;
+        for (long s = current - full; s < current; s++) {
+            int i = (int) (s % counts.length());
+            if (epochs.get(i) == s) {
+                sum += counts.get(i);
+            }
+        }
+        return (double) sum / full;
+    }
+
+    private long second(long nanos) {
+        return TimeUnit.NANOSECONDS.toSeconds(nanos - startNanos);
+    }
+}
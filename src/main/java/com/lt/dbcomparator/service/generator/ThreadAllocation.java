@@ -0,0 +1,39 @@
+package com.lt.dbcomparator.service.generator;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Счётчик байт, аллоцированных текущим потоком (HotSpot
+ * {@code com.sun.management.ThreadMXBean}).
+ * <p>
+ * Разница двух замеров вокруг участка кода — сколько мусора он создал.
+ * На JVM без поддержки и на виртуальном потоке (HotSpot их не считает)
+ * возвращает -1 — такой замер нужно пропускать, а не записывать как 0.
+ */
+public final class ThreadAllocation {
+
+    private static final com.sun.management.ThreadMXBean MX = init();
+
+    private ThreadAllocation() {
+    }
+
+    public static long currentThreadAllocatedBytes() {
+        if (MX == null || Thread.currentThread().isVirtual()) {
+            return -1;
+        }
+        return MX.getCurrentThreadAllocatedBytes();
+    }
+
+    private static com.sun.management.ThreadMXBean init() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean hotspot
+                && hotspot.isThreadAllocatedMemorySupported()) {
+            if (!hotspot.isThreadAllocatedMemoryEnabled()) {
+                hotspot.setThreadAllocatedMemoryEnabled(true);
+            }
+            return hotspot;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,35 @@
+package com.lt.dbcomparator.service.generator;
+
+import com.lt.dbcomparator.dto.WriteMode;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Способ записи заполненного {@link BatchBuffer} в БД.
+ * <p>
+ * Реализации — Spring-бины; DataGeneratorService выбирает нужную по
+ * {@link WriteMode} из LoadRequest. Запись выполняется внутри уже открытой
+ * транзакции батча — через JdbcTemplate той БД, в которой открыта транзакция
+ * (основной или одной из целей сравнения), поэтому сами стратегии к
+ * источнику данных не привязаны.
+ */
+public interface WriteStrategy {
+
+    WriteMode mode();
+
+    /**
+     * Нужны ли стратегии заранее зарезервированные ID
+     * ({@link BatchBuffer#assignIds}). false — ID назначает сама БД.
+     */
+    default boolean usesPreallocatedIds() {
+        return true;
+    }
+
+    /**
+     * Записывает батч.
+     *
+     * @param jdbc JdbcTemplate целевой БД (его DataSource — тот же, что у
+     *             транзакции батча)
+     * @return кол-во записанных строк (все таблицы)
+     */
+    int write(BatchBuffer batch, JdbcTemplate jdbc);
+}
@@ -0,0 +1,89 @@
+package com.lt.dbcomparator.service.graph;
+
+import com.lt.dbcomparator.dto.CustomerResponse;
+import com.lt.dbcomparator.dto.ReadMode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение графа клиента выбранной {@link ReadStrategy} с замером.
+ * <p>
+ * Стратегия по умолчанию — {@code customers.read.strategy}; запрос или
+ * прогон нагрузки на чтение могут выбрать другую. На каждую стратегию
+ * (тег {@code strategy}) публикуются полное время чтения
+ * {@code customers.read.duration} с перцентилями и CPU-время потока
+ * {@code customers.read.cpu} — без ожидания БД, т.е. цена сборки графа в
+ * приложении. Замер охватывает только чтение и сборку, без HTTP и кэша.
+ */
+@Component
+public class CustomerGraphReader {
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final boolean cpuSupported;
+    private final ReadMode defaultMode;
+
+    private final Map<ReadMode, ReadStrategy> strategies = new EnumMap<>(ReadMode.class);
+    private final Map<ReadMode, Timer> durations = new EnumMap<>(ReadMode.class);
+    private final Map<ReadMode, Timer> cpu = new EnumMap<>(ReadMode.class);
+
+    public CustomerGraphReader(List<ReadStrategy> readStrategies,
+            MeterRegistry meterRegistry,
+            @Value("${customers.read.strategy:JSON_AGG}") ReadMode defaultMode) {
+        this.defaultMode = defaultMode;
+        this.cpuSupported = threads.isCurrentThreadCpuTimeSupported();
+        if (cpuSupported && !threads.isThreadCpuTimeEnabled()) {
+            threads.setThreadCpuTimeEnabled(true);
+        }
+        for (ReadStrategy strategy : readStrategies) {
+            strategies.put(strategy.mode(), strategy);
+        }
+        for (ReadMode mode : ReadMode.values()) {
+            String tag = mode.name().toLowerCase();
+            durations.put(mode, Timer.builder("customers.read.duration")
+                    .description("Время чтения и сборки графа клиента стратегией")
+                    .tag("strategy", tag)
+                    .publishPercentiles(0.5, 0.99, 0.999)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            cpu.put(mode, Timer.builder("customers.read.cpu")
+                    .description("CPU-время потока на чтение графа клиента стратегией (без ожидания БД)")
+                    .tag("strategy", tag)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Стратегия из конфигурации — для запросов, где она не указана явно.
+     */
+    public ReadMode defaultMode() {
+        return defaultMode;
+    }
+
+    /**
+     * @param mode стратегия; {@code null} — из конфигурации
+     * @return граф клиента или {@code null}, если клиента нет
+     */
+    public CustomerResponse read(long id, ReadMode mode) {
+        ReadMode m = mode != null ? mode : defaultMode;
+        long startNs = System.nanoTime();
+        long cpuStart = cpuSupported ? threads.getCurrentThreadCpuTime() : -1;
+        try {
+            return strategies.get(m).read(id);
+        } finally {
+            durations.get(m).record(System.nanoTime() - startNs, TimeUnit.NANOSECONDS);
+            if (cpuSupported) {
+                cpu.get(m).record(threads.getCurrentThreadCpuTime() - cpuStart, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.lt.dbcomparator.service.graph;
+
+import com.lt.dbcomparator.dto.CustomerResponse;
+import com.lt.dbcomparator.dto.ReadMode;
+import com.lt.dbcomparator.repository.CustomerRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA-путь: {@link CustomerRepository#findWithDetailsById} — один запрос с
+ * JOIN FETCH всех связей по @EntityGraph, Hibernate сворачивает строки в
+ * сущности, {@link CustomerResponse#from} — в DTO. Меряет цену ORM:
+ * гидратацию сущностей, persistence context и прокси.
+ */
+@Component
+@RequiredArgsConstructor
+public class EntityGraphReadStrategy implements ReadStrategy {
+
+    private final CustomerRepository customerRepository;
+
+    @Override
+    public ReadMode mode() {
+        return ReadMode.ENTITY_GRAPH;
+    }
+
+    @Override
+    public CustomerResponse read(long id) {
+        return customerRepository.findWithDetailsById(id)
+                .map(CustomerResponse::from)
+                .orElse(null);
+    }
+}
@@ -0,0 +1,80 @@
+package com.lt.dbcomparator.service.graph;
+
+import com.lt.dbcomparator.dto.CustomerResponse;
+import com.lt.dbcomparator.dto.CustomerResponse.ItemResponse;
+import com.lt.dbcomparator.dto.CustomerResponse.OrderResponse;
+import com.lt.dbcomparator.dto.ReadMode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.lt.dbcomparator.service.graph.GraphRows.*;
+
+/**
+ * Граф одним плоским запросом: customers ⟕ customer_profiles ⟕ orders ⟕
+ * order_items ⟕ products, строка на позицию (или на клиента / заказ без
+ * позиций). Строки идут по заказу и позиции, поэтому сворачиваются в граф
+ * за один проход без карт: новый заказ начинается, когда меняется o.id.
+ * <p>
+ * Один round-trip и никакой агрегации в БД, но колонки клиента и заказа
+ * повторяются в каждой строке — платим сетью и разбором лишних колонок.
+ */
+@Component
+@RequiredArgsConstructor
+public class FlatJoinReadStrategy implements ReadStrategy {
+
+    private static final int PROFILE_COL = 1 + CUSTOMER_WIDTH;
+    private static final int ORDER_COL = PROFILE_COL + PROFILE_WIDTH;
+    private static final int ITEM_COL = ORDER_COL + ORDER_WIDTH;
+    private static final int PRODUCT_COL = ITEM_COL + ITEM_WIDTH;
+
+    private static final String FLAT_SQL = "SELECT " + CUSTOMER_COLUMNS + ", " + PROFILE_COLUMNS + ", " +
+            ORDER_COLUMNS + ", " + ITEM_COLUMNS + ", " + PRODUCT_COLUMNS + """
+
+            FROM customers c
+            LEFT JOIN customer_profiles p ON p.customer_id = c.id
+            LEFT JOIN orders o ON o.customer_id = c.id
+            LEFT JOIN order_items oi ON oi.order_id = o.id
+            LEFT JOIN products pr ON pr.id = oi.product_id
+            WHERE c.id = ?
+            ORDER BY o.id, oi.id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public ReadMode mode() {
+        return ReadMode.FLAT_JOIN;
+    }
+
+    @Override
+    public CustomerResponse read(long id) {
+        return jdbcTemplate.query(FLAT_SQL, rs -> {
+            if (!rs.next()) {
+                return null;
+            }
+            List<OrderResponse> orders = new ArrayList<>();
+            CustomerResponse customer = GraphRows.customer(rs, 1, GraphRows.profile(rs, PROFILE_COL), orders);
+            long currentOrderId = -1;
+            List<ItemResponse> items = null;
+            do {
+                Long orderId = rs.getObject(ORDER_COL, Long.class);
+                if (orderId == null) {
+                    continue; // клиент без заказов — единственная строка
+                }
+                if (orderId != currentOrderId) {
+                    currentOrderId = orderId;
+                    items = new ArrayList<>();
+                    orders.add(GraphRows.order(rs, ORDER_COL, items));
+                }
+                if (rs.getObject(ITEM_COL, Long.class) != null) {
+                    items.add(GraphRows.item(rs, ITEM_COL, GraphRows.product(rs, PRODUCT_COL)));
+                }
+            } while (rs.next());
+            return customer;
+        }, id);
+    }
+}
@@ -0,0 +1,125 @@
+package com.lt.dbcomparator.service.graph;
+
+import com.lt.dbcomparator.dto.CustomerResponse;
+import com.lt.dbcomparator.dto.CustomerResponse.ItemResponse;
+import com.lt.dbcomparator.dto.CustomerResponse.OrderResponse;
+import com.lt.dbcomparator.dto.CustomerResponse.ProductResponse;
+import com.lt.dbcomparator.dto.CustomerResponse.ProfileResponse;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Колонки таблиц графа и их чтение из ResultSet — общие для JDBC-стратегий.
+ * <p>
+ * Каждый набор колонок читается по позиции, начиная с {@code col}: один и тот
+ * же маппер работает и для запроса по одной таблице (col = 1), и для строки
+ * плоского JOIN, где наборы идут подряд. Поля — в порядке компонентов
+ * record'ов {@link CustomerResponse}.
+ */
+final class GraphRows {
+
+    static final String CUSTOMER_COLUMNS = "c.id, c.first_name, c.last_name, c.email, c.phone, c.date_of_birth, " +
+            "c.registered_at, c.status, c.loyalty_points, c.country";
+    static final int CUSTOMER_WIDTH = 10;
+
+    static final String PROFILE_COLUMNS = "p.id, p.avatar_url, p.bio, p.preferred_language, " +
+            "p.notifications_enabled, p.address, p.city, p.zip_code";
+    static final int PROFILE_WIDTH = 8;
+
+    static final String ORDER_COLUMNS = "o.id, o.order_number, o.order_date, o.status, o.total_amount, " +
+            "o.currency, o.shipping_address, o.notes, o.expected_delivery";
+    static final int ORDER_WIDTH = 9;
+
+    static final String ITEM_COLUMNS = "oi.id, oi.quantity, oi.unit_price, oi.total_price, oi.discount, oi.created_at";
+    static final int ITEM_WIDTH = 6;
+
+    static final String PRODUCT_COLUMNS = "pr.id, pr.name, pr.sku, pr.description, pr.price, pr.category, " +
+            "pr.weight, pr.in_stock";
+
+    private GraphRows() {
+    }
+
+    static CustomerResponse customer(ResultSet rs, int col, ProfileResponse profile, List<OrderResponse> orders)
+            throws SQLException {
+        return new CustomerResponse(
+                rs.getLong(col),
+                rs.getString(col + 1),
+                rs.getString(col + 2),
+                rs.getString(col + 3),
+                rs.getString(col + 4),
+                rs.getObject(col + 5, LocalDate.class),
+                rs.getObject(col + 6, LocalDateTime.class),
+                rs.getString(col + 7),
+                rs.getObject(col + 8, Integer.class),
+                rs.getString(col + 9),
+                profile,
+                orders);
+    }
+
+    /**
+     * @return профиль или {@code null}, если колонки пустые (LEFT JOIN без пары)
+     */
+    static ProfileResponse profile(ResultSet rs, int col) throws SQLException {
+        Long id = rs.getObject(col, Long.class);
+        if (id == null) {
+            return null;
+        }
+        return new ProfileResponse(
+                id,
+                rs.getString(col + 1),
+                rs.getString(col + 2),
+                rs.getString(col + 3),
+                rs.getObject(col + 4, Boolean.class),
+                rs.getString(col + 5),
+                rs.getString(col + 6),
+                rs.getString(col + 7));
+    }
+
+    static OrderResponse order(ResultSet rs, int col, List<ItemResponse> items) throws SQLException {
+        return new OrderResponse(
+                rs.getLong(col),
+                rs.getString(col + 1),
+                rs.getObject(col + 2, LocalDateTime.class),
+                rs.getString(col + 3),
+                rs.getBigDecimal(col + 4),
+                rs.getString(col + 5),
+                rs.getString(col + 6),
+                rs.getString(col + 7),
+                rs.getObject(col + 8, LocalDate.class),
+                items);
+    }
+
+    static ItemResponse item(ResultSet rs, int col, ProductResponse product) throws SQLException {
+        return new ItemResponse(
+                rs.getLong(col),
+                rs.getObject(col + 1, Integer.class),
+                rs.getBigDecimal(col + 2),
+                rs.getBigDecimal(col + 3),
+                rs.getBigDecimal(col + 4),
+                rs.getObject(col + 5, LocalDateTime.class),
+                product);
+    }
+
+    /**
+     * @return товар или {@code null}, если колонки пустые
+     */
+    static ProductResponse product(ResultSet rs, int col) throws SQLException {
+        Long id = rs.getObject(col, Long.class);
+        if (id == null) {
+            return null;
+        }
+        return new ProductResponse(
+                id,
+                rs.getString(col + 1),
+                rs.getString(col + 2),
+                rs.getString(col + 3),
+                rs.getBigDecimal(col + 4),
+                rs.getString(col + 5),
+                rs.getObject(col + 6, Double.class),
+                rs.getObject(col + 7, Boolean.class));
+    }
+}
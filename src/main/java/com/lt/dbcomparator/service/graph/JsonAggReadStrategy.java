@@ -0,0 +1,46 @@
+package com.lt.dbcomparator.service.graph;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lt.dbcomparator.dto.CustomerResponse;
+import com.lt.dbcomparator.dto.ReadMode;
+import com.lt.dbcomparator.service.CustomerService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Граф собирается в БД ({@link CustomerService#GRAPH_JSON}) и приходит одним
+ * JSON-документом; приложение только разбирает его Jackson'ом. Один
+ * round-trip, минимум CPU на маппинг — но вся сборка на стороне БД.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JsonAggReadStrategy implements ReadStrategy {
+
+    private static final String GRAPH_SQL = "SELECT " + CustomerService.GRAPH_JSON + " FROM customers c WHERE c.id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public ReadMode mode() {
+        return ReadMode.JSON_AGG;
+    }
+
+    @Override
+    public CustomerResponse read(long id) {
+        try {
+            String json = jdbcTemplate.queryForObject(GRAPH_SQL, String.class, id);
+            return objectMapper.readValue(json, CustomerResponse.class);
+        } catch (EmptyResultDataAccessException e) {
+            return null;
+        } catch (JsonProcessingException e) {
+            log.error("Error parsing JSON from DB for customer id={}", id, e);
+            throw new RuntimeException("Error parsing data", e);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.lt.dbcomparator.service.graph;
+
+import com.lt.dbcomparator.dto.CustomerResponse;
+import com.lt.dbcomparator.dto.CustomerResponse.ItemResponse;
+import com.lt.dbcomparator.dto.CustomerResponse.OrderResponse;
+import com.lt.dbcomparator.dto.CustomerResponse.ProductResponse;
+import com.lt.dbcomparator.dto.CustomerResponse.ProfileResponse;
+import com.lt.dbcomparator.dto.ReadMode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.lt.dbcomparator.service.graph.GraphRows.*;
+
+/**
+ * Граф из простых запросов по таблицам: клиент, профиль, заказы клиента,
+ * позиции всех его заказов одним {@code order_id = ANY(?)}. Товары не
+ * читаются из БД на каждый запрос — берутся из {@link ProductLookup}.
+ * <p>
+ * 4 round-trip'а (3, если заказов нет; профиль читается первым, чтобы
+ * собрать клиента сразу), каждый — узкий индексный запрос без
+ * JOIN и без дублирования родительских колонок; сборка — в приложении.
+ */
+@Component
+@RequiredArgsConstructor
+public class MultiQueryReadStrategy implements ReadStrategy {
+
+    private static final String CUSTOMER_SQL = "SELECT " + CUSTOMER_COLUMNS + " FROM customers c WHERE c.id = ?";
+    private static final String PROFILE_SQL = "SELECT " + PROFILE_COLUMNS +
+            " FROM customer_profiles p WHERE p.customer_id = ?";
+    private static final String ORDERS_SQL = "SELECT " + ORDER_COLUMNS +
+            " FROM orders o WHERE o.customer_id = ? ORDER BY o.id";
+    // order_id и product_id — после колонок позиции
+    private static final String ITEMS_SQL = "SELECT " + ITEM_COLUMNS + ", oi.order_id, oi.product_id" +
+            " FROM order_items oi WHERE oi.order_id = ANY(?::bigint[]) ORDER BY oi.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductLookup productLookup;
+
+    /**
+     * Позиция до подстановки товара.
+     */
+    private record ItemRow(long orderId, long productId, ItemResponse item) {
+    }
+
+    @Override
+    public ReadMode mode() {
+        return ReadMode.MULTI_QUERY;
+    }
+
+    @Override
+    public CustomerResponse read(long id) {
+        List<ProfileResponse> profile = jdbcTemplate.query(PROFILE_SQL,
+                (rs, rowNum) -> GraphRows.profile(rs, 1), id);
+        // Заказы дописываются в список после чтения клиента
+        List<OrderResponse> orders = new ArrayList<>();
+        List<CustomerResponse> customer = jdbcTemplate.query(CUSTOMER_SQL,
+                (rs, rowNum) -> GraphRows.customer(rs, 1, profile.isEmpty() ? null : profile.get(0), orders), id);
+        if (customer.isEmpty()) {
+            return null;
+        }
+
+        Map<Long, List<ItemResponse>> itemsByOrder = new HashMap<>();
+        jdbcTemplate.query(ORDERS_SQL, rs -> {
+            List<ItemResponse> items = new ArrayList<>();
+            OrderResponse order = GraphRows.order(rs, 1, items);
+            itemsByOrder.put(order.id(), items);
+            orders.add(order);
+        }, id);
+
+        if (!orders.isEmpty()) {
+            Long[] orderIds = itemsByOrder.keySet().toArray(Long[]::new);
+            List<ItemRow> rows = new ArrayList<>();
+            Set<Long> productIds = new HashSet<>();
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(ITEMS_SQL);
+                ps.setArray(1, con.createArrayOf("bigint", orderIds));
+                return ps;
+            }, rs -> {
+                long productId = rs.getLong(ITEM_WIDTH + 2);
+                rows.add(new ItemRow(rs.getLong(ITEM_WIDTH + 1), productId, GraphRows.item(rs, 1, null)));
+                productIds.add(productId);
+            });
+
+            Map<Long, ProductResponse> products = productLookup.get(productIds);
+            for (ItemRow row : rows) {
+                ItemResponse i = row.item();
+                itemsByOrder.get(row.orderId()).add(new ItemResponse(i.id(), i.quantity(), i.unitPrice(),
+                        i.totalPrice(), i.discount(), i.createdAt(), products.get(row.productId())));
+            }
+        }
+        return customer.get(0);
+    }
+}
@@ -0,0 +1,61 @@
+package com.lt.dbcomparator.service.graph;
+
+import com.lt.dbcomparator.dto.CustomerResponse.ProductResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Товары для сборки графа в приложении, закэшированные по ID.
+ * <p>
+ * Справочник маленький (пул генератора — 200 товаров) и после засева не
+ * меняется, поэтому кэш без вытеснения и инвалидации: отсутствующие ID
+ * дочитываются одним запросом {@code id = ANY(?)} и остаются в памяти.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductLookup {
+
+    private static final String PRODUCTS_SQL = "SELECT " + GraphRows.PRODUCT_COLUMNS +
+            " FROM products pr WHERE pr.id = ANY(?::bigint[])";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Long, ProductResponse> products = new ConcurrentHashMap<>();
+
+    /**
+     * Товары по ID; несуществующие ID в результат не попадают.
+     */
+    public Map<Long, ProductResponse> get(Collection<Long> ids) {
+        Map<Long, ProductResponse> result = new HashMap<>(ids.size() * 2);
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            ProductResponse product = products.get(id);
+            if (product != null) {
+                result.put(id, product);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Long[] array = missing.toArray(Long[]::new);
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(PRODUCTS_SQL);
+                ps.setArray(1, con.createArrayOf("bigint", array));
+                return ps;
+            }, rs -> {
+                ProductResponse product = GraphRows.product(rs, 1);
+                products.put(product.id(), product);
+                result.put(product.id(), product);
+            });
+        }
+        return result;
+    }
+}
@@ -0,0 +1,21 @@
+package com.lt.dbcomparator.service.graph;
+
+import com.lt.dbcomparator.dto.CustomerResponse;
+import com.lt.dbcomparator.dto.ReadMode;
+
+/**
+ * Способ чтения полного графа клиента (Profile, Orders → Items → Products).
+ * <p>
+ * Реализации — Spring-бины; {@link CustomerGraphReader} выбирает нужную по
+ * {@link ReadMode} и меряет её. Чтение выполняется внутри read-only
+ * транзакции вызывающего кода.
+ */
+public interface ReadStrategy {
+
+    ReadMode mode();
+
+    /**
+     * @return граф клиента или {@code null}, если клиента нет
+     */
+    CustomerResponse read(long id);
+}
@@ -0,0 +1,285 @@
+package com.lt.dbcomparator.service.history;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lt.dbcomparator.dto.LoadRequest;
+import com.lt.dbcomparator.dto.RunComparisonResponse;
+import com.lt.dbcomparator.dto.RunComparisonResponse.MetricComparison;
+import com.lt.dbcomparator.dto.RunComparisonResponse.Verdict;
+import com.lt.dbcomparator.dto.RunRecord;
+import com.lt.dbcomparator.service.target.ConnectionPools;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * История прогонов генератора в таблице {@code load_runs} и сравнение
+ * прогонов между собой.
+ * <p>
+ * Сравнение идёт по выборкам окон ({@link RunSampler}): скорость записи и p99
+ * latency. Показатель считается изменившимся, если t-тест Уэлча даёт
+ * p &lt; {@code generator.history.alpha} и относительное изменение средних
+ * больше {@code generator.history.min-change-percent}. Ухудшение —
+ * падение скорости или рост p99.
+ */
+@Slf4j
+@Service
+public class RunHistoryService {
+
+    private static final String COLUMNS = "id, started_at, finished_at, baseline, config, environment, summary";
+
+    private static final TypeReference<List<RunRecord.Sample>> SAMPLES = new TypeReference<>() {
+    };
+    private static final TypeReference<Map<String, Object>> MAP = new TypeReference<>() {
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Duration sampleInterval;
+    private final double alpha;
+    private final double minChangePercent;
+
+    public RunHistoryService(ConnectionPools pools,
+            ObjectMapper objectMapper,
+            @Value("${generator.history.enabled:true}") boolean enabled,
+            @Value("${generator.history.sample-interval:10s}") Duration sampleInterval,
+            @Value("${generator.history.alpha:0.05}") double alpha,
+            @Value("${generator.history.min-change-percent:5}") double minChangePercent) {
+        if (sampleInterval.isZero() || sampleInterval.isNegative()) {
+            throw new IllegalArgumentException("generator.history.sample-interval должен быть > 0");
+        }
+        if (!(alpha > 0 && alpha < 1)) {
+            throw new IllegalArgumentException("generator.history.alpha должен быть в интервале (0, 1)");
+        }
+        if (minChangePercent < 0) {
+            throw new IllegalArgumentException("generator.history.min-change-percent должен быть >= 0");
+        }
+        // Служебные запросы не должны ждать соединение за воркерами генератора
+        this.jdbcTemplate = pools.admin().jdbcTemplate();
+        this.transactionTemplate = pools.admin().transactionTemplate();
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.sampleInterval = sampleInterval;
+        this.alpha = alpha;
+        this.minChangePercent = minChangePercent;
+    }
+
+    // ═══════════════════════════════════════════
+    // Запись
+    // ═══════════════════════════════════════════
+
+    /**
+     * Начинает замеры окон прогона.
+     *
+     * @param records счётчик записей прогона
+     * @return {@code null}, если история выключена
+     */
+    public RunSampler startSampling(LongSupplier records) {
+        return enabled ? new RunSampler(sampleInterval.toNanos(), records) : null;
+    }
+
+    /**
+     * Окружение прогона: версия и имя БД из самой БД, остальное — из запроса.
+     */
+    public RunRecord.Environment environment(LoadRequest request, int poolSize) {
+        String[] db = jdbcTemplate.queryForObject(
+                "SELECT current_setting('server_version'), current_database()",
+                (rs, i) -> new String[] { rs.getString(1), rs.getString(2) });
+        return new RunRecord.Environment(db[0], db[1], poolSize,
+                request.getWorkerThreads(), request.getSynthesisThreads(),
+                Runtime.getRuntime().availableProcessors(), Runtime.version().toString());
+    }
+
+    /**
+     * @return ID сохранённого прогона
+     */
+    public long save(RunRecord run) {
+        Long id = jdbcTemplate.queryForObject("""
+                INSERT INTO load_runs (started_at, finished_at, config, environment, summary, samples)
+                VALUES (?, ?, ?::jsonb, ?::jsonb, ?::jsonb, ?::jsonb)
+                RETURNING id
+                """, Long.class,
+                Timestamp.from(run.getStartedAt()), Timestamp.from(run.getFinishedAt()),
+                toJson(run.getConfig()), toJson(run.getEnvironment()), toJson(run.getSummary()),
+                toJson(run.getSamples() != null ? run.getSamples() : List.of()));
+        log.info("Прогон сохранён в историю: id={}", id);
+        return id;
+    }
+
+    /**
+     * Делает прогон базовым для сравнения; прежний базовый перестаёт им быть.
+     */
+    public void markBaseline(long id) {
+        requireRun(id);
+        // Два UPDATE: уникальный индекс по baseline проверяется построчно
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE load_runs SET baseline = FALSE WHERE baseline AND id <> ?", id);
+            jdbcTemplate.update("UPDATE load_runs SET baseline = TRUE WHERE id = ?", id);
+        });
+    }
+
+    // ═══════════════════════════════════════════
+    // Чтение
+    // ═══════════════════════════════════════════
+
+    /**
+     * Последние прогоны, новые первыми, без выборок окон.
+     */
+    public List<RunRecord> list(int limit) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM load_runs ORDER BY id DESC LIMIT ?",
+                mapper(false), limit);
+    }
+
+    public Optional<RunRecord> get(long id) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + ", samples FROM load_runs WHERE id = ?", mapper(true), id)
+                .stream().findFirst();
+    }
+
+    // ═══════════════════════════════════════════
+    // Сравнение
+    // ═══════════════════════════════════════════
+
+    /**
+     * @param baselineId  {@code null} — прогон, отмеченный базовым
+     * @param candidateId {@code null} — последний прогон
+     */
+    public RunComparisonResponse compare(Long baselineId, Long candidateId) {
+        RunRecord baseline = baselineId != null ? requireRun(baselineId) : jdbcTemplate
+                .query("SELECT " + COLUMNS + ", samples FROM load_runs WHERE baseline", mapper(true))
+                .stream().findFirst()
+                .orElseThrow(() -> new IllegalStateException(
+                        "Базовый прогон не выбран. Укажите baseline или вызовите PUT /api/runs/{id}/baseline."));
+        RunRecord candidate = candidateId != null ? requireRun(candidateId) : jdbcTemplate
+                .query("SELECT " + COLUMNS + ", samples FROM load_runs ORDER BY id DESC LIMIT 1", mapper(true))
+                .stream().findFirst()
+                .orElseThrow(() -> new IllegalStateException("В истории нет прогонов"));
+        if (baseline.getId().equals(candidate.getId())) {
+            throw new IllegalArgumentException("Прогон " + baseline.getId() + " нельзя сравнить сам с собой");
+        }
+
+        // Окна без завершённых батчей не дают p99 — в выборку latency не идут
+        List<MetricComparison> metrics = List.of(
+                compareMetric("recordsPerSecond", baseline, candidate, s -> true,
+                        RunRecord.Sample::recordsPerSecond, true),
+                compareMetric("latencyP99Ms", baseline, candidate, s -> s.batches() > 0,
+                        RunRecord.Sample::latencyP99Ms, false));
+
+        return RunComparisonResponse.builder()
+                .baselineId(baseline.getId())
+                .candidateId(candidate.getId())
+                .regression(metrics.stream().anyMatch(m -> m.verdict() == Verdict.REGRESSION))
+                .configChanges(changes(baseline.getConfig(), candidate.getConfig()))
+                .environmentChanges(changes(baseline.getEnvironment(), candidate.getEnvironment()))
+                .metrics(metrics)
+                .build();
+    }
+
+    private MetricComparison compareMetric(String metric, RunRecord baseline, RunRecord candidate,
+            Predicate<RunRecord.Sample> usable,
+            ToDoubleFunction<RunRecord.Sample> value, boolean higherIsBetter) {
+        double[] a = values(baseline, usable, value);
+        double[] b = values(candidate, usable, value);
+        double meanA = WelchTest.mean(a);
+        double meanB = WelchTest.mean(b);
+        Double delta = meanA != 0 ? (meanB - meanA) / meanA * 100 : null;
+        Double p = WelchTest.pValue(a, b);
+
+        Verdict verdict;
+        if (p == null) {
+            verdict = Verdict.INSUFFICIENT_DATA;
+        } else if (p >= alpha || delta == null || Math.abs(delta) < minChangePercent) {
+            verdict = Verdict.NO_CHANGE;
+        } else {
+            verdict = (delta > 0) == higherIsBetter ? Verdict.IMPROVEMENT : Verdict.REGRESSION;
+        }
+        return new MetricComparison(metric, meanA, meanB, delta, p, a.length, b.length, verdict);
+    }
+
+    private static double[] values(RunRecord run, Predicate<RunRecord.Sample> usable,
+            ToDoubleFunction<RunRecord.Sample> value) {
+        return run.getSamples().stream().filter(usable).mapToDouble(value).toArray();
+    }
+
+    /**
+     * Поля, значения которых различаются: {@code "поле: было → стало"}.
+     */
+    private List<String> changes(Object before, Object after) {
+        Map<String, Object> a = before != null ? objectMapper.convertValue(before, MAP) : Map.of();
+        Map<String, Object> b = after != null ? objectMapper.convertValue(after, MAP) : Map.of();
+        Set<String> keys = new LinkedHashSet<>(a.keySet());
+        keys.addAll(b.keySet());
+        List<String> result = new ArrayList<>();
+        for (String key : keys) {
+            if (!Objects.equals(a.get(key), b.get(key))) {
+                result.add(key + ": " + a.get(key) + " → " + b.get(key));
+            }
+        }
+        return result;
+    }
+
+    // ═══════════════════════════════════════════
+    // Утилиты
+    // ═══════════════════════════════════════════
+
+    private RunRecord requireRun(long id) {
+        return get(id).orElseThrow(() -> new IllegalArgumentException("Прогон " + id + " не найден"));
+    }
+
+    private RowMapper<RunRecord> mapper(boolean withSamples) {
+        return (rs, i) -> RunRecord.builder()
+                .id(rs.getLong("id"))
+                .startedAt(rs.getTimestamp("started_at").toInstant())
+                .finishedAt(rs.getTimestamp("finished_at").toInstant())
+                .baseline(rs.getBoolean("baseline"))
+                .config(fromJson(rs, "config", LoadRequest.class))
+                .environment(fromJson(rs, "environment", RunRecord.Environment.class))
+                .summary(fromJson(rs, "summary", RunRecord.Summary.class))
+                .samples(withSamples ? fromJson(rs.getString("samples"), SAMPLES) : null)
+                .build();
+    }
+
+    private <T> T fromJson(ResultSet rs, String column, Class<T> type) throws SQLException {
+        try {
+            return objectMapper.readValue(rs.getString(column), type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось разобрать " + column + " прогона " + rs.getLong("id"), e);
+        }
+    }
+
+    private <T> T fromJson(String json, TypeReference<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось разобрать выборки прогона", e);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать прогон", e);
+        }
+    }
+}
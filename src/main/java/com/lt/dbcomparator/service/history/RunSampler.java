@@ -0,0 +1,92 @@
+package com.lt.dbcomparator.service.history;
+
+import com.lt.dbcomparator.dto.RunRecord;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Замеры прогона по окнам фиксированной длины: скорость записи и p99
+ * latency батчей, завершённых в окне. Итог прогона — одно число на показатель,
+ * а для проверки значимости разницы между прогонами нужны выборки.
+ * <p>
+ * Latency пишется в {@link Recorder}: запись из воркеров без блокировок, а
+ * снятие окна атомарно подменяет гистограмму. Неполное последнее окно
+ * учитывается, если оно не короче половины интервала.
+ */
+public class RunSampler {
+
+    private final Recorder latency = new Recorder(3);
+    private final LongSupplier records;
+    private final long intervalNanos;
+    private final long startedAtNanos;
+    private final ScheduledExecutorService scheduler;
+    private final List<RunRecord.Sample> samples = new ArrayList<>();
+
+    private Histogram recycled;
+    private long windowStartNanos;
+    private long windowStartRecords;
+    private boolean stopped;
+
+    RunSampler(long intervalNanos, LongSupplier records) {
+        this.intervalNanos = intervalNanos;
+        this.records = records;
+        this.startedAtNanos = System.nanoTime();
+        this.windowStartNanos = startedAtNanos;
+        this.windowStartRecords = records.getAsLong();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "run-sampler");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleAtFixedRate(this::sample, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param latencyMicros latency завершённого батча, мкс
+     */
+    public void recordLatency(long latencyMicros) {
+        latency.recordValue(Math.max(0, latencyMicros));
+    }
+
+    /**
+     * Закрывает последнее окно и останавливает замеры.
+     */
+    public synchronized void stop() {
+        if (stopped)
+            return;
+        scheduler.shutdownNow();
+        if (System.nanoTime() - windowStartNanos >= intervalNanos / 2) {
+            sample();
+        }
+        stopped = true;
+    }
+
+    public synchronized List<RunRecord.Sample> samples() {
+        return List.copyOf(samples);
+    }
+
+    private synchronized void sample() {
+        if (stopped)
+            return;
+        long now = System.nanoTime();
+        long total = records.getAsLong();
+        recycled = latency.getIntervalHistogram(recycled);
+        double seconds = (now - windowStartNanos) / 1e9;
+        if (seconds > 0) {
+            samples.add(new RunRecord.Sample(
+                    (now - startedAtNanos) / 1e9,
+                    (total - windowStartRecords) / seconds,
+                    recycled.getValueAtPercentile(99.0) / 1000.0,
+                    recycled.getTotalCount()));
+        }
+        windowStartNanos = now;
+        windowStartRecords = total;
+    }
+}
@@ -0,0 +1,116 @@
+package com.lt.dbcomparator.service.history;
+
+/**
+ * Двусторонний t-тест Уэлча для двух выборок с разной дисперсией.
+ * <p>
+ * Окна одного прогона считаем независимыми наблюдениями — при окнах в
+ * секунды это приближение (соседние окна коррелируют), поэтому кроме
+ * p-value регрессия требует ещё и минимального относительного изменения.
+ * p-value — через функцию распределения Стьюдента, выраженную регуляризованной
+ * неполной бета-функцией: p = I_{ν/(ν+t²)}(ν/2, 1/2).
+ */
+final class WelchTest {
+
+    private WelchTest() {
+    }
+
+    /**
+     * @return p-value; {@code null}, если в одной из выборок меньше двух значений
+     */
+    static Double pValue(double[] a, double[] b) {
+        if (a.length < 2 || b.length < 2)
+            return null;
+        double ma = mean(a), mb = mean(b);
+        double va = variance(a, ma) / a.length;
+        double vb = variance(b, mb) / b.length;
+        double se2 = va + vb;
+        if (se2 == 0) {
+            // Обе выборки постоянны: либо разницы нет, либо она есть без разброса
+            return ma == mb ? 1.0 : 0.0;
+        }
+        double t = (ma - mb) / Math.sqrt(se2);
+        // Степени свободы Уэлча–Саттертуэйта
+        double df = se2 * se2 / (va * va / (a.length - 1) + vb * vb / (b.length - 1));
+        return regularizedBeta(df / (df + t * t), df / 2, 0.5);
+    }
+
+    static double mean(double[] x) {
+        double sum = 0;
+        for (double v : x) {
+            sum += v;
+        }
+        return x.length > 0 ? sum / x.length : 0;
+    }
+
+    private static double variance(double[] x, double mean) {
+        double sum = 0;
+        for (double v : x) {
+            sum += (v - mean) * (v - mean);
+        }
+        return sum / (x.length - 1);
+    }
+
+    // ── I_x(a, b): цепная дробь Лентца (Numerical Recipes, betai/betacf) ──
+
+    static double regularizedBeta(double x, double a, double b) {
+        if (x <= 0)
+            return 0;
+        if (x >= 1)
+            return 1;
+        double front = Math.exp(logGamma(a + b) - logGamma(a) - logGamma(b)
+                + a * Math.log(x) + b * Math.log(1 - x));
+        // Дробь сходится быстро при x < (a+1)/(a+b+2), иначе — через симметрию
+        if (x < (a + 1) / (a + b + 2)) {
+            return front * continuedFraction(x, a, b) / a;
+        }
+        return 1 - front * continuedFraction(1 - x, b, a) / b;
+    }
+
+    private static double continuedFraction(double x, double a, double b) {
+        final double tiny = 1e-300;
+        double c = 1;
+        double d = 1 - (a + b) * x / (a + 1);
+        d = 1 / (Math.abs(d) < tiny ? tiny : d);
+        double h = d;
+        for (int m = 1; m <= 300; m++) {
+            int m2 = 2 * m;
+            double aa = m * (b - m) * x / ((a + m2 - 1) * (a + m2));
+            d = 1 / nonZero(1 + aa * d, tiny);
+            c = nonZero(1 + aa / c, tiny);
+            h *= d * c;
+            aa = -(a + m) * (a + b + m) * x / ((a + m2) * (a + m2 + 1));
+            d = 1 / nonZero(1 + aa * d, tiny);
+            c = nonZero(1 + aa / c, tiny);
+            double delta = d * c;
+            h *= delta;
+            if (Math.abs(delta - 1) < 1e-12)
+                break;
+        }
+        return h;
+    }
+
+    private static double nonZero(double v, double tiny) {
+        return Math.abs(v) < tiny ? tiny : v;
+    }
+
+    // ── ln Γ(x): приближение Ланцоша (g=7, 9 коэффициентов) ──
+
+    private static final double[] LANCZOS = {
+            0.99999999999980993, 676.5203681218851, -1259.1392167224028,
+            771.32342877765313, -176.61502916214059, 12.507343278686905,
+            -0.13857109526572012, 9.9843695780195716e-6, 1.5056327351493116e-7 };
+
+    static double logGamma(double x) {
+        if (x < 0.5) {
+            // Отражение: Γ(x)Γ(1−x) = π / sin(πx)
+            return Math.log(Math.PI / Math.abs(Math.sin(Math.PI * x))) - logGamma(1 - x);
+        }
+        x -= 1;
+        double sum = LANCZOS[0];
+        double t = x + 7.5;
+        for (int i = 1; i < LANCZOS.length; i++) {
+            sum += LANCZOS[i] / (x + i);
+        }
+        return 0.5 * Math.log(2 * Math.PI) + (x + 0.5) * Math.log(t) - t + Math.log(sum);
+    }
+}
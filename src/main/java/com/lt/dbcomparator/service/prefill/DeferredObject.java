@@ -0,0 +1,16 @@
+package com.lt.dbcomparator.service.prefill;
+
+/**
+ * Индекс или внешний ключ, снятый на время предзаполнения. DDL снимается из
+ * каталога до удаления и хранится в задании — после перезапуска приложения
+ * объект восстанавливается ровно таким, каким был.
+ *
+ * @param createDdl {@code CREATE INDEX ...} / {@code ALTER TABLE ... ADD CONSTRAINT ...}
+ * @param dropDdl   {@code DROP INDEX IF EXISTS ...} / {@code ALTER TABLE ... DROP CONSTRAINT IF EXISTS ...}
+ */
+public record DeferredObject(Kind kind, String name, String table, String createDdl, String dropDdl) {
+
+    public enum Kind {
+        INDEX, FOREIGN_KEY
+    }
+}
@@ -0,0 +1,45 @@
+package com.lt.dbcomparator.service.prefill;
+
+import com.lt.dbcomparator.service.target.ConnectionPools;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Незавершённые задания предзаполнения ({@code prefill_jobs} без
+ * {@code finished_at}).
+ * <p>
+ * Такое задание идёт сейчас или прервано (/stop, ошибка, перезапуск
+ * приложения), и его индексы и внешние ключи могут быть сняты фазой DEFER.
+ * Генератор и сравнение в это время не запускаются — их цифры мерили бы
+ * таблицы без индексов. Отдельный бин, а не {@link PrefillService}: тот сам
+ * зависит от генератора.
+ */
+@Component
+public class PrefillJobs {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PrefillJobs(ConnectionPools pools) {
+        this.jdbcTemplate = pools.admin().jdbcTemplate();
+    }
+
+    /**
+     * @return id последнего незавершённого задания или {@code null}
+     */
+    public Long unfinishedJobId() {
+        return jdbcTemplate.queryForObject("SELECT max(id) FROM prefill_jobs WHERE finished_at IS NULL", Long.class);
+    }
+
+    /**
+     * @param what что запускается — для сообщения об ошибке
+     * @throws IllegalStateException если есть незавершённое задание
+     */
+    public void checkNoneUnfinished(String what) {
+        Long id = unfinishedJobId();
+        if (id != null) {
+            throw new IllegalStateException(what + " не запускается: задание предзаполнения " + id +
+                    " не завершено, его индексы и ключи могут быть сняты. Дождитесь его окончания " +
+                    "или продолжите через /api/prefill/resume.");
+        }
+    }
+}
@@ -0,0 +1,634 @@
+package com.lt.dbcomparator.service.prefill;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lt.dbcomparator.dto.PrefillRequest;
+import com.lt.dbcomparator.dto.PrefillStatusResponse;
+import com.lt.dbcomparator.dto.PrefillStatusResponse.Phase;
+import com.lt.dbcomparator.dto.PrefillStatusResponse.PhaseResult;
+import com.lt.dbcomparator.dto.PrefillStatusResponse.Step;
+import com.lt.dbcomparator.dto.WriteMode;
+import com.lt.dbcomparator.service.DataGeneratorService;
+import com.lt.dbcomparator.service.IdBlockAllocator;
+import com.lt.dbcomparator.service.IdRangeTracker;
+import com.lt.dbcomparator.service.generator.BatchBuffer;
+import com.lt.dbcomparator.service.generator.BatchSynthesizer;
+import com.lt.dbcomparator.service.generator.GeneratorMetrics;
+import com.lt.dbcomparator.service.generator.ProductCatalog;
+import com.lt.dbcomparator.service.generator.WriteStrategy;
+import com.lt.dbcomparator.service.target.ConnectionPools;
+import com.lt.dbcomparator.service.target.DbTarget;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Предзаполнение БД заданным числом графов клиентов — без темпа, с
+ * максимальной скоростью.
+ * <p>
+ * Задание резервирует у sequence непрерывные диапазоны ID клиентов и профилей
+ * на весь объём и делит их на куски по {@code batchSize} клиентов. Кусок —
+ * одна транзакция: данные плюс строка в {@code prefill_chunks}. Соединения
+ * пишут каждое свой непрерывный отрезок кусков. Содержимое куска зависит
+ * только от seed задания и номера куска, поэтому после остановки или
+ * перезапуска приложения {@link #resume} дописывает недостающие куски теми
+ * же данными. ID заказов и позиций берутся у {@link IdBlockAllocator} —
+ * у недописанного куска они просто теряются.
+ * <p>
+ * Фазы: DEFER — снять вторичные индексы и внешние ключи по шаблонам
+ * {@code generator.prefill.deferred-indexes} / {@code deferred-foreign-keys}
+ * (DDL сохраняется в задании), LOAD — запись, REBUILD_INDEXES и
+ * REBUILD_FOREIGN_KEYS — восстановление параллельно по соединению на объект,
+ * ANALYZE — статистика для планировщика. Генератор во время предзаполнения
+ * запускать нельзя: он писал бы в таблицы без индексов и ключей. Обратную
+ * проверку — генератор и сравнение не стартуют при незавершённом задании —
+ * делает {@link PrefillJobs}.
+ */
+@Slf4j
+@Service
+public class PrefillService {
+
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+    // Шаг seed между кусками — как у SplittableRandom
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final List<String> TABLES = GeneratorMetrics.TABLES;
+    private static final TypeReference<List<DeferredObject>> DEFERRED = new TypeReference<>() {
+    };
+
+    private final DbTarget writer;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final TransactionTemplate transactionTemplate;
+    private final IdBlockAllocator idAllocator;
+    private final IdRangeTracker idRanges;
+    private final DataGeneratorService generatorService;
+    private final PrefillJobs prefillJobs;
+    private final ObjectMapper objectMapper;
+    private final String deferredIndexes;
+    private final String deferredForeignKeys;
+    private final String maintenanceWorkMem;
+
+    private final Map<WriteMode, WriteStrategy> strategies = new EnumMap<>(WriteMode.class);
+    private final Map<String, Counter> rowCounters = new LinkedHashMap<>();
+    private final Map<Phase, Timer> phaseTimers = new EnumMap<>(Phase.class);
+
+    // ── Состояние ──
+    private volatile boolean running;
+    private volatile boolean stopRequested;
+    private volatile boolean finished;
+    private Thread runner;
+    private volatile Job job;
+    private volatile Phase phase;
+    private volatile String error;
+    private long[] productIds;
+
+    // ── Прогресс текущего запуска ──
+    private final AtomicLong chunksDone = new AtomicLong();
+    private volatile long chunksResumed;
+    private final Map<String, LongAdder> tableRows = new LinkedHashMap<>();
+    private final Set<String> pendingDeferred = ConcurrentHashMap.newKeySet();
+    private final List<PhaseResult> phases = new CopyOnWriteArrayList<>();
+    private final List<Step> currentSteps = new CopyOnWriteArrayList<>();
+    private volatile long phaseStartedNanos;
+
+    public PrefillService(ConnectionPools pools,
+            IdBlockAllocator idAllocator,
+            IdRangeTracker idRanges,
+            List<WriteStrategy> writeStrategies,
+            DataGeneratorService generatorService,
+            PrefillJobs prefillJobs,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${generator.prefill.deferred-indexes:idx_order_%,idx_item_%}") String deferredIndexes,
+            @Value("${generator.prefill.deferred-foreign-keys:fk_item_%}") String deferredForeignKeys,
+            @Value("${generator.prefill.maintenance-work-mem:512MB}") String maintenanceWorkMem) {
+        // Запись кусков и DDL — через пул writer, как у генератора
+        this.writer = pools.writer();
+        this.jdbcTemplate = writer.jdbcTemplate();
+        this.transactionManager = writer.transactionManager();
+        this.transactionTemplate = writer.transactionTemplate();
+        this.idAllocator = idAllocator;
+        this.idRanges = idRanges;
+        this.generatorService = generatorService;
+        this.prefillJobs = prefillJobs;
+        this.objectMapper = objectMapper;
+        this.deferredIndexes = deferredIndexes;
+        this.deferredForeignKeys = deferredForeignKeys;
+        this.maintenanceWorkMem = maintenanceWorkMem;
+        for (WriteStrategy strategy : writeStrategies) {
+            strategies.put(strategy.mode(), strategy);
+        }
+        for (String table : TABLES) {
+            tableRows.put(table, new LongAdder());
+            rowCounters.put(table, Counter.builder("prefill.rows")
+                    .description("Строк записано предзаполнением в таблицу")
+                    .tag("table", table)
+                    .register(meterRegistry));
+        }
+        for (Phase p : Phase.values()) {
+            phaseTimers.put(p, Timer.builder("prefill.phase.duration")
+                    .description("Длительность фазы предзаполнения")
+                    .tag("phase", p.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    // ═══════════════════════════════════════════
+    // API
+    // ═══════════════════════════════════════════
+
+    public synchronized void start(PrefillRequest request) {
+        checkCanRun();
+        Long unfinished = prefillJobs.unfinishedJobId();
+        if (unfinished != null) {
+            throw new IllegalStateException("Есть незавершённое задание " + unfinished +
+                    ": его индексы и ключи могут быть сняты. Продолжите его через /api/prefill/resume.");
+        }
+
+        validate(request);
+        if (request.getBatchSize() == 0) {
+            request.setBatchSize(DEFAULT_BATCH_SIZE);
+        }
+        if (request.getWriteMode() == null) {
+            request.setWriteMode(WriteMode.COPY);
+        }
+        if (request.getDeferConstraints() == null) {
+            request.setDeferConstraints(true);
+        }
+        if (request.getSeed() == null) {
+            request.setSeed(new SplittableRandom().nextLong());
+        }
+        if (!strategies.get(request.getWriteMode()).usesPreallocatedIds()) {
+            throw new IllegalArgumentException("writeMode " + request.getWriteMode() +
+                    " не подходит: куски привязаны к диапазонам ID, нужны COPY, INSERT или MULTI_VALUES");
+        }
+        request.setThreads(resolveThreads(request.getThreads()));
+
+        long firstCustomerId = idAllocator.reserve(GeneratorMetrics.CUSTOMERS, request.getCustomers());
+        long firstProfileId = idAllocator.reserve(GeneratorMetrics.CUSTOMER_PROFILES, request.getCustomers());
+        List<DeferredObject> deferred = request.getDeferConstraints() ? captureDeferred() : List.of();
+        LocalDateTime dataTime = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+
+        Long id = jdbcTemplate.queryForObject("""
+                INSERT INTO prefill_jobs (config, first_customer_id, first_profile_id, data_time, deferred)
+                VALUES (?::jsonb, ?, ?, ?, ?::jsonb)
+                RETURNING id
+                """, Long.class,
+                toJson(request), firstCustomerId, firstProfileId, Timestamp.valueOf(dataTime), toJson(deferred));
+
+        launch(new Job(id, request, firstCustomerId, firstProfileId, dataTime, deferred), new BitSet());
+    }
+
+    /**
+     * Продолжает последнее незавершённое задание: дописывает недостающие
+     * куски и выполняет оставшиеся фазы.
+     *
+     * @param threads соединений (0 = размер пула)
+     */
+    public synchronized void resume(int threads) {
+        checkCanRun();
+        if (threads < 0) {
+            throw new IllegalArgumentException("threads должен быть >= 0 (0 = размер пула)");
+        }
+        Long id = prefillJobs.unfinishedJobId();
+        if (id == null) {
+            throw new IllegalStateException("Незавершённых заданий нет");
+        }
+        Job resumed = jdbcTemplate.queryForObject("""
+                SELECT config, first_customer_id, first_profile_id, data_time, deferred
+                FROM prefill_jobs WHERE id = ?
+                """, (rs, i) -> new Job(id,
+                fromJson(rs.getString("config"), PrefillRequest.class),
+                rs.getLong("first_customer_id"),
+                rs.getLong("first_profile_id"),
+                rs.getTimestamp("data_time").toLocalDateTime(),
+                fromJson(rs.getString("deferred"), DEFERRED)), id);
+
+        BitSet done = new BitSet();
+        jdbcTemplate.query("SELECT chunk_no FROM prefill_chunks WHERE job_id = ?",
+                rs -> done.set((int) rs.getLong(1)), id);
+        // Потоки — текущего запуска, а не исходного
+        resumed.config().setThreads(resolveThreads(threads));
+        launch(resumed, done);
+    }
+
+    /**
+     * Останавливает задание после текущих кусков. Уже идущие CREATE INDEX /
+     * ALTER TABLE дорабатывают до конца. Задание остаётся незавершённым.
+     */
+    public void stop() {
+        Thread worker;
+        synchronized (this) {
+            if (!running)
+                return;
+            stopRequested = true;
+            worker = runner;
+        }
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Предзаполнение остановлено: кусков {}", chunksDone.get());
+    }
+
+    public PrefillStatusResponse getStatus() {
+        Job j = job;
+        List<PhaseResult> results = new ArrayList<>(phases);
+        Phase current = phase;
+        if (running && current != null) {
+            results.add(phaseResult(current, (System.nanoTime() - phaseStartedNanos) / 1e9));
+        }
+        Map<String, Long> rows = new LinkedHashMap<>();
+        tableRows.forEach((table, adder) -> rows.put(table, adder.sum()));
+        return PrefillStatusResponse.builder()
+                .running(running)
+                .jobId(j != null ? j.id() : null)
+                .config(j != null ? j.config() : null)
+                .phase(current)
+                .finished(finished)
+                .chunksTotal(j != null ? j.chunks() : 0)
+                .chunksDone(chunksDone.get())
+                .chunksResumed(chunksResumed)
+                .tableRows(rows)
+                .deferred(j != null ? j.deferred().stream()
+                        .map(DeferredObject::name)
+                        .filter(pendingDeferred::contains)
+                        .toList() : List.of())
+                .phases(results)
+                .error(error)
+                .build();
+    }
+
+    // ═══════════════════════════════════════════
+    // Фазы
+    // ═══════════════════════════════════════════
+
+    private void launch(Job j, BitSet done) {
+        this.productIds = ProductCatalog.ensure(jdbcTemplate, transactionTemplate);
+        this.job = j;
+        this.running = true;
+        this.stopRequested = false;
+        this.finished = false;
+        this.error = null;
+        this.phase = null;
+        this.chunksResumed = done.cardinality();
+        this.chunksDone.set(chunksResumed);
+        tableRows.values().forEach(LongAdder::reset);
+        phases.clear();
+        pendingDeferred.clear();
+        j.deferred().forEach(d -> pendingDeferred.add(d.name()));
+
+        this.runner = new Thread(() -> run(j, done), "prefill");
+        runner.setDaemon(true);
+        runner.start();
+        log.info("Предзаполнение: задание {}, клиентов {}, кусков {} (записано {}), потоков {}, mode={}, снято {}",
+                j.id(), j.config().getCustomers(), j.chunks(), chunksResumed, j.config().getThreads(),
+                j.config().getWriteMode(), j.deferred().stream().map(DeferredObject::name).toList());
+    }
+
+    private void run(Job j, BitSet done) {
+        int threads = j.config().getThreads();
+        try {
+            List<DeferredObject> indexes = ofKind(j, DeferredObject.Kind.INDEX);
+            List<DeferredObject> foreignKeys = ofKind(j, DeferredObject.Kind.FOREIGN_KEY);
+
+            if (!j.deferred().isEmpty()) {
+                // Ключи раньше индексов; повторно — если после перезапуска schema.sql их вернул
+                runPhase(Phase.DEFER, () -> {
+                    for (DeferredObject d : foreignKeys) {
+                        timed(d, () -> jdbcTemplate.execute(d.dropDdl()));
+                    }
+                    for (DeferredObject d : indexes) {
+                        timed(d, () -> jdbcTemplate.execute(d.dropDdl()));
+                    }
+                });
+            }
+            runPhase(Phase.LOAD, () -> load(j, threads, done));
+            if (stopRequested)
+                return;
+
+            runPhase(Phase.REBUILD_INDEXES, () -> parallel(indexes, threads, this::recreate));
+            runPhase(Phase.REBUILD_FOREIGN_KEYS, () -> parallel(foreignKeys, threads, this::recreate));
+            if (stopRequested)
+                return;
+            runPhase(Phase.ANALYZE, () -> parallel(TABLES, threads, table -> {
+                long startNs = System.nanoTime();
+                jdbcTemplate.execute("ANALYZE " + table);
+                currentSteps.add(new Step(table, table, (System.nanoTime() - startNs) / 1e9));
+            }));
+
+            jdbcTemplate.update("UPDATE prefill_jobs SET finished_at = now() WHERE id = ?", j.id());
+            finished = true;
+            log.info("Предзаполнение: задание {} завершено", j.id());
+        } catch (Exception e) {
+            error = e.getMessage();
+            log.error("Предзаполнение: задание {} остановлено ошибкой: {}", j.id(), e.getMessage(), e);
+        } finally {
+            running = false;
+        }
+    }
+
+    /**
+     * Запись: N соединений, у каждого свой непрерывный отрезок кусков.
+     */
+    private void load(Job j, int threads, BitSet done) throws Exception {
+        WriteStrategy strategy = strategies.get(j.config().getWriteMode());
+        long chunks = j.chunks();
+        int workers = (int) Math.max(1, Math.min(threads, chunks));
+        ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "prefill-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < workers; w++) {
+                long from = chunks * w / workers;
+                long to = chunks * (w + 1) / workers;
+                futures.add(pool.submit(() -> {
+                    BatchBuffer buffer = new BatchBuffer();
+                    for (long chunk = from; chunk < to && !stopRequested; chunk++) {
+                        if (!done.get((int) chunk)) {
+                            writeChunk(j, chunk, buffer, strategy);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            awaitAll(futures);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void writeChunk(Job j, long chunk, BatchBuffer b, WriteStrategy strategy) {
+        int batchSize = j.config().getBatchSize();
+        int count = (int) Math.min(batchSize, j.config().getCustomers() - chunk * batchSize);
+        BatchSynthesizer.fill(b, count, productIds,
+                new SplittableRandom(j.config().getSeed() ^ (chunk * GOLDEN_GAMMA)), j.dataTime());
+        long firstCustomerId = j.firstCustomerId() + chunk * batchSize;
+        b.assignIds(firstCustomerId,
+                j.firstProfileId() + chunk * batchSize,
+                idAllocator.allocate(GeneratorMetrics.ORDERS, b.orders()),
+                idAllocator.allocate(GeneratorMetrics.ORDER_ITEMS, b.items()));
+
+        TransactionStatus tx = transactionManager.getTransaction(TransactionDefinition.withDefaults());
+        try {
+            strategy.write(b, jdbcTemplate);
+            jdbcTemplate.update("INSERT INTO prefill_chunks (job_id, chunk_no) VALUES (?, ?)", j.id(), chunk);
+        } catch (RuntimeException | Error e) {
+            transactionManager.rollback(tx);
+            throw e;
+        }
+        transactionManager.commit(tx);
+
+        idRanges.record(firstCustomerId, count);
+        addRows(GeneratorMetrics.CUSTOMERS, b.customers());
+        addRows(GeneratorMetrics.CUSTOMER_PROFILES, b.customers());
+        addRows(GeneratorMetrics.ORDERS, b.orders());
+        addRows(GeneratorMetrics.ORDER_ITEMS, b.items());
+        chunksDone.incrementAndGet();
+    }
+
+    /**
+     * Создаёт объект, если его ещё нет (возобновление после частичного
+     * восстановления). maintenance_work_mem — только на транзакцию DDL.
+     */
+    private void recreate(DeferredObject d) {
+        if (!exists(d)) {
+            timed(d, () -> transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.execute("SET LOCAL maintenance_work_mem = '" + maintenanceWorkMem + "'");
+                jdbcTemplate.execute(d.createDdl());
+            }));
+        }
+        pendingDeferred.remove(d.name());
+    }
+
+    // ═══════════════════════════════════════════
+    // Каталог
+    // ═══════════════════════════════════════════
+
+    /**
+     * DDL индексов и внешних ключей по шаблонам LIKE. Индексы, на которых
+     * держатся ограничения (PK, UNIQUE), не трогаем.
+     */
+    private List<DeferredObject> captureDeferred() {
+        List<DeferredObject> result = new ArrayList<>(jdbcTemplate.query("""
+                SELECT c.conname, c.conrelid::regclass::text AS tbl,
+                       format('ALTER TABLE %s ADD CONSTRAINT %I %s',
+                              c.conrelid::regclass, c.conname, pg_get_constraintdef(c.oid)) AS create_ddl,
+                       format('ALTER TABLE %s DROP CONSTRAINT IF EXISTS %I', c.conrelid::regclass, c.conname) AS drop_ddl
+                FROM pg_constraint c
+                JOIN pg_namespace n ON n.oid = c.connamespace
+                WHERE c.contype = 'f'
+                  AND n.nspname = current_schema()
+                  AND c.conname LIKE ANY (string_to_array(?, ','))
+                ORDER BY tbl, c.conname
+                """, (rs, i) -> new DeferredObject(DeferredObject.Kind.FOREIGN_KEY, rs.getString(1), rs.getString(2),
+                rs.getString(3), rs.getString(4)), deferredForeignKeys));
+        result.addAll(jdbcTemplate.query("""
+                SELECT i.indexname, i.tablename, i.indexdef,
+                       format('DROP INDEX IF EXISTS %I.%I', i.schemaname, i.indexname)
+                FROM pg_indexes i
+                WHERE i.schemaname = current_schema()
+                  AND i.indexname LIKE ANY (string_to_array(?, ','))
+                  AND NOT EXISTS (SELECT 1 FROM pg_constraint c
+                                  WHERE c.conindid = format('%I.%I', i.schemaname, i.indexname)::regclass)
+                ORDER BY i.tablename, i.indexname
+                """, (rs, i) -> new DeferredObject(DeferredObject.Kind.INDEX, rs.getString(1), rs.getString(2),
+                rs.getString(3), rs.getString(4)), deferredIndexes));
+        return result;
+    }
+
+    private boolean exists(DeferredObject d) {
+        Boolean exists = d.kind() == DeferredObject.Kind.INDEX
+                ? jdbcTemplate.queryForObject(
+                        "SELECT EXISTS (SELECT 1 FROM pg_indexes WHERE schemaname = current_schema() AND indexname = ?)",
+                        Boolean.class, d.name())
+                : jdbcTemplate.queryForObject(
+                        "SELECT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = ? AND conrelid = to_regclass(?))",
+                        Boolean.class, d.name(), d.table());
+        return Boolean.TRUE.equals(exists);
+    }
+
+    // ═══════════════════════════════════════════
+    // Утилиты
+    // ═══════════════════════════════════════════
+
+    @FunctionalInterface
+    private interface PhaseBody {
+        void run() throws Exception;
+    }
+
+    private void runPhase(Phase p, PhaseBody body) throws Exception {
+        currentSteps.clear();
+        phaseStartedNanos = System.nanoTime();
+        phase = p;
+        body.run();
+        long elapsedNs = System.nanoTime() - phaseStartedNanos;
+        phaseTimers.get(p).record(elapsedNs, TimeUnit.NANOSECONDS);
+        phases.add(phaseResult(p, elapsedNs / 1e9));
+        log.info("Предзаполнение: фаза {} — {} с", p, String.format("%.1f", elapsedNs / 1e9));
+    }
+
+    private PhaseResult phaseResult(Phase p, double seconds) {
+        Map<String, Double> rowsPerSecond = new LinkedHashMap<>();
+        if (p == Phase.LOAD && seconds > 0) {
+            tableRows.forEach((table, adder) -> rowsPerSecond.put(table, adder.sum() / seconds));
+        }
+        return new PhaseResult(p, seconds, rowsPerSecond, List.copyOf(currentSteps));
+    }
+
+    private void timed(DeferredObject d, Runnable action) {
+        long startNs = System.nanoTime();
+        action.run();
+        currentSteps.add(new Step(d.name(), d.table(), (System.nanoTime() - startNs) / 1e9));
+    }
+
+    /**
+     * Выполняет действие над каждым элементом на своём соединении, не больше
+     * {@code threads} одновременно.
+     */
+    private <T> void parallel(List<T> items, int threads, Consumer<T> action) throws Exception {
+        if (items.isEmpty())
+            return;
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, items.size()), r -> {
+            Thread t = new Thread(r, "prefill-ddl");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (T item : items) {
+                futures.add(pool.submit(() -> action.accept(item)));
+            }
+            awaitAll(futures);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Ждёт все задачи; при первой ошибке просит остальные остановиться и
+     * пробрасывает её причину.
+     */
+    private void awaitAll(List<Future<?>> futures) throws Exception {
+        for (Future<?> f : futures) {
+            try {
+                f.get();
+            } catch (ExecutionException e) {
+                stopRequested = true;
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            }
+        }
+    }
+
+    private void addRows(String table, int rows) {
+        tableRows.get(table).add(rows);
+        rowCounters.get(table).increment(rows);
+    }
+
+    private static List<DeferredObject> ofKind(Job j, DeferredObject.Kind kind) {
+        return j.deferred().stream().filter(d -> d.kind() == kind).toList();
+    }
+
+    private void checkCanRun() {
+        if (running) {
+            throw new IllegalStateException("Предзаполнение уже идёт. Сначала вызовите /stop.");
+        }
+        if (generatorService.getStatus().isRunning()) {
+            throw new IllegalStateException("Генератор запущен. Предзаполнение снимает индексы и ключи — " +
+                    "сначала остановите генератор.");
+        }
+    }
+
+    private int resolveThreads(int requested) {
+        int poolSize = ConnectionPools.maximumPoolSize(writer, Math.max(2, Runtime.getRuntime().availableProcessors()));
+        if (requested > poolSize) {
+            throw new IllegalArgumentException("threads=" + requested + " больше размера пула соединений " + poolSize +
+                    " (" + ConnectionPools.sizeProperty(writer) + ")");
+        }
+        return requested > 0 ? requested : poolSize;
+    }
+
+    static void validate(PrefillRequest req) {
+        if (req.getCustomers() <= 0)
+            throw new IllegalArgumentException("customers должен быть > 0");
+        if (req.getBatchSize() < 0)
+            throw new IllegalArgumentException("batchSize должен быть >= 0 (0 = " + DEFAULT_BATCH_SIZE + ")");
+        if (req.getThreads() < 0)
+            throw new IllegalArgumentException("threads должен быть >= 0 (0 = размер пула)");
+        int batchSize = req.getBatchSize() > 0 ? req.getBatchSize() : DEFAULT_BATCH_SIZE;
+        if ((req.getCustomers() + batchSize - 1) / batchSize > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Слишком много кусков: увеличьте batchSize");
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать задание", e);
+        }
+    }
+
+    private <T> T fromJson(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось разобрать задание", e);
+        }
+    }
+
+    private <T> T fromJson(String json, TypeReference<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось разобрать задание", e);
+        }
+    }
+
+    /**
+     * Задание: параметры, зарезервированные диапазоны ID и снятые объекты.
+     *
+     * @param dataTime «сейчас» для всех кусков — повтор куска даёт те же данные
+     */
+    private record Job(long id, PrefillRequest config, long firstCustomerId, long firstProfileId,
+            LocalDateTime dataTime, List<DeferredObject> deferred) {
+
+        long chunks() {
+            return (config.getCustomers() + config.getBatchSize() - 1) / config.getBatchSize();
+        }
+    }
+}
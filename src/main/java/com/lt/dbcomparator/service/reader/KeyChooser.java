@@ -0,0 +1,61 @@
+package com.lt.dbcomparator.service.reader;
+
+import com.lt.dbcomparator.dto.KeyDistribution;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Выбор ранга ключа ∈ [0, n) по заданному распределению.
+ * <p>
+ * Ранги — порядковые номера известных ID (см. IdRangeTracker): 0 — самый
+ * старый, n - 1 — самый свежий. n читается на каждый выбор, поэтому ключи,
+ * записанные генератором во время прогона, сразу попадают в выборку.
+ */
+public final class KeyChooser {
+
+    // 64-битный FNV-1a — перемешивает популярные zipf-ранги по всему диапазону
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private final KeyDistribution distribution;
+    private final double zipfExponent;
+    private final double hotsetFraction;
+    private final double hotOpnFraction;
+
+    public KeyChooser(KeyDistribution distribution, double zipfExponent,
+            double hotsetFraction, double hotOpnFraction) {
+        this.distribution = distribution;
+        this.zipfExponent = zipfExponent;
+        this.hotsetFraction = hotsetFraction;
+        this.hotOpnFraction = hotOpnFraction;
+    }
+
+    public long nextRank(long n, RandomGenerator r) {
+        return switch (distribution) {
+            case UNIFORM -> r.nextLong(n);
+            case ZIPFIAN -> scramble(ZipfSampler.sample(n, zipfExponent, r) - 1, n);
+            case HOTSPOT -> hotspot(n, r);
+            case LATEST -> n - ZipfSampler.sample(n, zipfExponent, r);
+        };
+    }
+
+    /**
+     * Горячее множество — первые hotsetFraction рангов.
+     */
+    private long hotspot(long n, RandomGenerator r) {
+        long hot = Math.max(1, (long) (n * hotsetFraction));
+        if (hot >= n || r.nextDouble() < hotOpnFraction) {
+            return r.nextLong(hot);
+        }
+        return hot + r.nextLong(n - hot);
+    }
+
+    private static long scramble(long rank, long n) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < 8; i++) {
+            hash ^= (rank >>> (i * 8)) & 0xFF;
+            hash *= FNV_PRIME;
+        }
+        return Math.floorMod(hash, n);
+    }
+}
@@ -0,0 +1,73 @@
+package com.lt.dbcomparator.service.reader;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Zipf-распределение на {1..n} методом rejection-inversion
+ * (W. Hörmann, G. Derflinger, «Rejection-inversion to generate variates from
+ * monotone discrete distributions», 1996).
+ * <p>
+ * O(1) на значение и без предвычисленной zeta(n): n может расти между
+ * вызовами (реестр ID пополняется генератором) без пересчёта таблиц.
+ */
+public final class ZipfSampler {
+
+    private ZipfSampler() {
+    }
+
+    /**
+     * @return k ∈ [1, n], P(k) ∝ 1 / k^exponent
+     */
+    public static long sample(long n, double exponent, RandomGenerator r) {
+        if (n <= 1) {
+            return 1;
+        }
+        double hIntegralX1 = hIntegral(1.5, exponent) - 1.0;
+        double hIntegralN = hIntegral(n + 0.5, exponent);
+        double s = 2.0 - hIntegralInverse(hIntegral(2.5, exponent) - h(2.0, exponent), exponent);
+        while (true) {
+            double u = hIntegralN + r.nextDouble() * (hIntegralX1 - hIntegralN);
+            double x = hIntegralInverse(u, exponent);
+            long k = (long) (x + 0.5);
+            if (k < 1) {
+                k = 1;
+            } else if (k > n) {
+                k = n;
+            }
+            if (k - x <= s || u >= hIntegral(k + 0.5, exponent) - h(k, exponent)) {
+                return k;
+            }
+        }
+    }
+
+    private static double h(double x, double exponent) {
+        return Math.exp(-exponent * Math.log(x));
+    }
+
+    private static double hIntegral(double x, double exponent) {
+        double logX = Math.log(x);
+        return helper2((1.0 - exponent) * logX) * logX;
+    }
+
+    private static double hIntegralInverse(double x, double exponent) {
+        double t = x * (1.0 - exponent);
+        if (t < -1.0) {
+            t = -1.0; // защита от погрешности округления
+        }
+        return Math.exp(helper1(t) * x);
+    }
+
+    /**
+     * log(1 + x) / x, устойчиво при x → 0.
+     */
+    private static double helper1(double x) {
+        return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1.0 - x * (0.5 - x * (1.0 / 3.0 - 0.25 * x));
+    }
+
+    /**
+     * (exp(x) - 1) / x, устойчиво при x → 0.
+     */
+    private static double helper2(double x) {
+        return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1.0 + x * 0.5 * (1.0 + x / 3.0 * (1.0 + 0.25 * x));
+    }
+}
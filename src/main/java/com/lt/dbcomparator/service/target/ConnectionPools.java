@@ -0,0 +1,143 @@
+package com.lt.dbcomparator.service.target;
+
+import com.lt.dbcomparator.config.PoolProperties;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Пулы соединений к основной БД по ролям.
+ * <p>
+ * {@code reader} — основной пул приложения ({@code spring.datasource}, JPA и
+ * его менеджер транзакций): API клиентов и нагрузка на чтение. {@code writer}
+ * — запись генератора, предзаполнения и цели {@code primary} сравнения;
+ * {@code admin} — история прогонов, калибровка и резервирование блоков ID
+ * ({@link com.lt.dbcomparator.service.IdBlockAllocator}). Если бы запись и чтение
+ * делили один пул, 16+ воркеров генератора занимали бы соединения, и latency
+ * чтения мерила бы очередь пула, а не БД.
+ * <p>
+ * {@code writer} и {@code admin} — отдельные HikariDataSource на те же
+ * url / пользователя, что и {@code spring.datasource}, с теми же настройками
+ * {@code spring.datasource.hikari} (таймауты, {@code data-source-properties},
+ * {@code connection-init-sql} и т.д.) — своими у них только имя и размер
+ * ({@code pools.<роль>}). Метрики — свои {@code hikaricp.*} (тег
+ * {@code pool}). Бинами DataSource они не регистрируются, иначе Spring Boot
+ * не создал бы основной пул.
+ * Режим записи JPA пишет через {@code writer} своим EntityManager
+ * ({@link WriterJpa}).
+ */
+@Slf4j
+@Component
+public class ConnectionPools {
+
+    public static final String READER = "reader";
+    public static final String WRITER = "writer";
+    public static final String ADMIN = "admin";
+
+    private final DbTarget reader;
+    private final DbTarget writer;
+    private final DbTarget admin;
+    private final List<HikariDataSource> ownedPools = new ArrayList<>();
+
+    public ConnectionPools(PoolProperties properties,
+            DataSourceProperties dataSourceProperties,
+            Environment environment,
+            DataSource dataSource,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry) {
+        this.reader = new DbTarget(READER, dataSource, jdbcTemplate, transactionManager);
+        if (properties.isIsolated()) {
+            Binder binder = Binder.get(environment);
+            this.writer = create(WRITER, properties.getWriter(), dataSourceProperties, binder, meterRegistry);
+            this.admin = create(ADMIN, properties.getAdmin(), dataSourceProperties, binder, meterRegistry);
+        } else {
+            this.writer = reader;
+            this.admin = reader;
+        }
+    }
+
+    public DbTarget reader() {
+        return reader;
+    }
+
+    public DbTarget writer() {
+        return writer;
+    }
+
+    public DbTarget admin() {
+        return admin;
+    }
+
+    /**
+     * Размер пула ({@code maximumPoolSize} Hikari).
+     *
+     * @param fallback если пул не Hikari или размер не узнать
+     */
+    public static int maximumPoolSize(DbTarget pool, int fallback) {
+        try {
+            if (pool.dataSource().isWrapperFor(HikariDataSource.class)) {
+                return pool.dataSource().unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException e) {
+            log.warn("Не удалось определить размер пула {}: {}", pool.name(), e.getMessage());
+        }
+        return fallback;
+    }
+
+    /**
+     * Настройка, которой задаётся размер пула, — для сообщений об ошибках.
+     */
+    public static String sizeProperty(DbTarget pool) {
+        return READER.equals(pool.name())
+                ? "spring.datasource.hikari.maximum-pool-size"
+                : "pools." + pool.name() + ".maximum-pool-size";
+    }
+
+    @PreDestroy
+    void close() {
+        ownedPools.forEach(HikariDataSource::close);
+    }
+
+    /**
+     * Пул роли: подключение и настройки Hikari — как у основного пула
+     * (в том же порядке, что у Spring Boot: сначала {@code spring.datasource},
+     * затем {@code spring.datasource.hikari}), имя и размер — свои.
+     */
+    private DbTarget create(String name, PoolProperties.Pool cfg, DataSourceProperties db, Binder binder,
+            MeterRegistry meterRegistry) {
+        if (cfg.getMaximumPoolSize() <= 0) {
+            throw new IllegalArgumentException("pools." + name + ".maximum-pool-size должен быть > 0");
+        }
+        HikariConfig hikari = new HikariConfig();
+        hikari.setJdbcUrl(db.determineUrl());
+        hikari.setUsername(db.determineUsername());
+        hikari.setPassword(db.determinePassword());
+        hikari.setDriverClassName(db.determineDriverClassName());
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(hikari));
+        hikari.setPoolName(name);
+        hikari.setMaximumPoolSize(cfg.getMaximumPoolSize());
+        hikari.setMinimumIdle(Math.min(cfg.getMinimumIdle(), cfg.getMaximumPoolSize()));
+        hikari.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        HikariDataSource ds = new HikariDataSource(hikari);
+        ownedPools.add(ds);
+        log.info("Пул {}: {} соединений", name, cfg.getMaximumPoolSize());
+        return new DbTarget(name, ds, new JdbcTemplate(ds), new DataSourceTransactionManager(ds));
+    }
+}
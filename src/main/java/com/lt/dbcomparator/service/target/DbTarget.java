@@ -0,0 +1,22 @@
+package com.lt.dbcomparator.service.target;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * Именованная БД, на которую можно подать нагрузку: свой пул соединений,
+ * JdbcTemplate и менеджер транзакций.
+ */
+public record DbTarget(
+        String name,
+        DataSource dataSource,
+        JdbcTemplate jdbcTemplate,
+        PlatformTransactionManager transactionManager) {
+
+    public TransactionTemplate transactionTemplate() {
+        return new TransactionTemplate(transactionManager);
+    }
+}
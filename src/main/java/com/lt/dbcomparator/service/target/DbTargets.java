@@ -0,0 +1,90 @@
+package com.lt.dbcomparator.service.target;
+
+import com.lt.dbcomparator.config.ComparatorProperties;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Реестр БД для сравнения.
+ * <p>
+ * {@code primary} — основная БД приложения через пул {@code writer}
+ * ({@link ConnectionPools}), тот же, что у генератора. Остальные цели — из
+ * {@link ComparatorProperties}: для каждой создаётся отдельный
+ * HikariDataSource, и при старте на неё накатывается schema.sql (все DDL в
+ * нём идемпотентны), поэтому новая пустая БД сразу готова к нагрузке.
+ */
+@Slf4j
+@Component
+public class DbTargets {
+
+    public static final String PRIMARY = "primary";
+
+    private final Map<String, DbTarget> targets = new LinkedHashMap<>();
+    private final List<HikariDataSource> ownedPools = new ArrayList<>();
+
+    public DbTargets(ComparatorProperties properties, ConnectionPools pools) {
+        DbTarget writer = pools.writer();
+        targets.put(PRIMARY, new DbTarget(PRIMARY, writer.dataSource(), writer.jdbcTemplate(),
+                writer.transactionManager()));
+        properties.getTargets().forEach((name, cfg) -> {
+            if (targets.containsKey(name)) {
+                throw new IllegalArgumentException("Цель сравнения '" + name + "' уже объявлена");
+            }
+            targets.put(name, create(name, cfg));
+        });
+    }
+
+    /**
+     * Цель по имени.
+     */
+    public DbTarget get(String name) {
+        DbTarget target = targets.get(name);
+        if (target == null) {
+            throw new IllegalArgumentException("Неизвестная цель '" + name + "'. Доступны: " + targets.keySet());
+        }
+        return target;
+    }
+
+    /**
+     * Имена всех целей в порядке объявления ({@code primary} — первая).
+     */
+    public List<String> names() {
+        return Collections.unmodifiableList(new ArrayList<>(targets.keySet()));
+    }
+
+    @PreDestroy
+    void close() {
+        ownedPools.forEach(HikariDataSource::close);
+    }
+
+    private DbTarget create(String name, ComparatorProperties.Target cfg) {
+        if (cfg.getUrl() == null || cfg.getUrl().isBlank()) {
+            throw new IllegalArgumentException("comparator.targets." + name + ".url не задан");
+        }
+        HikariConfig hikari = new HikariConfig();
+        hikari.setPoolName("target-" + name);
+        hikari.setJdbcUrl(cfg.getUrl());
+        hikari.setUsername(cfg.getUsername());
+        hikari.setPassword(cfg.getPassword());
+        hikari.setMaximumPoolSize(cfg.getMaximumPoolSize());
+        HikariDataSource ds = new HikariDataSource(hikari);
+        ownedPools.add(ds);
+
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(ds);
+        log.info("Цель сравнения '{}': {} (пул {})", name, cfg.getUrl(), cfg.getMaximumPoolSize());
+        return new DbTarget(name, ds, new JdbcTemplate(ds), new DataSourceTransactionManager(ds));
+    }
+}
@@ -0,0 +1,85 @@
+package com.lt.dbcomparator.service.target;
+
+import com.lt.dbcomparator.entity.Customer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * JPA поверх пула {@code writer} — для режима записи JPA генератора.
+ * <p>
+ * Основной EntityManager привязан к пулу {@code reader}; если бы JPA-запись
+ * шла через него, воркеры генератора занимали бы соединения чтения — ровно
+ * то, от чего {@link ConnectionPools} разводит пулы. Здесь свой
+ * EntityManagerFactory на тех же сущностях и настройках
+ * {@code spring.jpa.*}, но на DataSource {@code writer} и со своим
+ * JpaTransactionManager. Схемой он не управляет ({@code hbm2ddl.auto=none}) —
+ * это делает основной.
+ * <p>
+ * Бином EntityManagerFactory не регистрируется, иначе Spring Boot не
+ * создал бы основной.
+ */
+@Slf4j
+@Component
+public class WriterJpa {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final EntityManager entityManager;
+    private final DbTarget target;
+
+    public WriterJpa(ConnectionPools pools,
+            EntityManagerFactoryBuilder builder,
+            JpaProperties jpaProperties,
+            HibernateProperties hibernateProperties) {
+        DbTarget writer = pools.writer();
+        Map<String, Object> properties = new HashMap<>(
+                hibernateProperties.determineHibernateProperties(jpaProperties.getProperties(), new HibernateSettings()));
+        properties.put(AvailableSettings.HBM2DDL_AUTO, "none");
+        LocalContainerEntityManagerFactoryBean factory = builder.dataSource(writer.dataSource())
+                .packages(Customer.class)
+                .persistenceUnit(ConnectionPools.WRITER)
+                .properties(properties)
+                .build();
+        factory.afterPropertiesSet();
+        this.entityManagerFactory = factory.getObject();
+        this.entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+
+        JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+        transactionManager.setDataSource(writer.dataSource());
+        this.target = new DbTarget(writer.name(), writer.dataSource(), writer.jdbcTemplate(), transactionManager);
+        log.info("EntityManagerFactory для записи JPA на пуле {}", writer.name());
+    }
+
+    /**
+     * Пул {@code writer} с менеджером транзакций JPA: JdbcTemplate и
+     * {@link #entityManager()} работают в одной транзакции.
+     */
+    public DbTarget target() {
+        return target;
+    }
+
+    /**
+     * EntityManager, привязанный к текущей транзакции {@link #target()}.
+     */
+    public EntityManager entityManager() {
+        return entityManager;
+    }
+
+    @PreDestroy
+    void close() {
+        entityManagerFactory.close();
+    }
+}
@@ -91,3 +91,53 @@ CREATE TABLE IF NOT EXISTS order_items
 
 CREATE INDEX IF NOT EXISTS idx_item_order   ON order_items (order_id);
 CREATE INDEX IF NOT EXISTS idx_item_product ON order_items (product_id);
+
+-- 6. История прогонов генератора (RunHistoryService); не сущность JPA
+CREATE TABLE IF NOT EXISTS load_runs
+(
+    id          BIGSERIAL   PRIMARY KEY,
+    started_at  TIMESTAMPTZ NOT NULL,
+    finished_at TIMESTAMPTZ NOT NULL,
+    baseline    BOOLEAN     NOT NULL DEFAULT FALSE,
+    config      JSONB       NOT NULL,
+    environment JSONB       NOT NULL,
+    summary     JSONB       NOT NULL,
+    samples     JSONB       NOT NULL
+);
+
+-- Базовым может быть только один прогон
+CREATE UNIQUE INDEX IF NOT EXISTS idx_load_run_baseline ON load_runs (baseline) WHERE baseline;
+
+-- 7. Задания предзаполнения (PrefillService): диапазоны ID, снятые индексы/ключи
+CREATE TABLE IF NOT EXISTS prefill_jobs
+(
+    id                BIGSERIAL   PRIMARY KEY,
+    config            JSONB       NOT NULL,
+    first_customer_id BIGINT      NOT NULL,
+    first_profile_id  BIGINT      NOT NULL,
+    data_time         TIMESTAMP   NOT NULL,
+    deferred          JSONB       NOT NULL,
+    created_at        TIMESTAMPTZ NOT NULL DEFAULT now(),
+    finished_at       TIMESTAMPTZ
+);
+
+-- Записанные куски задания — пишутся в транзакции куска, по ним задание возобновляется
+CREATE TABLE IF NOT EXISTS prefill_chunks
+(
+    job_id   BIGINT NOT NULL REFERENCES prefill_jobs (id),
+    chunk_no BIGINT NOT NULL,
+    PRIMARY KEY (job_id, chunk_no)
+);
+
+-- 8. Калибровка стоимости батча по способу записи (CapacityService); ею /start проверяет темп
+CREATE TABLE IF NOT EXISTS capacity_calibration
+(
+    write_mode             VARCHAR(20)      PRIMARY KEY,
+    fixed_ms               DOUBLE PRECISION NOT NULL,
+    ms_per_graph           DOUBLE PRECISION NOT NULL,
+    calibrated_at          TIMESTAMPTZ      NOT NULL,
+    batch_size             INTEGER          NOT NULL,
+    worker_threads         INTEGER          NOT NULL,
+    max_batches_per_second DOUBLE PRECISION,
+    target_p99_ms          DOUBLE PRECISION NOT NULL
+);
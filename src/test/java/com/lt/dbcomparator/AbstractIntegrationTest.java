@@ -5,6 +5,11 @@ import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.testcontainers.containers.PostgreSQLContainer;
 
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
 /**
  * Базовый класс для интеграционных тестов.
  * Один контейнер PostgreSQL на весь тестовый прогон (singleton pattern).
@@ -17,12 +22,22 @@ public abstract class AbstractIntegrationTest {
     // кэшироваться.
     static final PostgreSQLContainer<?> POSTGRES;
 
+    // Вторая БД в том же контейнере — цель "secondary" для сравнения
+    static final String SECONDARY_DB = "demo_test_b";
+
     static {
         POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine")
                 .withDatabaseName("demo_test")
                 .withUsername("test")
                 .withPassword("test");
         POSTGRES.start();
+        try (Connection con = DriverManager.getConnection(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(),
+                POSTGRES.getPassword());
+                Statement st = con.createStatement()) {
+            st.execute("CREATE DATABASE " + SECONDARY_DB);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Не удалось создать БД " + SECONDARY_DB, e);
+        }
     }
 
     @DynamicPropertySource
@@ -31,5 +46,12 @@ public abstract class AbstractIntegrationTest {
         registry.add("spring.datasource.username", POSTGRES::getUsername);
         registry.add("spring.datasource.password", POSTGRES::getPassword);
         registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+        registry.add("customers.cache.enabled", () -> "true");
+        // Короткие окна — чтобы за секунды прогона набралась выборка для сравнения
+        registry.add("generator.history.sample-interval", () -> "1s");
+        registry.add("comparator.targets.secondary.url",
+                () -> POSTGRES.getJdbcUrl().replace("/" + POSTGRES.getDatabaseName(), "/" + SECONDARY_DB));
+        registry.add("comparator.targets.secondary.username", POSTGRES::getUsername);
+        registry.add("comparator.targets.secondary.password", POSTGRES::getPassword);
     }
 }
@@ -0,0 +1,139 @@
+package com.lt.dbcomparator;
+
+import com.lt.dbcomparator.dto.CapacityRequest;
+import com.lt.dbcomparator.dto.CapacityStatusResponse;
+import com.lt.dbcomparator.dto.CapacityStatusResponse.Limit;
+import com.lt.dbcomparator.dto.CapacityStatusResponse.Phase;
+import com.lt.dbcomparator.dto.CapacityStatusResponse.StepResult;
+import com.lt.dbcomparator.dto.LoadRequest;
+import com.lt.dbcomparator.dto.WriteMode;
+import com.lt.dbcomparator.service.DataGeneratorService;
+import com.lt.dbcomparator.service.capacity.CapacityCalibration;
+import com.lt.dbcomparator.service.capacity.CapacityService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Тест поиска предела: шаги разгона, остановка на неустойчивом шаге,
+ * сохранение калибровки и её использование в проверке /start.
+ */
+class CapacityIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private CapacityService capacityService;
+
+    @Autowired
+    private CapacityCalibration capacityCalibration;
+
+    @Autowired
+    private DataGeneratorService generatorService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanup() {
+        capacityService.stop();
+        generatorService.stop();
+        // Калибровка меняет проверку темпа в /api/generator/start у остальных тестов
+        jdbcTemplate.update("DELETE FROM capacity_calibration");
+    }
+
+    @Test
+    @DisplayName("Поиск с калибровкой сохраняет стоимость батча, и /start проверяет темп по ней")
+    void shouldCalibrateAndFindSustainableRate() {
+        // given — недостижимо мягкая цель: все шаги устойчивы, поиск упирается в maxSteps
+        CapacityRequest request = CapacityRequest.builder()
+                .load(LoadRequest.builder().batchSize(20).workerThreads(2).build())
+                .targetP99Ms(60_000)
+                .startRate(4.0)
+                .stepFactor(2.0)
+                .stepSeconds(2)
+                .maxSteps(2)
+                .calibrationSeconds(2)
+                .build();
+
+        // when
+        capacityService.start(request);
+        await().atMost(60, SECONDS).until(() -> !capacityService.getStatus().isRunning());
+
+        // then
+        CapacityStatusResponse status = capacityService.getStatus();
+        assertThat(status.getError()).isNull();
+        assertThat(status.getPhase()).isEqualTo(Phase.DONE);
+        assertThat(status.getSteps()).extracting(StepResult::phase)
+                .containsExactly(Phase.CALIBRATE, Phase.CALIBRATE, Phase.RAMP, Phase.RAMP);
+        assertThat(status.getSteps()).extracting(StepResult::batchSize).containsExactly(20, 5, 20, 20);
+        assertThat(status.getMaxSustainableBatchesPerSecond()).isEqualTo(8.0);
+        assertThat(status.getLimitedBy()).isNull();
+
+        assertThat(status.getCalibration()).isNotNull();
+        assertThat(status.getCalibration().mode()).isEqualTo(WriteMode.INSERT);
+        assertThat(status.getCalibration().fixedMs()).isPositive();
+        assertThat(status.getCalibration().maxBatchesPerSecond()).isEqualTo(8.0);
+        assertThat(capacityCalibration.get(WriteMode.INSERT)).isPresent();
+        assertThat(capacityCalibration.maxBatchesPerSecond(20, 2, WriteMode.INSERT).source())
+                .startsWith("калибровка");
+        // Для других способов записи калибровки нет
+        assertThat(capacityCalibration.maxBatchesPerSecond(20, 2, WriteMode.COPY).source())
+                .isEqualTo("эвристика");
+    }
+
+    @Test
+    @DisplayName("Недостижимая p99 останавливает разгон на первом шаге с ограничением LATENCY")
+    void shouldStopOnLatencyLimit() {
+        // given
+        CapacityRequest request = CapacityRequest.builder()
+                .load(LoadRequest.builder().batchSize(20).workerThreads(2).build())
+                .targetP99Ms(0.001)
+                .startRate(4.0)
+                .stepSeconds(2)
+                .calibrate(false)
+                .build();
+
+        // when
+        capacityService.start(request);
+        await().atMost(30, SECONDS).until(() -> !capacityService.getStatus().isRunning());
+
+        // then
+        CapacityStatusResponse status = capacityService.getStatus();
+        assertThat(status.getError()).isNull();
+        assertThat(status.getSteps()).hasSize(1);
+        assertThat(status.getSteps().get(0).sustainable()).isFalse();
+        assertThat(status.getLimitedBy()).isEqualTo(Limit.LATENCY);
+        assertThat(status.getMaxSustainableBatchesPerSecond()).isNull();
+        assertThat(status.getCalibration()).isNull();
+        assertThat(capacityCalibration.get(WriteMode.INSERT)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Поиск отклоняет некорректные параметры и запуск при работающем генераторе")
+    void shouldRejectInvalidRequests() {
+        LoadRequest load = LoadRequest.builder().batchSize(20).build();
+
+        assertThatThrownBy(() -> capacityService.start(CapacityRequest.builder().load(load).build()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("targetP99Ms");
+        assertThatThrownBy(() -> capacityService.start(
+                CapacityRequest.builder().load(load).targetP99Ms(100).stepFactor(1.0).build()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("stepFactor");
+        assertThatThrownBy(() -> capacityService.start(
+                CapacityRequest.builder().load(load).targetP99Ms(100).startRate(0.0).build()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("startRate");
+
+        generatorService.start(LoadRequest.builder().batchSize(10).batchesPerSecond(1).durationMinutes(1).build());
+        assertThatThrownBy(() -> capacityService.start(
+                CapacityRequest.builder().load(load).targetP99Ms(100).build()))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
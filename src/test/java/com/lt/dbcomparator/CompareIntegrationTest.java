@@ -0,0 +1,126 @@
+package com.lt.dbcomparator;
+
+import com.lt.dbcomparator.dto.CompareRequest;
+import com.lt.dbcomparator.dto.CompareStatusResponse;
+import com.lt.dbcomparator.dto.LoadRequest;
+import com.lt.dbcomparator.dto.WriteMode;
+import com.lt.dbcomparator.service.CompareService;
+import com.lt.dbcomparator.service.target.DbTargets;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Тест сравнения БД: основная БД и вторая БД в том же контейнере.
+ */
+class CompareIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private CompareService compareService;
+
+    @Autowired
+    private DbTargets dbTargets;
+
+    @AfterEach
+    void cleanup() {
+        compareService.stop();
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @EnumSource(value = WriteMode.class, mode = EnumSource.Mode.EXCLUDE, names = "JPA")
+    @DisplayName("Одна нагрузка пишет одинаковые данные в обе цели")
+    void shouldWriteSameLoadToBothTargets(WriteMode mode) {
+        // given
+        long primaryBefore = countCustomers(DbTargets.PRIMARY);
+        long secondaryBefore = countCustomers("secondary");
+        CompareRequest request = CompareRequest.builder()
+                .load(LoadRequest.builder()
+                        .batchSize(10)
+                        .batchesPerSecond(5)
+                        .durationMinutes(1)
+                        .workerThreads(2)
+                        .writeMode(mode)
+                        .build())
+                .targets(List.of(DbTargets.PRIMARY, "secondary"))
+                .seed(42L)
+                .build();
+
+        // when
+        compareService.start(request);
+
+        await().atMost(15, SECONDS).untilAsserted(() -> assertThat(compareService.getStatus().getTargets())
+                .allSatisfy(t -> assertThat(t.batchesCompleted()).isGreaterThanOrEqualTo(3)));
+        compareService.stop();
+
+        // then
+        CompareStatusResponse status = compareService.getStatus();
+        assertThat(status.isRunning()).isFalse();
+        assertThat(status.getTargets()).extracting(CompareStatusResponse.TargetResult::target)
+                .containsExactly(DbTargets.PRIMARY, "secondary");
+        assertThat(status.getTargets()).allSatisfy(t -> {
+            assertThat(t.batchesFailed()).as("batchesFailed для %s", t.target()).isZero();
+            assertThat(t.recordsPerSecond()).isGreaterThan(0);
+            assertThat(t.latencyP99Ms()).isGreaterThan(0);
+        });
+        assertThat(status.getDiff())
+                .allSatisfy(d -> assertThat(d.target()).isEqualTo("secondary"))
+                .extracting(CompareStatusResponse.MetricDiff::metric)
+                .contains("recordsPerSecond", "latencyP99Ms");
+
+        // Каждый записанный батч попал в свою БД целиком
+        for (CompareStatusResponse.TargetResult t : status.getTargets()) {
+            long before = t.target().equals(DbTargets.PRIMARY) ? primaryBefore : secondaryBefore;
+            assertThat(countCustomers(t.target()) - before).isEqualTo(t.batchesCompleted() * 10);
+        }
+    }
+
+    @Test
+    @DisplayName("Справочник продуктов одинаков во всех целях")
+    void shouldSeedSameProductsInEveryTarget() {
+        // given
+        CompareRequest request = CompareRequest.builder()
+                .load(LoadRequest.builder().batchSize(5).batchesPerSecond(2).durationMinutes(1).build())
+                .build();
+
+        // when
+        compareService.start(request);
+        await().atMost(10, SECONDS).untilAsserted(() -> assertThat(compareService.getStatus().getTargets())
+                .allSatisfy(t -> assertThat(t.batchesCompleted()).isGreaterThanOrEqualTo(1)));
+        compareService.stop();
+
+        // then
+        String sql = "SELECT string_agg(name || ':' || price, ',' ORDER BY name, price) FROM products";
+        String primary = dbTargets.get(DbTargets.PRIMARY).jdbcTemplate().queryForObject(sql, String.class);
+        String secondary = dbTargets.get("secondary").jdbcTemplate().queryForObject(sql, String.class);
+        assertThat(primary).isNotEmpty().isEqualTo(secondary);
+    }
+
+    @Test
+    @DisplayName("Сравнение с одной или неизвестной целью отклоняется")
+    void shouldRejectInvalidTargets() {
+        LoadRequest load = LoadRequest.builder().batchSize(5).batchesPerSecond(1).durationMinutes(1).build();
+
+        assertThatThrownBy(() -> compareService.start(CompareRequest.builder()
+                .load(load).targets(List.of(DbTargets.PRIMARY)).build()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> compareService.start(CompareRequest.builder()
+                .load(load).targets(List.of(DbTargets.PRIMARY, "missing")).build()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(compareService.getStatus().isRunning()).isFalse();
+    }
+
+    private long countCustomers(String target) {
+        Long count = dbTargets.get(target).jdbcTemplate().queryForObject("SELECT count(*) FROM customers", Long.class);
+        return count != null ? count : 0;
+    }
+}
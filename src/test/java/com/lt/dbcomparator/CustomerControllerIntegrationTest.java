@@ -1,15 +1,32 @@
 package com.lt.dbcomparator;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lt.dbcomparator.dto.CountStrategy;
+import com.lt.dbcomparator.dto.CustomerResponse;
 import com.lt.dbcomparator.dto.LoadRequest;
+import com.lt.dbcomparator.dto.ReadMode;
+import com.lt.dbcomparator.service.CustomerService;
 import com.lt.dbcomparator.service.DataGeneratorService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.awaitility.Awaitility.await;
@@ -25,6 +42,12 @@ class CustomerControllerIntegrationTest extends AbstractIntegrationTest {
     @Autowired
     private DataGeneratorService generatorService;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @BeforeEach
     void generateData() {
         if (generatorService.getStatus().getTotalRecords() == 0) {
@@ -71,6 +94,215 @@ class CustomerControllerIntegrationTest extends AbstractIntegrationTest {
         assertThat(body).contains("\"content\"");
     }
 
+    @Test
+    @DisplayName("GET /api/customers/{id}/raw — тот же граф байтами из БД")
+    void shouldReturnRawCustomerJson() {
+        // when
+        JsonNode mapped = restTemplate.getForEntity("/api/customers/1", JsonNode.class).getBody();
+        ResponseEntity<JsonNode> raw = restTemplate.getForEntity("/api/customers/1/raw", JsonNode.class);
+
+        // then — структура совпадает, формат дат/чисел может отличаться
+        assertThat(raw.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(raw.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        JsonNode body = raw.getBody();
+        assertThat(body.get("id").asLong()).isEqualTo(mapped.get("id").asLong());
+        assertThat(body.get("firstName").asText()).isEqualTo(mapped.get("firstName").asText());
+        assertThat(body.get("orders")).hasSameSizeAs(mapped.get("orders"));
+        assertThat(body.get("profile").get("city").asText()).isEqualTo(mapped.get("profile").get("city").asText());
+
+        // and — время и CPU запроса замерены отдельно по формату
+        assertThat(meterRegistry.get("customers.get_by_id.duration").tag("format", "raw").timer().count())
+                .isPositive();
+        assertThat(meterRegistry.get("customers.get_by_id.duration").tag("format", "mapped").timer().count())
+                .isPositive();
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @EnumSource(ReadMode.class)
+    @DisplayName("GET /api/customers/{id}?strategy= — каждая стратегия чтения собирает тот же граф")
+    void shouldReadSameGraphWithEveryStrategy(ReadMode strategy) {
+        // when
+        CustomerResponse expected = restTemplate.getForObject("/api/customers/1?strategy=JSON_AGG",
+                CustomerResponse.class);
+        ResponseEntity<CustomerResponse> response = restTemplate.getForEntity(
+                "/api/customers/1?strategy=" + strategy, CustomerResponse.class);
+
+        // then — порядок заказов и позиций у стратегий разный, сравниваем по ID
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(sortedById(response.getBody())).isEqualTo(sortedById(expected));
+        assertThat(expected.orders()).isNotEmpty();
+
+        // and — время и CPU замерены по стратегии
+        assertThat(meterRegistry.get("customers.read.duration").tag("strategy", strategy.name().toLowerCase())
+                .timer().count()).isPositive();
+    }
+
+    @Test
+    @DisplayName("GET /api/customers/{id}/raw?stripNulls=true — без null-полей")
+    void shouldStripNullsInRawJson() {
+        // when
+        String body = restTemplate.getForEntity("/api/customers/1/raw?stripNulls=true", String.class).getBody();
+
+        // then
+        assertThat(body).contains("\"firstName\"");
+        assertThat(body).doesNotContain(":null");
+    }
+
+    @Test
+    @DisplayName("GET /api/customers/batch — графы нескольких клиентов одним запросом")
+    void shouldReturnManyCustomersInOneRequest() {
+        // when — повтор и несуществующий ID
+        ResponseEntity<JsonNode> response = restTemplate.getForEntity(
+                "/api/customers/batch?ids=3,1,2,1,999999999", JsonNode.class);
+
+        // then — по одному графу на существующий ID, по возрастанию
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        JsonNode body = response.getBody();
+        assertThat(body).hasSize(3);
+        assertThat(body.get(0).get("id").asLong()).isEqualTo(1);
+        assertThat(body.get(2).get("id").asLong()).isEqualTo(3);
+
+        // and — граф тот же, что у одиночного запроса
+        JsonNode single = restTemplate.getForEntity("/api/customers/1", JsonNode.class).getBody();
+        assertThat(body.get(0).get("orders")).hasSameSizeAs(single.get("orders"));
+        for (int o = 0; o < single.get("orders").size(); o++) {
+            assertThat(body.get(0).get("orders").get(o).get("items")).hasSameSizeAs(single.get("orders").get(o).get("items"));
+        }
+        assertThat(body.get(0).get("profile").get("city").asText()).isEqualTo(single.get("profile").get("city").asText());
+    }
+
+    @Test
+    @DisplayName("POST /api/customers/batch — 400 для слишком длинного списка ID")
+    void shouldRejectTooManyIds() {
+        // given
+        List<Long> ids = LongStream.rangeClosed(1, CustomerService.MAX_MULTI_GET_IDS + 1).boxed().toList();
+
+        // when
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/customers/batch", ids, String.class);
+
+        // then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @ParameterizedTest(name = "graph={0}")
+    @ValueSource(booleans = { false, true })
+    @DisplayName("GET /api/customers/export — каждый клиент ровно одной строкой NDJSON")
+    void shouldExportEveryCustomerOnce(boolean graph) throws Exception {
+        // given
+        long total = restTemplate.getForEntity("/api/customers?size=1&count=EXACT", JsonNode.class)
+                .getBody().get("totalElements").asLong();
+
+        // when
+        ResponseEntity<String> response = restTemplate.getForEntity(
+                "/api/customers/export?partitions=3&fetchSize=7&graph=" + graph, String.class);
+
+        // then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Set<Long> ids = new HashSet<>();
+        for (String line : response.getBody().split("\n")) {
+            JsonNode customer = objectMapper.readTree(line);
+            ids.add(customer.get("id").asLong());
+            assertThat(customer.has("orders")).isEqualTo(graph);
+        }
+        assertThat(ids).hasSize((int) total);
+        assertThat(response.getBody().split("\n")).hasSize((int) total);
+    }
+
+    @Test
+    @DisplayName("GET /api/customers/{id} — повторное чтение из кэша, после сброса — снова из БД")
+    void shouldServeRepeatedReadsFromCache() {
+        // given
+        restTemplate.delete("/api/customers/cache");
+        double hits = cacheGets("hit");
+        double misses = cacheGets("miss");
+
+        // when
+        restTemplate.getForEntity("/api/customers/1", String.class);
+        restTemplate.getForEntity("/api/customers/1", String.class);
+
+        // then
+        assertThat(cacheGets("miss") - misses).isEqualTo(1);
+        assertThat(cacheGets("hit") - hits).isEqualTo(1);
+
+        // when — сброс графа клиента
+        restTemplate.delete("/api/customers/cache/1");
+        ResponseEntity<String> response = restTemplate.getForEntity("/api/customers/1", String.class);
+
+        // then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(cacheGets("miss") - misses).isEqualTo(2);
+    }
+
+    @ParameterizedTest
+    @EnumSource(CountStrategy.class)
+    @DisplayName("GET /api/customers — totalElements по каждой стратегии подсчёта")
+    void shouldCountByStrategy(CountStrategy strategy) {
+        // when — страница полная, total берётся из стратегии, а не из размера страницы
+        ResponseEntity<JsonNode> response = restTemplate.getForEntity(
+                "/api/customers?page=0&size=1&count=" + strategy, JsonNode.class);
+
+        // then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().get("totalElements").asLong()).isGreaterThanOrEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("GET /api/customers/keyset — страницы по курсору без пропусков и повторов")
+    void shouldWalkKeysetPages() {
+        // when — первая страница
+        ResponseEntity<JsonNode> first = restTemplate.getForEntity(
+                "/api/customers/keyset?size=3&count=EXACT", JsonNode.class);
+
+        // then
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        JsonNode firstPage = first.getBody();
+        assertThat(firstPage.get("content")).hasSize(3);
+        assertThat(firstPage.get("countStrategy").asText()).isEqualTo("EXACT");
+        String cursor = firstPage.get("nextCursor").asText();
+        long lastId = firstPage.get("content").get(2).get("id").asLong();
+
+        // when — следующая страница по курсору
+        JsonNode secondPage = restTemplate.getForEntity(
+                "/api/customers/keyset?size=3&cursor=" + cursor, JsonNode.class).getBody();
+
+        // then — продолжает строго после последнего ID
+        assertThat(secondPage.get("content")).isNotEmpty();
+        long prev = lastId;
+        for (JsonNode customer : secondPage.get("content")) {
+            assertThat(customer.get("id").asLong()).isGreaterThan(prev);
+            prev = customer.get("id").asLong();
+        }
+    }
+
+    @Test
+    @DisplayName("GET /api/customers/keyset — обход до конца видит всех клиентов")
+    void shouldWalkKeysetToTheEnd() {
+        // when — идём по курсорам, пока nextCursor не станет null
+        long seen = 0;
+        String cursor = "";
+        JsonNode page;
+        do {
+            page = restTemplate.getForEntity(
+                    "/api/customers/keyset?size=2000&count=EXACT&cursor=" + cursor, JsonNode.class).getBody();
+            seen += page.get("content").size();
+            cursor = page.get("nextCursor").asText();
+        } while (!page.get("nextCursor").isNull());
+
+        // then
+        assertThat(seen).isEqualTo(page.get("totalElements").asLong());
+    }
+
+    @Test
+    @DisplayName("GET /api/customers/keyset — 400 для некорректного курсора")
+    void shouldRejectInvalidCursor() {
+        // when
+        ResponseEntity<String> response = restTemplate.getForEntity(
+                "/api/customers/keyset?cursor=not-a-cursor", String.class);
+
+        // then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
     @Test
     @DisplayName("GET /api/customers/{id} — 500 для несуществующего клиента")
     void shouldReturn500ForNonExistentCustomer() {
@@ -82,6 +314,18 @@ class CustomerControllerIntegrationTest extends AbstractIntegrationTest {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    @ParameterizedTest(name = "{0}")
+    @EnumSource(ReadMode.class)
+    @DisplayName("GET /api/customers/{id}?strategy= — 500 для несуществующего клиента")
+    void shouldReturn500ForNonExistentCustomerWithStrategy(ReadMode strategy) {
+        // when
+        ResponseEntity<String> response = restTemplate.getForEntity(
+                "/api/customers/999999999?strategy=" + strategy, String.class);
+
+        // then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
     @Test
     @DisplayName("POST /api/generator/start + GET /api/generator/status через REST")
     void shouldStartAndReportStatusViaRest() {
@@ -122,6 +366,11 @@ class CustomerControllerIntegrationTest extends AbstractIntegrationTest {
         // then
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).contains("generator_batches_submitted_total");
+        // Пулы чтения и записи — с отдельными метриками Hikari
+        assertThat(response.getBody())
+                .contains("hikaricp_connections_max")
+                .contains("pool=\"reader\"")
+                .contains("pool=\"writer\"");
     }
 
     @Test
@@ -134,4 +383,22 @@ class CustomerControllerIntegrationTest extends AbstractIntegrationTest {
         // then
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
     }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", "customers").tag("result", result)
+                .functionCounter().count();
+    }
+
+    private static CustomerResponse sortedById(CustomerResponse c) {
+        List<CustomerResponse.OrderResponse> orders = c.orders().stream()
+                .map(o -> new CustomerResponse.OrderResponse(o.id(), o.orderNumber(), o.orderDate(), o.status(),
+                        o.totalAmount(), o.currency(), o.shippingAddress(), o.notes(), o.expectedDelivery(),
+                        o.items().stream()
+                                .sorted(Comparator.comparing(CustomerResponse.ItemResponse::id))
+                                .toList()))
+                .sorted(Comparator.comparing(CustomerResponse.OrderResponse::id))
+                .toList();
+        return new CustomerResponse(c.id(), c.firstName(), c.lastName(), c.email(), c.phone(), c.dateOfBirth(),
+                c.registeredAt(), c.status(), c.loyaltyPoints(), c.country(), c.profile(), orders);
+    }
 }
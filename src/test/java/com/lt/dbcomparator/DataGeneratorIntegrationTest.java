@@ -1,16 +1,28 @@
 package com.lt.dbcomparator;
 
+import com.lt.dbcomparator.dto.ExecutionMode;
+import com.lt.dbcomparator.dto.LoadPhase;
 import com.lt.dbcomparator.dto.LoadRequest;
 import com.lt.dbcomparator.dto.LoadStatusResponse;
+import com.lt.dbcomparator.dto.LoadStatusResponse.StopReason;
+import com.lt.dbcomparator.dto.OverflowPolicy;
+import com.lt.dbcomparator.dto.RateShape;
+import com.lt.dbcomparator.dto.WriteMode;
 import com.lt.dbcomparator.service.DataGeneratorService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.util.List;
+
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.awaitility.Awaitility.await;
 
 /**
@@ -24,6 +36,9 @@ class DataGeneratorIntegrationTest extends AbstractIntegrationTest {
         @Autowired
         private JdbcTemplate jdbcTemplate;
 
+        @Autowired
+        private MeterRegistry meterRegistry;
+
         @AfterEach
         void cleanup() {
                 generatorService.stop();
@@ -135,6 +150,346 @@ class DataGeneratorIntegrationTest extends AbstractIntegrationTest {
                 assertThat(orphanItems).isZero();
         }
 
+        @ParameterizedTest(name = "{0}")
+        @EnumSource(value = WriteMode.class, names = { "COPY", "CTE", "MULTI_VALUES", "JPA" })
+        @DisplayName("Альтернативные способы записи (COPY, CTE, MULTI_VALUES, JPA) пишут полный граф с корректными FK")
+        void shouldGenerateDataWithAlternativeWriteModes(WriteMode mode) {
+                // given
+                Long customersBefore = jdbcTemplate.queryForObject("SELECT count(*) FROM customers", Long.class);
+                LoadRequest request = LoadRequest.builder()
+                                .batchSize(10)
+                                .batchesPerSecond(1)
+                                .durationMinutes(1)
+                                .writeMode(mode)
+                                .build();
+
+                // when
+                generatorService.start(request);
+
+                await().atMost(10, SECONDS).untilAsserted(
+                                () -> assertThat(generatorService.getStatus().getBatchesCompleted())
+                                                .isGreaterThanOrEqualTo(1));
+                generatorService.stop();
+
+                // then
+                LoadStatusResponse status = generatorService.getStatus();
+                assertThat(status.getBatchesFailed()).isZero();
+                assertThat(status.getRecordsPerSecond()).isGreaterThan(0);
+                // строки по таблицам учитываются во всех режимах, и в записанных одним запросом/flush
+                assertThat(status.getTableRowsPerSecond())
+                                .containsOnlyKeys("customers", "customer_profiles", "orders", "order_items")
+                                .allSatisfy((table, rowsPerSecond) -> assertThat(rowsPerSecond).isGreaterThan(0));
+                // синтез — часть батча, его аллокации не могут превышать общие
+                assertThat(status.getAllocatedBytesPerBatch())
+                                .isGreaterThanOrEqualTo(status.getSynthesisAllocatedBytesPerBatch());
+
+                Long customersAfter = jdbcTemplate.queryForObject("SELECT count(*) FROM customers", Long.class);
+                assertThat(customersAfter).isGreaterThanOrEqualTo(customersBefore + 10);
+
+                // numeric/timestamp записаны корректно (бинарный поток COPY / вычисления в CTE)
+                Long brokenItems = jdbcTemplate.queryForObject(
+                                "SELECT count(*) FROM order_items " +
+                                                "WHERE total_price <> unit_price * quantity OR created_at IS NULL",
+                                Long.class);
+                assertThat(brokenItems).isZero();
+
+                Long orphanItems = jdbcTemplate.queryForObject(
+                                "SELECT count(*) FROM order_items oi " +
+                                                "LEFT JOIN orders o ON oi.order_id = o.id " +
+                                                "WHERE o.id IS NULL",
+                                Long.class);
+                assertThat(orphanItems).isZero();
+        }
+
+        @Test
+        @DisplayName("JPA пишет через пул writer, а не через пул чтения")
+        void shouldWriteJpaThroughWriterPool() {
+                // given
+                double writerBorrowsBefore = connectionBorrows("writer");
+                LoadRequest request = LoadRequest.builder()
+                                .batchSize(10)
+                                .batchesPerSecond(2)
+                                .durationMinutes(1)
+                                .writeMode(WriteMode.JPA)
+                                .build();
+
+                // when
+                generatorService.start(request);
+
+                await().atMost(10, SECONDS).untilAsserted(
+                                () -> assertThat(generatorService.getStatus().getBatchesCompleted())
+                                                .isGreaterThanOrEqualTo(2));
+                generatorService.stop();
+
+                // then — каждая транзакция батча брала соединение writer
+                LoadStatusResponse status = generatorService.getStatus();
+                assertThat(status.getBatchesFailed()).isZero();
+                assertThat(connectionBorrows("writer") - writerBorrowsBefore)
+                                .isGreaterThanOrEqualTo(status.getBatchesCompleted());
+        }
+
+        @Test
+        @DisplayName("Конвейер (PIPELINE) пишет батчи и показывает загрузку стадий")
+        void shouldGenerateDataInPipelineMode() {
+                // given
+                LoadRequest request = LoadRequest.builder()
+                                .batchSize(10)
+                                .batchesPerSecond(2)
+                                .durationMinutes(1)
+                                .executionMode(ExecutionMode.PIPELINE)
+                                .workerThreads(2)
+                                .synthesisThreads(1)
+                                .build();
+
+                // when
+                generatorService.start(request);
+
+                await().atMost(10, SECONDS).untilAsserted(
+                                () -> assertThat(generatorService.getStatus().getBatchesCompleted())
+                                                .isGreaterThanOrEqualTo(2));
+                generatorService.stop();
+
+                // then
+                LoadStatusResponse status = generatorService.getStatus();
+                assertThat(status.getBatchesFailed()).isZero();
+                assertThat(status.getQueueCapacity()).isEqualTo(4); // авто: 2× потоков записи
+                assertThat(status.getSynthesisUtilization()).isGreaterThan(0);
+                assertThat(status.getWriteUtilization()).isGreaterThan(0);
+        }
+
+        @Test
+        @DisplayName("VIRTUAL_THREADS: батч на виртуальном потоке, параллелизм ограничен maxInFlight")
+        void shouldGenerateDataOnVirtualThreads() {
+                // given
+                LoadRequest request = LoadRequest.builder()
+                                .batchSize(10)
+                                .batchesPerSecond(2)
+                                .durationMinutes(1)
+                                .executionMode(ExecutionMode.VIRTUAL_THREADS)
+                                .maxInFlight(3)
+                                .build();
+
+                // when
+                generatorService.start(request);
+
+                await().atMost(10, SECONDS).untilAsserted(
+                                () -> assertThat(generatorService.getStatus().getBatchesCompleted())
+                                                .isGreaterThanOrEqualTo(2));
+                generatorService.stop();
+
+                // then
+                LoadStatusResponse status = generatorService.getStatus();
+                assertThat(status.getBatchesFailed()).isZero();
+                assertThat(status.getConfig().getWorkerThreads()).isEqualTo(3); // min(maxInFlight, пул)
+                // виртуальные потоки аллокации не считают — замеров нет, а не нули
+                assertThat(status.getAllocatedBytesPerBatch()).isNull();
+                assertThat(status.getSynthesisAllocatedBytesPerBatch()).isNull();
+        }
+
+        @ParameterizedTest(name = "{0}")
+        @EnumSource(value = WriteMode.class, names = { "INSERT", "MULTI_VALUES", "CTE", "COPY" })
+        @DisplayName("PINNED_CONNECTIONS: соединение потока переиспользует prepared statements между батчами")
+        void shouldReuseStatementsOnPinnedConnections(WriteMode mode) {
+                // given — один воркер: все батчи на одном соединении
+                LoadRequest request = LoadRequest.builder()
+                                .batchSize(10)
+                                .batchesPerSecond(5)
+                                .durationMinutes(1)
+                                .writeMode(mode)
+                                .executionMode(ExecutionMode.PINNED_CONNECTIONS)
+                                .workerThreads(1)
+                                .build();
+
+                // when
+                generatorService.start(request);
+
+                await().atMost(10, SECONDS).untilAsserted(
+                                () -> assertThat(generatorService.getStatus().getBatchesCompleted())
+                                                .isGreaterThanOrEqualTo(3));
+                generatorService.stop();
+
+                // then
+                LoadStatusResponse status = generatorService.getStatus();
+                assertThat(status.getBatchesFailed()).isZero();
+                assertThat(status.getTotalRecords()).isPositive();
+                if (mode == WriteMode.COPY) {
+                        // COPY не готовит statement'ов — только закреплённое соединение
+                        assertThat(status.getStatementPrepares()).isZero();
+                } else {
+                        assertThat(status.getStatementCacheHits()).isGreaterThan(0);
+                        // batches >= 3, prepareThreshold = 1: со второго выполнения — без Parse
+                        assertThat(status.getServerStatementReuses()).isGreaterThan(0);
+                }
+                if (mode == WriteMode.INSERT) {
+                        // executeBatch считается по наборам параметров: ≥ 10 клиентов на батч
+                        assertThat(status.getServerStatementReuses())
+                                        .isGreaterThan(10 * status.getBatchesCompleted());
+                }
+        }
+
+        @Test
+        @DisplayName("BLOCK: батчи не пропускаются, latency считается от планового старта")
+        void shouldMeasureLatencyFromIntendedStartWithBlockPolicy() {
+                // given — один воркер, дробный темп
+                LoadRequest request = LoadRequest.builder()
+                                .batchSize(10)
+                                .batchesPerSecond(2.5)
+                                .durationMinutes(1)
+                                .workerThreads(1)
+                                .overflowPolicy(OverflowPolicy.BLOCK)
+                                .build();
+
+                // when
+                generatorService.start(request);
+
+                await().atMost(10, SECONDS).untilAsserted(
+                                () -> assertThat(generatorService.getStatus().getBatchesCompleted())
+                                                .isGreaterThanOrEqualTo(3));
+                generatorService.stop();
+
+                // then
+                LoadStatusResponse status = generatorService.getStatus();
+                assertThat(status.getBatchesDropped()).isZero();
+                assertThat(status.getLatencyP50Ms()).isGreaterThan(0);
+                assertThat(status.getLatencyMaxMs()).isGreaterThanOrEqualTo(status.getLatencyP99Ms());
+        }
+
+        @Test
+        @DisplayName("Профиль: фазы идут по очереди, прогон заканчивается с последней фазой")
+        void shouldFollowLoadProfile() {
+                // given — 2 сек по 2 батча/сек, затем 2 сек всплеска до 10 батчей/сек на первую секунду
+                LoadRequest request = LoadRequest.builder()
+                                .batchSize(5)
+                                .profile(List.of(
+                                                LoadPhase.builder().durationSeconds(2).rate(2).build(),
+                                                LoadPhase.builder().name("burst").durationSeconds(2)
+                                                                .shape(RateShape.SPIKE).rate(0).peakRate(10)
+                                                                .spikeSeconds(1).batchSize(10).build()))
+                                .build();
+
+                // when
+                generatorService.start(request);
+
+                await().atMost(5, SECONDS).untilAsserted(() -> {
+                        LoadStatusResponse status = generatorService.getStatus();
+                        assertThat(status.getPhaseIndex()).isZero();
+                        assertThat(status.getPhase()).isEqualTo("phase-1");
+                        assertThat(status.getTargetBatchesPerSecond()).isEqualTo(2.0);
+                });
+                await().atMost(15, SECONDS).until(() -> !generatorService.getStatus().isRunning());
+
+                // then — 4 батча первой фазы + 10 всплеска, с допуском на границы секунд
+                LoadStatusResponse status = generatorService.getStatus();
+                assertThat(status.getStopReason()).isEqualTo(StopReason.PROFILE_END);
+                assertThat(status.getPhase()).isEqualTo("burst");
+                assertThat(status.getPhaseIndex()).isEqualTo(1);
+                assertThat(status.getBatchesSubmitted() + status.getBatchesDropped()).isBetween(12L, 16L);
+                assertThat(status.getBatchesFailed()).isZero();
+                assertThat(status.getConfig().getProfile().get(0).getShape()).isEqualTo(RateShape.CONSTANT);
+                assertThat(status.getConfig().getProfile().get(0).getBatchSize()).isEqualTo(5);
+        }
+
+        @Test
+        @DisplayName("Остановка по maxBatches и maxRecords без durationMinutes")
+        void shouldStopOnBatchAndRecordLimits() {
+                // given
+                LoadRequest byBatches = LoadRequest.builder()
+                                .batchSize(5)
+                                .batchesPerSecond(5)
+                                .maxBatches(3)
+                                .build();
+
+                // when
+                generatorService.start(byBatches);
+                await().atMost(10, SECONDS).until(() -> !generatorService.getStatus().isRunning());
+
+                // then — ровно 3 отправлено, все дописаны
+                LoadStatusResponse status = generatorService.getStatus();
+                assertThat(status.getStopReason()).isEqualTo(StopReason.MAX_BATCHES);
+                assertThat(status.getBatchesSubmitted()).isEqualTo(3);
+                assertThat(status.getBatchesCompleted()).isEqualTo(3);
+
+                // given — одного батча хватает на 1 запись
+                LoadRequest byRecords = LoadRequest.builder()
+                                .batchSize(5)
+                                .batchesPerSecond(2)
+                                .maxRecords(1)
+                                .build();
+
+                // when
+                generatorService.start(byRecords);
+                await().atMost(10, SECONDS).until(() -> !generatorService.getStatus().isRunning());
+
+                // then
+                status = generatorService.getStatus();
+                assertThat(status.getStopReason()).isEqualTo(StopReason.MAX_RECORDS);
+                assertThat(status.getTotalRecords()).isGreaterThanOrEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Ручная остановка и некорректные условия остановки / профиль")
+        void shouldValidateStopConditionsAndProfile() {
+                assertThatThrownBy(() -> generatorService.start(
+                                LoadRequest.builder().batchSize(5).batchesPerSecond(1).build()))
+                                .isInstanceOf(IllegalArgumentException.class)
+                                .hasMessageContaining("условие остановки");
+                assertThatThrownBy(() -> generatorService.start(LoadRequest.builder()
+                                .batchSize(5)
+                                .batchesPerSecond(1)
+                                .profile(List.of(LoadPhase.builder().durationSeconds(5).rate(1).build()))
+                                .build()))
+                                .isInstanceOf(IllegalArgumentException.class)
+                                .hasMessageContaining("profile");
+                assertThatThrownBy(() -> generatorService.start(LoadRequest.builder()
+                                .batchSize(5)
+                                .profile(List.of(LoadPhase.builder().durationSeconds(5)
+                                                .shape(RateShape.STEP).rate(1).peakRate(4).steps(1).build()))
+                                .build()))
+                                .isInstanceOf(IllegalArgumentException.class)
+                                .hasMessageContaining("profile[0].steps");
+
+                generatorService.start(LoadRequest.builder().batchSize(5).batchesPerSecond(1).durationMinutes(1).build());
+                generatorService.stop();
+                assertThat(generatorService.getStatus().getStopReason()).isEqualTo(StopReason.MANUAL);
+                assertThat(generatorService.getStatus().getPhaseIndex()).isEqualTo(-1);
+        }
+
+        @Test
+        @DisplayName("Воркеров больше, чем соединений в пуле writer, — запуск отклоняется")
+        void shouldRejectMoreWorkersThanWriterPool() {
+                assertThatThrownBy(() -> generatorService.start(LoadRequest.builder()
+                                .batchSize(5)
+                                .batchesPerSecond(1)
+                                .durationMinutes(1)
+                                .workerThreads(1000)
+                                .build()))
+                                .isInstanceOf(IllegalArgumentException.class)
+                                .hasMessageContaining("pools.writer.maximum-pool-size");
+                assertThat(generatorService.getStatus().isRunning()).isFalse();
+        }
+
+        @Test
+        @DisplayName("PINNED_CONNECTIONS не поддерживает JPA")
+        void shouldRejectJpaOnPinnedConnections() {
+                // given
+                LoadRequest request = LoadRequest.builder()
+                                .batchSize(10)
+                                .batchesPerSecond(1)
+                                .durationMinutes(1)
+                                .writeMode(WriteMode.JPA)
+                                .executionMode(ExecutionMode.PINNED_CONNECTIONS)
+                                .build();
+
+                // when / then
+                assertThatThrownBy(() -> generatorService.start(request))
+                                .isInstanceOf(IllegalArgumentException.class)
+                                .hasMessageContaining("PINNED_CONNECTIONS");
+        }
+
+        private double connectionBorrows(String pool) {
+                return meterRegistry.get("hikaricp.connections.usage").tag("pool", pool).timer().count();
+        }
+
         private void assertTableNotEmpty(String tableName) {
                 Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM " + tableName, Long.class);
                 assertThat(count).as("Table '%s' should not be empty", tableName).isGreaterThan(0);
@@ -0,0 +1,125 @@
+package com.lt.dbcomparator;
+
+import com.lt.dbcomparator.service.IdBlockAllocator;
+import com.lt.dbcomparator.service.generator.GeneratorMetrics;
+import com.lt.dbcomparator.service.target.ConnectionPools;
+import com.lt.dbcomparator.service.target.DbTarget;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тест клиентского аллокатора ID: блоки резервируются у sequence и не
+ * пересекаются ни между аллокаторами (репликами), ни с nextval других
+ * писателей.
+ */
+class IdBlockAllocatorIntegrationTest extends AbstractIntegrationTest {
+
+    private static final String TABLE = GeneratorMetrics.ORDER_ITEMS;
+
+    @Autowired
+    private ConnectionPools pools;
+
+    @Test
+    @DisplayName("ID раздаются подряд из блока, исчерпанный блок сменяется новым")
+    void shouldStepToNextBlock() {
+        // given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        IdBlockAllocator allocator = allocator(pools.admin(), meterRegistry, 100);
+
+        // when
+        long first = allocator.allocate(TABLE, 60);
+        long second = allocator.allocate(TABLE, 30);
+        long third = allocator.allocate(TABLE, 30); // в блоке осталось 10
+        long large = allocator.allocate(TABLE, 250); // больше блока — отдельный блок под запрос
+
+        // then
+        assertThat(second).isEqualTo(first + 60);
+        assertThat(third).isGreaterThanOrEqualTo(first + 100);
+        assertThat(large).isGreaterThanOrEqualTo(third + 100);
+        assertThat(meterRegistry.get("generator.id.blocks.reserved").tag("table", TABLE).counter().count())
+                .isEqualTo(3);
+        Long lastValue = pools.admin().jdbcTemplate().queryForObject(
+                "SELECT last_value FROM " + sequence(), Long.class);
+        assertThat(lastValue).isGreaterThanOrEqualTo(large + 250 - 1);
+    }
+
+    @Test
+    @DisplayName("Два аллокатора и nextval-писатель параллельно — диапазоны ID не пересекаются")
+    void shouldReserveDisjointRangesAcrossAllocators() throws Exception {
+        // given — два аллокатора, как у двух реплик, маленькие блоки — частое резервирование
+        IdBlockAllocator replicaA = allocator(pools.admin(), new SimpleMeterRegistry(), 50);
+        IdBlockAllocator replicaB = allocator(pools.writer(), new SimpleMeterRegistry(), 50);
+        Queue<long[]> ranges = new ConcurrentLinkedQueue<>();
+        Queue<Long> nextvalIds = new ConcurrentLinkedQueue<>();
+        DbTarget writer = pools.writer();
+        String nextvalSql = "SELECT nextval('" + sequence() + "')";
+
+        // when
+        ExecutorService pool = Executors.newFixedThreadPool(6);
+        List<Future<?>> futures = new ArrayList<>();
+        for (IdBlockAllocator allocator : List.of(replicaA, replicaB)) {
+            for (int t = 0; t < 2; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 300; i++) {
+                        int count = ThreadLocalRandom.current().nextInt(1, 21);
+                        long first = allocator.allocate(TABLE, count);
+                        ranges.add(new long[]{first, first + count});
+                    }
+                }));
+            }
+        }
+        // Писатель, как режим CTE: nextval под shared-блокировкой в своей транзакции
+        for (int t = 0; t < 2; t++) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < 200; i++) {
+                    nextvalIds.add(writer.transactionTemplate().execute(status -> {
+                        writer.jdbcTemplate().queryForObject(IdBlockAllocator.NEXTVAL_LOCK_SQL, Long.class);
+                        return writer.jdbcTemplate().queryForObject(nextvalSql, Long.class);
+                    }));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, SECONDS);
+        }
+        pool.shutdown();
+
+        // then — после сортировки каждый диапазон начинается не раньше конца предыдущего
+        for (long id : nextvalIds) {
+            ranges.add(new long[]{id, id + 1});
+        }
+        List<long[]> sorted = new ArrayList<>(ranges);
+        sorted.sort(Comparator.comparingLong(range -> range[0]));
+        assertThat(sorted).hasSize(4 * 300 + 2 * 200);
+        for (int i = 1; i < sorted.size(); i++) {
+            assertThat(sorted.get(i)[0])
+                    .as("диапазон [%d, %d) пересекается с [%d, %d)", sorted.get(i)[0], sorted.get(i)[1],
+                            sorted.get(i - 1)[0], sorted.get(i - 1)[1])
+                    .isGreaterThanOrEqualTo(sorted.get(i - 1)[1]);
+        }
+    }
+
+    private static IdBlockAllocator allocator(DbTarget target, SimpleMeterRegistry meterRegistry, long blockSize) {
+        return new IdBlockAllocator(target.jdbcTemplate(), target.transactionManager(), meterRegistry, blockSize);
+    }
+
+    private String sequence() {
+        return pools.admin().jdbcTemplate().queryForObject(
+                "SELECT pg_get_serial_sequence(?, 'id')", String.class, TABLE);
+    }
+}
@@ -0,0 +1,178 @@
+package com.lt.dbcomparator;
+
+import com.lt.dbcomparator.dto.CompareRequest;
+import com.lt.dbcomparator.dto.LoadRequest;
+import com.lt.dbcomparator.dto.PrefillRequest;
+import com.lt.dbcomparator.dto.PrefillStatusResponse;
+import com.lt.dbcomparator.dto.PrefillStatusResponse.Phase;
+import com.lt.dbcomparator.dto.PrefillStatusResponse.PhaseResult;
+import com.lt.dbcomparator.dto.WriteMode;
+import com.lt.dbcomparator.service.CompareService;
+import com.lt.dbcomparator.service.DataGeneratorService;
+import com.lt.dbcomparator.service.prefill.PrefillService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Тест предзаполнения: параллельная запись кусками, снятие и восстановление
+ * индексов и ключей, возобновление после остановки.
+ */
+class PrefillIntegrationTest extends AbstractIntegrationTest {
+
+    // Hibernate (create-drop) называет свои ключи FK..., поэтому ключ под шаблон fk_item_% — свой
+    private static final String TEST_FK = "fk_item_order_prefill";
+
+    @Autowired
+    private PrefillService prefillService;
+
+    @Autowired
+    private DataGeneratorService generatorService;
+
+    @Autowired
+    private CompareService compareService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void addForeignKey() {
+        jdbcTemplate.execute("ALTER TABLE order_items DROP CONSTRAINT IF EXISTS " + TEST_FK);
+        jdbcTemplate.execute("ALTER TABLE order_items ADD CONSTRAINT " + TEST_FK +
+                " FOREIGN KEY (order_id) REFERENCES orders (id)");
+    }
+
+    @AfterEach
+    void cleanup() {
+        prefillService.stop();
+        generatorService.stop();
+    }
+
+    @Test
+    @DisplayName("Предзаполнение пишет заданное число клиентов и восстанавливает индексы и ключи")
+    void shouldPrefillAndRebuildConstraints() {
+        // given
+        long customersBefore = count("customers");
+        PrefillRequest request = PrefillRequest.builder()
+                .customers(2_000)
+                .batchSize(100)
+                .threads(4)
+                .seed(42L)
+                .build();
+
+        // when
+        prefillService.start(request);
+        await().atMost(60, SECONDS).until(() -> !prefillService.getStatus().isRunning());
+
+        // then
+        PrefillStatusResponse status = prefillService.getStatus();
+        assertThat(status.getError()).isNull();
+        assertThat(status.isFinished()).isTrue();
+        assertThat(status.getChunksTotal()).isEqualTo(20);
+        assertThat(status.getChunksDone()).isEqualTo(20);
+        assertThat(status.getConfig().getWriteMode()).isEqualTo(WriteMode.COPY);
+        assertThat(status.getTableRows()).containsEntry("customers", 2_000L).containsEntry("customer_profiles", 2_000L);
+        assertThat(count("customers") - customersBefore).isEqualTo(2_000);
+        assertThat(count("prefill_chunks WHERE job_id = " + status.getJobId())).isEqualTo(20);
+
+        assertThat(status.getPhases()).extracting(PhaseResult::phase).containsExactly(
+                Phase.DEFER, Phase.LOAD, Phase.REBUILD_INDEXES, Phase.REBUILD_FOREIGN_KEYS, Phase.ANALYZE);
+        assertThat(status.getPhases().get(1).tableRowsPerSecond())
+                .containsKeys("customers", "customer_profiles", "orders", "order_items")
+                .allSatisfy((table, rate) -> assertThat(rate).isPositive());
+        assertThat(status.getPhases().get(2).steps()).extracting(PrefillStatusResponse.Step::name)
+                .contains("idx_item_order", "idx_order_status");
+        assertThat(status.getPhases().get(3).steps()).extracting(PrefillStatusResponse.Step::name)
+                .containsExactly(TEST_FK);
+        assertThat(status.getDeferred()).isEmpty();
+
+        assertThat(indexExists("idx_item_order")).isTrue();
+        assertThat(indexExists("idx_order_date")).isTrue();
+        assertThat(count("pg_constraint WHERE conname = '" + TEST_FK + "'")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Остановленное задание возобновляется с недописанных кусков")
+    void shouldResumeStoppedJob() {
+        // given — задание остановлено посреди загрузки
+        long customersBefore = count("customers");
+        prefillService.start(PrefillRequest.builder()
+                .customers(20_000)
+                .batchSize(50)
+                .threads(2)
+                .writeMode(WriteMode.INSERT)
+                .build());
+        await().atMost(30, SECONDS).until(() -> prefillService.getStatus().getChunksDone() >= 10);
+        prefillService.stop();
+
+        PrefillStatusResponse stopped = prefillService.getStatus();
+        assertThat(stopped.isRunning()).isFalse();
+        assertThat(stopped.isFinished()).isFalse();
+        assertThat(stopped.getChunksDone()).isLessThan(400);
+        assertThat(stopped.getDeferred()).contains("idx_item_order", TEST_FK);
+        assertThat(indexExists("idx_item_order")).isFalse();
+        // Новое задание не стартует, пока незавершённое держит индексы снятыми
+        assertThatThrownBy(() -> prefillService.start(PrefillRequest.builder().customers(10).build()))
+                .isInstanceOf(IllegalStateException.class);
+        // ...и генератор со сравнением тоже: писали бы в таблицы без индексов
+        LoadRequest load = LoadRequest.builder().batchSize(5).batchesPerSecond(1).durationMinutes(1).build();
+        assertThatThrownBy(() -> generatorService.start(load))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining(String.valueOf(stopped.getJobId()));
+        assertThatThrownBy(() -> compareService.start(CompareRequest.builder().load(load).build()))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(generatorService.getStatus().isRunning()).isFalse();
+
+        // when
+        prefillService.resume(4);
+        await().atMost(120, SECONDS).until(() -> !prefillService.getStatus().isRunning());
+
+        // then
+        PrefillStatusResponse status = prefillService.getStatus();
+        assertThat(status.getError()).isNull();
+        assertThat(status.isFinished()).isTrue();
+        assertThat(status.getJobId()).isEqualTo(stopped.getJobId());
+        assertThat(status.getChunksResumed()).isEqualTo(stopped.getChunksDone());
+        assertThat(status.getChunksDone()).isEqualTo(400);
+        assertThat(status.getTableRows().get("customers"))
+                .isEqualTo(20_000 - stopped.getChunksDone() * 50);
+        assertThat(count("customers") - customersBefore).isEqualTo(20_000);
+        assertThat(indexExists("idx_item_order")).isTrue();
+        assertThat(count("pg_constraint WHERE conname = '" + TEST_FK + "'")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Неверные параметры и запуск при работающем генераторе отклоняются")
+    void shouldRejectInvalidRequests() {
+        assertThatThrownBy(() -> prefillService.start(PrefillRequest.builder().customers(0).build()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> prefillService.start(PrefillRequest.builder()
+                .customers(100).writeMode(WriteMode.CTE).build()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> prefillService.start(PrefillRequest.builder()
+                .customers(100).threads(10_000).build()))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        generatorService.start(LoadRequest.builder().batchSize(5).batchesPerSecond(1).durationMinutes(1).build());
+        assertThatThrownBy(() -> prefillService.start(PrefillRequest.builder().customers(100).build()))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(prefillService.getStatus().isRunning()).isFalse();
+    }
+
+    private long count(String from) {
+        Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM " + from, Long.class);
+        return count != null ? count : 0;
+    }
+
+    private boolean indexExists(String name) {
+        return count("pg_indexes WHERE indexname = '" + name + "'") > 0;
+    }
+}
@@ -0,0 +1,119 @@
+package com.lt.dbcomparator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.lt.dbcomparator.dto.CustomerResponse;
+import com.lt.dbcomparator.dto.LoadRequest;
+import com.lt.dbcomparator.service.DataGeneratorService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Тест R2DBC-варианта чтения клиентов — ответы совпадают с блокирующим
+ * /api/customers на той же БД.
+ */
+class ReactiveCustomerIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private DataGeneratorService generatorService;
+
+    @BeforeEach
+    void generateData() {
+        if (generatorService.getStatus().getTotalRecords() == 0) {
+            generatorService.start(LoadRequest.builder()
+                    .batchSize(10)
+                    .batchesPerSecond(1)
+                    .durationMinutes(1)
+                    .build());
+
+            await().atMost(10, SECONDS).untilAsserted(
+                    () -> assertThat(generatorService.getStatus().getBatchesCompleted()).isGreaterThanOrEqualTo(1));
+            generatorService.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("GET /api/reactive/customers/{id} — тот же граф, что у блокирующего JSON_AGG")
+    void shouldReturnSameGraphAsBlockingPath() {
+        // given
+        long id = firstCustomerId();
+
+        // when
+        CustomerResponse expected = restTemplate.getForObject(
+                "/api/customers/" + id + "?strategy=JSON_AGG", CustomerResponse.class);
+        ResponseEntity<CustomerResponse> response = restTemplate.getForEntity(
+                "/api/reactive/customers/" + id, CustomerResponse.class);
+
+        // then — SQL один и тот же, порядок заказов и позиций тоже
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(expected);
+    }
+
+    @Test
+    @DisplayName("GET /api/reactive/customers/{id}/raw — JSON из БД байтами")
+    void shouldReturnRawJson() {
+        // given
+        long id = firstCustomerId();
+
+        // when
+        JsonNode blocking = restTemplate.getForObject("/api/customers/" + id + "/raw?stripNulls=true", JsonNode.class);
+        ResponseEntity<JsonNode> reactive = restTemplate.getForEntity(
+                "/api/reactive/customers/" + id + "/raw?stripNulls=true", JsonNode.class);
+
+        // then
+        assertThat(reactive.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(reactive.getBody()).isEqualTo(blocking);
+    }
+
+    @Test
+    @DisplayName("GET /api/reactive/customers/keyset — те же страницы и курсоры")
+    void shouldWalkSameKeysetPages() {
+        // when
+        JsonNode blocking = restTemplate.getForObject("/api/customers/keyset?size=3&count=EXACT", JsonNode.class);
+        JsonNode reactive = restTemplate.getForObject("/api/reactive/customers/keyset?size=3&count=EXACT",
+                JsonNode.class);
+
+        // then
+        assertThat(reactive).isEqualTo(blocking);
+
+        // when — следующая страница по курсору
+        String cursor = reactive.get("nextCursor").asText();
+        JsonNode next = restTemplate.getForObject(
+                "/api/reactive/customers/keyset?size=3&count=ESTIMATE&cursor=" + cursor, JsonNode.class);
+
+        // then — продолжает строго после последнего ID
+        assertThat(next.get("content")).isNotEmpty();
+        assertThat(next.get("content").get(0).get("id").asLong())
+                .isGreaterThan(reactive.get("content").get(2).get("id").asLong());
+        assertThat(next.get("totalElements").asLong()).isPositive();
+    }
+
+    @Test
+    @DisplayName("R2DBC: 500 для несуществующего клиента, 400 для некорректного курсора")
+    void shouldReportErrorsLikeBlockingPath() {
+        // when
+        ResponseEntity<String> missing = restTemplate.getForEntity("/api/reactive/customers/999999999", String.class);
+        ResponseEntity<String> badCursor = restTemplate.getForEntity(
+                "/api/reactive/customers/keyset?cursor=not-a-cursor", String.class);
+
+        // then
+        assertThat(missing.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+        assertThat(badCursor.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    private long firstCustomerId() {
+        JsonNode page = restTemplate.getForObject("/api/customers/keyset?size=1", JsonNode.class);
+        return page.get("content").get(0).get("id").asLong();
+    }
+}
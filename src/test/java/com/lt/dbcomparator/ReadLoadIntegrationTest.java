@@ -0,0 +1,134 @@
+package com.lt.dbcomparator;
+
+import com.lt.dbcomparator.dto.KeyDistribution;
+import com.lt.dbcomparator.dto.LoadRequest;
+import com.lt.dbcomparator.dto.ReadLoadRequest;
+import com.lt.dbcomparator.dto.ReadLoadStatusResponse;
+import com.lt.dbcomparator.dto.ReadMode;
+import com.lt.dbcomparator.dto.ResponseFormat;
+import com.lt.dbcomparator.service.DataGeneratorService;
+import com.lt.dbcomparator.service.ReadLoadService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Тест нагрузки на чтение — ключи берутся из ID, записанных генератором.
+ */
+class ReadLoadIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private ReadLoadService readLoadService;
+
+    @Autowired
+    private DataGeneratorService generatorService;
+
+    @BeforeEach
+    void generateData() {
+        LoadRequest request = LoadRequest.builder()
+                .batchSize(10)
+                .batchesPerSecond(2)
+                .durationMinutes(1)
+                .build();
+        generatorService.start(request);
+
+        await().atMost(10, SECONDS).untilAsserted(
+                () -> assertThat(generatorService.getStatus().getBatchesCompleted()).isGreaterThanOrEqualTo(2));
+        generatorService.stop();
+    }
+
+    @AfterEach
+    void cleanup() {
+        readLoadService.stop();
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @EnumSource(KeyDistribution.class)
+    @DisplayName("Чтение по записанным генератором ID не промахивается мимо клиентов")
+    void shouldReadOnlyExistingCustomers(KeyDistribution distribution) {
+        // given
+        ReadLoadRequest request = ReadLoadRequest.builder()
+                .requestsPerSecond(50)
+                .durationMinutes(1)
+                .concurrency(4)
+                .distribution(distribution)
+                .getByIdRatio(0.8)
+                .build();
+
+        // when
+        readLoadService.start(request);
+
+        await().atMost(10, SECONDS).untilAsserted(
+                () -> assertThat(readLoadService.getStatus().getOperations().get("get_by_id").success())
+                        .isGreaterThanOrEqualTo(20));
+        readLoadService.stop();
+
+        // then
+        ReadLoadStatusResponse status = readLoadService.getStatus();
+        assertThat(status.getTrackedIds()).isGreaterThanOrEqualTo(20);
+        assertThat(status.getOperations()).allSatisfy((operation, stats) -> {
+            assertThat(stats.notFound()).as("notFound для %s", operation).isZero();
+            assertThat(stats.errors()).as("errors для %s", operation).isZero();
+        });
+        assertThat(status.getOperations().get("get_by_id").p99Ms()).isGreaterThan(0);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @EnumSource(ResponseFormat.class)
+    @DisplayName("getById в обоих форматах ответа читает без ошибок")
+    void shouldReadInEveryResponseFormat(ResponseFormat format) {
+        // given
+        ReadLoadRequest request = ReadLoadRequest.builder()
+                .requestsPerSecond(50)
+                .durationMinutes(1)
+                .concurrency(4)
+                .responseFormat(format)
+                .build();
+
+        // when
+        readLoadService.start(request);
+
+        await().atMost(10, SECONDS).untilAsserted(
+                () -> assertThat(readLoadService.getStatus().getOperations().get("get_by_id").success())
+                        .isGreaterThanOrEqualTo(20));
+        readLoadService.stop();
+
+        // then
+        ReadLoadStatusResponse.OperationStats stats = readLoadService.getStatus().getOperations().get("get_by_id");
+        assertThat(stats.notFound()).isZero();
+        assertThat(stats.errors()).isZero();
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @EnumSource(ReadMode.class)
+    @DisplayName("getById каждой стратегией чтения графа читает без ошибок")
+    void shouldReadWithEveryReadStrategy(ReadMode strategy) {
+        // given
+        ReadLoadRequest request = ReadLoadRequest.builder()
+                .requestsPerSecond(50)
+                .durationMinutes(1)
+                .concurrency(4)
+                .readStrategy(strategy)
+                .build();
+
+        // when
+        readLoadService.start(request);
+
+        await().atMost(10, SECONDS).untilAsserted(
+                () -> assertThat(readLoadService.getStatus().getOperations().get("get_by_id").success())
+                        .isGreaterThanOrEqualTo(20));
+        readLoadService.stop();
+
+        // then
+        ReadLoadStatusResponse.OperationStats stats = readLoadService.getStatus().getOperations().get("get_by_id");
+        assertThat(stats.notFound()).isZero();
+        assertThat(stats.errors()).isZero();
+    }
+}
@@ -0,0 +1,175 @@
+package com.lt.dbcomparator;
+
+import com.lt.dbcomparator.dto.LoadRequest;
+import com.lt.dbcomparator.dto.LoadStatusResponse;
+import com.lt.dbcomparator.dto.RunComparisonResponse;
+import com.lt.dbcomparator.dto.RunComparisonResponse.MetricComparison;
+import com.lt.dbcomparator.dto.RunComparisonResponse.Verdict;
+import com.lt.dbcomparator.dto.RunRecord;
+import com.lt.dbcomparator.service.DataGeneratorService;
+import com.lt.dbcomparator.service.history.RunHistoryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Тест истории прогонов: сохранение прогона генератора и сравнение прогонов.
+ */
+class RunHistoryIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private DataGeneratorService generatorService;
+
+    @Autowired
+    private RunHistoryService runHistory;
+
+    @AfterEach
+    void cleanup() {
+        generatorService.stop();
+    }
+
+    @Test
+    @DisplayName("Остановленный прогон сохраняется с параметрами, окружением, итогами и окнами")
+    void shouldSaveRunOnStop() {
+        // given
+        LoadRequest request = LoadRequest.builder()
+                .batchSize(10)
+                .batchesPerSecond(5)
+                .durationMinutes(1)
+                .workerThreads(2)
+                .build();
+
+        // when — окна по 1с (AbstractIntegrationTest), ждём хотя бы два
+        generatorService.start(request);
+        await().atMost(15, SECONDS).until(() -> generatorService.getStatus().getBatchesCompleted() >= 12);
+        generatorService.stop();
+
+        // then
+        LoadStatusResponse status = generatorService.getStatus();
+        RunRecord listed = runHistory.list(1).get(0);
+        assertThat(listed.getSamples()).isNull();
+        RunRecord run = runHistory.get(listed.getId()).orElseThrow();
+
+        assertThat(run.getFinishedAt()).isAfter(run.getStartedAt());
+        assertThat(run.getConfig().getBatchSize()).isEqualTo(10);
+        assertThat(run.getConfig().getWriteMode()).isEqualTo(request.getWriteMode());
+        assertThat(run.getEnvironment().dbVersion()).startsWith("16");
+        assertThat(run.getEnvironment().poolSize()).isPositive();
+        assertThat(run.getEnvironment().workerThreads()).isEqualTo(2);
+
+        RunRecord.Summary summary = run.getSummary();
+        assertThat(summary.totalRecords()).isEqualTo(status.getTotalRecords());
+        assertThat(summary.batchesCompleted()).isEqualTo(status.getBatchesCompleted());
+        assertThat(summary.batchesFailed()).isZero();
+        assertThat(summary.latencyP99Ms()).isGreaterThan(0);
+        assertThat(summary.stages()).containsKeys("id_allocation.customers", "write.order_items", "commit.all");
+
+        assertThat(run.getSamples()).hasSizeGreaterThanOrEqualTo(2);
+        assertThat(run.getSamples()).anySatisfy(s -> {
+            assertThat(s.recordsPerSecond()).isGreaterThan(0);
+            assertThat(s.batches()).isPositive();
+        });
+    }
+
+    @Test
+    @DisplayName("Падение скорости и рост p99 распознаются как регрессия, шум — нет")
+    void shouldFlagSignificantRegression() {
+        // given — базовый прогон ~1000 записей/с и p99 ~20мс
+        long baseline = runHistory.save(syntheticRun(1000, 20, 1));
+        long noise = runHistory.save(syntheticRun(1000, 20, 2));
+        long slower = runHistory.save(syntheticRun(800, 30, 3));
+        runHistory.markBaseline(baseline);
+
+        // when
+        RunComparisonResponse same = runHistory.compare(null, noise);
+        RunComparisonResponse worse = runHistory.compare(null, slower);
+        RunComparisonResponse better = runHistory.compare(slower, baseline);
+
+        // then
+        assertThat(same.getBaselineId()).isEqualTo(baseline);
+        assertThat(same.isRegression()).isFalse();
+        assertThat(same.getMetrics()).extracting(MetricComparison::verdict).containsOnly(Verdict.NO_CHANGE);
+
+        assertThat(worse.isRegression()).isTrue();
+        assertThat(worse.getMetrics()).allSatisfy(m -> {
+            assertThat(m.verdict()).as(m.metric()).isEqualTo(Verdict.REGRESSION);
+            assertThat(m.pValue()).isLessThan(0.001);
+        });
+        assertThat(worse.getMetrics()).filteredOn(m -> m.metric().equals("recordsPerSecond"))
+                .singleElement()
+                .satisfies(m -> assertThat(m.deltaPercent()).isCloseTo(-20.0, offset(2.0)));
+
+        assertThat(better.isRegression()).isFalse();
+        assertThat(better.getMetrics()).extracting(MetricComparison::verdict).containsOnly(Verdict.IMPROVEMENT);
+    }
+
+    @Test
+    @DisplayName("Сравнение показывает различия параметров и окружения; мало окон — INSUFFICIENT_DATA")
+    void shouldReportChangesAndInsufficientData() {
+        // given
+        RunRecord a = syntheticRun(1000, 20, 4);
+        RunRecord b = syntheticRun(1000, 20, 5);
+        b.getConfig().setBatchSize(200);
+        b.setEnvironment(new RunRecord.Environment("17.0", "demo", 20, 4, 0, 8, "21"));
+        b.setSamples(b.getSamples().subList(0, 1));
+        long baseline = runHistory.save(a);
+        long candidate = runHistory.save(b);
+
+        // when
+        RunComparisonResponse response = runHistory.compare(baseline, candidate);
+
+        // then
+        assertThat(response.getConfigChanges()).containsExactly("batchSize: 100 → 200");
+        assertThat(response.getEnvironmentChanges()).containsExactly("dbVersion: 16.4 → 17.0");
+        assertThat(response.getMetrics()).extracting(MetricComparison::verdict)
+                .containsOnly(Verdict.INSUFFICIENT_DATA);
+        assertThat(response.isRegression()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Сравнение с несуществующим прогоном или с самим собой отклоняется")
+    void shouldRejectInvalidComparison() {
+        long id = runHistory.save(syntheticRun(1000, 20, 6));
+
+        assertThatThrownBy(() -> runHistory.compare(id, Long.MAX_VALUE)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> runHistory.compare(id, id)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> runHistory.markBaseline(Long.MAX_VALUE)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Прогон из 30 окон: скорость и p99 с разбросом ±2%.
+     */
+    private static RunRecord syntheticRun(double recordsPerSecond, double p99Ms, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<RunRecord.Sample> samples = new ArrayList<>();
+        for (int i = 1; i <= 30; i++) {
+            samples.add(new RunRecord.Sample(i * 10.0,
+                    recordsPerSecond * (1 + random.nextDouble(-0.02, 0.02)),
+                    p99Ms * (1 + random.nextDouble(-0.02, 0.02)),
+                    100));
+        }
+        Instant started = Instant.now().minusSeconds(300);
+        return RunRecord.builder()
+                .startedAt(started)
+                .finishedAt(started.plusSeconds(300))
+                .config(LoadRequest.builder().batchSize(100).batchesPerSecond(10).durationMinutes(5).build())
+                .environment(new RunRecord.Environment("16.4", "demo", 20, 4, 0, 8, "21"))
+                .summary(new RunRecord.Summary(300_000, 3000, 3000, 0, 0, 0, recordsPerSecond, Map.of(),
+                        p99Ms / 2, p99Ms, p99Ms * 1.5, p99Ms * 2, Map.of()))
+                .samples(samples)
+                .build();
+    }
+}